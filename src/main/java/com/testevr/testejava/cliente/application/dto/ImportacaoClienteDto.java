@@ -0,0 +1,30 @@
+package com.testevr.testejava.cliente.application.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportacaoClienteDto {
+    private Integer totalLinhas;
+    private Integer inseridos;
+    private Integer atualizados;
+    private List<RejeicaoImportacaoDto> rejeitados = new ArrayList<>();
+
+    public ImportacaoClienteDto() {}
+
+    public ImportacaoClienteDto(Integer inseridos, Integer atualizados) {
+        this.inseridos = inseridos;
+        this.atualizados = atualizados;
+    }
+
+    public Integer getTotalLinhas() { return totalLinhas; }
+    public void setTotalLinhas(Integer totalLinhas) { this.totalLinhas = totalLinhas; }
+
+    public Integer getInseridos() { return inseridos; }
+    public void setInseridos(Integer inseridos) { this.inseridos = inseridos; }
+
+    public Integer getAtualizados() { return atualizados; }
+    public void setAtualizados(Integer atualizados) { this.atualizados = atualizados; }
+
+    public List<RejeicaoImportacaoDto> getRejeitados() { return rejeitados; }
+    public void setRejeitados(List<RejeicaoImportacaoDto> rejeitados) { this.rejeitados = rejeitados; }
+}
@@ -0,0 +1,19 @@
+package com.testevr.testejava.cliente.application.dto;
+
+public class RejeicaoImportacaoDto {
+    private Integer linha;
+    private String mensagem;
+
+    public RejeicaoImportacaoDto() {}
+
+    public RejeicaoImportacaoDto(Integer linha, String mensagem) {
+        this.linha = linha;
+        this.mensagem = mensagem;
+    }
+
+    public Integer getLinha() { return linha; }
+    public void setLinha(Integer linha) { this.linha = linha; }
+
+    public String getMensagem() { return mensagem; }
+    public void setMensagem(String mensagem) { this.mensagem = mensagem; }
+}
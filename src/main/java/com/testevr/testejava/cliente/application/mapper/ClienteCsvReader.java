@@ -0,0 +1,185 @@
+package com.testevr.testejava.cliente.application.mapper;
+
+import com.testevr.testejava.cliente.application.dto.RejeicaoImportacaoDto;
+import com.testevr.testejava.cliente.domain.entity.Cliente;
+import com.testevr.testejava.cliente.domain.valueobject.Cnpj;
+import com.testevr.testejava.cliente.domain.valueobject.Nome;
+import com.testevr.testejava.cliente.domain.valueobject.NomeFantasia;
+import com.testevr.testejava.cliente.domain.valueobject.RazaoSocial;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Lê clientes de um CSV linha a linha, validando cada registro com os value objects
+ * do domínio. Linhas inválidas não interrompem a leitura: são registradas como
+ * rejeições com o número da linha e o motivo.
+ * O CSV deve ter cabeçalho com as colunas nome, razao_social, cnpj e, opcionalmente, nome_fantasia.
+ */
+public class ClienteCsvReader implements Iterator<Cliente> {
+
+    private static final char SEPARADOR = ',';
+    private static final char ASPAS = '"';
+
+    private final BufferedReader reader;
+    private final List<RejeicaoImportacaoDto> rejeitados = new ArrayList<>();
+    private final Set<String> cnpjsLidos = new HashSet<>();
+
+    private int colunaNome = -1;
+    private int colunaRazaoSocial = -1;
+    private int colunaNomeFantasia = -1;
+    private int colunaCnpj = -1;
+
+    private int linhaAtual = 0;
+    private int totalLinhas = 0;
+    private Cliente proximo;
+
+    public ClienteCsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+        lerCabecalho();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (proximo == null) {
+            proximo = lerProximoValido();
+        }
+        return proximo != null;
+    }
+
+    @Override
+    public Cliente next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Cliente cliente = proximo;
+        proximo = null;
+        return cliente;
+    }
+
+    public List<RejeicaoImportacaoDto> getRejeitados() {
+        return rejeitados;
+    }
+
+    public int getTotalLinhas() {
+        return totalLinhas;
+    }
+
+    private void lerCabecalho() {
+        String cabecalho = lerLinha();
+        if (cabecalho == null) {
+            throw new IllegalArgumentException("Arquivo CSV vazio");
+        }
+
+        List<String> colunas = dividir(cabecalho);
+        for (int i = 0; i < colunas.size(); i++) {
+            switch (colunas.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "nome" -> colunaNome = i;
+                case "razao_social" -> colunaRazaoSocial = i;
+                case "nome_fantasia" -> colunaNomeFantasia = i;
+                case "cnpj" -> colunaCnpj = i;
+                default -> { }
+            }
+        }
+
+        if (colunaNome < 0 || colunaRazaoSocial < 0 || colunaCnpj < 0) {
+            throw new IllegalArgumentException("Cabeçalho do CSV deve conter as colunas nome, razao_social e cnpj");
+        }
+    }
+
+    private Cliente lerProximoValido() {
+        String linha;
+        while ((linha = lerLinha()) != null) {
+            if (linha.isBlank()) {
+                continue;
+            }
+            totalLinhas++;
+
+            try {
+                List<String> campos = dividir(linha);
+                String nomeFantasia = campo(campos, colunaNomeFantasia);
+
+                Cliente cliente = new Cliente(
+                        null,
+                        new Nome(campo(campos, colunaNome)),
+                        new RazaoSocial(campo(campos, colunaRazaoSocial)),
+                        new NomeFantasia(nomeFantasia == null || nomeFantasia.isBlank() ? null : nomeFantasia),
+                        new Cnpj(campo(campos, colunaCnpj))
+                );
+
+                if (!cnpjsLidos.add(cliente.getCnpj().getValue())) {
+                    throw new IllegalArgumentException("CNPJ duplicado no arquivo");
+                }
+
+                return cliente;
+            } catch (IllegalArgumentException e) {
+                rejeitados.add(new RejeicaoImportacaoDto(linhaAtual, e.getMessage()));
+            }
+        }
+        return null;
+    }
+
+    private String lerLinha() {
+        try {
+            String linha = reader.readLine();
+            if (linha != null) {
+                linhaAtual++;
+            }
+            return linha;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler arquivo CSV", e);
+        }
+    }
+
+    private String campo(List<String> campos, int coluna) {
+        if (coluna < 0 || coluna >= campos.size()) {
+            return null;
+        }
+        return campos.get(coluna);
+    }
+
+    /**
+     * Divide uma linha CSV em campos, respeitando valores entre aspas
+     * e aspas escapadas ("").
+     *
+     * @param linha Linha do arquivo CSV
+     * @return List<String> Campos da linha
+     */
+    static List<String> dividir(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == ASPAS && i + 1 < linha.length() && linha.charAt(i + 1) == ASPAS) {
+                    atual.append(ASPAS);
+                    i++;
+                } else if (c == ASPAS) {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == ASPAS) {
+                entreAspas = true;
+            } else if (c == SEPARADOR) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
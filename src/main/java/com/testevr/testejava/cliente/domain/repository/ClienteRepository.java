@@ -1,13 +1,20 @@
 package com.testevr.testejava.cliente.domain.repository;
 
+import com.testevr.testejava.cliente.application.dto.ImportacaoClienteDto;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public interface ClienteRepository {
      Cliente create(Cliente cliente);
      Cliente update(Cliente cliente);
      Cliente findById(Long id);
      List<Cliente> findAll();
+     List<Cliente> findPagina(Long aposId, int limite);
+     Set<Long> findIdsAtivos(Collection<Long> ids);
+     ImportacaoClienteDto importar(Iterator<Cliente> clientes);
      void delete(Long id);
 }
@@ -1,9 +1,13 @@
 package com.testevr.testejava.cliente.domain.service;
 
+import com.testevr.testejava.cliente.application.dto.ImportacaoClienteDto;
+import com.testevr.testejava.cliente.application.mapper.ClienteCsvReader;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 import com.testevr.testejava.cliente.domain.repository.ClienteRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Reader;
 import java.util.List;
 
 @Service
@@ -53,6 +57,34 @@ public class ClienteService {
         return this.repository.findAll();
     }
 
+    /**
+     * Retorna uma página de clientes ordenada por ID.
+     *
+     * @param aposId ID do último cliente da página anterior ou null para a primeira página
+     * @param limite Quantidade máxima de clientes a retornar
+     * @return List<Cliente> Lista com os clientes da página
+     */
+    public List<Cliente> findPagina(Long aposId, int limite) {
+        return this.repository.findPagina(aposId, limite);
+    }
+
+    /**
+     * Importa clientes a partir de um CSV em uma única transação.
+     * Cada linha é validada com os value objects do domínio; as linhas válidas são
+     * enviadas ao banco via COPY e as inválidas são reportadas com o número da linha.
+     *
+     * @param csv Conteúdo CSV com cabeçalho
+     * @return ImportacaoClienteDto Resumo da importação com inseridos, atualizados e rejeitados
+     */
+    @Transactional
+    public ImportacaoClienteDto importarCsv(Reader csv) {
+        ClienteCsvReader reader = new ClienteCsvReader(csv);
+        ImportacaoClienteDto resultado = this.repository.importar(reader);
+        resultado.setTotalLinhas(reader.getTotalLinhas());
+        resultado.setRejeitados(reader.getRejeitados());
+        return resultado;
+    }
+
     /**
      * Remove um cliente do sistema com base no seu identificador único.
      *
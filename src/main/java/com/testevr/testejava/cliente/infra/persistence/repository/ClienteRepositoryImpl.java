@@ -1,26 +1,53 @@
 package com.testevr.testejava.cliente.infra.persistence.repository;
 
+import com.testevr.testejava.cliente.application.dto.ImportacaoClienteDto;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 import com.testevr.testejava.cliente.domain.repository.ClienteRepository;
 import com.testevr.testejava.cliente.domain.valueobject.Nome;
 import com.testevr.testejava.cliente.domain.valueobject.RazaoSocial;
 import com.testevr.testejava.cliente.domain.valueobject.NomeFantasia;
 import com.testevr.testejava.cliente.domain.valueobject.Cnpj;
+import com.testevr.testejava.shared.infra.cache.IdentityMap;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public class ClienteRepositoryImpl implements ClienteRepository {
 
+    private static final String SQLSTATE_UNIQUE_VIOLATION = "23505";
+
     private final DataSource dataSource;
+    private final IdentityMap<Long, Cliente> identityMap;
 
-    public ClienteRepositoryImpl(DataSource dataSource) {
-        this.dataSource = dataSource;
+    /**
+     * O DataSource é envolvido por um proxy ciente de transações: dentro de um
+     * método @Transactional todas as consultas usam a conexão da transação corrente,
+     * e fora dele cada operação obtém e devolve uma conexão do pool.
+     *
+     * @param dataSource DataSource configurado para a aplicação
+     * @param clienteIdentityMap Cache de primeiro nível da transação/requisição usado por findById
+     */
+    public ClienteRepositoryImpl(DataSource dataSource, IdentityMap<Long, Cliente> clienteIdentityMap) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+        this.identityMap = clienteIdentityMap;
     }
 
     /**
@@ -63,6 +90,9 @@ public class ClienteRepositoryImpl implements ClienteRepository {
                 }
             }
         } catch (SQLException e) {
+            if (SQLSTATE_UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw new IllegalArgumentException("CNPJ já cadastrado: " + cliente.getCnpj().getValue());
+            }
             throw new RuntimeException("Erro ao criar cliente", e);
         }
 
@@ -92,11 +122,15 @@ public class ClienteRepositoryImpl implements ClienteRepository {
             stmt.setTimestamp(6, Timestamp.valueOf(cliente.getUpdatedAt()));
             stmt.setLong(7, cliente.getId().getValue());
 
+            identityMap.invalidar(cliente.getId().getValue());
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 return cliente;
             }
         } catch (SQLException e) {
+            if (SQLSTATE_UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw new IllegalArgumentException("CNPJ já cadastrado: " + cliente.getCnpj().getValue());
+            }
             throw new RuntimeException("Erro ao atualizar cliente", e);
         }
 
@@ -105,6 +139,8 @@ public class ClienteRepositoryImpl implements ClienteRepository {
 
     /**
      * Busca um cliente pelo seu identificador único.
+     * Dentro da mesma transação ou requisição, buscas repetidas pelo mesmo ID devolvem
+     * o cliente já carregado, sem nova consulta.
      *
      * @param id Identificador único do cliente
      * @return Cliente O cliente encontrado ou null caso não exista
@@ -112,6 +148,10 @@ public class ClienteRepositoryImpl implements ClienteRepository {
      */
     @Override
     public Cliente findById(Long id) {
+        return identityMap.buscar(id, this::carregarPorId);
+    }
+
+    private Cliente carregarPorId(Long id) {
         String sql = "SELECT * FROM cliente WHERE id = ?";
 
         try (Connection conn = dataSource.getConnection();
@@ -158,6 +198,157 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         return clientes;
     }
 
+    /**
+     * Retorna uma página de clientes ordenada por ID usando paginação por cursor (keyset).
+     * A consulta parte do último ID da página anterior, de modo que páginas profundas
+     * custam o mesmo que a primeira (varredura pela chave primária).
+     *
+     * @param aposId ID do último cliente da página anterior ou null para a primeira página
+     * @param limite Quantidade máxima de clientes a retornar
+     * @return List<Cliente> Lista com os clientes da página
+     * @throws RuntimeException Se ocorrer um erro SQL durante a consulta
+     */
+    @Override
+    public List<Cliente> findPagina(Long aposId, int limite) {
+        String sql = aposId == null
+                ? "SELECT * FROM cliente ORDER BY id LIMIT ?"
+                : "SELECT * FROM cliente WHERE id > ? ORDER BY id LIMIT ?";
+
+        List<Cliente> clientes = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int indice = 1;
+            if (aposId != null) {
+                stmt.setLong(indice++, aposId);
+            }
+            stmt.setInt(indice, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    clientes.add(mapRowToCliente(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar página de clientes", e);
+        }
+
+        return clientes;
+    }
+
+    /**
+     * Retorna, dentre os identificadores informados, aqueles que pertencem a clientes ativos.
+     * Usa uma única consulta com array, independente da quantidade de IDs.
+     *
+     * @param ids Identificadores de clientes a verificar
+     * @return Set<Long> Identificadores de clientes existentes e ativos
+     * @throws RuntimeException Se ocorrer um erro SQL durante a consulta
+     */
+    @Override
+    public Set<Long> findIdsAtivos(Collection<Long> ids) {
+        Set<Long> ativos = new HashSet<>();
+        if (ids.isEmpty()) {
+            return ativos;
+        }
+
+        String sql = "SELECT id FROM cliente WHERE ativo = TRUE AND id = ANY(?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ativos.add(rs.getLong("id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao verificar clientes ativos", e);
+        }
+
+        return ativos;
+    }
+
+    /**
+     * Importa clientes em massa usando COPY FROM STDIN para uma tabela temporária de staging
+     * e, em seguida, mescla o staging na tabela cliente com um único INSERT ... ON CONFLICT sobre o
+     * índice único de CNPJ: clientes com o mesmo CNPJ são atualizados e os demais são inseridos,
+     * mesmo com importações concorrentes. CNPJs repetidos no arquivo são mesclados uma única vez.
+     * Deve ser chamado dentro de uma transação, pois a tabela de staging é descartada no commit.
+     *
+     * @param clientes Clientes já validados, lidos sob demanda
+     * @return ImportacaoClienteDto Quantidade de clientes inseridos e atualizados
+     * @throws IllegalStateException Se não houver transação ativa
+     * @throws RuntimeException Se ocorrer um erro SQL ou de escrita durante o COPY
+     */
+    @Override
+    public ImportacaoClienteDto importar(Iterator<Cliente> clientes) {
+        String criarStaging = "CREATE TEMP TABLE cliente_importacao (" +
+                "nome VARCHAR(50) NOT NULL, razao_social VARCHAR(150) NOT NULL, " +
+                "nome_fantasia VARCHAR(150), cnpj VARCHAR(14) NOT NULL) ON COMMIT DROP";
+        String copy = "COPY cliente_importacao (nome, razao_social, nome_fantasia, cnpj) FROM STDIN WITH (FORMAT csv)";
+        String merge = "WITH mesclados AS (" +
+                "INSERT INTO cliente (nome, razao_social, nome_fantasia, cnpj, ativo, created_at, updated_at) " +
+                "SELECT DISTINCT ON (s.cnpj) s.nome, s.razao_social, s.nome_fantasia, s.cnpj, TRUE, " +
+                "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM cliente_importacao s ORDER BY s.cnpj " +
+                "ON CONFLICT (cnpj) DO UPDATE SET nome = EXCLUDED.nome, razao_social = EXCLUDED.razao_social, " +
+                "nome_fantasia = EXCLUDED.nome_fantasia, updated_at = CURRENT_TIMESTAMP " +
+                "RETURNING (xmax = 0) AS inserido) " +
+                "SELECT COUNT(*) FILTER (WHERE inserido) AS inseridos, " +
+                "COUNT(*) FILTER (WHERE NOT inserido) AS atualizados FROM mesclados";
+
+        try (Connection conn = dataSource.getConnection()) {
+            if (conn.getAutoCommit()) {
+                throw new IllegalStateException("Importação de clientes deve ser executada dentro de uma transação");
+            }
+
+            identityMap.invalidarTodos();
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(criarStaging);
+            }
+
+            PGConnection pgConnection = conn.unwrap(PGConnection.class);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, copy), StandardCharsets.UTF_8), 64 * 1024)) {
+                while (clientes.hasNext()) {
+                    writer.write(toLinhaCopy(clientes.next()));
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(merge);
+                 ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return new ImportacaoClienteDto(rs.getInt("inseridos"), rs.getInt("atualizados"));
+            }
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Erro ao importar clientes", e);
+        }
+    }
+
+    /**
+     * Converte um cliente em uma linha CSV no formato esperado pelo COPY.
+     * Campos nulos são escritos sem aspas para que o PostgreSQL os interprete como NULL.
+     *
+     * @param cliente Cliente a ser convertido
+     * @return String Linha CSV terminada por quebra de linha
+     */
+    private String toLinhaCopy(Cliente cliente) {
+        return campoCopy(cliente.getNome().getValue()) + "," +
+                campoCopy(cliente.getRazaoSocial().getValue()) + "," +
+                campoCopy(cliente.getNomeFantasia().getValue()) + "," +
+                campoCopy(cliente.getCnpj().getValue()) + "\n";
+    }
+
+    private String campoCopy(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        return "\"" + valor.replace("\"", "\"\"") + "\"";
+    }
+
     /**
      * Remove um cliente do banco de dados com base no seu identificador único.
      *
@@ -172,6 +363,7 @@ public class ClienteRepositoryImpl implements ClienteRepository {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, id);
+            identityMap.invalidar(id);
             stmt.executeUpdate();
 
         } catch (SQLException e) {
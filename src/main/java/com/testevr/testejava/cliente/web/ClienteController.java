@@ -1,13 +1,19 @@
 package com.testevr.testejava.cliente.web;
 
 import com.testevr.testejava.cliente.application.dto.ClienteDto;
+import com.testevr.testejava.cliente.application.dto.ImportacaoClienteDto;
 import com.testevr.testejava.cliente.application.mapper.ClienteMapper;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 import com.testevr.testejava.cliente.domain.service.ClienteService;
+import com.testevr.testejava.shared.application.dto.PaginaDto;
+import com.testevr.testejava.shared.application.pagination.CursorPagination;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,6 +44,13 @@ public class ClienteController {
     }
 
 
+    @PostMapping(value = "/importacao", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<ImportacaoClienteDto> importarClientes(InputStream csv) {
+        ImportacaoClienteDto resultado = clienteService.importarCsv(
+                new InputStreamReader(csv, StandardCharsets.UTF_8));
+        return ResponseEntity.ok(resultado);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ClienteDto> buscarPorId(@PathVariable Long id) {
         Cliente cliente = clienteService.findById(id);
@@ -48,12 +61,31 @@ public class ClienteController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ClienteDto>> buscarTodos() {
-        List<Cliente> clientes = clienteService.findAll();
+    public ResponseEntity<PaginaDto<ClienteDto>> buscarTodos(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limite) {
+        int tamanho = CursorPagination.resolverLimite(limite);
+        Long aposId = null;
+
+        if (cursor != null) {
+            String[] partes = CursorPagination.decodificar(cursor, 1);
+            try {
+                aposId = Long.parseLong(partes[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de paginação inválido", e);
+            }
+        }
+
+        List<Cliente> clientes = clienteService.findPagina(aposId, tamanho + 1);
+        String proximoCursor = null;
+        if (clientes.size() > tamanho) {
+            clientes = clientes.subList(0, tamanho);
+            proximoCursor = CursorPagination.codificar(clientes.get(tamanho - 1).getId().getValue());
+        }
+
         List<ClienteDto> clientesDto = clientes.stream()
                 .map(mapper::toDto)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(clientesDto);
+        return ResponseEntity.ok(new PaginaDto<>(clientesDto, proximoCursor));
     }
 
 
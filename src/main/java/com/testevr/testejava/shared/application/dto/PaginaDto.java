@@ -0,0 +1,26 @@
+package com.testevr.testejava.shared.application.dto;
+
+import java.util.List;
+
+public class PaginaDto<T> {
+    private List<T> itens;
+    private String proximoCursor;
+    private Integer tamanho;
+
+    public PaginaDto() {}
+
+    public PaginaDto(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+        this.tamanho = itens != null ? itens.size() : 0;
+    }
+
+    public List<T> getItens() { return itens; }
+    public void setItens(List<T> itens) { this.itens = itens; }
+
+    public String getProximoCursor() { return proximoCursor; }
+    public void setProximoCursor(String proximoCursor) { this.proximoCursor = proximoCursor; }
+
+    public Integer getTamanho() { return tamanho; }
+    public void setTamanho(Integer tamanho) { this.tamanho = tamanho; }
+}
@@ -0,0 +1,75 @@
+package com.testevr.testejava.shared.application.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utilitário para paginação por cursor (keyset).
+ * O cursor é opaco para o cliente: contém os valores da chave de ordenação
+ * do último item retornado, codificados em Base64 URL-safe.
+ */
+public final class CursorPagination {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPagination() {}
+
+    /**
+     * Resolve o tamanho da página solicitado, aplicando o padrão e o limite máximo.
+     *
+     * @param limite Tamanho solicitado pelo cliente (pode ser nulo)
+     * @return int Tamanho efetivo da página
+     * @throws IllegalArgumentException Se o tamanho solicitado não for positivo
+     */
+    public static int resolverLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_PADRAO;
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite da página deve ser maior que zero");
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Codifica os valores da chave de ordenação em um cursor opaco.
+     *
+     * @param partes Valores da chave de ordenação do último item da página
+     * @return String Cursor codificado
+     */
+    public static String codificar(Object... partes) {
+        StringBuilder conteudo = new StringBuilder();
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                conteudo.append(SEPARADOR);
+            }
+            conteudo.append(partes[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(conteudo.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor opaco nos valores da chave de ordenação.
+     *
+     * @param cursor Cursor recebido do cliente
+     * @param partesEsperadas Quantidade de valores que o cursor deve conter
+     * @return String[] Valores da chave de ordenação
+     * @throws IllegalArgumentException Se o cursor for inválido
+     */
+    public static String[] decodificar(String cursor, int partesEsperadas) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = conteudo.split("\\" + SEPARADOR, -1);
+            if (partes.length != partesEsperadas) {
+                throw new IllegalArgumentException("Cursor de paginação inválido");
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.testevr.testejava.shared.config;
+
+import com.testevr.testejava.cliente.domain.entity.Cliente;
+import com.testevr.testejava.shared.infra.cache.IdentityMap;
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+import com.testevr.testejava.shared.infra.idempotencia.RespostaIdempotente;
+import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-process cache configuration
+ * The product cache sits in front of the external product API lookups and its
+ * counters are published through the metrics endpoint
+ * The idempotency cache is the hot index of recently completed idempotent requests
+ * The identity maps are per-transaction / per-request first-level caches used by the
+ * venda and cliente repositories for repeated findById calls
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${produto.cache.enabled:true}")
+    private boolean produtoCacheEnabled;
+
+    @Value("${produto.cache.max-size:1000}")
+    private int produtoCacheMaxSize;
+
+    @Value("${produto.cache.ttl-ms:5000}")
+    private long produtoCacheTtlMs;
+
+    @Value("${idempotencia.cache.max-size:10000}")
+    private int idempotenciaCacheMaxSize;
+
+    @Value("${idempotencia.cache.ttl-ms:300000}")
+    private long idempotenciaCacheTtlMs;
+
+    @Value("${persistencia.identity-map.enabled:true}")
+    private boolean identityMapEnabled;
+
+    @Bean
+    public LocalCache<Long, ProdutoDto> produtoCache() {
+        return new LocalCache<>("produtoCache",
+                produtoCacheEnabled ? produtoCacheMaxSize : 0,
+                Duration.ofMillis(produtoCacheTtlMs));
+    }
+
+    @Bean
+    public LocalCache<String, RespostaIdempotente> idempotenciaCache() {
+        return new LocalCache<>("idempotenciaCache",
+                idempotenciaCacheMaxSize,
+                Duration.ofMillis(idempotenciaCacheTtlMs));
+    }
+
+    @Bean
+    public IdentityMap<Long, Venda> vendaIdentityMap() {
+        return new IdentityMap<>("vendaIdentityMap", identityMapEnabled);
+    }
+
+    @Bean
+    public IdentityMap<Long, Cliente> clienteIdentityMap() {
+        return new IdentityMap<>("clienteIdentityMap", identityMapEnabled);
+    }
+}
@@ -1,15 +1,21 @@
 package com.testevr.testejava.shared.config;
 
+import com.testevr.testejava.shared.infra.metrics.ConnectionPoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.context.annotation.Primary;
 
 import javax.sql.DataSource;
 
 /**
  * DataSource configuration using pure JDBC (no ORM or Spring Data JDBC)
- * Uses DriverManagerDataSource for direct JDBC access
+ * Uses a HikariCP connection pool so repositories reuse open connections
+ * instead of opening a new one to PostgreSQL on every call
+ * The streaming export gets its own small pool without leak detection, since it holds
+ * a connection for the whole download; the main pool keeps its leak threshold
  */
 @Configuration
 public class DataSourceConfig {
@@ -31,13 +37,71 @@ public class DataSourceConfig {
     @Value("${postgres.password}")
     private String password;
 
+    @Value("${postgres.pool.name:testevr-pool}")
+    private String poolName;
+
+    @Value("${postgres.pool.min-idle:2}")
+    private int minIdle;
+
+    @Value("${postgres.pool.max-size:10}")
+    private int maxSize;
+
+    @Value("${postgres.pool.connection-timeout-ms:3000}")
+    private long connectionTimeoutMs;
+
+    @Value("${postgres.pool.validation-timeout-ms:1000}")
+    private long validationTimeoutMs;
+
+    @Value("${postgres.pool.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    @Value("${postgres.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMs;
+
+    @Value("${postgres.pool.keepalive-time-ms:300000}")
+    private long keepaliveTimeMs;
+
+    @Value("${postgres.pool.leak-detection-threshold-ms:20000}")
+    private long leakDetectionThresholdMs;
+
+    @Value("${postgres.pool.exportacao.max-size:2}")
+    private int exportacaoMaxSize;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ConnectionPoolMetrics connectionPoolMetrics) {
+        HikariConfig config = criarConfiguracao(poolName);
+        config.setMinimumIdle(minIdle);
+        config.setMaximumPoolSize(maxSize);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMs);
+
+        config.setMetricsTrackerFactory(connectionPoolMetrics);
+        return new HikariDataSource(config);
+    }
+
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driver);
-        dataSource.setUrl("jdbc:postgresql://" + ip + ":" + port + "/" + database);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        return dataSource;
+    public DataSource exportacaoDataSource() {
+        HikariConfig config = criarConfiguracao(poolName + "-exportacao");
+        config.setMinimumIdle(0);
+        config.setMaximumPoolSize(exportacaoMaxSize);
+        config.setLeakDetectionThreshold(0);
+        return new HikariDataSource(config);
+    }
+
+    private HikariConfig criarConfiguracao(String nome) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(nome);
+        config.setDriverClassName(driver);
+        config.setJdbcUrl("jdbc:postgresql://" + ip + ":" + port + "/" + database);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+
+        config.setConnectionTimeout(connectionTimeoutMs);
+        config.setValidationTimeout(validationTimeoutMs);
+        config.setIdleTimeout(idleTimeoutMs);
+        config.setMaxLifetime(maxLifetimeMs);
+        config.setKeepaliveTime(keepaliveTimeMs);
+        return config;
     }
 }
@@ -0,0 +1,33 @@
+package com.testevr.testejava.shared.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP client configuration for the external product API
+ * A single HttpClient is shared by all calls so TCP connections are kept alive
+ * and reused instead of being opened and closed on every request
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${produto.externa.api.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${produto.externa.api.http2:false}")
+    private boolean http2;
+
+    @Bean
+    public HttpClient produtoHttpClient() {
+        return HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.testevr.testejava.shared.config;
+
+import com.testevr.testejava.shared.infra.resilience.Bulkhead;
+import com.testevr.testejava.shared.infra.resilience.CircuitBreaker;
+import com.testevr.testejava.shared.infra.resilience.HedgingPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Resilience configuration for the external product API
+ * The circuit breaker fails fast while the API is unhealthy and the bulkhead caps how many
+ * request threads can be blocked on it at the same time; hedging sends a second attempt for
+ * slow product lookups, capped by a budget of extra requests
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${produto.externa.api.circuit-breaker.janela:20}")
+    private int janela;
+
+    @Value("${produto.externa.api.circuit-breaker.minimo-chamadas:10}")
+    private int minimoChamadas;
+
+    @Value("${produto.externa.api.circuit-breaker.taxa-falha:50}")
+    private double taxaFalha;
+
+    @Value("${produto.externa.api.circuit-breaker.chamada-lenta-ms:2000}")
+    private long chamadaLentaMs;
+
+    @Value("${produto.externa.api.circuit-breaker.taxa-lenta:80}")
+    private double taxaLenta;
+
+    @Value("${produto.externa.api.circuit-breaker.tempo-aberto-ms:10000}")
+    private long tempoAbertoMs;
+
+    @Value("${produto.externa.api.circuit-breaker.chamadas-meio-aberto:3}")
+    private int chamadasMeioAberto;
+
+    @Value("${produto.externa.api.bulkhead.maximo-concorrentes:20}")
+    private int maximoConcorrentes;
+
+    @Value("${produto.externa.api.bulkhead.espera-ms:50}")
+    private long esperaMs;
+
+    @Value("${produto.externa.api.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${produto.externa.api.hedge.percentil:95}")
+    private double hedgePercentil;
+
+    @Value("${produto.externa.api.hedge.atraso-minimo-ms:20}")
+    private long hedgeAtrasoMinimoMs;
+
+    @Value("${produto.externa.api.hedge.orcamento-percentual:10}")
+    private double hedgeOrcamentoPercentual;
+
+    @Value("${produto.externa.api.hedge.janela:1000}")
+    private int hedgeJanela;
+
+    @Value("${produto.externa.api.hedge.amostras-minimas:50}")
+    private int hedgeAmostrasMinimas;
+
+    @Bean
+    public CircuitBreaker produtoCircuitBreaker() {
+        return new CircuitBreaker("produtoCircuitBreaker", janela, minimoChamadas, taxaFalha,
+                Duration.ofMillis(chamadaLentaMs), taxaLenta, Duration.ofMillis(tempoAbertoMs), chamadasMeioAberto);
+    }
+
+    @Bean
+    public Bulkhead produtoBulkhead() {
+        return new Bulkhead("produtoBulkhead", maximoConcorrentes, Duration.ofMillis(esperaMs));
+    }
+
+    @Bean
+    public HedgingPolicy produtoHedgingPolicy() {
+        return new HedgingPolicy("produtoHedging", hedgeEnabled, hedgePercentil,
+                Duration.ofMillis(hedgeAtrasoMinimoMs), hedgeOrcamentoPercentual, hedgeJanela, hedgeAmostrasMinimas);
+    }
+}
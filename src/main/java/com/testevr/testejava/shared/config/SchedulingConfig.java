@@ -0,0 +1,13 @@
+package com.testevr.testejava.shared.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs, such as the dispatcher that drains
+ * the stock write-down outbox into the external product API
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
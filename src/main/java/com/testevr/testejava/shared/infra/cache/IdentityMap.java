@@ -0,0 +1,180 @@
+package com.testevr.testejava.shared.infra.cache;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache de primeiro nível (identity map) por unidade de trabalho: dentro de uma transação, ou
+ * de uma requisição HTTP fora de transação, buscas repetidas pela mesma chave devolvem a entidade
+ * já mapeada sem ir ao banco. O mapa da transação é descartado ao término dela e o da requisição
+ * junto com a requisição; fora desses escopos (workers, tarefas agendadas) toda busca vai ao
+ * banco. As escritas devem invalidar a chave, o que a remove dos dois escopos.
+ * Só deve guardar entidades imutáveis, já que a mesma instância é devolvida a todas as buscas.
+ *
+ * @param <K> Tipo da chave
+ * @param <V> Tipo da entidade
+ */
+public class IdentityMap<K, V> implements MetricsSource {
+
+    private final String nome;
+    private final boolean habilitado;
+    private final String atributoRequisicao;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder carregamentos = new LongAdder();
+    private final LongAdder semEscopo = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    public IdentityMap(String nome, boolean habilitado) {
+        this.nome = nome;
+        this.habilitado = habilitado;
+        this.atributoRequisicao = IdentityMap.class.getName() + "." + nome;
+    }
+
+    /**
+     * Devolve a entidade da unidade de trabalho corrente ou a carrega e a registra.
+     * Resultados nulos não são guardados.
+     *
+     * @param chave Chave da entidade
+     * @param carregador Função que busca a entidade no banco
+     * @return V Entidade encontrada ou null
+     */
+    public V buscar(K chave, Function<K, V> carregador) {
+        Map<K, V> entidades = mapaCorrente();
+        if (entidades == null) {
+            semEscopo.increment();
+            return carregador.apply(chave);
+        }
+
+        V entidade = entidades.get(chave);
+        if (entidade != null) {
+            acertos.increment();
+            return entidade;
+        }
+
+        carregamentos.increment();
+        entidade = carregador.apply(chave);
+        if (entidade != null) {
+            entidades.put(chave, entidade);
+        }
+        return entidade;
+    }
+
+    /**
+     * Registra uma entidade recém-gravada, para que a próxima busca na mesma unidade de trabalho
+     * não precise relê-la. Só deve ser usado com o estado que o banco devolveu (RETURNING).
+     *
+     * @param chave Chave da entidade
+     * @param entidade Entidade gravada
+     */
+    public void registrar(K chave, V entidade) {
+        invalidar(chave);
+        Map<K, V> entidades = mapaCorrente();
+        if (entidades != null && entidade != null) {
+            entidades.put(chave, entidade);
+        }
+    }
+
+    /**
+     * Remove a chave dos mapas da transação e da requisição correntes.
+     *
+     * @param chave Chave da entidade alterada ou removida
+     */
+    public void invalidar(K chave) {
+        Map<K, V> transacao = mapaTransacao(false);
+        Map<K, V> requisicao = mapaRequisicao(false);
+        if (transacao != null && transacao.remove(chave) != null) {
+            invalidacoes.increment();
+        }
+        if (requisicao != null && requisicao.remove(chave) != null) {
+            invalidacoes.increment();
+        }
+    }
+
+    /**
+     * Descarta todas as entidades da transação e da requisição correntes.
+     * Usado por escritas em massa que não informam as chaves alteradas.
+     */
+    public void invalidarTodos() {
+        Map<K, V> transacao = mapaTransacao(false);
+        Map<K, V> requisicao = mapaRequisicao(false);
+        if (transacao != null) {
+            invalidacoes.add(transacao.size());
+            transacao.clear();
+        }
+        if (requisicao != null) {
+            invalidacoes.add(requisicao.size());
+            requisicao.clear();
+        }
+    }
+
+    private Map<K, V> mapaCorrente() {
+        if (!habilitado) {
+            return null;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            return mapaTransacao(true);
+        }
+        return mapaRequisicao(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, V> mapaTransacao(boolean criar) {
+        if (!habilitado || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        Map<K, V> entidades = (Map<K, V>) TransactionSynchronizationManager.getResource(this);
+        if (entidades == null && criar) {
+            entidades = new ConcurrentHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, entidades);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(IdentityMap.this);
+                }
+            });
+        }
+        return entidades;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, V> mapaRequisicao(boolean criar) {
+        RequestAttributes requisicao = RequestContextHolder.getRequestAttributes();
+        if (!habilitado || requisicao == null) {
+            return null;
+        }
+
+        Map<K, V> entidades = (Map<K, V>) requisicao.getAttribute(atributoRequisicao, RequestAttributes.SCOPE_REQUEST);
+        if (entidades == null && criar) {
+            entidades = new ConcurrentHashMap<>();
+            requisicao.setAttribute(atributoRequisicao, entidades, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entidades;
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("acertos", acertos.sum());
+        metricas.put("carregamentos", carregamentos.sum());
+        metricas.put("semEscopo", semEscopo.sum());
+        metricas.put("invalidacoes", invalidacoes.sum());
+        return metricas;
+    }
+}
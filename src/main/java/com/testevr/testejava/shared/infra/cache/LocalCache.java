@@ -0,0 +1,230 @@
+package com.testevr.testejava.shared.infra.cache;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache em memória com tamanho máximo, expiração por TTL e despejo LRU.
+ * As entradas ficam num LinkedHashMap em ordem de acesso; ao exceder a capacidade
+ * a entrada usada há mais tempo é descartada. Capacidade zero desabilita o cache.
+ * Toda escrita que invalida ou substitui uma entrada avança a geração da faixa da sua chave;
+ * carregamentos feitos fora do cache gravam com {@link #put(Object, Object, long)} informando a
+ * geração da chave lida antes de começar, para que um valor carregado antes de uma invalidação
+ * não volte ao cache depois dela. Escritas em outras chaves não descartam o carregamento, salvo
+ * as que caem na mesma faixa.
+ *
+ * @param <K> Tipo da chave
+ * @param <V> Tipo do valor
+ */
+public class LocalCache<K, V> implements MetricsSource {
+
+    private static final int FAIXAS_GERACAO = 1024;
+
+    private final String nome;
+    private final int capacidade;
+    private final long ttlNanos;
+    private final LongSupplier relogio;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    private final AtomicLongArray geracoes = new AtomicLongArray(FAIXAS_GERACAO);
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder expirados = new LongAdder();
+    private final LongAdder gravacoesDescartadas = new LongAdder();
+
+    private record Entrada<V>(V valor, long expiraEm) {}
+
+    public LocalCache(String nome, int capacidade, Duration ttl) {
+        this(nome, capacidade, ttl, System::nanoTime);
+    }
+
+    LocalCache(String nome, int capacidade, Duration ttl, LongSupplier relogio) {
+        this.nome = nome;
+        this.capacidade = Math.max(capacidade, 0);
+        this.ttlNanos = ttl.toNanos();
+        this.relogio = relogio;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > LocalCache.this.capacidade) {
+                    despejos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isHabilitado() {
+        return capacidade > 0;
+    }
+
+    /**
+     * Busca um valor no cache, descartando a entrada se o TTL já expirou.
+     *
+     * @param chave Chave buscada
+     * @return V Valor em cache ou null se ausente ou expirado
+     */
+    public V get(K chave) {
+        if (!isHabilitado()) {
+            return null;
+        }
+
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada == null) {
+                falhas.increment();
+                return null;
+            }
+            if (expirou(entrada)) {
+                entradas.remove(chave);
+                expirados.increment();
+                falhas.increment();
+                return null;
+            }
+            acertos.increment();
+            return entrada.valor();
+        }
+    }
+
+    public void put(K chave, V valor) {
+        if (!isHabilitado() || valor == null) {
+            return;
+        }
+
+        synchronized (entradas) {
+            entradas.put(chave, new Entrada<>(valor, relogio.getAsLong() + ttlNanos));
+        }
+    }
+
+    /**
+     * Geração corrente da chave. Deve ser lida antes de carregar um valor da origem
+     * e repassada a {@link #put(Object, Object, long)}.
+     *
+     * @param chave Chave que será carregada
+     * @return long Geração corrente da faixa da chave
+     */
+    public long geracao(K chave) {
+        return geracoes.get(faixa(chave));
+    }
+
+    /**
+     * Grava um valor carregado da origem somente se nenhuma invalidação ou atualização da
+     * mesma chave (ou de outra chave da mesma faixa) ocorreu desde a geração informada.
+     * Um carregamento descartado não é gravado e a próxima leitura recarrega.
+     *
+     * @param chave Chave do valor
+     * @param valor Valor carregado
+     * @param geracaoLida Geração lida antes do carregamento
+     * @return boolean true se o valor foi gravado
+     */
+    public boolean put(K chave, V valor, long geracaoLida) {
+        if (!isHabilitado() || valor == null) {
+            return false;
+        }
+
+        synchronized (entradas) {
+            if (geracoes.get(faixa(chave)) != geracaoLida) {
+                gravacoesDescartadas.increment();
+                return false;
+            }
+            entradas.put(chave, new Entrada<>(valor, relogio.getAsLong() + ttlNanos));
+            return true;
+        }
+    }
+
+    /**
+     * Substitui o valor de uma entrada existente e renova seu TTL.
+     * Não faz nada se a chave não estiver em cache ou já tiver expirado.
+     *
+     * @param chave Chave a ser atualizada
+     * @param funcao Função que recebe o valor atual e devolve o novo valor
+     */
+    public void atualizar(K chave, UnaryOperator<V> funcao) {
+        if (!isHabilitado()) {
+            return;
+        }
+
+        synchronized (entradas) {
+            geracoes.incrementAndGet(faixa(chave));
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada == null || expirou(entrada)) {
+                entradas.remove(chave);
+                return;
+            }
+            V novoValor = funcao.apply(entrada.valor());
+            if (novoValor == null) {
+                entradas.remove(chave);
+            } else {
+                entradas.put(chave, new Entrada<>(novoValor, relogio.getAsLong() + ttlNanos));
+            }
+        }
+    }
+
+    public void invalidar(K chave) {
+        if (!isHabilitado()) {
+            return;
+        }
+
+        synchronized (entradas) {
+            geracoes.incrementAndGet(faixa(chave));
+            entradas.remove(chave);
+        }
+    }
+
+    public void limpar() {
+        synchronized (entradas) {
+            for (int i = 0; i < FAIXAS_GERACAO; i++) {
+                geracoes.incrementAndGet(i);
+            }
+            entradas.clear();
+        }
+    }
+
+    public int tamanho() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    private static int faixa(Object chave) {
+        int hash = chave.hashCode();
+        return (hash ^ (hash >>> 16)) & (FAIXAS_GERACAO - 1);
+    }
+
+    private boolean expirou(Entrada<V> entrada) {
+        return relogio.getAsLong() - entrada.expiraEm() >= 0;
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        long totalAcertos = acertos.sum();
+        long totalConsultas = totalAcertos + falhas.sum();
+
+        metricas.put("habilitado", isHabilitado());
+        metricas.put("tamanho", tamanho());
+        metricas.put("capacidade", capacidade);
+        metricas.put("ttlMs", Duration.ofNanos(ttlNanos).toMillis());
+        metricas.put("acertos", totalAcertos);
+        metricas.put("falhas", falhas.sum());
+        metricas.put("despejos", despejos.sum());
+        metricas.put("expirados", expirados.sum());
+        metricas.put("gravacoesDescartadas", gravacoesDescartadas.sum());
+        metricas.put("taxaAcerto", totalConsultas > 0 ? (double) totalAcertos / totalConsultas : 0.0);
+        return metricas;
+    }
+}
@@ -0,0 +1,80 @@
+package com.testevr.testejava.shared.infra.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa chamadas concorrentes pela mesma chave numa única execução.
+ * A primeira thread a pedir uma chave executa a chamada; as que chegam enquanto
+ * ela está em andamento aguardam o mesmo resultado (ou a mesma exceção)
+ * em vez de repetir a chamada. Nada é guardado após a conclusão.
+ *
+ * @param <K> Tipo da chave
+ * @param <V> Tipo do resultado
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> emAndamento = new ConcurrentHashMap<>();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+
+    /**
+     * Executa a chamada para a chave ou aguarda a execução que já estiver em andamento.
+     *
+     * @param chave Chave que identifica a chamada
+     * @param chamada Chamada executada apenas se não houver outra em andamento para a chave
+     * @return V Resultado da chamada
+     * @throws Exception A exceção lançada pela chamada, repassada a todas as threads que a aguardavam
+     */
+    public V executar(K chave, Callable<V> chamada) throws Exception {
+        CompletableFuture<V> futuro = new CompletableFuture<>();
+        CompletableFuture<V> existente = emAndamento.putIfAbsent(chave, futuro);
+
+        if (existente != null) {
+            compartilhadas.increment();
+            return aguardar(existente);
+        }
+
+        execucoes.increment();
+        try {
+            V resultado = chamada.call();
+            futuro.complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            futuro.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, futuro);
+        }
+    }
+
+    private V aguardar(CompletableFuture<V> futuro) throws Exception {
+        try {
+            return futuro.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof Exception excecao) {
+                throw excecao;
+            }
+            if (causa instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+
+    public long getExecucoes() {
+        return execucoes.sum();
+    }
+
+    public long getCompartilhadas() {
+        return compartilhadas.sum();
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.testevr.testejava.shared.infra.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fixo de locks indexado pelo hash da chave. Chaves diferentes só disputam o mesmo
+ * lock quando caem na mesma faixa, de modo que a contenção fica restrita à chave (ou a poucas
+ * chaves) sem que seja preciso criar e descartar um lock por chave.
+ *
+ * @param <K> Tipo da chave
+ */
+public class StripedLock<K> {
+
+    private final ReentrantLock[] faixas;
+    private final int mascara;
+
+    /**
+     * @param quantidadeFaixas Quantidade mínima de faixas, arredondada para a próxima potência de dois
+     */
+    public StripedLock(int quantidadeFaixas) {
+        int tamanho = Integer.highestOneBit(Math.max(quantidadeFaixas, 1) * 2 - 1);
+        this.faixas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            faixas[i] = new ReentrantLock();
+        }
+        this.mascara = tamanho - 1;
+    }
+
+    /**
+     * Retorna o lock da faixa em que a chave cai; a mesma chave sempre recebe o mesmo lock.
+     *
+     * @param chave Chave protegida
+     * @return ReentrantLock Lock da faixa da chave
+     */
+    public ReentrantLock obter(K chave) {
+        int hash = chave.hashCode();
+        return faixas[(hash ^ (hash >>> 16)) & mascara];
+    }
+
+    public int getQuantidadeFaixas() {
+        return faixas.length;
+    }
+}
@@ -0,0 +1,12 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+/**
+ * Lançada quando uma chave de idempotência é reutilizada com outra requisição,
+ * ou quando a primeira execução com a chave não termina dentro da espera máxima.
+ */
+public class IdempotenciaConflitoException extends RuntimeException {
+
+    public IdempotenciaConflitoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+import java.time.Duration;
+
+public interface IdempotenciaRepository {
+    RespostaIdempotente buscar(String operacao, String chave);
+    boolean reservar(String operacao, String chave, String hashRequisicao, Duration validade);
+    void prorrogar(String operacao, String chave, Duration validade);
+    void concluir(String operacao, String chave, int status, String corpo, String location, Duration validade);
+    void liberar(String operacao, String chave);
+    int removerExpiradas();
+}
@@ -0,0 +1,159 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+
+/**
+ * Idempotency key store using pure JDBC
+ * A key is claimed by inserting its row before the request runs, so only one execution
+ * per key proceeds across all nodes; expired rows can be claimed again
+ */
+@Repository
+public class IdempotenciaRepositoryImpl implements IdempotenciaRepository {
+
+    private final DataSource dataSource;
+
+    public IdempotenciaRepositoryImpl(DataSource dataSource) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+    }
+
+    @Override
+    public RespostaIdempotente buscar(String operacao, String chave) {
+        String sql = "SELECT hash_requisicao, concluida, status_http, corpo, location FROM idempotencia " +
+                     "WHERE operacao = ? AND chave = ? AND expira_em > CURRENT_TIMESTAMP";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, operacao);
+            stmt.setString(2, chave);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int status = rs.getInt("status_http");
+                    return new RespostaIdempotente(
+                            rs.getString("hash_requisicao"),
+                            rs.getBoolean("concluida"),
+                            rs.wasNull() ? null : status,
+                            rs.getString("corpo"),
+                            rs.getString("location"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar chave de idempotência", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Reserva a chave para a execução corrente. A inserção só acontece se a chave não existir
+     * ou se o registro anterior já tiver expirado; a reserva de uma execução interrompida
+     * expira sozinha após a validade informada.
+     *
+     * @param operacao Operação protegida pela chave
+     * @param chave Chave de idempotência informada pelo cliente
+     * @param hashRequisicao Hash do corpo da requisição
+     * @param validade Tempo máximo que a reserva bloqueia a chave sem ser concluída
+     * @return boolean true se a chave foi reservada por esta execução
+     */
+    @Override
+    public boolean reservar(String operacao, String chave, String hashRequisicao, Duration validade) {
+        String sql = "INSERT INTO idempotencia (operacao, chave, hash_requisicao, expira_em) " +
+                     "VALUES (?, ?, ?, CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond') " +
+                     "ON CONFLICT (operacao, chave) DO UPDATE SET hash_requisicao = EXCLUDED.hash_requisicao, " +
+                     "concluida = FALSE, status_http = NULL, corpo = NULL, location = NULL, " +
+                     "created_at = CURRENT_TIMESTAMP, expira_em = EXCLUDED.expira_em " +
+                     "WHERE idempotencia.expira_em <= CURRENT_TIMESTAMP";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, operacao);
+            stmt.setString(2, chave);
+            stmt.setString(3, hashRequisicao);
+            stmt.setLong(4, validade.toMillis());
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar chave de idempotência", e);
+        }
+    }
+
+    /**
+     * Renova a validade da reserva de uma execução ainda em andamento, para que ela não expire
+     * e seja tomada por uma repetição enquanto a primeira execução não termina.
+     *
+     * @param operacao Operação protegida pela chave
+     * @param chave Chave de idempotência informada pelo cliente
+     * @param validade Nova validade da reserva, a partir de agora
+     */
+    @Override
+    public void prorrogar(String operacao, String chave, Duration validade) {
+        String sql = "UPDATE idempotencia SET expira_em = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE operacao = ? AND chave = ? AND concluida = FALSE";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, validade.toMillis());
+            stmt.setString(2, operacao);
+            stmt.setString(3, chave);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao prorrogar reserva da chave de idempotência", e);
+        }
+    }
+
+    @Override
+    public void concluir(String operacao, String chave, int status, String corpo, String location, Duration validade) {
+        String sql = "UPDATE idempotencia SET concluida = TRUE, status_http = ?, corpo = ?, location = ?, " +
+                     "expira_em = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE operacao = ? AND chave = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, status);
+            stmt.setString(2, corpo);
+            stmt.setString(3, location);
+            stmt.setLong(4, validade.toMillis());
+            stmt.setString(5, operacao);
+            stmt.setString(6, chave);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao gravar resposta da chave de idempotência", e);
+        }
+    }
+
+    @Override
+    public void liberar(String operacao, String chave) {
+        String sql = "DELETE FROM idempotencia WHERE operacao = ? AND chave = ? AND concluida = FALSE";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, operacao);
+            stmt.setString(2, chave);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao liberar chave de idempotência", e);
+        }
+    }
+
+    @Override
+    public int removerExpiradas() {
+        String sql = "DELETE FROM idempotencia WHERE expira_em <= CURRENT_TIMESTAMP";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao remover chaves de idempotência expiradas", e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+import com.testevr.testejava.shared.infra.concurrent.SingleFlight;
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executa requisições protegidas por um cabeçalho {@value #HEADER} no máximo uma vez por chave.
+ * A primeira execução reserva a chave no banco e grava a resposta; repetições com a mesma chave
+ * e o mesmo corpo recebem a resposta gravada, sem executar a operação de novo. Respostas recentes
+ * ficam também num índice em memória, e repetições concorrentes na mesma instância aguardam a
+ * primeira execução em vez de consultar o banco. Em outra instância, a repetição aguarda a
+ * conclusão consultando o registro até a espera máxima. Só respostas 2xx são gravadas; nos
+ * demais casos a chave é liberada para que o cliente possa repetir a requisição. Enquanto a
+ * execução está em andamento, sua reserva é prorrogada periodicamente para não expirar.
+ */
+@Service
+public class IdempotenciaService implements MetricsSource {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETICAO = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private final IdempotenciaRepository repository;
+    private final LocalCache<String, RespostaIdempotente> respostasRecentes;
+    private final SingleFlight<String, RespostaIdempotente> execucoes = new SingleFlight<>();
+    private final Set<ReservaEmAndamento> reservasEmAndamento = ConcurrentHashMap.newKeySet();
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final Duration validade;
+    private final Duration validadeReserva;
+    private final Duration esperaMaxima;
+    private final Duration intervaloConsulta;
+
+    private final LongAdder executadas = new LongAdder();
+    private final LongAdder repeticoesMemoria = new LongAdder();
+    private final LongAdder repeticoesBanco = new LongAdder();
+    private final LongAdder conflitos = new LongAdder();
+    private final LongAdder liberadas = new LongAdder();
+    private final LongAdder prorrogacoes = new LongAdder();
+
+    private record ReservaEmAndamento(String operacao, String chave) {
+    }
+
+    public IdempotenciaService(IdempotenciaRepository repository,
+                               LocalCache<String, RespostaIdempotente> idempotenciaCache,
+                               @Value("${idempotencia.validade-ms:86400000}") long validadeMs,
+                               @Value("${idempotencia.reserva-ms:60000}") long validadeReservaMs,
+                               @Value("${idempotencia.espera-maxima-ms:10000}") long esperaMaximaMs,
+                               @Value("${idempotencia.intervalo-consulta-ms:50}") long intervaloConsultaMs) {
+        this.repository = repository;
+        this.respostasRecentes = idempotenciaCache;
+        this.validade = Duration.ofMillis(validadeMs);
+        this.validadeReserva = Duration.ofMillis(validadeReservaMs);
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+        this.intervaloConsulta = Duration.ofMillis(Math.max(intervaloConsultaMs, 1));
+    }
+
+    /**
+     * Executa a operação uma única vez por chave, ou devolve a resposta gravada de uma execução anterior.
+     * Sem chave, a operação é executada normalmente. Se a operação lançar exceção ou responder com
+     * status fora da faixa 2xx, a reserva da chave é desfeita para que o cliente possa repetir a requisição.
+     *
+     * @param operacao Nome da operação protegida (as chaves são separadas por operação)
+     * @param chave Valor do cabeçalho {@value #HEADER}, ou null
+     * @param requisicao Corpo da requisição, usado para detectar reutilização da chave com outro conteúdo
+     * @param execucao Operação a executar
+     * @return ResponseEntity<?> Resposta da execução ou a resposta gravada
+     * @throws IdempotenciaConflitoException Se a chave já foi usada com outro corpo ou a primeira
+     *                                       execução não terminou dentro da espera máxima
+     */
+    public ResponseEntity<?> executar(String operacao, String chave, Object requisicao,
+                                      Supplier<ResponseEntity<?>> execucao) {
+        if (chave == null || chave.isBlank()) {
+            return execucao.get();
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException(HEADER + " excede o limite de " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        String hash = calcularHash(requisicao);
+        String chaveCompleta = operacao + ":" + chave;
+
+        RespostaIdempotente recente = respostasRecentes.get(chaveCompleta);
+        if (recente != null) {
+            validarMesmaRequisicao(recente, hash, chave);
+            repeticoesMemoria.increment();
+            return repetir(recente);
+        }
+
+        ResponseEntity<?>[] respostaExecutada = new ResponseEntity<?>[1];
+        RespostaIdempotente resposta;
+        try {
+            resposta = execucoes.executar(chaveCompleta + ":" + hash,
+                    () -> executarUmaVez(operacao, chave, hash, execucao, respostaExecutada));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
+        if (resposta.concluida()) {
+            respostasRecentes.put(chaveCompleta, resposta);
+        }
+        if (respostaExecutada[0] != null) {
+            return respostaExecutada[0];
+        }
+        repeticoesMemoria.increment();
+        return repetir(resposta);
+    }
+
+    private RespostaIdempotente executarUmaVez(String operacao, String chave, String hash,
+                                               Supplier<ResponseEntity<?>> execucao,
+                                               ResponseEntity<?>[] respostaExecutada) throws InterruptedException {
+        RespostaIdempotente gravada = repository.buscar(operacao, chave);
+        if (gravada == null && repository.reservar(operacao, chave, hash, validadeReserva)) {
+            ReservaEmAndamento reserva = new ReservaEmAndamento(operacao, chave);
+            reservasEmAndamento.add(reserva);
+            ResponseEntity<?> resposta;
+            try {
+                resposta = execucao.get();
+            } catch (RuntimeException e) {
+                repository.liberar(operacao, chave);
+                throw e;
+            } finally {
+                reservasEmAndamento.remove(reserva);
+            }
+
+            boolean sucesso = resposta.getStatusCode().is2xxSuccessful();
+            RespostaIdempotente concluida = new RespostaIdempotente(hash, sucesso, resposta.getStatusCode().value(),
+                    serializarCorpo(resposta.getBody()),
+                    resposta.getHeaders().getLocation() != null ? resposta.getHeaders().getLocation().toString() : null);
+            respostaExecutada[0] = resposta;
+
+            if (!sucesso) {
+                repository.liberar(operacao, chave);
+                liberadas.increment();
+                return concluida;
+            }
+
+            try {
+                repository.concluir(operacao, chave, concluida.status(), concluida.corpo(), concluida.location(), validade);
+            } catch (RuntimeException e) {
+                logger.error("Resposta da chave de idempotência {} não gravada: {}", chave, e.getMessage());
+            }
+
+            executadas.increment();
+            return concluida;
+        }
+
+        return aguardarConclusao(operacao, chave, hash, gravada);
+    }
+
+    /**
+     * Aguarda a conclusão de uma execução com a mesma chave iniciada em outra instância
+     * (ou numa requisição anterior), consultando o registro até a espera máxima.
+     */
+    private RespostaIdempotente aguardarConclusao(String operacao, String chave, String hash,
+                                                  RespostaIdempotente gravada) throws InterruptedException {
+        long limite = System.nanoTime() + esperaMaxima.toNanos();
+        RespostaIdempotente atual = gravada != null ? gravada : repository.buscar(operacao, chave);
+
+        while (atual == null || !atual.concluida()) {
+            if (atual != null) {
+                validarMesmaRequisicao(atual, hash, chave);
+            }
+            if (System.nanoTime() >= limite) {
+                conflitos.increment();
+                throw new IdempotenciaConflitoException("Requisição com a mesma " + HEADER + " ainda em processamento");
+            }
+            Thread.sleep(intervaloConsulta.toMillis());
+            atual = repository.buscar(operacao, chave);
+        }
+
+        validarMesmaRequisicao(atual, hash, chave);
+        repeticoesBanco.increment();
+        return atual;
+    }
+
+    private void validarMesmaRequisicao(RespostaIdempotente resposta, String hash, String chave) {
+        if (!resposta.hashRequisicao().equals(hash)) {
+            conflitos.increment();
+            throw new IdempotenciaConflitoException(HEADER + " " + chave + " já utilizada com outra requisição");
+        }
+    }
+
+    private ResponseEntity<?> repetir(RespostaIdempotente resposta) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(resposta.status())
+                .header(HEADER_REPETICAO, "true");
+        if (resposta.location() != null) {
+            builder.location(URI.create(resposta.location()));
+        }
+        if (resposta.corpo() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(resposta.corpo());
+    }
+
+    private String serializarCorpo(Object corpo) {
+        if (corpo == null || corpo instanceof String) {
+            return (String) corpo;
+        }
+        return gson.toJson(corpo);
+    }
+
+    private String calcularHash(Object requisicao) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(gson.toJson(requisicao).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Prorroga periodicamente a reserva das execuções em andamento nesta instância, para que uma
+     * execução mais longa que a validade da reserva não tenha a chave tomada por uma repetição.
+     */
+    @Scheduled(fixedDelayString = "${idempotencia.reserva.prorrogacao-intervalo-ms:20000}")
+    public void prorrogarReservas() {
+        for (ReservaEmAndamento reserva : reservasEmAndamento) {
+            try {
+                repository.prorrogar(reserva.operacao(), reserva.chave(), validadeReserva);
+                prorrogacoes.increment();
+            } catch (RuntimeException e) {
+                logger.error("Falha ao prorrogar reserva da chave de idempotência {}: {}", reserva.chave(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remove periodicamente as chaves expiradas.
+     */
+    @Scheduled(fixedDelayString = "${idempotencia.limpeza.intervalo-ms:600000}")
+    public void removerExpiradas() {
+        try {
+            int removidas = repository.removerExpiradas();
+            if (removidas > 0) {
+                logger.info("{} chaves de idempotência expiradas removidas", removidas);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Falha ao remover chaves de idempotência expiradas: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return "idempotencia";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("executadas", executadas.sum());
+        metricas.put("repeticoesMemoria", repeticoesMemoria.sum());
+        metricas.put("repeticoesBanco", repeticoesBanco.sum());
+        metricas.put("conflitos", conflitos.sum());
+        metricas.put("liberadas", liberadas.sum());
+        metricas.put("prorrogacoes", prorrogacoes.sum());
+        metricas.put("esperasCompartilhadas", execucoes.getCompartilhadas());
+        metricas.put("emAndamento", execucoes.getEmAndamento());
+        return metricas;
+    }
+}
@@ -0,0 +1,14 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+/**
+ * Resposta gravada para uma chave de idempotência.
+ *
+ * @param hashRequisicao Hash do corpo da requisição que originou a resposta
+ * @param concluida false enquanto a primeira execução ainda está em andamento
+ * @param status Status HTTP da resposta
+ * @param corpo Corpo da resposta em JSON
+ * @param location Cabeçalho Location da resposta, se houver
+ */
+public record RespostaIdempotente(String hashRequisicao, boolean concluida, Integer status, String corpo,
+                                  String location) {
+}
@@ -0,0 +1,90 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coleta as métricas do pool de conexões JDBC (HikariCP).
+ * Registra tempo de espera por conexão, timeouts e tempo de uso,
+ * além do estado atual do pool (conexões ativas, ociosas e threads aguardando).
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, MetricsSource {
+
+    private final LongAdder conexoesObtidas = new LongAdder();
+    private final LongAdder tempoEsperaTotalNanos = new LongAdder();
+    private final LongAccumulator tempoEsperaMaximoNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder conexoesCriadas = new LongAdder();
+    private final LongAdder tempoUsoTotalMillis = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                conexoesCriadas.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                conexoesObtidas.increment();
+                tempoEsperaTotalNanos.add(elapsedAcquiredNanos);
+                tempoEsperaMaximoNanos.accumulate(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                tempoUsoTotalMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    @Override
+    public String getNome() {
+        return "pool";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        PoolStats stats = this.poolStats;
+
+        if (stats != null) {
+            metricas.put("ativas", stats.getActiveConnections());
+            metricas.put("ociosas", stats.getIdleConnections());
+            metricas.put("total", stats.getTotalConnections());
+            metricas.put("aguardando", stats.getPendingThreads());
+            metricas.put("minimo", stats.getMinConnections());
+            metricas.put("maximo", stats.getMaxConnections());
+        }
+
+        long obtidas = conexoesObtidas.sum();
+        metricas.put("conexoesObtidas", obtidas);
+        metricas.put("conexoesCriadas", conexoesCriadas.sum());
+        metricas.put("timeouts", timeouts.sum());
+        metricas.put("tempoEsperaMedioMs", obtidas > 0
+                ? TimeUnit.NANOSECONDS.toMicros(tempoEsperaTotalNanos.sum() / obtidas) / 1000.0
+                : 0.0);
+        metricas.put("tempoEsperaMaximoMs", TimeUnit.NANOSECONDS.toMicros(tempoEsperaMaximoNanos.get()) / 1000.0);
+        metricas.put("tempoUsoMedioMs", obtidas > 0 ? (double) tempoUsoTotalMillis.sum() / obtidas : 0.0);
+        return metricas;
+    }
+}
@@ -0,0 +1,58 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Guarda as latências mais recentes numa janela circular e calcula percentis sobre elas.
+ * O percentil é recalculado apenas a cada {@code intervaloRecalculo} amostras novas,
+ * para que a consulta no caminho da requisição não precise ordenar a janela toda vez.
+ */
+public class LatencyTracker {
+
+    private final long[] amostras;
+    private final int intervaloRecalculo;
+    private int posicao;
+    private int registradas;
+    private int desdeUltimoCalculo;
+
+    private double percentilCalculado = -1;
+    private long valorCalculado = -1;
+
+    public LatencyTracker(int tamanhoJanela) {
+        this.amostras = new long[Math.max(tamanhoJanela, 1)];
+        this.intervaloRecalculo = Math.max(1, amostras.length / 20);
+    }
+
+    public synchronized void registrar(long latenciaNanos) {
+        amostras[posicao] = latenciaNanos;
+        posicao = (posicao + 1) % amostras.length;
+        registradas = Math.min(registradas + 1, amostras.length);
+        desdeUltimoCalculo++;
+    }
+
+    public synchronized int getAmostras() {
+        return registradas;
+    }
+
+    /**
+     * Retorna o percentil das latências da janela.
+     *
+     * @param percentil Percentil desejado, entre 0 e 100
+     * @return long Latência em nanossegundos, ou -1 se ainda não houver amostras
+     */
+    public synchronized long percentil(double percentil) {
+        if (registradas == 0) {
+            return -1;
+        }
+
+        if (percentil != percentilCalculado || desdeUltimoCalculo >= intervaloRecalculo || valorCalculado < 0) {
+            long[] ordenadas = Arrays.copyOf(amostras, registradas);
+            Arrays.sort(ordenadas);
+            int indice = (int) Math.ceil(percentil / 100.0 * registradas) - 1;
+            valorCalculado = ordenadas[Math.max(0, Math.min(indice, registradas - 1))];
+            percentilCalculado = percentil;
+            desdeUltimoCalculo = 0;
+        }
+        return valorCalculado;
+    }
+}
@@ -0,0 +1,40 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("${app.api.base-path}/metricas")
+public class MetricsController {
+
+    private final List<MetricsSource> fontes;
+
+    public MetricsController(List<MetricsSource> fontes) {
+        this.fontes = fontes;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Object>>> buscarTodas() {
+        Map<String, Map<String, Object>> metricas = new LinkedHashMap<>();
+        for (MetricsSource fonte : fontes) {
+            metricas.put(fonte.getNome(), fonte.snapshot());
+        }
+        return ResponseEntity.ok(metricas);
+    }
+
+    @GetMapping("/{nome}")
+    public ResponseEntity<Map<String, Object>> buscarPorNome(@PathVariable String nome) {
+        return fontes.stream()
+                .filter(fonte -> fonte.getNome().equals(nome))
+                .findFirst()
+                .map(fonte -> ResponseEntity.ok(fonte.snapshot()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
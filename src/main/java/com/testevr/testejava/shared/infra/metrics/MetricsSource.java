@@ -0,0 +1,24 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import java.util.Map;
+
+/**
+ * Fonte de métricas exposta pelo {@link MetricsController}.
+ * Cada componente instrumentado publica um snapshot com seus contadores atuais.
+ */
+public interface MetricsSource {
+
+    /**
+     * Nome sob o qual as métricas desta fonte são publicadas.
+     *
+     * @return String Nome da fonte de métricas
+     */
+    String getNome();
+
+    /**
+     * Retorna um snapshot dos valores atuais das métricas.
+     *
+     * @return Map<String, Object> Métricas indexadas pelo nome
+     */
+    Map<String, Object> snapshot();
+}
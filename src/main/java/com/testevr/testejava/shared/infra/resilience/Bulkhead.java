@@ -0,0 +1,81 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita o número de chamadas simultâneas a uma dependência.
+ * Quando todas as vagas estão ocupadas, a chamada aguarda no máximo o tempo configurado
+ * e então é rejeitada, evitando que uma dependência lenta prenda todas as threads do servidor.
+ */
+public class Bulkhead implements MetricsSource {
+
+    private final String nome;
+    private final int maximoConcorrentes;
+    private final long esperaMaximaNanos;
+    private final Semaphore vagas;
+
+    private final LongAdder rejeitadas = new LongAdder();
+
+    public Bulkhead(String nome, int maximoConcorrentes, Duration esperaMaxima) {
+        this.nome = nome;
+        this.maximoConcorrentes = Math.max(maximoConcorrentes, 1);
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.vagas = new Semaphore(this.maximoConcorrentes, true);
+    }
+
+    /**
+     * Ocupa uma vaga, aguardando até o tempo máximo configurado.
+     * Toda vaga obtida deve ser devolvida com {@link #liberar()}.
+     *
+     * @throws ChamadaRejeitadaException Se nenhuma vaga for liberada a tempo
+     */
+    public void adquirir() {
+        try {
+            if (vagas.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejeitadas.increment();
+        throw new ChamadaRejeitadaException("Limite de " + maximoConcorrentes
+                + " chamadas simultâneas atingido em " + nome);
+    }
+
+    /**
+     * Ocupa uma vaga somente se houver uma livre, sem aguardar e sem contar rejeição.
+     * Usado por chamadas opcionais, que são dispensadas quando o bulkhead está cheio.
+     *
+     * @return boolean true se a vaga foi obtida e deve ser devolvida com {@link #liberar()}
+     */
+    public boolean tentarAdquirir() {
+        return vagas.tryAcquire();
+    }
+
+    public void liberar() {
+        vagas.release();
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("maximoConcorrentes", maximoConcorrentes);
+        metricas.put("emUso", maximoConcorrentes - vagas.availablePermits());
+        metricas.put("aguardando", vagas.getQueueLength());
+        metricas.put("rejeitadas", rejeitadas.sum());
+        return metricas;
+    }
+}
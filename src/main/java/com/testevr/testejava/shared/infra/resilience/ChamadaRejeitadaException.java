@@ -0,0 +1,12 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+/**
+ * Lançada quando uma chamada é recusada antes de ser executada,
+ * seja pelo circuito aberto ou pelo limite de concorrência do bulkhead.
+ */
+public class ChamadaRejeitadaException extends RuntimeException {
+
+    public ChamadaRejeitadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,250 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker com janela deslizante por contagem de chamadas.
+ * O circuito abre quando, com um mínimo de chamadas registradas na janela, a taxa de falhas
+ * ou a taxa de chamadas lentas atinge o limite configurado. Aberto, ele rejeita as chamadas
+ * imediatamente até o fim do tempo de espera; depois passa a meio-aberto e libera um número
+ * limitado de chamadas de teste, cujo resultado decide se ele fecha ou abre novamente.
+ * Cada permissão guarda a geração do circuito em que foi concedida (a geração avança a cada
+ * mudança de estado): resultados de permissões de uma geração anterior são descartados, e só
+ * permissões concedidas no estado meio-aberto contam como chamadas de teste.
+ */
+public class CircuitBreaker implements MetricsSource {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    /**
+     * Permissão concedida por {@link #adquirirPermissao()}.
+     *
+     * @param geracao Geração do circuito em que a permissão foi concedida
+     * @param teste Indica se é uma chamada de teste do estado meio-aberto
+     */
+    public record Permissao(long geracao, boolean teste) {}
+
+    private final String nome;
+    private final int minimoChamadas;
+    private final double limiteTaxaFalha;
+    private final long limiteChamadaLentaNanos;
+    private final double limiteTaxaLenta;
+    private final long tempoAbertoNanos;
+    private final int chamadasMeioAberto;
+    private final LongSupplier relogio;
+
+    private final boolean[] falhas;
+    private final boolean[] lentas;
+    private int posicao;
+    private int registradas;
+    private int falhasNaJanela;
+    private int lentasNaJanela;
+
+    private Estado estado = Estado.FECHADO;
+    private long geracao;
+    private long abertoEm;
+    private int permissoesMeioAberto;
+    private int resultadosMeioAberto;
+    private int falhasMeioAberto;
+    private int lentasMeioAberto;
+
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder aberturas = new LongAdder();
+    private final LongAdder resultadosDescartados = new LongAdder();
+
+    /**
+     * @param nome Nome do circuito, usado nas mensagens e nas métricas
+     * @param tamanhoJanela Quantidade de chamadas consideradas na janela deslizante
+     * @param minimoChamadas Mínimo de chamadas na janela antes de avaliar as taxas
+     * @param limiteTaxaFalha Percentual de falhas (0-100) que abre o circuito
+     * @param limiteChamadaLenta Duração a partir da qual uma chamada é considerada lenta
+     * @param limiteTaxaLenta Percentual de chamadas lentas (0-100) que abre o circuito
+     * @param tempoAberto Tempo em que o circuito permanece aberto antes de testar a recuperação
+     * @param chamadasMeioAberto Chamadas de teste liberadas no estado meio-aberto
+     */
+    public CircuitBreaker(String nome, int tamanhoJanela, int minimoChamadas, double limiteTaxaFalha,
+                          Duration limiteChamadaLenta, double limiteTaxaLenta, Duration tempoAberto,
+                          int chamadasMeioAberto) {
+        this(nome, tamanhoJanela, minimoChamadas, limiteTaxaFalha, limiteChamadaLenta, limiteTaxaLenta,
+                tempoAberto, chamadasMeioAberto, System::nanoTime);
+    }
+
+    CircuitBreaker(String nome, int tamanhoJanela, int minimoChamadas, double limiteTaxaFalha,
+                   Duration limiteChamadaLenta, double limiteTaxaLenta, Duration tempoAberto,
+                   int chamadasMeioAberto, LongSupplier relogio) {
+        this.nome = nome;
+        this.falhas = new boolean[Math.max(tamanhoJanela, 1)];
+        this.lentas = new boolean[Math.max(tamanhoJanela, 1)];
+        this.minimoChamadas = Math.max(1, Math.min(minimoChamadas, falhas.length));
+        this.limiteTaxaFalha = limiteTaxaFalha;
+        this.limiteChamadaLentaNanos = limiteChamadaLenta.toNanos();
+        this.limiteTaxaLenta = limiteTaxaLenta;
+        this.tempoAbertoNanos = tempoAberto.toNanos();
+        this.chamadasMeioAberto = Math.max(chamadasMeioAberto, 1);
+        this.relogio = relogio;
+    }
+
+    /**
+     * Solicita permissão para executar uma chamada. Toda permissão concedida deve ser
+     * seguida de {@link #registrarResultado} ou {@link #liberarPermissao}.
+     *
+     * @return Permissao Permissão a ser informada ao registrar o resultado ou ao devolvê-la
+     * @throws ChamadaRejeitadaException Se o circuito estiver aberto ou sem chamadas de teste disponíveis
+     */
+    public synchronized Permissao adquirirPermissao() {
+        if (estado == Estado.ABERTO) {
+            if (relogio.getAsLong() - abertoEm < tempoAbertoNanos) {
+                rejeitadas.increment();
+                throw new ChamadaRejeitadaException("Circuito " + nome + " aberto");
+            }
+            transicionarParaMeioAberto();
+        }
+
+        if (estado == Estado.MEIO_ABERTO) {
+            if (permissoesMeioAberto >= chamadasMeioAberto) {
+                rejeitadas.increment();
+                throw new ChamadaRejeitadaException("Circuito " + nome + " aguardando chamadas de teste");
+            }
+            permissoesMeioAberto++;
+            return new Permissao(geracao, true);
+        }
+        return new Permissao(geracao, false);
+    }
+
+    /**
+     * Registra o resultado de uma chamada executada com permissão. O resultado é descartado
+     * se o circuito mudou de estado depois que a permissão foi concedida.
+     *
+     * @param permissao Permissão devolvida por {@link #adquirirPermissao()}
+     * @param falha Indica se a chamada falhou
+     * @param duracaoNanos Duração da chamada em nanossegundos
+     */
+    public synchronized void registrarResultado(Permissao permissao, boolean falha, long duracaoNanos) {
+        if (permissao.geracao() != geracao) {
+            resultadosDescartados.increment();
+            return;
+        }
+
+        boolean lenta = duracaoNanos >= limiteChamadaLentaNanos;
+        if (permissao.teste()) {
+            registrarChamadaDeTeste(falha, lenta);
+        } else {
+            registrarNaJanela(falha, lenta);
+        }
+    }
+
+    /**
+     * Devolve uma permissão cuja chamada não chegou a produzir resultado (por exemplo, interrompida).
+     *
+     * @param permissao Permissão devolvida por {@link #adquirirPermissao()}
+     */
+    public synchronized void liberarPermissao(Permissao permissao) {
+        if (permissao.teste() && permissao.geracao() == geracao) {
+            permissoesMeioAberto--;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        if (estado == Estado.ABERTO && relogio.getAsLong() - abertoEm >= tempoAbertoNanos) {
+            transicionarParaMeioAberto();
+        }
+        return estado;
+    }
+
+    private void registrarNaJanela(boolean falha, boolean lenta) {
+        if (registradas == falhas.length) {
+            falhasNaJanela -= falhas[posicao] ? 1 : 0;
+            lentasNaJanela -= lentas[posicao] ? 1 : 0;
+        } else {
+            registradas++;
+        }
+
+        falhas[posicao] = falha;
+        lentas[posicao] = lenta;
+        falhasNaJanela += falha ? 1 : 0;
+        lentasNaJanela += lenta ? 1 : 0;
+        posicao = (posicao + 1) % falhas.length;
+
+        if (registradas >= minimoChamadas && limitesAtingidos(falhasNaJanela, lentasNaJanela, registradas)) {
+            abrir();
+        }
+    }
+
+    private void registrarChamadaDeTeste(boolean falha, boolean lenta) {
+        resultadosMeioAberto++;
+        falhasMeioAberto += falha ? 1 : 0;
+        lentasMeioAberto += lenta ? 1 : 0;
+
+        if (resultadosMeioAberto < chamadasMeioAberto) {
+            return;
+        }
+
+        if (limitesAtingidos(falhasMeioAberto, lentasMeioAberto, resultadosMeioAberto)) {
+            abrir();
+        } else {
+            fechar();
+        }
+    }
+
+    private boolean limitesAtingidos(int totalFalhas, int totalLentas, int total) {
+        return taxa(totalFalhas, total) >= limiteTaxaFalha || taxa(totalLentas, total) >= limiteTaxaLenta;
+    }
+
+    private double taxa(int parcial, int total) {
+        return total == 0 ? 0.0 : parcial * 100.0 / total;
+    }
+
+    private void abrir() {
+        estado = Estado.ABERTO;
+        geracao++;
+        abertoEm = relogio.getAsLong();
+        aberturas.increment();
+        limparJanela();
+    }
+
+    private void fechar() {
+        estado = Estado.FECHADO;
+        geracao++;
+        limparJanela();
+    }
+
+    private void transicionarParaMeioAberto() {
+        estado = Estado.MEIO_ABERTO;
+        geracao++;
+        permissoesMeioAberto = 0;
+        resultadosMeioAberto = 0;
+        falhasMeioAberto = 0;
+        lentasMeioAberto = 0;
+    }
+
+    private void limparJanela() {
+        posicao = 0;
+        registradas = 0;
+        falhasNaJanela = 0;
+        lentasNaJanela = 0;
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("estado", getEstado().name());
+        metricas.put("chamadasNaJanela", registradas);
+        metricas.put("taxaFalha", taxa(falhasNaJanela, registradas));
+        metricas.put("taxaChamadasLentas", taxa(lentasNaJanela, registradas));
+        metricas.put("rejeitadas", rejeitadas.sum());
+        metricas.put("aberturas", aberturas.sum());
+        metricas.put("resultadosDescartados", resultadosDescartados.sum());
+        return metricas;
+    }
+}
@@ -0,0 +1,137 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import com.testevr.testejava.shared.infra.metrics.LatencyTracker;
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Política de hedging para leituras idempotentes.
+ * Uma segunda tentativa é enviada quando a primeira não responde dentro do percentil configurado
+ * das latências recentes (nunca abaixo do atraso mínimo). O orçamento funciona como um balde de
+ * fichas: cada requisição acrescenta uma fração de ficha e cada tentativa extra consome uma,
+ * limitando a carga adicional ao percentual configurado.
+ */
+public class HedgingPolicy implements MetricsSource {
+
+    // Fichas em milésimos, para que frações pequenas se acumulem sem erro de arredondamento
+    private static final long FICHA = 1000;
+    private static final long FICHAS_MAXIMAS = 10 * FICHA;
+
+    private final String nome;
+    private final boolean habilitado;
+    private final double percentil;
+    private final long atrasoMinimoNanos;
+    private final int amostrasMinimas;
+    private final long fichasPorRequisicao;
+    private final LatencyTracker latencias;
+
+    private long fichas;
+
+    private final LongAdder requisicoes = new LongAdder();
+    private final LongAdder hedgesEnviados = new LongAdder();
+    private final LongAdder hedgesVencedores = new LongAdder();
+    private final LongAdder hedgesNegados = new LongAdder();
+    private final LongAdder hedgesSemVaga = new LongAdder();
+
+    /**
+     * @param nome Nome da política, usado nas métricas
+     * @param habilitado Indica se tentativas extras podem ser enviadas
+     * @param percentil Percentil das latências recentes usado como atraso (0-100)
+     * @param atrasoMinimo Atraso mínimo antes de enviar a tentativa extra
+     * @param percentualOrcamento Percentual máximo de requisições extras em relação às originais
+     * @param tamanhoJanela Quantidade de latências recentes consideradas
+     * @param amostrasMinimas Amostras necessárias antes de começar a enviar tentativas extras
+     */
+    public HedgingPolicy(String nome, boolean habilitado, double percentil, Duration atrasoMinimo,
+                         double percentualOrcamento, int tamanhoJanela, int amostrasMinimas) {
+        this.nome = nome;
+        this.habilitado = habilitado;
+        this.percentil = percentil;
+        this.atrasoMinimoNanos = atrasoMinimo.toNanos();
+        this.fichasPorRequisicao = Math.round(Math.max(percentualOrcamento, 0) * FICHA / 100.0);
+        this.latencias = new LatencyTracker(tamanhoJanela);
+        this.amostrasMinimas = Math.max(amostrasMinimas, 1);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Registra uma nova requisição original, acrescentando sua fração ao orçamento.
+     */
+    public synchronized void registrarRequisicao() {
+        requisicoes.increment();
+        fichas = Math.min(FICHAS_MAXIMAS, fichas + fichasPorRequisicao);
+    }
+
+    public void registrarLatencia(long latenciaNanos) {
+        latencias.registrar(latenciaNanos);
+    }
+
+    /**
+     * Atraso após o qual a tentativa extra deve ser enviada.
+     *
+     * @return long Atraso em nanossegundos, ou -1 se o hedging estiver desabilitado
+     *         ou ainda não houver amostras suficientes
+     */
+    public long atrasoNanos() {
+        if (!habilitado || latencias.getAmostras() < amostrasMinimas) {
+            return -1;
+        }
+        return Math.max(atrasoMinimoNanos, latencias.percentil(percentil));
+    }
+
+    /**
+     * Consome uma ficha do orçamento para enviar uma tentativa extra.
+     *
+     * @return boolean true se a tentativa extra pode ser enviada
+     */
+    public synchronized boolean permitirHedge() {
+        if (fichas >= FICHA) {
+            fichas -= FICHA;
+            hedgesEnviados.increment();
+            return true;
+        }
+        hedgesNegados.increment();
+        return false;
+    }
+
+    /**
+     * Registra uma tentativa extra dispensada por falta de vaga no bulkhead.
+     */
+    public void registrarHedgeSemVaga() {
+        hedgesSemVaga.increment();
+    }
+
+    public void registrarVitoriaHedge() {
+        hedgesVencedores.increment();
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        long atraso = atrasoNanos();
+        metricas.put("habilitado", habilitado);
+        metricas.put("percentil", percentil);
+        metricas.put("atrasoAtualMs", atraso < 0 ? null : Duration.ofNanos(atraso).toMillis());
+        metricas.put("requisicoes", requisicoes.sum());
+        metricas.put("hedgesEnviados", hedgesEnviados.sum());
+        metricas.put("hedgesVencedores", hedgesVencedores.sum());
+        metricas.put("hedgesNegadosPorOrcamento", hedgesNegados.sum());
+        metricas.put("hedgesNegadosPorBulkhead", hedgesSemVaga.sum());
+        synchronized (this) {
+            metricas.put("orcamentoDisponivel", (double) fichas / FICHA);
+        }
+        return metricas;
+    }
+}
@@ -1,12 +1,16 @@
 package com.testevr.testejava.shared.infra.web;
 
 import com.testevr.testejava.shared.config.responseEntity.DefaultResponseEntityFactory;
+import com.testevr.testejava.shared.infra.idempotencia.IdempotenciaConflitoException;
+import com.testevr.testejava.shared.infra.resilience.ChamadaRejeitadaException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -33,6 +37,33 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler({MissingServletRequestParameterException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<?> handleParametroInvalidoException(Exception ex) {
+        return DefaultResponseEntityFactory.create(
+                ex.getMessage(),
+                null,
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(ChamadaRejeitadaException.class)
+    public ResponseEntity<?> handleChamadaRejeitadaException(ChamadaRejeitadaException ex) {
+        return DefaultResponseEntityFactory.create(
+                ex.getMessage(),
+                null,
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    @ExceptionHandler(IdempotenciaConflitoException.class)
+    public ResponseEntity<?> handleIdempotenciaConflitoException(IdempotenciaConflitoException ex) {
+        return DefaultResponseEntityFactory.create(
+                ex.getMessage(),
+                null,
+                HttpStatus.CONFLICT
+        );
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGenericException(Exception ex) {
         return DefaultResponseEntityFactory.create(
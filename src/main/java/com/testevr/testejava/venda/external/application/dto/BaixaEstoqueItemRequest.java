@@ -0,0 +1,30 @@
+package com.testevr.testejava.venda.external.application.dto;
+
+/**
+ * Item de baixa de estoque enviado pela aplicação à API de produtos. Diferente de
+ * {@link BaixaEstoqueRequest}, que também é o corpo público de POST /vendas/baixa, este item
+ * nunca é lido de uma requisição de cliente, então a chave de idempotência só pode ser
+ * definida pela própria aplicação.
+ */
+public class BaixaEstoqueItemRequest {
+    private Long id;
+    private Integer quantidade;
+    private String chaveIdempotencia;
+
+    public BaixaEstoqueItemRequest() {}
+
+    public BaixaEstoqueItemRequest(Long id, Integer quantidade, String chaveIdempotencia) {
+        this.id = id;
+        this.quantidade = quantidade;
+        this.chaveIdempotencia = chaveIdempotencia;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public String getChaveIdempotencia() { return chaveIdempotencia; }
+    public void setChaveIdempotencia(String chaveIdempotencia) { this.chaveIdempotencia = chaveIdempotencia; }
+}
@@ -0,0 +1,26 @@
+package com.testevr.testejava.venda.external.application.dto;
+
+public class BaixaEstoqueLoteItem {
+    private Integer indice;
+    private Long id;
+    private Integer estoqueAtual;
+    private String message;
+    private String erro;
+
+    public BaixaEstoqueLoteItem() {}
+
+    public Integer getIndice() { return indice; }
+    public void setIndice(Integer indice) { this.indice = indice; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getEstoqueAtual() { return estoqueAtual; }
+    public void setEstoqueAtual(Integer estoqueAtual) { this.estoqueAtual = estoqueAtual; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getErro() { return erro; }
+    public void setErro(String erro) { this.erro = erro; }
+}
@@ -0,0 +1,24 @@
+package com.testevr.testejava.venda.external.application.dto;
+
+import java.util.List;
+
+public class BaixaEstoqueLoteResponse {
+    private transient int status;
+    private String message;
+    private List<BaixaEstoqueLoteItem> sucesso;
+    private List<BaixaEstoqueLoteItem> erros;
+
+    public BaixaEstoqueLoteResponse() {}
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public List<BaixaEstoqueLoteItem> getSucesso() { return sucesso; }
+    public void setSucesso(List<BaixaEstoqueLoteItem> sucesso) { this.sucesso = sucesso; }
+
+    public List<BaixaEstoqueLoteItem> getErros() { return erros; }
+    public void setErros(List<BaixaEstoqueLoteItem> erros) { this.erros = erros; }
+}
@@ -16,4 +16,4 @@ public class BaixaEstoqueRequest {
 
     public Integer getQuantidade() { return quantidade; }
     public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
-}
\ No newline at end of file
+}
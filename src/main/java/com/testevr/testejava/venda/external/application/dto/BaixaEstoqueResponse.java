@@ -4,6 +4,7 @@ public class BaixaEstoqueResponse {
     private String message;
     private Integer estoqueAtual;
     private Integer quantidadeSolicitada;
+    private Boolean sucesso;
 
     public BaixaEstoqueResponse() {}
 
@@ -21,4 +22,7 @@ public class BaixaEstoqueResponse {
     public void setQuantidadeSolicitada(Integer quantidadeSolicitada) {
         this.quantidadeSolicitada = quantidadeSolicitada;
     }
-}
\ No newline at end of file
+
+    public Boolean getSucesso() { return sucesso; }
+    public void setSucesso(Boolean sucesso) { this.sucesso = sucesso; }
+}
@@ -0,0 +1,462 @@
+package com.testevr.testejava.venda.external.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueItemRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueLoteItem;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueLoteResponse;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa baixas de estoque individuais numa única chamada ao endpoint de baixa em lote.
+ * Com nenhum envio em andamento, as baixas recebidas seguem imediatamente; enquanto um envio
+ * está em andamento, elas são acumuladas até completar o tamanho máximo do lote ou até o fim
+ * de uma janela curta de tempo, o que ocorrer primeiro. O resultado de cada item da resposta
+ * do lote é então devolvido a quem pediu aquela baixa. Quando desabilitado, ou quando o envio
+ * tem uma única baixa, a chamada individual de {@link ProdutoService#realizarBaixaEstoque} é usada.
+ */
+@Service
+public class BaixaEstoqueBatcher implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaixaEstoqueBatcher.class);
+
+    private final ProdutoService produtoService;
+    private final boolean habilitado;
+    private final Duration janela;
+    private final int tamanhoMaximo;
+    private final Duration esperaMaxima;
+
+    private final ScheduledExecutorService agendador;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private List<Pendente> pendentes = new ArrayList<>();
+    private ScheduledFuture<?> envioAgendado;
+    private int enviosEmAndamento;
+    private boolean encerrado;
+
+    private final LongAdder baixasRecebidas = new LongAdder();
+    private final LongAdder lotesEnviados = new LongAdder();
+    private final LongAdder chamadasIndividuais = new LongAdder();
+    private final LongAdder lotesInconsistentes = new LongAdder();
+    private final LongAdder esperasEsgotadas = new LongAdder();
+    private final LongAdder estornosTardios = new LongAdder();
+
+    private record Pendente(BaixaEstoqueItemRequest request, CompletableFuture<BaixaEstoqueResponse> resultado) {}
+
+    public BaixaEstoqueBatcher(ProdutoService produtoService,
+                               @Value("${produto.baixa.lote.enabled:true}") boolean habilitado,
+                               @Value("${produto.baixa.lote.janela-ms:10}") long janelaMs,
+                               @Value("${produto.baixa.lote.tamanho-maximo:50}") int tamanhoMaximo,
+                               @Value("${produto.baixa.lote.espera-maxima-ms:15000}") long esperaMaximaMs) {
+        this.produtoService = produtoService;
+        this.habilitado = habilitado;
+        this.janela = Duration.ofMillis(janelaMs);
+        this.tamanhoMaximo = Math.max(tamanhoMaximo, 1);
+        this.esperaMaxima = Duration.ofMillis(Math.max(esperaMaximaMs, 1));
+        this.agendador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("baixa-estoque-batcher").daemon().factory());
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Realiza a baixa de estoque de um produto, aguardando o envio em que ela for incluída.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser baixada do estoque
+     * @return BaixaEstoqueResponse Resultado da baixa deste produto
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa ou a espera máxima se esgotar
+     */
+    public BaixaEstoqueResponse realizarBaixaEstoque(Long produtoId, Integer quantidade) throws IOException {
+        return aguardar(enfileirar(produtoId, quantidade));
+    }
+
+    /**
+     * Enfileira uma baixa de estoque sem bloquear.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser baixada do estoque
+     * @return CompletableFuture<BaixaEstoqueResponse> Resultado da baixa, concluído após o envio
+     */
+    public CompletableFuture<BaixaEstoqueResponse> enfileirar(Long produtoId, Integer quantidade) {
+        return enfileirarTodos(List.of(new BaixaEstoqueRequest(produtoId, quantidade))).getFirst();
+    }
+
+    /**
+     * Enfileira várias baixas de estoque do mesmo chamador de uma só vez, para que sigam
+     * juntas no mesmo lote sem esperar a janela. Depois de {@link #encerrar()}, os resultados
+     * devolvidos já estão concluídos com falha.
+     *
+     * @param requests Baixas a enfileirar
+     * @return List<CompletableFuture<BaixaEstoqueResponse>> Resultado de cada baixa, na mesma ordem
+     */
+    public List<CompletableFuture<BaixaEstoqueResponse>> enfileirarTodos(List<BaixaEstoqueRequest> requests) {
+        return enfileirarComChave(requests.stream()
+                .map(request -> new BaixaEstoqueItemRequest(request.getId(), request.getQuantidade(), null))
+                .toList());
+    }
+
+    /**
+     * Enfileira várias baixas de estoque, cada uma com a sua chave de idempotência, enviada no
+     * cabeçalho da chamada individual ou no próprio item da chamada em lote. Quem reenvia a mesma
+     * baixa com a mesma chave deve aguardar o resultado com {@link #aguardarEnvio}, para nunca
+     * abandonar uma baixa que a API ainda pode confirmar.
+     *
+     * @param itens Baixas a enfileirar, com a chave de idempotência de cada uma
+     * @return List<CompletableFuture<BaixaEstoqueResponse>> Resultado de cada baixa, na mesma ordem
+     */
+    public List<CompletableFuture<BaixaEstoqueResponse>> enfileirarComChave(List<BaixaEstoqueItemRequest> itens) {
+        List<Pendente> novos = itens.stream()
+                .map(item -> new Pendente(item, new CompletableFuture<BaixaEstoqueResponse>()))
+                .toList();
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = novos.stream().map(Pendente::resultado).toList();
+        List<List<Pendente>> envios = List.of();
+
+        synchronized (lock) {
+            if (encerrado) {
+                IOException erro = new IOException("Agrupador de baixas de estoque encerrado");
+                resultados.forEach(resultado -> resultado.completeExceptionally(erro));
+                return resultados;
+            }
+            baixasRecebidas.add(novos.size());
+
+            if (!habilitado) {
+                enviosEmAndamento += novos.size();
+                envios = novos.stream().map(List::of).toList();
+            } else {
+                pendentes.addAll(novos);
+                if (pendentes.size() >= tamanhoMaximo || enviosEmAndamento == 0) {
+                    envios = retirarParaEnvio();
+                } else if (envioAgendado == null) {
+                    envioAgendado = agendador.schedule(this::enviarAoFimDaJanela, janela.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        if (!habilitado) {
+            envios.forEach(this::enviar);
+        } else {
+            envios.forEach(this::despachar);
+        }
+        return resultados;
+    }
+
+    /**
+     * Aguarda o resultado de uma baixa enfileirada por até a espera máxima configurada.
+     * Se a espera se esgotar, o resultado é abandonado: uma baixa ainda na fila não é mais
+     * enviada, e uma baixa que a API confirmar depois disso é estornada automaticamente.
+     *
+     * @param resultado Resultado retornado por {@link #enfileirar} ou {@link #enfileirarTodos}
+     * @return BaixaEstoqueResponse Resultado da baixa
+     * @throws IOException Se a baixa falhou por erro de comunicação, a espera se esgotou
+     *                     ou a thread foi interrompida
+     */
+    public BaixaEstoqueResponse aguardar(CompletableFuture<BaixaEstoqueResponse> resultado) throws IOException {
+        try {
+            return resultado.get(esperaMaxima.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            IOException esgotada = new IOException(
+                    "Baixa de estoque sem resposta após " + esperaMaxima.toMillis() + " ms");
+            if (resultado.completeExceptionally(esgotada)) {
+                esperasEsgotadas.increment();
+                throw esgotada;
+            }
+            return aguardar(resultado);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Baixa de estoque interrompida", e);
+        } catch (ExecutionException e) {
+            throw desembrulhar(e);
+        }
+    }
+
+    /**
+     * Aguarda o envio de uma baixa enfileirada terminar, sem abandoná-la. A espera é limitada
+     * pelo timeout da própria chamada à API. Usado por quem reenvia a baixa com a mesma chave de
+     * idempotência, que precisa do resultado real do envio em vez de um estorno tardio.
+     *
+     * @param resultado Resultado retornado por {@link #enfileirarComChave}
+     * @return BaixaEstoqueResponse Resultado da baixa
+     * @throws IOException Se a baixa falhou por erro de comunicação ou a thread foi interrompida
+     */
+    public BaixaEstoqueResponse aguardarEnvio(CompletableFuture<BaixaEstoqueResponse> resultado) throws IOException {
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Baixa de estoque interrompida", e);
+        } catch (ExecutionException e) {
+            throw desembrulhar(e);
+        }
+    }
+
+    private static IOException desembrulhar(ExecutionException e) {
+        Throwable causa = e.getCause();
+        if (causa instanceof IOException ioException) {
+            return ioException;
+        }
+        if (causa instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException("Erro na baixa de estoque: " + causa.getMessage(), causa);
+    }
+
+    /**
+     * Retira as baixas acumuladas, divididas em envios de até {@link #tamanhoMaximo} itens,
+     * e os registra como em andamento. Deve ser chamado com {@link #lock}.
+     */
+    private List<List<Pendente>> retirarParaEnvio() {
+        List<Pendente> retiradas = pendentes;
+        pendentes = new ArrayList<>();
+        if (envioAgendado != null) {
+            envioAgendado.cancel(false);
+            envioAgendado = null;
+        }
+
+        List<List<Pendente>> envios = new ArrayList<>();
+        for (int inicio = 0; inicio < retiradas.size(); inicio += tamanhoMaximo) {
+            envios.add(retiradas.subList(inicio, Math.min(inicio + tamanhoMaximo, retiradas.size())));
+        }
+        enviosEmAndamento += envios.size();
+        return envios;
+    }
+
+    private void enviarAoFimDaJanela() {
+        List<List<Pendente>> envios;
+        synchronized (lock) {
+            envios = retirarParaEnvio();
+        }
+        envios.forEach(this::despachar);
+    }
+
+    private void despachar(List<Pendente> envio) {
+        executor.execute(() -> enviar(envio));
+    }
+
+    private void enviar(List<Pendente> envio) {
+        try {
+            List<Pendente> aguardando = envio.stream().filter(pendente -> !pendente.resultado().isDone()).toList();
+            if (aguardando.size() == 1) {
+                enviarIndividual(aguardando.getFirst());
+            } else if (!aguardando.isEmpty()) {
+                enviarLote(aguardando);
+            }
+        } finally {
+            synchronized (lock) {
+                enviosEmAndamento--;
+            }
+        }
+    }
+
+    private void enviarIndividual(Pendente pendente) {
+        chamadasIndividuais.increment();
+        BaixaEstoqueItemRequest request = pendente.request();
+        try {
+            concluir(pendente, request.getChaveIdempotencia() == null
+                    ? produtoService.realizarBaixaEstoque(request.getId(), request.getQuantidade())
+                    : produtoService.realizarBaixaEstoque(request.getId(), request.getQuantidade(), request.getChaveIdempotencia()));
+        } catch (Exception e) {
+            pendente.resultado().completeExceptionally(e);
+        }
+    }
+
+    private void enviarLote(List<Pendente> lote) {
+        lotesEnviados.increment();
+        List<BaixaEstoqueItemRequest> requests = lote.stream().map(Pendente::request).toList();
+
+        BaixaEstoqueResponse[] resultados;
+        try {
+            BaixaEstoqueLoteResponse resposta = produtoService.baixarEstoqueEmLote(requests);
+            try {
+                resultados = associarResultados(resposta, lote);
+            } catch (IOException e) {
+                lotesInconsistentes.increment();
+                throw e;
+            }
+        } catch (Exception e) {
+            logger.error("Falha na baixa de estoque em lote com {} itens: {}", lote.size(), e.getMessage());
+            lote.forEach(pendente -> pendente.resultado().completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            concluir(lote.get(i), resultados[i]);
+        }
+    }
+
+    /**
+     * Associa cada item da resposta do lote à baixa que o originou. Um 200 sem itens confirma
+     * todo o lote e um 400 sem itens recusa todo o lote com a mensagem geral. Nos demais casos,
+     * cada item das listas "sucesso" e "erros" é associado pelo índice, quando presente, ou pelo
+     * id do produto, na ordem de envio. Qualquer item que não corresponda a uma baixa enviada,
+     * ou baixa enviada sem item na resposta, invalida o lote inteiro.
+     *
+     * @param resposta Resposta tipada da baixa em lote
+     * @param lote Baixas enviadas no lote, na ordem do envio
+     * @return BaixaEstoqueResponse[] Resultado de cada baixa, na ordem do envio
+     * @throws IOException Se a resposta não corresponder ao lote enviado
+     */
+    private BaixaEstoqueResponse[] associarResultados(BaixaEstoqueLoteResponse resposta,
+                                                      List<Pendente> lote) throws IOException {
+        BaixaEstoqueResponse[] resultados = new BaixaEstoqueResponse[lote.size()];
+        List<BaixaEstoqueLoteItem> sucesso = resposta.getSucesso() != null ? resposta.getSucesso() : List.of();
+        List<BaixaEstoqueLoteItem> erros = resposta.getErros() != null ? resposta.getErros() : List.of();
+
+        if (sucesso.isEmpty() && erros.isEmpty()) {
+            boolean aceito = resposta.getStatus() == HttpURLConnection.HTTP_OK;
+            if (!aceito && (resposta.getStatus() != HttpURLConnection.HTTP_BAD_REQUEST || resposta.getMessage() == null)) {
+                throw new IOException("Resposta " + resposta.getStatus() + " da baixa em lote sem resultado dos itens");
+            }
+            for (int i = 0; i < lote.size(); i++) {
+                resultados[i] = montarResposta(resposta.getMessage(), null, aceito, lote.get(i));
+            }
+            return resultados;
+        }
+
+        for (BaixaEstoqueLoteItem item : sucesso) {
+            int indice = localizar(item, lote, resultados);
+            resultados[indice] = montarResposta(item.getMessage(), item.getEstoqueAtual(), true, lote.get(indice));
+        }
+        for (BaixaEstoqueLoteItem item : erros) {
+            int indice = localizar(item, lote, resultados);
+            String mensagem = item.getMessage() != null ? item.getMessage() : item.getErro();
+            resultados[indice] = montarResposta(mensagem, null, false, lote.get(indice));
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            if (resultados[i] == null) {
+                throw new IOException("Resultado da baixa do produto " + lote.get(i).request().getId()
+                        + " (índice " + i + ") não retornado pela API de produtos");
+            }
+        }
+        return resultados;
+    }
+
+    private int localizar(BaixaEstoqueLoteItem item, List<Pendente> lote,
+                          BaixaEstoqueResponse[] resultados) throws IOException {
+        if (item.getIndice() != null) {
+            int indice = item.getIndice();
+            if (indice < 0 || indice >= lote.size() || resultados[indice] != null) {
+                throw new IOException("Índice " + indice + " inválido ou repetido na resposta da baixa em lote");
+            }
+            if (item.getId() != null && !item.getId().equals(lote.get(indice).request().getId())) {
+                throw new IOException("Índice " + indice + " da resposta da baixa em lote não corresponde ao produto "
+                        + item.getId());
+            }
+            return indice;
+        }
+
+        if (item.getId() == null) {
+            throw new IOException("Item da resposta da baixa em lote sem índice e sem id");
+        }
+        for (int i = 0; i < lote.size(); i++) {
+            if (resultados[i] == null && item.getId().equals(lote.get(i).request().getId())) {
+                return i;
+            }
+        }
+        throw new IOException("Produto " + item.getId() + " não enviado no lote ou repetido na resposta");
+    }
+
+    /**
+     * Entrega o resultado a quem pediu a baixa. Se quem pediu já desistiu de esperar e a baixa
+     * foi realizada, ela é estornada, já que nenhuma venda será gravada para ela. O estorno de uma
+     * baixa com chave de idempotência leva uma chave derivada dela.
+     */
+    private void concluir(Pendente pendente, BaixaEstoqueResponse resposta) {
+        BaixaEstoqueItemRequest request = pendente.request();
+        if (pendente.resultado().complete(resposta) || Boolean.FALSE.equals(resposta.getSucesso())) {
+            return;
+        }
+
+        estornosTardios.increment();
+        try {
+            if (request.getChaveIdempotencia() == null) {
+                produtoService.estornarBaixaEstoque(request.getId(), request.getQuantidade());
+            } else {
+                produtoService.estornarBaixaEstoque(request.getId(), request.getQuantidade(),
+                        "estorno-" + request.getChaveIdempotencia());
+            }
+            logger.warn("Baixa de estoque confirmada após o fim da espera foi estornada - Produto: {}, Quantidade: {}",
+                    request.getId(), request.getQuantidade());
+        } catch (Exception e) {
+            logger.error("Falha ao estornar baixa de estoque confirmada após o fim da espera - Produto: {}, Quantidade: {}: {}",
+                    request.getId(), request.getQuantidade(), e.getMessage());
+        }
+    }
+
+    private BaixaEstoqueResponse montarResposta(String mensagem, Integer estoqueAtual, boolean sucesso,
+                                                Pendente pendente) {
+        BaixaEstoqueResponse response = new BaixaEstoqueResponse(mensagem);
+        response.setEstoqueAtual(estoqueAtual);
+        response.setSucesso(sucesso);
+        response.setQuantidadeSolicitada(pendente.request().getQuantidade());
+        return response;
+    }
+
+    /**
+     * Envia as baixas ainda acumuladas e passa a recusar novas baixas.
+     */
+    @PreDestroy
+    public void encerrar() {
+        List<List<Pendente>> envios;
+        synchronized (lock) {
+            encerrado = true;
+            envios = retirarParaEnvio();
+        }
+        envios.forEach(this::despachar);
+        agendador.shutdown();
+        executor.close();
+    }
+
+    @Override
+    public String getNome() {
+        return "baixaEstoqueLote";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        long lotes = lotesEnviados.sum();
+        long individuais = chamadasIndividuais.sum();
+        long recebidas = baixasRecebidas.sum();
+
+        metricas.put("habilitado", habilitado);
+        metricas.put("janelaMs", janela.toMillis());
+        metricas.put("tamanhoMaximo", tamanhoMaximo);
+        metricas.put("esperaMaximaMs", esperaMaxima.toMillis());
+        metricas.put("baixasRecebidas", recebidas);
+        metricas.put("lotesEnviados", lotes);
+        metricas.put("chamadasIndividuais", individuais);
+        metricas.put("lotesInconsistentes", lotesInconsistentes.sum());
+        metricas.put("esperasEsgotadas", esperasEsgotadas.sum());
+        metricas.put("estornosTardios", estornosTardios.sum());
+        synchronized (lock) {
+            metricas.put("aguardandoEnvio", pendentes.size());
+            metricas.put("enviosEmAndamento", enviosEmAndamento);
+            metricas.put("chamadasEvitadas", recebidas - lotes - individuais - pendentes.size());
+        }
+        return metricas;
+    }
+}
@@ -1,5 +1,11 @@
 package com.testevr.testejava.venda.external.domain.service;
 
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+import com.testevr.testejava.shared.infra.concurrent.SingleFlight;
+import com.testevr.testejava.shared.infra.resilience.Bulkhead;
+import com.testevr.testejava.shared.infra.resilience.ChamadaRejeitadaException;
+import com.testevr.testejava.shared.infra.resilience.CircuitBreaker;
+import com.testevr.testejava.shared.infra.resilience.HedgingPolicy;
 import com.testevr.testejava.venda.external.application.dto.*;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -8,35 +14,74 @@ import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonParseException;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ProdutoService {
 
+    public static final String HEADER_IDEMPOTENCIA = "Idempotency-Key";
+
     private static final Logger logger = LoggerFactory.getLogger(ProdutoService.class);
 
-    @Value("${produto.externa.api.url}")
-    private String apiExternaUrl;
+    private final HttpClient httpClient;
+    private final LocalCache<Long, ProdutoDto> produtoCache;
+    private final SingleFlight<Long, ProdutoDto> buscasEmAndamento = new SingleFlight<>();
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final HedgingPolicy hedgingPolicy;
+    private final ExecutorService executorAssincrono = Executors.newVirtualThreadPerTaskExecutor();
+    private final String apiExternaUrl;
+    private final Duration timeoutBusca;
+    private final Duration timeoutBaixa;
+    private final Duration timeoutBaixaLote;
 
     private final Gson gson;
 
-    public ProdutoService() {
+    public ProdutoService(HttpClient produtoHttpClient,
+                          LocalCache<Long, ProdutoDto> produtoCache,
+                          CircuitBreaker produtoCircuitBreaker,
+                          Bulkhead produtoBulkhead,
+                          HedgingPolicy produtoHedgingPolicy,
+                          @Value("${produto.externa.api.url}") String apiExternaUrl,
+                          @Value("${produto.externa.api.timeout.busca-ms:5000}") long timeoutBuscaMs,
+                          @Value("${produto.externa.api.timeout.baixa-ms:5000}") long timeoutBaixaMs,
+                          @Value("${produto.externa.api.timeout.baixa-lote-ms:10000}") long timeoutBaixaLoteMs) {
+        this.httpClient = produtoHttpClient;
+        this.produtoCache = produtoCache;
+        this.circuitBreaker = produtoCircuitBreaker;
+        this.bulkhead = produtoBulkhead;
+        this.hedgingPolicy = produtoHedgingPolicy;
+        this.apiExternaUrl = apiExternaUrl;
+        this.timeoutBusca = Duration.ofMillis(timeoutBuscaMs);
+        this.timeoutBaixa = Duration.ofMillis(timeoutBaixaMs);
+        this.timeoutBaixaLote = Duration.ofMillis(timeoutBaixaLoteMs);
         this.gson = new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new JsonDeserializer<LocalDateTime>() {
                     @Override
@@ -51,190 +96,232 @@ public class ProdutoService {
     }
 
     /**
-     * Busca um produto pelo seu identificador único na API externa.
+     * Busca um produto pelo seu identificador único, consultando primeiro o cache local
+     * e recorrendo à API externa apenas em caso de ausência ou expiração.
+     * Buscas concorrentes pelo mesmo produto compartilham uma única requisição à API,
+     * mesmo com o cache desabilitado.
      *
      * @param id Identificador único do produto
      * @return ProdutoDto DTO contendo os dados do produto ou null se não encontrado
      * @throws IOException Se ocorrer um erro de comunicação com a API externa
      */
     public ProdutoDto buscarProdutoPorId(Long id) throws IOException {
-        String urlString = apiExternaUrl + "/produtos/" + id;
+        ProdutoDto emCache = produtoCache.get(id);
+        if (emCache != null) {
+            return copiar(emCache);
+        }
 
-        HttpURLConnection connection = null;
+        ProdutoDto produto;
         try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+            produto = buscasEmAndamento.executar(id, () -> {
+                long geracao = produtoCache.geracao(id);
+                ProdutoDto encontrado = buscarProdutoNaApi(id);
+                if (encontrado != null) {
+                    produtoCache.put(id, copiar(encontrado), geracao);
+                }
+                return encontrado;
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("API de produtos indisponível: " + e.getMessage(), e);
+        }
 
-            int responseCode = connection.getResponseCode();
+        return produto != null ? copiar(produto) : null;
+    }
 
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                return parseSuccessResponse(connection);
+    /**
+     * Busca um produto pelo seu identificador único na API externa.
+     * Por ser uma leitura idempotente, a requisição pode ser enviada com hedging.
+     *
+     * @param id Identificador único do produto
+     * @return ProdutoDto DTO contendo os dados do produto ou null se não encontrado
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa
+     */
+    private ProdutoDto buscarProdutoNaApi(Long id) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiExternaUrl + "/produtos/" + id))
+                .timeout(timeoutBusca)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        try {
+            HttpResponse<String> response = enviar(request, true);
+
+            if (response.statusCode() == HttpURLConnection.HTTP_OK) {
+                return gson.fromJson(response.body(), ProdutoDto.class);
             }
 
-            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
-                return handleNotFoundResponse(connection);
+            if (response.statusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                logger.warn("Produto não encontrado: {}", response.body());
+                return null;
             }
 
-            throw new IOException("Erro na requisição: " + responseCode);
+            throw new IOException("Erro na requisição: " + response.statusCode());
 
         } catch (Exception e) {
             logger.error("Erro ao conectar com a API externa de produtos: {}", e.getMessage());
             throw new IOException("API de produtos indisponível: " + e.getMessage(), e);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
         }
     }
 
     /**
-     * Processa uma resposta HTTP bem-sucedida da API externa.
+     * Realiza a baixa de estoque de um produto específico na API externa.
+     * Em caso de sucesso o estoque do produto em cache é atualizado com o estoque
+     * retornado pela API; em qualquer outro desfecho a entrada é invalidada.
+     * Baixas recusadas pela API (400/404) retornam com {@code sucesso = false}.
      *
-     * @param connection Conexão HTTP com a resposta de sucesso
-     * @return ProdutoDto DTO desserializado a partir da resposta
-     * @throws IOException Se ocorrer erro na leitura da resposta
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser baixada do estoque
+     * @return BaixaEstoqueResponse Resposta da operação de baixa de estoque
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa
      */
-    private ProdutoDto parseSuccessResponse(HttpURLConnection connection) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
+    public BaixaEstoqueResponse realizarBaixaEstoque(Long produtoId, Integer quantidade) throws IOException {
+        return movimentarEstoque(produtoId, quantidade, "baixa", null);
+    }
 
-            return gson.fromJson(response.toString(), ProdutoDto.class);
-        }
+    /**
+     * Realiza a baixa de estoque enviando uma chave de idempotência no cabeçalho
+     * {@value #HEADER_IDEMPOTENCIA}. Reenvios com a mesma chave recebem o resultado da
+     * primeira baixa, sem baixar o estoque de novo.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser baixada do estoque
+     * @param chaveIdempotencia Chave estável entre os reenvios da mesma baixa
+     * @return BaixaEstoqueResponse Resposta da operação de baixa de estoque
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa
+     */
+    public BaixaEstoqueResponse realizarBaixaEstoque(Long produtoId, Integer quantidade,
+                                                     String chaveIdempotencia) throws IOException {
+        return movimentarEstoque(produtoId, quantidade, "baixa", chaveIdempotencia);
     }
 
     /**
-     * Processa uma resposta HTTP 404 (Not Found) da API externa.
+     * Estorna uma baixa de estoque já realizada, devolvendo a quantidade ao produto na API externa.
+     * Usado como compensação quando a venda não pôde ser gravada depois da baixa.
+     * O cache é tratado da mesma forma que na baixa.
      *
-     * @param connection Conexão HTTP com a resposta de não encontrado
-     * @return null indicando que o produto não foi encontrado
-     * @throws IOException Se ocorrer erro na leitura da resposta
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser devolvida ao estoque
+     * @return BaixaEstoqueResponse Resposta da operação de estorno
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa
      */
-    private ProdutoDto handleNotFoundResponse(HttpURLConnection connection) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8))) {
-
-            StringBuilder errorResponse = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                errorResponse.append(line);
-            }
+    public BaixaEstoqueResponse estornarBaixaEstoque(Long produtoId, Integer quantidade) throws IOException {
+        return movimentarEstoque(produtoId, quantidade, "estorno", null);
+    }
 
-            logger.warn("Produto não encontrado: {}", errorResponse.toString());
-            return null;
-        }
+    /**
+     * Estorna uma baixa de estoque enviando o cabeçalho {@value #HEADER_IDEMPOTENCIA}, para que
+     * reenvios do mesmo estorno com a mesma chave não devolvam a quantidade duas vezes.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser devolvida ao estoque
+     * @param chaveIdempotencia Chave única do estorno, repetida em todos os reenvios
+     * @return BaixaEstoqueResponse Resposta da operação de estorno
+     * @throws IOException Se ocorrer um erro de comunicação com a API externa
+     */
+    public BaixaEstoqueResponse estornarBaixaEstoque(Long produtoId, Integer quantidade,
+                                                     String chaveIdempotencia) throws IOException {
+        return movimentarEstoque(produtoId, quantidade, "estorno", chaveIdempotencia);
     }
 
     /**
-     * Realiza a baixa de estoque de um produto específico na API externa.
+     * Envia uma movimentação de estoque de um produto para a API externa.
      *
      * @param produtoId Identificador único do produto
-     * @param quantidade Quantidade a ser baixada do estoque
-     * @return BaixaEstoqueResponse Resposta da operação de baixa de estoque
+     * @param quantidade Quantidade movimentada
+     * @param operacao Caminho da operação na API ("baixa" ou "estorno")
+     * @param chaveIdempotencia Chave de idempotência da movimentação, ou null
+     * @return BaixaEstoqueResponse Resposta da operação
      * @throws IOException Se ocorrer um erro de comunicação com a API externa
      */
-    public BaixaEstoqueResponse realizarBaixaEstoque(Long produtoId, Integer quantidade) throws IOException {
-        String urlString = apiExternaUrl + "/produtos/" + produtoId + "/baixa";
+    private BaixaEstoqueResponse movimentarEstoque(Long produtoId, Integer quantidade, String operacao,
+                                                   String chaveIdempotencia) throws IOException {
+        BaixaEstoqueRequest baixaRequest = new BaixaEstoqueRequest();
+        baixaRequest.setQuantidade(quantidade);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiExternaUrl + "/produtos/" + produtoId + "/" + operacao))
+                .timeout(timeoutBaixa)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(baixaRequest), StandardCharsets.UTF_8));
+        if (chaveIdempotencia != null) {
+            builder.header(HEADER_IDEMPOTENCIA, chaveIdempotencia);
+        }
+        HttpRequest request = builder.build();
 
-        HttpURLConnection connection = null;
+        HttpResponse<String> response;
         try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true);
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-
-            BaixaEstoqueRequest request = new BaixaEstoqueRequest();
-            request.setQuantidade(quantidade);
-            String requestBody = gson.toJson(request);
-
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
-
-            int responseCode = connection.getResponseCode();
-
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                return parseSuccessBaixaResponse(connection);
-            }
+            response = enviar(request);
+        } catch (IOException e) {
+            produtoCache.invalidar(produtoId);
+            throw e;
+        }
 
-            if (responseCode == HttpURLConnection.HTTP_BAD_REQUEST || responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
-                return parseErrorBaixaResponse(connection);
-            }
+        if (response.statusCode() == HttpURLConnection.HTTP_OK) {
+            BaixaEstoqueResponse baixaResponse = gson.fromJson(response.body(), BaixaEstoqueResponse.class);
+            baixaResponse.setSucesso(true);
+            atualizarEstoqueEmCache(produtoId, baixaResponse.getEstoqueAtual());
+            return baixaResponse;
+        }
 
-            throw new IOException("Erro na requisição: " + responseCode);
+        produtoCache.invalidar(produtoId);
 
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+        if (response.statusCode() == HttpURLConnection.HTTP_BAD_REQUEST
+                || response.statusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+            BaixaEstoqueResponse recusada = parseErrorBaixaResponse(response.body());
+            recusada.setSucesso(false);
+            return recusada;
         }
+
+        throw new IOException("Erro na requisição: " + response.statusCode());
     }
 
     /**
-     * Processa uma resposta HTTP bem-sucedida da operação de baixa de estoque.
+     * Atualiza o estoque de um produto em cache após uma baixa bem-sucedida.
      *
-     * @param connection Conexão HTTP com a resposta de sucesso
-     * @return BaixaEstoqueResponse Resposta desserializada da operação
-     * @throws IOException Se ocorrer erro na leitura da resposta
+     * @param produtoId Identificador único do produto
+     * @param estoqueAtual Estoque informado pela API após a baixa
      */
-    private BaixaEstoqueResponse parseSuccessBaixaResponse(HttpURLConnection connection) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-
-            return gson.fromJson(response.toString(), BaixaEstoqueResponse.class);
+    private void atualizarEstoqueEmCache(Long produtoId, Integer estoqueAtual) {
+        if (estoqueAtual == null) {
+            produtoCache.invalidar(produtoId);
+            return;
         }
+
+        produtoCache.atualizar(produtoId, produto -> {
+            ProdutoDto atualizado = copiar(produto);
+            atualizado.setEstoque(estoqueAtual);
+            return atualizado;
+        });
+    }
+
+    private ProdutoDto copiar(ProdutoDto produto) {
+        return new ProdutoDto(produto.getId(), produto.getDescricao(), produto.getEstoque(),
+                produto.getPreco(), produto.getUnidade(), produto.getUltimaAtualizacao());
     }
 
     /**
      * Processa uma resposta HTTP de erro da operação de baixa de estoque.
      *
-     * @param connection Conexão HTTP com a resposta de erro
+     * @param corpo Corpo da resposta de erro
      * @return BaixaEstoqueResponse Resposta de erro desserializada
-     * @throws IOException Se ocorrer erro na leitura da resposta
      */
-    private BaixaEstoqueResponse parseErrorBaixaResponse(HttpURLConnection connection) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8))) {
-
-            StringBuilder errorResponse = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                errorResponse.append(line);
-            }
-
-            try {
-                return gson.fromJson(errorResponse.toString(), BaixaEstoqueResponse.class);
-            } catch (Exception e) {
-                ErrorResponse error = gson.fromJson(errorResponse.toString(), ErrorResponse.class);
-                BaixaEstoqueResponse baixaError = new BaixaEstoqueResponse();
-                baixaError.setMessage(error.getMessage());
-                return baixaError;
-            }
+    private BaixaEstoqueResponse parseErrorBaixaResponse(String corpo) {
+        try {
+            return gson.fromJson(corpo, BaixaEstoqueResponse.class);
+        } catch (Exception e) {
+            ErrorResponse error = gson.fromJson(corpo, ErrorResponse.class);
+            BaixaEstoqueResponse baixaError = new BaixaEstoqueResponse();
+            baixaError.setMessage(error.getMessage());
+            return baixaError;
         }
     }
 
     /**
      * Realiza baixa de estoque em lote para múltiplos produtos na API externa.
+     * Como a resposta parcial não traz o estoque resultante de cada produto,
+     * as entradas em cache de todos os produtos do lote são invalidadas.
      *
      * @param requests Lista de requisições de baixa de estoque
      * @return Object Pode ser BaixaEstoqueResponse (sucesso total) ou
@@ -242,56 +329,285 @@ public class ProdutoService {
      * @throws IOException Se ocorrer um erro de comunicação com a API externa
      */
     public Object realizarBaixaEstoqueEmLote(List<BaixaEstoqueRequest> requests) throws IOException {
-        String urlString = apiExternaUrl + "/produtos/baixa";
+        HttpResponse<String> response = enviarBaixaEmLote(requests, requests.stream().map(BaixaEstoqueRequest::getId).toList());
+        int responseCode = response.statusCode();
+
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            return gson.fromJson(response.body(), BaixaEstoqueResponse.class);
+        }
+
+        if (responseCode == 207 || responseCode == HttpURLConnection.HTTP_BAD_REQUEST) {
+            Type mapType = new TypeToken<Map<String, Object>>(){}.getType();
+            return gson.fromJson(response.body(), mapType);
+        }
+
+        throw new IOException("Erro na requisição: " + responseCode + " - " + response.body());
+    }
+
+    /**
+     * Realiza baixa de estoque em lote e devolve a resposta no contrato tipado do endpoint:
+     * listas "sucesso" e "erros" com o índice ou o id de cada item, e uma mensagem geral.
+     * Um 200 vem sem listas e confirma todos os itens. Itens com chave de idempotência a levam
+     * no campo "chaveIdempotencia" do próprio item, já que o lote reúne baixas de origens diferentes.
+     *
+     * @param itens Lista de baixas de estoque
+     * @return BaixaEstoqueLoteResponse Resposta com o status HTTP (200, 207 ou 400)
+     * @throws IOException Se ocorrer um erro de comunicação, outro status ou um corpo fora do contrato
+     */
+    public BaixaEstoqueLoteResponse baixarEstoqueEmLote(List<BaixaEstoqueItemRequest> itens) throws IOException {
+        HttpResponse<String> response = enviarBaixaEmLote(itens, itens.stream().map(BaixaEstoqueItemRequest::getId).toList());
+        int responseCode = response.statusCode();
 
-        HttpURLConnection connection = null;
+        if (responseCode != HttpURLConnection.HTTP_OK && responseCode != 207
+                && responseCode != HttpURLConnection.HTTP_BAD_REQUEST) {
+            throw new IOException("Erro na requisição: " + responseCode + " - " + response.body());
+        }
+
+        BaixaEstoqueLoteResponse lote;
         try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true);
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-
-            String requestBody = gson.toJson(requests);
-
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
+            lote = gson.fromJson(response.body(), BaixaEstoqueLoteResponse.class);
+        } catch (JsonParseException e) {
+            throw new IOException("Resposta da baixa em lote fora do contrato: " + response.body(), e);
+        }
+        if (lote == null) {
+            lote = new BaixaEstoqueLoteResponse();
+        }
+        lote.setStatus(responseCode);
+        return lote;
+    }
+
+    /**
+     * Envia a baixa em lote. Como a resposta parcial não traz o estoque resultante de
+     * cada produto, as entradas em cache de todos os produtos do lote são invalidadas.
+     */
+    private HttpResponse<String> enviarBaixaEmLote(List<?> corpo, List<Long> produtoIds) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(apiExternaUrl + "/produtos/baixa"))
+                .timeout(timeoutBaixaLote)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(corpo), StandardCharsets.UTF_8))
+                .build();
+
+        try {
+            return enviar(request);
+        } finally {
+            produtoIds.forEach(produtoCache::invalidar);
+        }
+    }
+
+    /**
+     * Versão não bloqueante de {@link #buscarProdutoPorId(Long)}, executada numa virtual thread.
+     * Permite disparar várias buscas em paralelo ou sobrepor a busca com outro trabalho.
+     *
+     * @param id Identificador único do produto
+     * @return CompletableFuture<ProdutoDto> Produto encontrado ou null; falhas de comunicação
+     *         completam o futuro com {@link CompletionException} cuja causa é a IOException original
+     */
+    public CompletableFuture<ProdutoDto> buscarProdutoPorIdAsync(Long id) {
+        return executarAssincrono(() -> buscarProdutoPorId(id));
+    }
+
+    /**
+     * Versão não bloqueante de {@link #realizarBaixaEstoque(Long, Integer)}, executada numa virtual thread.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser baixada do estoque
+     * @return CompletableFuture<BaixaEstoqueResponse> Resposta da baixa de estoque
+     */
+    public CompletableFuture<BaixaEstoqueResponse> realizarBaixaEstoqueAsync(Long produtoId, Integer quantidade) {
+        return executarAssincrono(() -> realizarBaixaEstoque(produtoId, quantidade));
+    }
+
+    /**
+     * Versão não bloqueante de {@link #realizarBaixaEstoqueEmLote(List)}, executada numa virtual thread.
+     *
+     * @param requests Lista de requisições de baixa de estoque
+     * @return CompletableFuture<Object> Resposta da API, no mesmo formato da versão bloqueante
+     */
+    public CompletableFuture<Object> realizarBaixaEstoqueEmLoteAsync(List<BaixaEstoqueRequest> requests) {
+        return executarAssincrono(() -> realizarBaixaEstoqueEmLote(requests));
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executorAssincrono.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface ChamadaApi<T> {
+        T executar() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> executarAssincrono(ChamadaApi<T> chamada) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return chamada.executar();
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
+        }, executorAssincrono);
+    }
 
-            int responseCode = connection.getResponseCode();
+    private HttpResponse<String> enviar(HttpRequest request) throws IOException {
+        return enviar(request, false);
+    }
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(
-                            responseCode < HttpURLConnection.HTTP_BAD_REQUEST ?
-                                    connection.getInputStream() : connection.getErrorStream(),
-                            StandardCharsets.UTF_8))) {
+    /**
+     * Envia uma requisição pelo cliente HTTP compartilhado, lendo o corpo completo
+     * da resposta para que a conexão volte ao pool e seja reutilizada.
+     * A chamada passa pelo circuit breaker, que falha imediatamente enquanto a API estiver
+     * instável, e pelo bulkhead, que limita quantas threads ficam presas esperando por ela.
+     * Falhas de comunicação e respostas 5xx contam como falha para o circuit breaker.
+     *
+     * @param request Requisição HTTP a ser enviada
+     * @param idempotente Indica se a requisição pode ser repetida com hedging
+     * @return HttpResponse<String> Resposta com o corpo em texto
+     * @throws IOException Se ocorrer um erro de comunicação, a chamada for rejeitada ou a thread for interrompida
+     */
+    private HttpResponse<String> enviar(HttpRequest request, boolean idempotente) throws IOException {
+        CircuitBreaker.Permissao permissao;
+        try {
+            permissao = circuitBreaker.adquirirPermissao();
+        } catch (ChamadaRejeitadaException e) {
+            throw new IOException(e.getMessage(), e);
+        }
 
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
+        try {
+            bulkhead.adquirir();
+        } catch (ChamadaRejeitadaException e) {
+            circuitBreaker.liberarPermissao(permissao);
+            throw new IOException(e.getMessage(), e);
+        }
 
-                if (responseCode == HttpURLConnection.HTTP_OK) {
-                    return gson.fromJson(response.toString(), BaixaEstoqueResponse.class);
-                }
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<String> response = idempotente && hedgingPolicy.isHabilitado()
+                    ? enviarComHedge(request)
+                    : httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            circuitBreaker.registrarResultado(permissao, response.statusCode() >= 500, System.nanoTime() - inicio);
+            return response;
+        } catch (IOException e) {
+            circuitBreaker.registrarResultado(permissao, true, System.nanoTime() - inicio);
+            throw e;
+        } catch (InterruptedException e) {
+            circuitBreaker.liberarPermissao(permissao);
+            Thread.currentThread().interrupt();
+            throw new IOException("Requisição à API de produtos interrompida", e);
+        } catch (RuntimeException e) {
+            circuitBreaker.liberarPermissao(permissao);
+            throw e;
+        } finally {
+            bulkhead.liberar();
+        }
+    }
 
-                if (responseCode == 207 || responseCode == HttpURLConnection.HTTP_BAD_REQUEST) {
-                    Type mapType = new TypeToken<Map<String, Object>>(){}.getType();
-                    return gson.fromJson(response.toString(), mapType);
-                }
+    /**
+     * Envia uma leitura idempotente com hedging: se a primeira tentativa não responder dentro
+     * do atraso definido pela {@link HedgingPolicy}, e houver orçamento e uma vaga livre no bulkhead,
+     * uma segunda tentativa é enviada ocupando essa vaga até a primeira resposta; sem vaga, ela é
+     * dispensada. A primeira resposta obtida é usada e a outra tentativa é cancelada.
+     *
+     * @param request Requisição HTTP idempotente
+     * @return HttpResponse<String> Primeira resposta obtida
+     * @throws IOException Se todas as tentativas falharem
+     * @throws InterruptedException Se a thread for interrompida durante a espera
+     */
+    private HttpResponse<String> enviarComHedge(HttpRequest request) throws IOException, InterruptedException {
+        hedgingPolicy.registrarRequisicao();
+        long atraso = hedgingPolicy.atrasoNanos();
+        CompletableFuture<HttpResponse<String>> primeira = enviarTentativa(request);
+        CompletableFuture<HttpResponse<String>> segunda = null;
+        boolean vagaDoHedge = false;
+
+        try {
+            if (atraso < 0) {
+                return aguardarResposta(primeira);
+            }
 
-                throw new IOException("Erro na requisição: " + responseCode + " - " + response.toString());
+            try {
+                return primeira.get(atraso, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (!bulkhead.tentarAdquirir()) {
+                    hedgingPolicy.registrarHedgeSemVaga();
+                    return aguardarResposta(primeira);
+                }
+                if (!hedgingPolicy.permitirHedge()) {
+                    bulkhead.liberar();
+                    return aguardarResposta(primeira);
+                }
+            } catch (ExecutionException e) {
+                throw comoIOException(e.getCause());
             }
 
+            vagaDoHedge = true;
+            segunda = enviarTentativa(request);
+            HttpResponse<String> response = aguardarResposta(primeiraResposta(primeira, segunda));
+            if (segunda.isDone() && !segunda.isCompletedExceptionally() && segunda.join() == response) {
+                hedgingPolicy.registrarVitoriaHedge();
+            }
+            return response;
         } finally {
-            if (connection != null) {
-                connection.disconnect();
+            primeira.cancel(true);
+            if (segunda != null) {
+                segunda.cancel(true);
+            }
+            if (vagaDoHedge) {
+                bulkhead.liberar();
+            }
+        }
+    }
+
+    /**
+     * Envia uma tentativa assíncrona e registra sua latência na {@link HedgingPolicy} também
+     * quando ela falha, para que timeouts e erros lentos entrem no percentil usado como atraso.
+     * Tentativas canceladas por terem perdido a corrida não são registradas.
+     */
+    private CompletableFuture<HttpResponse<String>> enviarTentativa(HttpRequest request) {
+        long inicio = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> tentativa =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        tentativa.whenComplete((response, erro) -> {
+            if (!(erro instanceof CancellationException)) {
+                hedgingPolicy.registrarLatencia(System.nanoTime() - inicio);
             }
+        });
+        return tentativa;
+    }
+
+    /**
+     * Combina duas tentativas, concluindo com a primeira resposta obtida
+     * ou com a falha da última tentativa se ambas falharem.
+     */
+    private static CompletableFuture<HttpResponse<String>> primeiraResposta(
+            CompletableFuture<HttpResponse<String>> primeira, CompletableFuture<HttpResponse<String>> segunda) {
+        CompletableFuture<HttpResponse<String>> resultado = new CompletableFuture<>();
+        AtomicInteger falhas = new AtomicInteger();
+
+        for (CompletableFuture<HttpResponse<String>> tentativa : List.of(primeira, segunda)) {
+            tentativa.whenComplete((response, erro) -> {
+                if (erro == null) {
+                    resultado.complete(response);
+                } else if (falhas.incrementAndGet() == 2) {
+                    resultado.completeExceptionally(erro);
+                }
+            });
+        }
+        return resultado;
+    }
+
+    private static HttpResponse<String> aguardarResposta(CompletableFuture<HttpResponse<String>> resposta)
+            throws IOException, InterruptedException {
+        try {
+            return resposta.get();
+        } catch (ExecutionException e) {
+            throw comoIOException(e.getCause());
+        }
+    }
+
+    private static IOException comoIOException(Throwable causa) {
+        if (causa instanceof IOException ioException) {
+            return ioException;
         }
+        return new IOException(causa.getMessage(), causa);
     }
-}
\ No newline at end of file
+}
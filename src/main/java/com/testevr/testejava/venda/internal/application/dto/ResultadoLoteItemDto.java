@@ -0,0 +1,44 @@
+package com.testevr.testejava.venda.internal.application.dto;
+
+public class ResultadoLoteItemDto {
+    private Integer indice;
+    private boolean sucesso;
+    private Long vendaId;
+    private String status;
+    private Integer quantidade;
+    private String mensagem;
+
+    public ResultadoLoteItemDto() {}
+
+    public ResultadoLoteItemDto(Integer indice, boolean sucesso, Long vendaId, String status,
+                                Integer quantidade, String mensagem) {
+        this.indice = indice;
+        this.sucesso = sucesso;
+        this.vendaId = vendaId;
+        this.status = status;
+        this.quantidade = quantidade;
+        this.mensagem = mensagem;
+    }
+
+    public static ResultadoLoteItemDto erro(Integer indice, String mensagem) {
+        return new ResultadoLoteItemDto(indice, false, null, null, null, mensagem);
+    }
+
+    public Integer getIndice() { return indice; }
+    public void setIndice(Integer indice) { this.indice = indice; }
+
+    public boolean isSucesso() { return sucesso; }
+    public void setSucesso(boolean sucesso) { this.sucesso = sucesso; }
+
+    public Long getVendaId() { return vendaId; }
+    public void setVendaId(Long vendaId) { this.vendaId = vendaId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public String getMensagem() { return mensagem; }
+    public void setMensagem(String mensagem) { this.mensagem = mensagem; }
+}
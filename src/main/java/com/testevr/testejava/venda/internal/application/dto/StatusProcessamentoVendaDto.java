@@ -0,0 +1,29 @@
+package com.testevr.testejava.venda.internal.application.dto;
+
+public class StatusProcessamentoVendaDto {
+    private Long id;
+    private String status;
+    private Integer quantidade;
+    private boolean emProcessamento;
+
+    public StatusProcessamentoVendaDto() {}
+
+    public StatusProcessamentoVendaDto(Long id, String status, Integer quantidade, boolean emProcessamento) {
+        this.id = id;
+        this.status = status;
+        this.quantidade = quantidade;
+        this.emProcessamento = emProcessamento;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public boolean isEmProcessamento() { return emProcessamento; }
+    public void setEmProcessamento(boolean emProcessamento) { this.emProcessamento = emProcessamento; }
+}
@@ -9,6 +9,7 @@ public class VendaDto {
     private BigDecimal valor;
     private Integer quantidade;
     private String status;
+    private Long versao;
 
     public VendaDto() {}
 
@@ -21,6 +22,12 @@ public class VendaDto {
         this.status = status;
     }
 
+    public VendaDto(Long id, Long clienteId, Long produtoId, BigDecimal valor, Integer quantidade, String status,
+                    Long versao) {
+        this(id, clienteId, produtoId, valor, quantidade, status);
+        this.versao = versao;
+    }
+
     public Long getId() {
         return id;
     }
@@ -68,4 +75,12 @@ public class VendaDto {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
 }
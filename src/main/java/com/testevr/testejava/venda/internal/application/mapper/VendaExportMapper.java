@@ -0,0 +1,45 @@
+package com.testevr.testejava.venda.internal.application.mapper;
+
+import com.google.gson.Gson;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converte vendas em linhas dos formatos de exportação (NDJSON e CSV).
+ * Cada venda gera exatamente uma linha, terminada por quebra de linha.
+ */
+@Component
+public class VendaExportMapper {
+
+    public static final String CABECALHO_CSV =
+            "id,cliente_id,produto_id,valor,quantidade,status,created_at,updated_at\n";
+
+    private final Gson gson = new Gson();
+
+    public String toNdjson(Venda venda) {
+        Map<String, Object> linha = new LinkedHashMap<>();
+        linha.put("id", venda.getIdValue());
+        linha.put("clienteId", venda.getClienteId());
+        linha.put("produtoId", venda.getProdutoId());
+        linha.put("valor", venda.getValor().getValor());
+        linha.put("quantidade", venda.getQuantidade());
+        linha.put("status", venda.getStatus().name());
+        linha.put("createdAt", String.valueOf(venda.getCreatedAt()));
+        linha.put("updatedAt", String.valueOf(venda.getUpdatedAt()));
+        return gson.toJson(linha) + "\n";
+    }
+
+    public String toCsv(Venda venda) {
+        return venda.getIdValue() + "," +
+                venda.getClienteId() + "," +
+                venda.getProdutoId() + "," +
+                venda.getValor().getValor().toPlainString() + "," +
+                venda.getQuantidade() + "," +
+                venda.getStatus().name() + "," +
+                venda.getCreatedAt() + "," +
+                venda.getUpdatedAt() + "\n";
+    }
+}
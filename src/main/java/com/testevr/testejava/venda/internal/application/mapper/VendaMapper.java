@@ -30,10 +30,11 @@ public class VendaMapper {
         if (dto.getId() != null && dto.getStatus() != null) {
             StatusVenda status = StatusVenda.valueOf(dto.getStatus().toUpperCase());
             return new Venda(dto.getId(), dto.getClienteId(), dto.getProdutoId(), valor,
-                           dto.getQuantidade(), status);
+                           dto.getQuantidade(), status).atualizarVersao(dto.getVersao());
         }
 
-        return new Venda(dto.getId(), dto.getClienteId(), dto.getProdutoId(), valor, dto.getQuantidade());
+        return new Venda(dto.getId(), dto.getClienteId(), dto.getProdutoId(), valor, dto.getQuantidade())
+                .atualizarVersao(dto.getVersao());
     }
 
     public VendaDto toDto(Venda venda) {
@@ -47,7 +48,8 @@ public class VendaMapper {
             venda.getProdutoId(),
             venda.getValor().getValor(),
             venda.getQuantidade(),
-            venda.getStatus().name()
+            venda.getStatus().name(),
+            venda.getVersao()
         );
     }
 }
@@ -0,0 +1,13 @@
+package com.testevr.testejava.venda.internal.domain.entity;
+
+/**
+ * Baixa de estoque registrada no outbox junto com a venda e ainda não confirmada pela API de produtos.
+ *
+ * @param id Identificador da entrada no outbox
+ * @param vendaId Venda que originou a baixa
+ * @param produtoId Produto a ter o estoque baixado
+ * @param quantidade Quantidade a ser baixada
+ * @param tentativas Quantidade de envios que já falharam
+ */
+public record BaixaEstoquePendente(Long id, Long vendaId, Long produtoId, Integer quantidade, int tentativas) {
+}
@@ -0,0 +1,15 @@
+package com.testevr.testejava.venda.internal.domain.entity;
+
+/**
+ * Estorno de estoque que falhou durante a compensação de uma venda não gravada
+ * e aguarda um novo envio à API de produtos.
+ *
+ * @param id Identificador do estorno pendente
+ * @param produtoId Produto a ter o estoque devolvido
+ * @param quantidade Quantidade a ser devolvida
+ * @param tentativas Quantidade de reenvios que já falharam
+ * @param chaveIdempotencia Chave enviada em todas as tentativas do estorno, ou null em registros antigos
+ */
+public record EstornoEstoquePendente(Long id, Long produtoId, Integer quantidade, int tentativas,
+                                     String chaveIdempotencia) {
+}
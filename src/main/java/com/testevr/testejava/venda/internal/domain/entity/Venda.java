@@ -16,6 +16,7 @@ public class Venda {
     private final StatusVenda status;
     private final LocalDateTime createdAt;
     private final LocalDateTime updatedAt;
+    private final Long versao;
 
     public Venda(Long id, Long clienteId, Long produtoId, ValorVenda valor, Integer quantidade) {
         this.id = id; // ID pode ser nulo na criação
@@ -26,6 +27,7 @@ public class Venda {
         this.status = StatusVenda.PENDENTE;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.versao = null;
     }
 
     public Venda(Long id, Long clienteId, Long produtoId, ValorVenda valor, Integer quantidade,
@@ -38,10 +40,16 @@ public class Venda {
         this.status = status;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.versao = null;
     }
 
     public Venda(Long id, Long clienteId, Long produtoId, ValorVenda valor, Integer quantidade,
                  StatusVenda status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, clienteId, produtoId, valor, quantidade, status, createdAt, updatedAt, null);
+    }
+
+    public Venda(Long id, Long clienteId, Long produtoId, ValorVenda valor, Integer quantidade,
+                 StatusVenda status, LocalDateTime createdAt, LocalDateTime updatedAt, Long versao) {
         this.id = id;
         this.clienteId = clienteId;
         this.produtoId = produtoId;
@@ -50,16 +58,22 @@ public class Venda {
         this.status = status;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.versao = versao;
     }
 
     public Venda atualizarStatus(StatusVenda novoStatus) {
         return new Venda(this.id, this.clienteId, this.produtoId, this.valor,
-                        this.quantidade, novoStatus, this.createdAt, LocalDateTime.now());
+                        this.quantidade, novoStatus, this.createdAt, LocalDateTime.now(), this.versao);
     }
 
     public Venda atualizarId(Long novoId) {
         return new Venda(novoId, this.clienteId, this.produtoId, this.valor,
-                        this.quantidade, this.status, this.createdAt, this.updatedAt);
+                        this.quantidade, this.status, this.createdAt, this.updatedAt, this.versao);
+    }
+
+    public Venda atualizarVersao(Long novaVersao) {
+        return new Venda(this.id, this.clienteId, this.produtoId, this.valor,
+                        this.quantidade, this.status, this.createdAt, this.updatedAt, novaVersao);
     }
 
     public Id getId() {
@@ -98,6 +112,10 @@ public class Venda {
         return updatedAt;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -122,6 +140,7 @@ public class Venda {
                 ", status=" + status +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", versao=" + versao +
                 '}';
     }
 }
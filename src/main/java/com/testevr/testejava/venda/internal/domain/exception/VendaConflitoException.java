@@ -0,0 +1,12 @@
+package com.testevr.testejava.venda.internal.domain.exception;
+
+/**
+ * Lançada quando uma atualização condicional não é aplicada porque a venda está finalizada
+ * ou cancelada, ou porque foi alterada por outra requisição desde a versão informada.
+ */
+public class VendaConflitoException extends RuntimeException {
+
+    public VendaConflitoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.testevr.testejava.venda.internal.domain.exception;
+
+/**
+ * Lançada quando a venda de uma atualização condicional não existe.
+ */
+public class VendaNaoEncontradaException extends RuntimeException {
+
+    public VendaNaoEncontradaException(Long id) {
+        super("Venda não encontrada: " + id);
+    }
+}
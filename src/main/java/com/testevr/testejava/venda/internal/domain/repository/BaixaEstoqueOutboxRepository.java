@@ -0,0 +1,15 @@
+package com.testevr.testejava.venda.internal.domain.repository;
+
+import com.testevr.testejava.venda.internal.domain.entity.BaixaEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface BaixaEstoqueOutboxRepository {
+    void registrar(List<Venda> vendas);
+    List<BaixaEstoquePendente> reservarPendentes(int limite, Duration lease);
+    void remover(List<Long> ids);
+    void reagendar(Long id, Duration espera, String erro);
+    long contarPendentes();
+}
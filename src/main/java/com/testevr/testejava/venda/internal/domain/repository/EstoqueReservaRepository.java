@@ -0,0 +1,15 @@
+package com.testevr.testejava.venda.internal.domain.repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface EstoqueReservaRepository {
+    Integer reservar(Long produtoId, int quantidade, Duration validade);
+    void devolver(Long produtoId, int quantidade);
+    void confirmar(Long produtoId, int quantidade);
+    void sincronizar(Map<Long, Integer> estoquePorProduto);
+    List<Long> buscarDesatualizados(Duration idade, int limite);
+    void remover(Collection<Long> produtoIds);
+}
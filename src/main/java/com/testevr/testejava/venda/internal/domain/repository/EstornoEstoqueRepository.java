@@ -0,0 +1,14 @@
+package com.testevr.testejava.venda.internal.domain.repository;
+
+import com.testevr.testejava.venda.internal.domain.entity.EstornoEstoquePendente;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface EstornoEstoqueRepository {
+    void registrar(Long produtoId, Integer quantidade, String chaveIdempotencia, String erro);
+    List<EstornoEstoquePendente> reservarPendentes(int limite, Duration lease);
+    void remover(Long id);
+    void reagendar(Long id, Duration espera, String erro);
+    long contarPendentes();
+}
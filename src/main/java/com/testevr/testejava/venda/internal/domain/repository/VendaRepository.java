@@ -3,15 +3,29 @@ package com.testevr.testejava.venda.internal.domain.repository;
 import com.testevr.testejava.venda.internal.domain.entity.Venda;
 import com.testevr.testejava.venda.internal.application.dto.VendaConsolidadaDto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface VendaRepository {
     Venda create(Venda venda);
+    Venda registrarRecebida(Venda venda, Duration lease);
+    List<Venda> createEmLote(List<Venda> vendas);
     Venda update(Venda venda);
+    Venda atualizarSeEditavel(Venda venda);
+    Venda concluirRecebida(Venda venda);
+    Venda adicionarProduto(Long vendaId, Long produtoId, int quantidade);
     Venda findById(Long id);
     List<Venda> findAll();
+    List<Venda> findPagina(LocalDateTime aposCreatedAt, Long aposId, int limite);
     List<Venda> findByClienteId(Long clienteId);
+    void exportarTodas(Consumer<Venda> consumidor);
     List<VendaConsolidadaDto> buscarVendasConsolidadas();
     List<VendaConsolidadaDto> buscarVendasConsolidadasPorCliente(Long clienteId);
     void delete(Long id);
+    List<Long> deleteEmLote(List<Long> ids);
+    List<Venda> reservarPendentes(int limite, Duration lease, Duration idadeMinima);
+    List<Venda> reservarRecebidas(int limite, Duration lease);
+    List<Long> atualizarEmLote(List<Venda> vendas);
 }
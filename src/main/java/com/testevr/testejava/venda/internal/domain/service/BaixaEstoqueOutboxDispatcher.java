@@ -0,0 +1,209 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueItemRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import com.testevr.testejava.venda.external.domain.service.BaixaEstoqueBatcher;
+import com.testevr.testejava.venda.internal.domain.entity.BaixaEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.BaixaEstoqueOutboxRepository;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drena em segundo plano o outbox de baixas de estoque gravado junto com as vendas.
+ * A cada ciclo as baixas vencidas são reservadas com um lease e enviadas, fora de transação,
+ * pelo {@link BaixaEstoqueBatcher}, que as agrupa em chamadas ao endpoint de baixa em lote. Baixas confirmadas saem do outbox;
+ * falhas de comunicação são reenviadas com espera exponencial; baixas recusadas pela API,
+ * ou que esgotaram as tentativas, marcam a venda como {@link StatusVenda#ERRO}.
+ */
+@Service
+public class BaixaEstoqueOutboxDispatcher implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaixaEstoqueOutboxDispatcher.class);
+
+    private final BaixaEstoqueOutboxRepository outboxRepository;
+    private final VendaRepository vendaRepository;
+    private final BaixaEstoqueBatcher baixaEstoqueBatcher;
+    private final TransactionOperations transactionOperations;
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final Duration lease;
+    private final int maximoTentativas;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+
+    private final LongAdder ciclos = new LongAdder();
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder recusadas = new LongAdder();
+    private final LongAdder reagendadas = new LongAdder();
+    private final LongAdder esgotadas = new LongAdder();
+
+    public BaixaEstoqueOutboxDispatcher(BaixaEstoqueOutboxRepository outboxRepository,
+                                        VendaRepository vendaRepository,
+                                        BaixaEstoqueBatcher baixaEstoqueBatcher,
+                                        TransactionOperations transactionOperations,
+                                        @Value("${venda.outbox.enabled:true}") boolean habilitado,
+                                        @Value("${venda.outbox.tamanho-lote:100}") int tamanhoLote,
+                                        @Value("${venda.outbox.lease-ms:120000}") long leaseMs,
+                                        @Value("${venda.outbox.maximo-tentativas:10}") int maximoTentativas,
+                                        @Value("${venda.outbox.espera-inicial-ms:1000}") long esperaInicialMs,
+                                        @Value("${venda.outbox.espera-maxima-ms:60000}") long esperaMaximaMs) {
+        this.outboxRepository = outboxRepository;
+        this.vendaRepository = vendaRepository;
+        this.baixaEstoqueBatcher = baixaEstoqueBatcher;
+        this.transactionOperations = transactionOperations;
+        this.habilitado = habilitado;
+        this.tamanhoLote = Math.max(tamanhoLote, 1);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.maximoTentativas = Math.max(maximoTentativas, 1);
+        this.esperaInicial = Duration.ofMillis(esperaInicialMs);
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+    }
+
+    /**
+     * Envia as baixas pendentes, lote a lote, até não restarem baixas vencidas.
+     */
+    @Scheduled(fixedDelayString = "${venda.outbox.intervalo-ms:500}")
+    public void despacharPendentes() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            int processadas;
+            do {
+                processadas = despacharLote();
+            } while (processadas == tamanhoLote);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao despachar baixas de estoque do outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Envia um lote de baixas pendentes em três etapas: reserva as linhas com um lease numa
+     * transação curta, envia as baixas fora de qualquer transação, cada uma com a chave de
+     * idempotência da sua linha, e registra o resultado de todas numa segunda transação curta.
+     * Uma baixa reenviada depois de uma queda, com o lease vencido, repete a mesma chave e
+     * não baixa o estoque duas vezes. Cada envio é aguardado até terminar, e não só até a espera
+     * máxima do agrupador, para que uma baixa confirmada tarde não seja estornada pelo agrupador
+     * enquanto a linha continua no outbox.
+     *
+     * @return int Quantidade de baixas processadas no lote
+     */
+    int despacharLote() {
+        List<BaixaEstoquePendente> pendentes = transactionOperations.execute(
+                status -> outboxRepository.reservarPendentes(tamanhoLote, lease));
+        if (pendentes == null || pendentes.isEmpty()) {
+            return 0;
+        }
+
+        ciclos.increment();
+        List<CompletableFuture<BaixaEstoqueResponse>> envios = baixaEstoqueBatcher.enfileirarComChave(pendentes.stream()
+                .map(pendente -> new BaixaEstoqueItemRequest(pendente.produtoId(), pendente.quantidade(), chaveIdempotencia(pendente)))
+                .toList());
+
+        List<Long> concluidas = new ArrayList<>();
+        Map<BaixaEstoquePendente, String> comErro = new LinkedHashMap<>();
+        Map<BaixaEstoquePendente, String> aReagendar = new LinkedHashMap<>();
+        for (int i = 0; i < pendentes.size(); i++) {
+            BaixaEstoquePendente pendente = pendentes.get(i);
+            try {
+                BaixaEstoqueResponse resposta = baixaEstoqueBatcher.aguardarEnvio(envios.get(i));
+                if (Boolean.FALSE.equals(resposta.getSucesso())) {
+                    recusadas.increment();
+                    comErro.put(pendente, resposta.getMessage());
+                } else {
+                    enviadas.increment();
+                }
+                concluidas.add(pendente.id());
+            } catch (IOException | RuntimeException e) {
+                if (pendente.tentativas() + 1 >= maximoTentativas) {
+                    esgotadas.increment();
+                    comErro.put(pendente, "tentativas esgotadas: " + e.getMessage());
+                    concluidas.add(pendente.id());
+                } else {
+                    reagendadas.increment();
+                    aReagendar.put(pendente, e.getMessage());
+                }
+            }
+        }
+
+        transactionOperations.executeWithoutResult(status -> {
+            comErro.forEach(this::marcarVendaComErro);
+            aReagendar.forEach((pendente, erro) ->
+                    outboxRepository.reagendar(pendente.id(), calcularEspera(pendente.tentativas()), erro));
+            outboxRepository.remover(concluidas);
+        });
+
+        return pendentes.size();
+    }
+
+    /**
+     * Chave de idempotência enviada à API de produtos, estável entre os reenvios da mesma linha do outbox.
+     *
+     * @param pendente Baixa pendente do outbox
+     * @return String Chave de idempotência da baixa
+     */
+    static String chaveIdempotencia(BaixaEstoquePendente pendente) {
+        return "outbox-baixa-estoque-" + pendente.id();
+    }
+
+    /**
+     * Calcula a espera até o próximo envio, dobrando a cada tentativa até o máximo configurado.
+     *
+     * @param tentativas Quantidade de envios que já falharam
+     * @return Duration Espera até o próximo envio
+     */
+    Duration calcularEspera(int tentativas) {
+        Duration espera = esperaInicial.multipliedBy(1L << Math.min(tentativas, 20));
+        return espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+    }
+
+    private void marcarVendaComErro(BaixaEstoquePendente pendente, String motivo) {
+        logger.warn("Baixa de estoque da venda {} não realizada - Produto: {}, Quantidade: {}, Motivo: {}",
+                pendente.vendaId(), pendente.produtoId(), pendente.quantidade(), motivo);
+
+        Venda venda = vendaRepository.findById(pendente.vendaId());
+        if (venda != null) {
+            vendaRepository.update(venda.atualizarStatus(StatusVenda.ERRO));
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return "baixaEstoqueOutbox";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("ciclos", ciclos.sum());
+        metricas.put("enviadas", enviadas.sum());
+        metricas.put("recusadas", recusadas.sum());
+        metricas.put("reagendadas", reagendadas.sum());
+        metricas.put("tentativasEsgotadas", esgotadas.sum());
+        try {
+            metricas.put("pendentes", outboxRepository.contarPendentes());
+        } catch (RuntimeException e) {
+            metricas.put("pendentes", null);
+        }
+        return metricas;
+    }
+}
@@ -0,0 +1,248 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.concurrent.StripedLock;
+import com.testevr.testejava.shared.infra.metrics.LatencyTracker;
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.shared.infra.resilience.ChamadaRejeitadaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reserva, na instância, o estoque lido da API externa pelas vendas em andamento, para que
+ * vendas concorrentes do mesmo produto não vendam o mesmo estoque.
+ * A consulta à API e a baixa rodam fora de qualquer bloqueio: a venda abre uma
+ * {@link Leitura} antes da consulta e, com o estoque lido, reserva a quantidade descontando
+ * o que outras vendas já reservaram ou baixaram desde a abertura da leitura. Só esse passo
+ * local segura o {@link StripedLock}, então vendas de produtos diferentes, mesmo na mesma
+ * faixa, esperam no máximo alguns microssegundos umas pelas outras. O desconto é conservador:
+ * uma baixa já refletida no estoque lido ainda pode ser descontada enquanto estiver em andamento.
+ * A reserva vale só nesta instância e até a gravação da venda (com o outbox, a baixa segue
+ * depois); a proteção entre instâncias é o livro de reservas do {@link ReservaEstoqueService}.
+ */
+@Service
+public class BloqueioProdutoService implements MetricsSource {
+
+    private static final int JANELA_LATENCIAS = 1000;
+
+    private final boolean habilitado;
+    private final Duration esperaMaxima;
+    private final StripedLock<Long> locks;
+    private final Map<Long, Reservas> reservas = new ConcurrentHashMap<>();
+
+    private final LatencyTracker esperas = new LatencyTracker(JANELA_LATENCIAS);
+    private final LongAccumulator maiorEspera = new LongAccumulator(Math::max, 0);
+    private final LongAdder aquisicoes = new LongAdder();
+    private final LongAdder esperasEsgotadas = new LongAdder();
+
+    public BloqueioProdutoService(@Value("${venda.bloqueio.enabled:true}") boolean habilitado,
+                                  @Value("${venda.bloqueio.faixas:64}") int faixas,
+                                  @Value("${venda.bloqueio.espera-maxima-ms:5000}") long esperaMaximaMs) {
+        this.habilitado = habilitado;
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+        this.locks = new StripedLock<>(faixas);
+    }
+
+    /**
+     * Abre uma leitura do estoque do produto, a ser feita logo em seguida na API externa.
+     * A leitura deve ser encerrada por {@link #reservar(Leitura, int, int)} ou
+     * {@link #encerrar(Leitura)}.
+     *
+     * @param produtoId Identificador único do produto
+     * @return Leitura A leitura aberta
+     * @throws ChamadaRejeitadaException Se o bloqueio não for adquirido dentro da espera máxima
+     */
+    public Leitura iniciarLeitura(Long produtoId) {
+        if (!habilitado) {
+            return new Leitura(produtoId, 0);
+        }
+        return comBloqueio(produtoId, () -> {
+            Reservas doProduto = reservas.computeIfAbsent(produtoId, id -> new Reservas());
+            doProduto.leituras++;
+            return new Leitura(produtoId, doProduto.concluidas);
+        });
+    }
+
+    /**
+     * Reserva até a quantidade solicitada a partir do estoque lido, descontando as reservas em
+     * andamento e as baixas concluídas desde a abertura da leitura, e encerra a leitura.
+     * A quantidade reservada deve ser devolvida por {@link #liberar(Long, int, boolean)}.
+     *
+     * @param leitura Leitura aberta por {@link #iniciarLeitura(Long)}
+     * @param estoqueLido Estoque lido da API externa
+     * @param quantidade Quantidade solicitada
+     * @return int Quantidade reservada, entre zero e a solicitada
+     * @throws IllegalStateException Se a leitura já tiver sido encerrada
+     * @throws ChamadaRejeitadaException Se o bloqueio não for adquirido dentro da espera máxima
+     */
+    public int reservar(Leitura leitura, int estoqueLido, int quantidade) {
+        if (leitura.encerrada) {
+            throw new IllegalStateException("Leitura de estoque do produto " + leitura.produtoId + " já encerrada");
+        }
+        if (!habilitado) {
+            leitura.encerrada = true;
+            return Math.max(0, Math.min(quantidade, estoqueLido));
+        }
+        return comBloqueio(leitura.produtoId, () -> {
+            Reservas doProduto = reservas.get(leitura.produtoId);
+            long disponivel = estoqueLido - doProduto.emAndamento - (doProduto.concluidas - leitura.concluidasAntes);
+            int reservada = (int) Math.max(0, Math.min(quantidade, disponivel));
+
+            doProduto.emAndamento += reservada;
+            doProduto.leituras--;
+            leitura.encerrada = true;
+            removerSeOciosa(leitura.produtoId, doProduto);
+            return reservada;
+        });
+    }
+
+    /**
+     * Encerra a leitura sem reservar, quando a consulta à API falha ou a venda é recusada antes
+     * da reserva. Não faz nada se a leitura já tiver sido encerrada.
+     *
+     * @param leitura Leitura aberta por {@link #iniciarLeitura(Long)}
+     */
+    public void encerrar(Leitura leitura) {
+        if (leitura.encerrada) {
+            return;
+        }
+        leitura.encerrada = true;
+        if (!habilitado) {
+            return;
+        }
+        semEspera(leitura.produtoId, doProduto -> doProduto.leituras--);
+    }
+
+    /**
+     * Devolve uma quantidade reservada por {@link #reservar(Leitura, int, int)}. Se a baixa foi
+     * feita, a quantidade continua sendo descontada das leituras abertas antes dela.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade reservada
+     * @param baixada Se a baixa da quantidade foi efetivada
+     */
+    public void liberar(Long produtoId, int quantidade, boolean baixada) {
+        if (!habilitado || quantidade <= 0) {
+            return;
+        }
+        semEspera(produtoId, doProduto -> {
+            doProduto.emAndamento -= quantidade;
+            if (baixada) {
+                doProduto.concluidas += quantidade;
+            }
+        });
+    }
+
+    private <T> T comBloqueio(Long produtoId, Supplier<T> passo) {
+        ReentrantLock lock = locks.obter(produtoId);
+        long inicio = System.nanoTime();
+        boolean adquirido;
+        try {
+            adquirido = lock.tryLock(esperaMaxima.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChamadaRejeitadaException("Espera pelo bloqueio do produto " + produtoId + " interrompida");
+        }
+
+        long espera = System.nanoTime() - inicio;
+        if (!adquirido) {
+            esperasEsgotadas.increment();
+            throw new ChamadaRejeitadaException("Tempo de espera pelo bloqueio do produto " + produtoId + " esgotado");
+        }
+
+        try {
+            registrarAquisicao(espera);
+            return passo.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica um passo que não pode ser recusado, como a devolução de uma reserva: espera o
+     * bloqueio sem limite, já que ele só é segurado pelos passos locais desta classe.
+     */
+    private void semEspera(Long produtoId, Consumer<Reservas> passo) {
+        ReentrantLock lock = locks.obter(produtoId);
+        long inicio = System.nanoTime();
+        lock.lock();
+        try {
+            registrarAquisicao(System.nanoTime() - inicio);
+            Reservas doProduto = reservas.get(produtoId);
+            passo.accept(doProduto);
+            removerSeOciosa(produtoId, doProduto);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removerSeOciosa(Long produtoId, Reservas doProduto) {
+        if (doProduto.leituras == 0 && doProduto.emAndamento == 0) {
+            reservas.remove(produtoId);
+        }
+    }
+
+    private void registrarAquisicao(long espera) {
+        aquisicoes.increment();
+        esperas.registrar(espera);
+        maiorEspera.accumulate(espera);
+    }
+
+    @Override
+    public String getNome() {
+        return "bloqueioProduto";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("faixas", locks.getQuantidadeFaixas());
+        metricas.put("produtosReservados", reservas.size());
+        metricas.put("aquisicoes", aquisicoes.sum());
+        metricas.put("esperasEsgotadas", esperasEsgotadas.sum());
+        metricas.put("esperaP50Ms", emMillis(esperas.percentil(50)));
+        metricas.put("esperaP99Ms", emMillis(esperas.percentil(99)));
+        metricas.put("maiorEsperaMs", emMillis(maiorEspera.get()));
+        return metricas;
+    }
+
+    private static Double emMillis(long nanos) {
+        return nanos < 0 ? null : nanos / 1_000_000.0;
+    }
+
+    /**
+     * Leitura de estoque aberta por uma venda, usada por uma única thread.
+     */
+    public static final class Leitura {
+
+        private final Long produtoId;
+        private final long concluidasAntes;
+        private boolean encerrada;
+
+        private Leitura(Long produtoId, long concluidasAntes) {
+            this.produtoId = produtoId;
+            this.concluidasAntes = concluidasAntes;
+        }
+    }
+
+    /**
+     * Estado das reservas de um produto, sempre acessado com a faixa do produto bloqueada.
+     * {@code concluidas} só cresce enquanto houver leituras ou reservas abertas.
+     */
+    private static final class Reservas {
+        private int leituras;
+        private long emAndamento;
+        private long concluidas;
+    }
+}
@@ -0,0 +1,172 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.domain.entity.EstornoEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.repository.EstornoEstoqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reenvia em segundo plano os estornos de estoque que falharam durante a compensação de
+ * vendas não gravadas. Cada ciclo reserva os estornos vencidos com um lease e os envia fora
+ * de qualquer transação. Estornos confirmados, ou recusados pela API, saem da tabela; falhas
+ * de comunicação são reenviadas com espera exponencial até a API responder.
+ */
+@Service
+public class EstornoEstoqueDispatcher implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstornoEstoqueDispatcher.class);
+
+    private final EstornoEstoqueRepository estornoRepository;
+    private final ProdutoService produtoService;
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final Duration lease;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder estornados = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+    private final LongAdder reagendados = new LongAdder();
+
+    public EstornoEstoqueDispatcher(EstornoEstoqueRepository estornoRepository,
+                                    ProdutoService produtoService,
+                                    @Value("${venda.estorno.enabled:true}") boolean habilitado,
+                                    @Value("${venda.estorno.tamanho-lote:50}") int tamanhoLote,
+                                    @Value("${venda.estorno.lease-ms:60000}") long leaseMs,
+                                    @Value("${venda.estorno.espera-inicial-ms:1000}") long esperaInicialMs,
+                                    @Value("${venda.estorno.espera-maxima-ms:300000}") long esperaMaximaMs) {
+        this.estornoRepository = estornoRepository;
+        this.produtoService = produtoService;
+        this.habilitado = habilitado;
+        this.tamanhoLote = Math.max(tamanhoLote, 1);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.esperaInicial = Duration.ofMillis(esperaInicialMs);
+        this.esperaMaxima = Duration.ofMillis(esperaMaximaMs);
+    }
+
+    /**
+     * Guarda um estorno que não pôde ser enviado para que seja reenviado em segundo plano.
+     * Se nem o registro for possível, o estorno é registrado no log para tratamento manual.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser devolvida ao estoque
+     * @param chaveIdempotencia Chave usada na tentativa que falhou, repetida em todos os reenvios
+     * @param erro Mensagem do erro que impediu o estorno
+     */
+    public void registrarFalha(Long produtoId, Integer quantidade, String chaveIdempotencia, String erro) {
+        try {
+            estornoRepository.registrar(produtoId, quantidade, chaveIdempotencia, erro);
+            registrados.increment();
+        } catch (RuntimeException e) {
+            logger.error("Estorno de estoque não registrado para reenvio - Produto: {}, Quantidade: {}: {}",
+                    produtoId, quantidade, e.getMessage());
+        }
+    }
+
+    /**
+     * Reenvia os estornos pendentes, lote a lote, até não restarem estornos vencidos.
+     */
+    @Scheduled(fixedDelayString = "${venda.estorno.intervalo-ms:5000}")
+    public void reenviarPendentes() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            int processados;
+            do {
+                processados = reenviarLote();
+            } while (processados == tamanhoLote);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao reenviar estornos de estoque pendentes: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserva um lote de estornos vencidos e os envia um a um, registrando o resultado de cada um.
+     * Cada estorno é reenviado sempre com a mesma chave de idempotência, para que um estorno
+     * aplicado pela API mas cuja resposta se perdeu não seja aplicado de novo.
+     *
+     * @return int Quantidade de estornos processados no lote
+     */
+    int reenviarLote() {
+        List<EstornoEstoquePendente> pendentes = estornoRepository.reservarPendentes(tamanhoLote, lease);
+
+        for (EstornoEstoquePendente pendente : pendentes) {
+            try {
+                BaixaEstoqueResponse resposta = produtoService.estornarBaixaEstoque(pendente.produtoId(), pendente.quantidade(),
+                        chaveIdempotencia(pendente));
+                if (Boolean.FALSE.equals(resposta.getSucesso())) {
+                    recusados.increment();
+                    logger.error("Estorno de estoque recusado pela API - Produto: {}, Quantidade: {}, Motivo: {}",
+                            pendente.produtoId(), pendente.quantidade(), resposta.getMessage());
+                } else {
+                    estornados.increment();
+                }
+                estornoRepository.remover(pendente.id());
+            } catch (IOException | RuntimeException e) {
+                reagendados.increment();
+                estornoRepository.reagendar(pendente.id(), calcularEspera(pendente.tentativas()), e.getMessage());
+            }
+        }
+
+        return pendentes.size();
+    }
+
+    /**
+     * Chave de idempotência do estorno: a registrada na primeira tentativa ou, em registros
+     * antigos sem chave, uma derivada do ID do estorno.
+     *
+     * @param pendente Estorno pendente
+     * @return String Chave enviada no cabeçalho {@value ProdutoService#HEADER_IDEMPOTENCIA}
+     */
+    static String chaveIdempotencia(EstornoEstoquePendente pendente) {
+        return pendente.chaveIdempotencia() != null ? pendente.chaveIdempotencia() : "estorno-estoque-" + pendente.id();
+    }
+
+    /**
+     * Calcula a espera até o próximo envio, dobrando a cada tentativa até o máximo configurado.
+     *
+     * @param tentativas Quantidade de reenvios que já falharam
+     * @return Duration Espera até o próximo envio
+     */
+    Duration calcularEspera(int tentativas) {
+        Duration espera = esperaInicial.multipliedBy(1L << Math.min(tentativas, 20));
+        return espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+    }
+
+    @Override
+    public String getNome() {
+        return "estornoEstoque";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("registrados", registrados.sum());
+        metricas.put("estornados", estornados.sum());
+        metricas.put("recusados", recusados.sum());
+        metricas.put("reagendados", reagendados.sum());
+        try {
+            metricas.put("pendentes", estornoRepository.contarPendentes());
+        } catch (RuntimeException e) {
+            metricas.put("pendentes", null);
+        }
+        return metricas;
+    }
+}
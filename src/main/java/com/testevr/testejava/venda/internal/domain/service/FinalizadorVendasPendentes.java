@@ -0,0 +1,118 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finaliza em segundo plano as vendas pendentes através de
+ * {@link VendaService#finalizarPendentesEmLote(List)}. Roda em todas as instâncias: cada ciclo
+ * reserva um lote de vendas com SKIP LOCKED e um prazo de reserva, de modo que duas instâncias
+ * nunca trabalham na mesma venda, e finaliza o lote com uma consulta e uma baixa por produto.
+ * Uma venda que não pôde ser finalizada (por exemplo, ainda sem estoque) volta a ser
+ * candidata quando a reserva vence.
+ */
+@Service
+public class FinalizadorVendasPendentes implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinalizadorVendasPendentes.class);
+
+    private final VendaRepository vendaRepository;
+    private final VendaService vendaService;
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final Duration lease;
+    private final Duration idadeMinima;
+
+    private final LongAdder ciclos = new LongAdder();
+    private final LongAdder reservadas = new LongAdder();
+    private final LongAdder finalizadas = new LongAdder();
+    private final LongAdder naoFinalizadas = new LongAdder();
+
+    public FinalizadorVendasPendentes(VendaRepository vendaRepository,
+                                      VendaService vendaService,
+                                      @Value("${venda.pendente.enabled:true}") boolean habilitado,
+                                      @Value("${venda.pendente.tamanho-lote:20}") int tamanhoLote,
+                                      @Value("${venda.pendente.lease-ms:60000}") long leaseMs,
+                                      @Value("${venda.pendente.idade-minima-ms:30000}") long idadeMinimaMs) {
+        this.vendaRepository = vendaRepository;
+        this.vendaService = vendaService;
+        this.habilitado = habilitado;
+        this.tamanhoLote = Math.max(tamanhoLote, 1);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.idadeMinima = Duration.ofMillis(idadeMinimaMs);
+    }
+
+    /**
+     * Reserva e finaliza lotes de vendas pendentes até não restarem vendas disponíveis.
+     */
+    @Scheduled(fixedDelayString = "${venda.pendente.intervalo-ms:5000}")
+    public void finalizarPendentes() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            int processadas;
+            do {
+                processadas = finalizarLote();
+            } while (processadas == tamanhoLote);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao finalizar vendas pendentes: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserva um lote de vendas pendentes e finaliza as que houver estoque para atender.
+     *
+     * @return int Quantidade de vendas reservadas no lote
+     */
+    int finalizarLote() {
+        List<Venda> vendas = vendaRepository.reservarPendentes(tamanhoLote, lease, idadeMinima);
+        if (vendas.isEmpty()) {
+            return 0;
+        }
+
+        ciclos.increment();
+        reservadas.add(vendas.size());
+
+        try {
+            int quantidadeFinalizadas = vendaService.finalizarPendentesEmLote(vendas).size();
+            finalizadas.add(quantidadeFinalizadas);
+            naoFinalizadas.add(vendas.size() - quantidadeFinalizadas);
+        } catch (RuntimeException e) {
+            naoFinalizadas.add(vendas.size());
+            logger.warn("Lote de {} vendas pendentes não finalizado, nova tentativa após {} ms: {}",
+                    vendas.size(), lease.toMillis(), e.getMessage());
+        }
+
+        return vendas.size();
+    }
+
+    @Override
+    public String getNome() {
+        return "vendasPendentes";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("ciclos", ciclos.sum());
+        metricas.put("reservadas", reservadas.sum());
+        metricas.put("finalizadas", finalizadas.sum());
+        metricas.put("naoFinalizadas", naoFinalizadas.sum());
+        return metricas;
+    }
+}
@@ -0,0 +1,206 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.shared.infra.resilience.ChamadaRejeitadaException;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processamento assíncrono de vendas: a venda é gravada como {@link StatusVenda#RECEBIDA} e
+ * devolvida imediatamente, enquanto um pool limitado de workers faz a validação do produto,
+ * a baixa de estoque e a transição para o status final através de
+ * {@link VendaService#processarVendaRecebida(Long)}. Assim o tempo de resposta ao cliente não
+ * depende da latência da API de produtos.
+ * A fila tem capacidade fixa e a vaga é reservada antes da gravação: com a fila cheia a venda
+ * é recusada com {@link ChamadaRejeitadaException}, sem chegar ao banco.
+ * O estado fica no banco, não na fila em memória: a venda é gravada reservada por um prazo e,
+ * se a instância cair antes de processá-la, a recuperação periódica (que também roda logo na
+ * inicialização) a reserva de novo e a devolve à fila de alguma instância.
+ */
+@Service
+public class ProcessamentoVendaService implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessamentoVendaService.class);
+
+    private final VendaService vendaService;
+    private final VendaRepository vendaRepository;
+    private final boolean habilitado;
+    private final int workers;
+    private final int capacidadeFila;
+    private final Duration lease;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore vagas;
+
+    private final LongAdder recebidas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder processadas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder recuperadas = new LongAdder();
+
+    public ProcessamentoVendaService(VendaService vendaService,
+                                     VendaRepository vendaRepository,
+                                     @Value("${venda.assincrona.enabled:false}") boolean habilitado,
+                                     @Value("${venda.assincrona.workers:8}") int workers,
+                                     @Value("${venda.assincrona.fila:200}") int capacidadeFila,
+                                     @Value("${venda.assincrona.lease-ms:300000}") long leaseMs) {
+        this.vendaService = vendaService;
+        this.vendaRepository = vendaRepository;
+        this.habilitado = habilitado;
+        this.workers = Math.max(workers, 1);
+        this.capacidadeFila = Math.max(capacidadeFila, 0);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.vagas = new Semaphore(this.workers + this.capacidadeFila);
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(this.capacidadeFila, 1)),
+                Thread.ofPlatform().name("venda-worker-", 0).daemon().factory());
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Grava a venda como recebida e agenda seu processamento num dos workers.
+     *
+     * @param venda Venda recebida
+     * @return Venda A venda gravada, com ID e status {@link StatusVenda#RECEBIDA}
+     * @throws ChamadaRejeitadaException Se a fila de processamento estiver cheia
+     */
+    public Venda receber(Venda venda) {
+        if (!vagas.tryAcquire()) {
+            rejeitadas.increment();
+            throw new ChamadaRejeitadaException("Fila de processamento de vendas cheia, tente novamente mais tarde");
+        }
+
+        Venda recebida;
+        try {
+            recebida = vendaService.registrarParaProcessamento(venda, lease);
+        } catch (RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+
+        recebidas.increment();
+        agendar(recebida.getIdValue());
+        return recebida;
+    }
+
+    /**
+     * Devolve à fila as vendas recebidas cuja reserva venceu sem que fossem processadas,
+     * limitado às vagas livres. Roda ao iniciar a aplicação e depois periodicamente.
+     */
+    @Scheduled(fixedDelayString = "${venda.assincrona.recuperacao.intervalo-ms:30000}")
+    public void recuperarRecebidas() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            int livres = vagas.availablePermits();
+            if (livres == 0) {
+                return;
+            }
+
+            List<Venda> vendas = vendaRepository.reservarRecebidas(livres, lease);
+            for (Venda venda : vendas) {
+                if (!vagas.tryAcquire()) {
+                    logger.warn("Fila cheia, venda recebida {} será recuperada depois de {} ms",
+                            venda.getIdValue(), lease.toMillis());
+                    continue;
+                }
+                recuperadas.increment();
+                agendar(venda.getIdValue());
+            }
+            if (!vendas.isEmpty()) {
+                logger.info("{} vendas recebidas e não processadas devolvidas à fila", vendas.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Falha ao recuperar vendas recebidas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Entrega a venda a um worker. A vaga já deve ter sido reservada; se o pool recusar a tarefa,
+     * a vaga é devolvida e a venda continua recebida, para ser recuperada quando a reserva vencer.
+     */
+    private void agendar(Long id) {
+        try {
+            executor.execute(() -> processar(id));
+        } catch (RejectedExecutionException e) {
+            vagas.release();
+            falhas.increment();
+            logger.error("Processamento da venda {} recusado pelo pool de workers, venda permanece recebida: {}",
+                    id, e.getMessage());
+        }
+    }
+
+    private void processar(Long id) {
+        try {
+            Venda processada = vendaService.processarVendaRecebida(id);
+            if (processada == null || processada.getStatus() == StatusVenda.ERRO) {
+                falhas.increment();
+            } else {
+                processadas.increment();
+            }
+        } catch (RuntimeException e) {
+            falhas.increment();
+            logger.error("Falha inesperada no processamento da venda {}: {}", id, e.getMessage(), e);
+        } finally {
+            vagas.release();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("{} vendas recebidas ficaram na fila no encerramento e serão recuperadas",
+                        executor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return "vendaAssincrona";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("workers", workers);
+        metricas.put("capacidadeFila", capacidadeFila);
+        metricas.put("emFila", executor.getQueue().size());
+        metricas.put("emExecucao", executor.getActiveCount());
+        metricas.put("recebidas", recebidas.sum());
+        metricas.put("rejeitadas", rejeitadas.sum());
+        metricas.put("processadas", processadas.sum());
+        metricas.put("falhas", falhas.sum());
+        metricas.put("recuperadas", recuperadas.sum());
+        return metricas;
+    }
+}
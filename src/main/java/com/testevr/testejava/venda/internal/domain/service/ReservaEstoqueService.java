@@ -0,0 +1,212 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import com.testevr.testejava.shared.infra.metrics.MetricsSource;
+import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.domain.repository.EstoqueReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Livro local de reservas de estoque. Cada venda reserva sua quantidade de forma atômica no
+ * estoque local do produto, em vez de ler o estoque na API externa e baixá-lo depois; duas vendas
+ * concorrentes nunca levam a mesma unidade e o caminho da venda não faz leitura remota. Os fluxos
+ * em lote (criação e finalização de pendentes) reservam aqui a quantidade total de cada produto.
+ * O estoque local é carregado da API na primeira venda do produto e reconciliado em segundo plano,
+ * em lotes, antes de expirar. A baixa na API continua sendo feita pela venda (diretamente ou pelo
+ * outbox), e a reconciliação desconta as baixas que ainda estão no outbox. As reservas de vendas
+ * ainda não gravadas ficam separadas do estoque sincronizado, e por isso nenhuma sincronização
+ * as descarta; só saem de lá quando a venda é confirmada ou a reserva devolvida.
+ */
+@Service
+public class ReservaEstoqueService implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaEstoqueService.class);
+    private static final int CONSULTAS_PARALELAS = 8;
+
+    private final EstoqueReservaRepository repository;
+    private final ProdutoService produtoService;
+    private final boolean habilitado;
+    private final Duration validade;
+    private final Duration idadeReconciliacao;
+    private final int tamanhoLote;
+
+    private final LongAdder reservasLocais = new LongAdder();
+    private final LongAdder carregamentos = new LongAdder();
+    private final LongAdder semEstoque = new LongAdder();
+    private final LongAdder devolucoes = new LongAdder();
+    private final LongAdder reconciliados = new LongAdder();
+
+    public ReservaEstoqueService(EstoqueReservaRepository repository,
+                                 ProdutoService produtoService,
+                                 @Value("${venda.reserva.enabled:false}") boolean habilitado,
+                                 @Value("${venda.reserva.validade-ms:60000}") long validadeMs,
+                                 @Value("${venda.reserva.reconciliacao.idade-ms:10000}") long idadeReconciliacaoMs,
+                                 @Value("${venda.reserva.reconciliacao.tamanho-lote:100}") int tamanhoLote) {
+        this.repository = repository;
+        this.produtoService = produtoService;
+        this.habilitado = habilitado;
+        this.validade = Duration.ofMillis(validadeMs);
+        this.idadeReconciliacao = Duration.ofMillis(idadeReconciliacaoMs);
+        this.tamanhoLote = Math.max(tamanhoLote, 1);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Reserva até a quantidade solicitada do estoque local do produto. Sem entrada válida no
+     * estoque local, o produto é consultado uma vez na API externa para carregá-la.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade desejada
+     * @return int Quantidade reservada, menor que a desejada quando o estoque não é suficiente
+     * @throws IOException Se ocorrer erro na comunicação com a API externa
+     * @throws RuntimeException Se o produto não existir ou estiver sem estoque
+     */
+    public int reservar(Long produtoId, int quantidade) throws IOException {
+        Integer reservada = repository.reservar(produtoId, quantidade, validade);
+
+        if (reservada == null) {
+            carregamentos.increment();
+            ProdutoDto produto = produtoService.buscarProdutoPorId(produtoId);
+            if (produto == null) {
+                throw new RuntimeException("Produto não encontrado: " + produtoId);
+            }
+            repository.sincronizar(Map.of(produtoId, produto.getEstoque()));
+            reservada = repository.reservar(produtoId, quantidade, validade);
+        }
+
+        if (reservada == null || reservada <= 0) {
+            semEstoque.increment();
+            throw new RuntimeException("Produto sem estoque disponível. Estoque atual: 0");
+        }
+
+        reservasLocais.increment();
+        return reservada;
+    }
+
+    /**
+     * Devolve ao estoque local uma reserva cuja venda não foi concluída.
+     * Falhas são apenas registradas no log; a próxima reconciliação corrige o estoque local.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade reservada
+     */
+    public void devolver(Long produtoId, int quantidade) {
+        try {
+            repository.devolver(produtoId, quantidade);
+            devolucoes.increment();
+        } catch (RuntimeException e) {
+            logger.error("Falha ao devolver reserva de estoque - Produto: {}, Quantidade: {}: {}",
+                    produtoId, quantidade, e.getMessage());
+        }
+    }
+
+    /**
+     * Confirma a reserva de uma venda gravada junto com sua baixa de estoque, descontando-a do
+     * estoque local. Deve ser chamado na mesma transação que grava a venda, para que a reserva
+     * continue valendo se a gravação for desfeita.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade reservada
+     */
+    public void confirmar(Long produtoId, int quantidade) {
+        repository.confirmar(produtoId, quantidade);
+    }
+
+    /**
+     * Reconcilia com a API externa, em lotes, as entradas do estoque local sincronizadas há mais
+     * tempo que a idade configurada, para que sejam atualizadas antes de expirar. Um lote só é
+     * seguido de outro quando todos os seus produtos foram atualizados ou removidos; com a API
+     * fora do ar as entradas continuam desatualizadas e ficam para o próximo ciclo.
+     */
+    @Scheduled(fixedDelayString = "${venda.reserva.reconciliacao.intervalo-ms:5000}")
+    public void reconciliar() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            int processados;
+            do {
+                processados = reconciliarLote();
+            } while (processados == tamanhoLote);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao reconciliar estoque local: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Consulta na API, em paralelo, o estoque de um lote de produtos desatualizados e grava todos
+     * num único batch. Produtos que não existem mais são removidos; os que falharam por erro de
+     * comunicação ficam para o próximo ciclo.
+     *
+     * @return int Quantidade de produtos sincronizados ou removidos no lote
+     */
+    int reconciliarLote() {
+        List<Long> produtoIds = repository.buscarDesatualizados(idadeReconciliacao, tamanhoLote);
+        if (produtoIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> estoques = new LinkedHashMap<>();
+        List<Long> inexistentes = new ArrayList<>();
+
+        for (int inicio = 0; inicio < produtoIds.size(); inicio += CONSULTAS_PARALELAS) {
+            Map<Long, CompletableFuture<ProdutoDto>> consultas = new LinkedHashMap<>();
+            for (Long produtoId : produtoIds.subList(inicio, Math.min(inicio + CONSULTAS_PARALELAS, produtoIds.size()))) {
+                consultas.put(produtoId, produtoService.buscarProdutoPorIdAsync(produtoId));
+            }
+
+            consultas.forEach((produtoId, consulta) -> {
+                try {
+                    ProdutoDto produto = consulta.join();
+                    if (produto == null) {
+                        inexistentes.add(produtoId);
+                    } else {
+                        estoques.put(produtoId, produto.getEstoque());
+                    }
+                } catch (CompletionException e) {
+                    logger.warn("Estoque do produto {} não reconciliado: {}", produtoId, e.getCause().getMessage());
+                }
+            });
+        }
+
+        repository.sincronizar(estoques);
+        repository.remover(inexistentes);
+        reconciliados.add(estoques.size());
+        return estoques.size() + inexistentes.size();
+    }
+
+    @Override
+    public String getNome() {
+        return "reservaEstoque";
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitado", habilitado);
+        metricas.put("reservasLocais", reservasLocais.sum());
+        metricas.put("carregamentosDaApi", carregamentos.sum());
+        metricas.put("semEstoque", semEstoque.sum());
+        metricas.put("devolucoes", devolucoes.sum());
+        metricas.put("reconciliados", reconciliados.sum());
+        return metricas;
+    }
+}
@@ -1,70 +1,107 @@
 package com.testevr.testejava.venda.internal.domain.service;
 
+import com.testevr.testejava.cliente.domain.repository.ClienteRepository;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueRequest;
 import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
 import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import com.testevr.testejava.venda.external.domain.service.BaixaEstoqueBatcher;
 import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.application.dto.ResultadoLoteItemDto;
 import com.testevr.testejava.venda.internal.application.dto.VendaConsolidadaDto;
 import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.exception.VendaConflitoException;
+import com.testevr.testejava.venda.internal.domain.exception.VendaNaoEncontradaException;
+import com.testevr.testejava.venda.internal.domain.repository.BaixaEstoqueOutboxRepository;
 import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
 import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 public class VendaService {
 
     private static final Logger logger = LoggerFactory.getLogger(VendaService.class);
+    private static final int CONSULTAS_PARALELAS = 8;
 
     private final VendaRepository repository;
+    private final ClienteRepository clienteRepository;
     private final ProdutoService produtoService;
-
-    public VendaService(VendaRepository repository, ProdutoService produtoService) {
+    private final BaixaEstoqueBatcher baixaEstoqueBatcher;
+    private final BaixaEstoqueOutboxRepository outboxRepository;
+    private final ReservaEstoqueService reservaEstoque;
+    private final BloqueioProdutoService bloqueioProduto;
+    private final EstornoEstoqueDispatcher estornoEstoque;
+    private final TransactionOperations transactionOperations;
+    private final boolean outboxHabilitado;
+
+    public VendaService(VendaRepository repository, ClienteRepository clienteRepository,
+                        ProdutoService produtoService, BaixaEstoqueBatcher baixaEstoqueBatcher,
+                        BaixaEstoqueOutboxRepository outboxRepository,
+                        ReservaEstoqueService reservaEstoque,
+                        BloqueioProdutoService bloqueioProduto,
+                        EstornoEstoqueDispatcher estornoEstoque,
+                        TransactionOperations transactionOperations,
+                        @Value("${venda.outbox.enabled:true}") boolean outboxHabilitado) {
         this.repository = repository;
+        this.clienteRepository = clienteRepository;
         this.produtoService = produtoService;
+        this.baixaEstoqueBatcher = baixaEstoqueBatcher;
+        this.outboxRepository = outboxRepository;
+        this.reservaEstoque = reservaEstoque;
+        this.bloqueioProduto = bloqueioProduto;
+        this.estornoEstoque = estornoEstoque;
+        this.transactionOperations = transactionOperations;
+        this.outboxHabilitado = outboxHabilitado;
     }
 
     /**
-     * Cria uma nova venda, realizando validações de produto e estoque.
-     * Este método é transacional e integra com a API externa para verificar
-     * disponibilidade e realizar baixa de estoque.
+     * Cria uma nova venda, realizando validações de cliente, produto e estoque.
+     * As chamadas à API externa acontecem antes e fora da transação, que fica restrita à
+     * gravação e não segura uma conexão do pool enquanto espera a API.
+     * Com o outbox habilitado, a baixa de estoque é gravada no outbox na mesma transação da
+     * venda e enviada depois pelo {@link BaixaEstoqueOutboxDispatcher}; sem ele, a baixa é
+     * feita antes da gravação e estornada se a gravação falhar.
+     * A busca do produto e a verificação do cliente são independentes e rodam em paralelo;
+     * se uma falhar, a outra é cancelada. Com o livro de reservas habilitado, a quantidade é
+     * reservada atomicamente no estoque local em vez de lida na API externa.
+     * Sem o livro de reservas, o estoque lido é reservado na instância pelo
+     * {@link BloqueioProdutoService} até a gravação, sem bloquear o produto durante as chamadas à API.
      *
      * @param venda Objeto Venda contendo os dados da venda a ser criada
      * @return Venda A venda criada com status apropriado
      * @throws Exception Se ocorrer erro na validação, comunicação com API externa ou persistência
      */
-    @Transactional
     public Venda create(Venda venda) throws Exception {
         try {
-            ProdutoDto produto = validarProdutoExiste(venda.getProdutoId());
-            validarEstoqueDisponivel(produto);
-
-            Integer quantidadeVendida = calcularQuantidadeVenda(venda.getQuantidade(), produto.getEstoque());
-            boolean vendaParcial = !quantidadeVendida.equals(venda.getQuantidade());
-
-            logger.info("Processando venda - Produto: {}, Solicitado: {}, Disponível: {}, Vendida: {}",
-                    venda.getProdutoId(), venda.getQuantidade(), produto.getEstoque(), quantidadeVendida);
-
-            realizarBaixaEstoque(venda.getProdutoId(), quantidadeVendida);
+            Venda vendaCriada = venderProduto(venda, this.repository::create);
 
-            StatusVenda statusFinal = vendaParcial ? StatusVenda.PENDENTE : StatusVenda.CONCLUIDA;
-
-            Venda vendaComDadosCorretos = new Venda(
-                    null,
-                    venda.getClienteId(),
-                    venda.getProdutoId(),
-                    venda.getValor(),
-                    quantidadeVendida,
-                    statusFinal
-            );
-
-            Venda vendaCriada = this.repository.create(vendaComDadosCorretos);
-
-            logResultadoVenda(venda, quantidadeVendida, vendaParcial, vendaCriada);
+            logResultadoVenda(venda, vendaCriada);
 
             return vendaCriada;
 
@@ -77,6 +114,496 @@ public class VendaService {
         }
     }
 
+    /**
+     * Grava a venda como {@link StatusVenda#RECEBIDA}, sem validações nem chamadas à API externa,
+     * para que seja processada depois por {@link #processarVendaRecebida(Long)}. A venda já sai
+     * reservada pelo prazo informado; se ela não for processada até lá, outra instância a recupera.
+     *
+     * @param venda Venda recebida
+     * @param lease Prazo para o worker processar a venda
+     * @return Venda A venda gravada, com ID
+     */
+    public Venda registrarParaProcessamento(Venda venda, Duration lease) {
+        return this.repository.registrarRecebida(venda, lease);
+    }
+
+    /**
+     * Processa uma venda gravada por {@link #registrarParaProcessamento(Venda, Duration)}, aplicando
+     * as mesmas validações e a mesma baixa de estoque de {@link #create(Venda)} e atualizando a venda
+     * com a quantidade efetivamente vendida e o status final. Qualquer falha marca a venda como
+     * {@link StatusVenda#ERRO}, já que não há mais um cliente aguardando a resposta. Uma venda que
+     * já saiu de {@link StatusVenda#RECEBIDA} não é processada de novo: o resultado só é gravado
+     * se a venda ainda estiver RECEBIDA no banco, e um worker que perdeu a venda para outra
+     * instância desfaz a sua baixa (o registro no outbox é revertido com a transação, a baixa
+     * direta é estornada) e devolve a venda como gravada pela outra instância.
+     *
+     * @param id Identificador único da venda
+     * @return Venda A venda processada, ou null se ela não existir mais
+     */
+    public Venda processarVendaRecebida(Long id) {
+        Venda venda = this.repository.findById(id);
+        if (venda == null) {
+            logger.warn("Venda {} não encontrada para processamento", id);
+            return null;
+        }
+        if (venda.getStatus() != StatusVenda.RECEBIDA) {
+            logger.warn("Venda {} já processada, status atual: {}", id, venda.getStatus());
+            return venda;
+        }
+
+        try {
+            Venda vendaProcessada = venderProduto(venda, this.repository::concluirRecebida);
+
+            logResultadoVenda(venda, vendaProcessada);
+
+            return vendaProcessada;
+        } catch (VendaConflitoException e) {
+            return vendaProcessadaPorOutraInstancia(id);
+        } catch (Exception e) {
+            logger.error("Falha no processamento da venda {}: {}", id, e.getMessage());
+            try {
+                return this.repository.concluirRecebida(venda.atualizarStatus(StatusVenda.ERRO));
+            } catch (VendaConflitoException conflito) {
+                return vendaProcessadaPorOutraInstancia(id);
+            }
+        }
+    }
+
+    private Venda vendaProcessadaPorOutraInstancia(Long id) {
+        Venda atual = this.repository.findById(id);
+        logger.warn("Venda {} já processada por outra instância, status atual: {}",
+                id, atual != null ? atual.getStatus() : null);
+        return atual;
+    }
+
+    /**
+     * Prepara e grava a venda. Com o livro de reservas, a quantidade é reservada no banco; sem ele,
+     * o estoque lido da API é reservado na instância pelo {@link BloqueioProdutoService} e a
+     * reserva é liberada depois da gravação, seja ela bem-sucedida ou não.
+     *
+     * @param venda Venda solicitada
+     * @param gravacao Operação de gravação da venda (inserção ou atualização)
+     * @return Venda A venda gravada
+     * @throws IOException Se ocorrer erro de comunicação com a API externa
+     */
+    private Venda venderProduto(Venda venda, UnaryOperator<Venda> gravacao) throws IOException {
+        if (reservaEstoque.isHabilitado()) {
+            return efetivarVenda(prepararComReserva(venda), gravacao);
+        }
+
+        BloqueioProdutoService.Leitura leitura = bloqueioProduto.iniciarLeitura(venda.getProdutoId());
+        Venda preparada;
+        try {
+            preparada = prepararVenda(venda, leitura);
+        } finally {
+            bloqueioProduto.encerrar(leitura);
+        }
+
+        boolean gravada = false;
+        try {
+            Venda vendaGravada = efetivarVenda(preparada, gravacao);
+            gravada = true;
+            return vendaGravada;
+        } finally {
+            bloqueioProduto.liberar(preparada.getProdutoId(), preparada.getQuantidade(), gravada);
+        }
+    }
+
+    /**
+     * Valida cliente, produto e estoque e reserva na instância a quantidade que pode ser vendida,
+     * devolvendo a venda com a quantidade e o status corretos. O ID da venda informada é preservado.
+     *
+     * @param venda Venda solicitada
+     * @param leitura Leitura de estoque aberta para o produto da venda
+     * @return Venda A venda com a quantidade vendida e o status final
+     * @throws IOException Se ocorrer erro de comunicação com a API externa
+     */
+    private Venda prepararVenda(Venda venda, BloqueioProdutoService.Leitura leitura) throws IOException {
+        ProdutoDto produto = validarClienteEProduto(venda.getClienteId(), venda.getProdutoId());
+        validarEstoqueDisponivel(produto);
+
+        Integer quantidadeVendida = bloqueioProduto.reservar(leitura, produto.getEstoque(), venda.getQuantidade());
+        if (quantidadeVendida <= 0) {
+            throw new RuntimeException("Produto sem estoque disponível. Estoque reservado por outras vendas em andamento");
+        }
+        boolean vendaParcial = !quantidadeVendida.equals(venda.getQuantidade());
+
+        logger.info("Processando venda - Produto: {}, Solicitado: {}, Disponível: {}, Vendida: {}",
+                venda.getProdutoId(), venda.getQuantidade(), produto.getEstoque(), quantidadeVendida);
+
+        StatusVenda statusFinal = vendaParcial ? StatusVenda.PENDENTE : StatusVenda.CONCLUIDA;
+
+        return new Venda(
+                venda.getIdValue(),
+                venda.getClienteId(),
+                venda.getProdutoId(),
+                venda.getValor(),
+                quantidadeVendida,
+                statusFinal
+        );
+    }
+
+    /**
+     * Prepara a venda reservando a quantidade no estoque local, sem consultar a API externa
+     * quando o estoque local do produto está válido. A reserva é devolvida por
+     * {@link #efetivarVenda(Venda, UnaryOperator)} se a venda não chegar a ser gravada.
+     *
+     * @param venda Venda solicitada
+     * @return Venda A venda com a quantidade reservada e o status final
+     * @throws IOException Se ocorrer erro de comunicação com a API externa ao carregar o estoque local
+     */
+    private Venda prepararComReserva(Venda venda) throws IOException {
+        validarClienteAtivo(venda.getClienteId());
+
+        Integer quantidadeVendida = reservaEstoque.reservar(venda.getProdutoId(), venda.getQuantidade());
+        boolean vendaParcial = !quantidadeVendida.equals(venda.getQuantidade());
+
+        logger.info("Processando venda com reserva local - Produto: {}, Solicitado: {}, Reservado: {}",
+                venda.getProdutoId(), venda.getQuantidade(), quantidadeVendida);
+
+        return new Venda(
+                venda.getIdValue(),
+                venda.getClienteId(),
+                venda.getProdutoId(),
+                venda.getValor(),
+                quantidadeVendida,
+                vendaParcial ? StatusVenda.PENDENTE : StatusVenda.CONCLUIDA
+        );
+    }
+
+    /**
+     * Grava a venda já preparada junto com sua baixa de estoque: no outbox, na mesma transação,
+     * ou diretamente na API externa antes da gravação, com estorno se a gravação falhar.
+     * A transação de gravação confirma a reserva no estoque local; a reserva é devolvida se a
+     * venda não for gravada.
+     *
+     * @param venda Venda com a quantidade vendida e o status final
+     * @param gravacao Operação de gravação da venda (inserção ou atualização)
+     * @return Venda A venda gravada
+     */
+    private Venda efetivarVenda(Venda venda, UnaryOperator<Venda> gravacao) {
+        UnaryOperator<Venda> gravacaoComReserva = v -> {
+            Venda gravada = gravacao.apply(v);
+            if (reservaEstoque.isHabilitado()) {
+                reservaEstoque.confirmar(v.getProdutoId(), v.getQuantidade());
+            }
+            return gravada;
+        };
+
+        try {
+            if (outboxHabilitado) {
+                return gravarComBaixaPendente(venda, gravacaoComReserva);
+            }
+            realizarBaixaEstoque(venda.getProdutoId(), venda.getQuantidade());
+            return gravarOuEstornarBaixa(venda, gravacaoComReserva);
+        } catch (RuntimeException e) {
+            if (reservaEstoque.isHabilitado()) {
+                reservaEstoque.devolver(venda.getProdutoId(), venda.getQuantidade());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cria várias vendas de uma só vez, reportando o resultado de cada item.
+     * Cada produto distinto é consultado uma única vez, em paralelo com os demais, e o estoque
+     * é distribuído entre as vendas na ordem em que chegaram. Todas as vendas válidas são inseridas
+     * em um único batch JDBC, dentro de uma única transação; com o outbox habilitado suas baixas
+     * de estoque são gravadas na mesma transação, e sem ele as baixas de todos os produtos são
+     * enfileiradas juntas para seguirem no mesmo lote antes da gravação. Se a gravação falhar,
+     * as baixas já realizadas (e só elas) são estornadas antes de a exceção ser propagada.
+     * Com a reserva local habilitada, o estoque de cada produto é reservado no
+     * {@link ReservaEstoqueService}, como em {@link #create(Venda)}, em vez de lido da API:
+     * a reserva das vendas gravadas é confirmada na transação de gravação e o restante é devolvido.
+     *
+     * @param vendas Vendas a serem criadas
+     * @return List<ResultadoLoteItemDto> Resultado de cada venda, na mesma ordem da entrada
+     */
+    public List<ResultadoLoteItemDto> criarEmLote(List<Venda> vendas) {
+        ResultadoLoteItemDto[] resultados = new ResultadoLoteItemDto[vendas.size()];
+
+        Set<Long> clientesAtivos = clienteRepository.findIdsAtivos(
+                vendas.stream().map(Venda::getClienteId).collect(Collectors.toSet()));
+        Map<Long, Integer> estoqueRestante = buscarEstoquesParaLote(vendas, clientesAtivos, resultados);
+        Map<Long, Integer> reservadas = reservaEstoque.isHabilitado() ? Map.copyOf(estoqueRestante) : Map.of();
+
+        Map<Long, Integer> baixaPorProduto = new LinkedHashMap<>();
+        Map<Integer, Venda> vendasAprovadas = new LinkedHashMap<>();
+
+        for (int i = 0; i < vendas.size(); i++) {
+            if (resultados[i] != null) {
+                continue;
+            }
+
+            Venda venda = vendas.get(i);
+            int disponivel = estoqueRestante.get(venda.getProdutoId());
+            if (disponivel <= 0) {
+                resultados[i] = ResultadoLoteItemDto.erro(i, "Produto sem estoque disponível: " + venda.getProdutoId());
+                continue;
+            }
+
+            int quantidadeVendida = calcularQuantidadeVenda(venda.getQuantidade(), disponivel);
+            StatusVenda status = quantidadeVendida < venda.getQuantidade() ? StatusVenda.PENDENTE : StatusVenda.CONCLUIDA;
+
+            estoqueRestante.put(venda.getProdutoId(), disponivel - quantidadeVendida);
+            baixaPorProduto.merge(venda.getProdutoId(), quantidadeVendida, Integer::sum);
+            vendasAprovadas.put(i, new Venda(null, venda.getClienteId(), venda.getProdutoId(),
+                    venda.getValor(), quantidadeVendida, status));
+        }
+
+        if (!outboxHabilitado) {
+            realizarBaixasDoLote(baixaPorProduto, vendasAprovadas, resultados);
+        }
+
+        Map<Long, Integer> confirmadas = somarPorProduto(vendasAprovadas.values());
+        if (!vendasAprovadas.isEmpty()) {
+            List<Integer> indices = new ArrayList<>(vendasAprovadas.keySet());
+            List<Venda> criadas;
+            try {
+                criadas = transactionOperations.execute(status -> {
+                    List<Venda> inseridas = this.repository.createEmLote(new ArrayList<>(vendasAprovadas.values()));
+                    if (outboxHabilitado) {
+                        outboxRepository.registrar(inseridas);
+                    }
+                    confirmarReservas(confirmadas);
+                    return inseridas;
+                });
+            } catch (RuntimeException e) {
+                devolverReservas(reservadas, Map.of());
+                if (outboxHabilitado) {
+                    throw e;
+                }
+                estornarBaixasDoLote(vendasAprovadas.values());
+                throw e;
+            }
+
+            for (int j = 0; j < indices.size(); j++) {
+                Venda criada = criadas.get(j);
+                resultados[indices.get(j)] = new ResultadoLoteItemDto(indices.get(j), true, criada.getIdValue(),
+                        criada.getStatus().name(), criada.getQuantidade(), null);
+            }
+        }
+
+        devolverReservas(reservadas, confirmadas);
+        logger.info("Lote de vendas processado - Total: {}, Criadas: {}", vendas.size(), vendasAprovadas.size());
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Enfileira as baixas de estoque de todos os produtos do lote para seguirem juntas
+     * e remove das vendas aprovadas as vendas dos produtos cuja baixa falhou.
+     *
+     * @param baixaPorProduto Quantidade total a baixar por produto
+     * @param vendasAprovadas Vendas aprovadas por índice no lote
+     * @param resultados Resultados do lote, preenchidos para as vendas cuja baixa falhou
+     */
+    private void realizarBaixasDoLote(Map<Long, Integer> baixaPorProduto, Map<Integer, Venda> vendasAprovadas,
+                                      ResultadoLoteItemDto[] resultados) {
+        List<BaixaEstoqueRequest> requests = new ArrayList<>();
+        baixaPorProduto.forEach((produtoId, quantidade) -> requests.add(new BaixaEstoqueRequest(produtoId, quantidade)));
+        List<CompletableFuture<BaixaEstoqueResponse>> envios = baixaEstoqueBatcher.enfileirarTodos(requests);
+
+        Map<Long, CompletableFuture<BaixaEstoqueResponse>> baixasEnfileiradas = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            baixasEnfileiradas.put(requests.get(i).getId(), envios.get(i));
+        }
+
+        for (Map.Entry<Long, CompletableFuture<BaixaEstoqueResponse>> baixa : baixasEnfileiradas.entrySet()) {
+            try {
+                aguardarBaixaEstoque(baixa.getValue());
+            } catch (RuntimeException e) {
+                vendasAprovadas.entrySet().removeIf(item -> {
+                    if (!item.getValue().getProdutoId().equals(baixa.getKey())) {
+                        return false;
+                    }
+                    resultados[item.getKey()] = ResultadoLoteItemDto.erro(item.getKey(), e.getMessage());
+                    return true;
+                });
+            }
+        }
+    }
+
+    /**
+     * Estorna as baixas de estoque de vendas que não chegaram a ser gravadas, agrupadas por produto.
+     * Quem chama só passa vendas cuja baixa de fato foi realizada: as vendas dos produtos cuja
+     * baixa falhou já foram descartadas antes.
+     *
+     * @param vendasAprovadas Vendas com baixa realizada que não chegaram a ser gravadas
+     */
+    private void estornarBaixasDoLote(Collection<Venda> vendasAprovadas) {
+        somarPorProduto(vendasAprovadas).forEach(this::estornarBaixaEstoque);
+    }
+
+    private static Map<Long, Integer> somarPorProduto(Collection<Venda> vendas) {
+        Map<Long, Integer> quantidadePorProduto = new LinkedHashMap<>();
+        vendas.forEach(venda -> quantidadePorProduto.merge(venda.getProdutoId(), venda.getQuantidade(), Integer::sum));
+        return quantidadePorProduto;
+    }
+
+    /**
+     * Obtém o estoque de cada produto para um fluxo em lote. Com a reserva local habilitada, a
+     * quantidade pedida de cada produto é reservada no {@link ReservaEstoqueService}, que já desconta
+     * as reservas em andamento e as baixas ainda no outbox; o estoque devolvido é o reservado, que
+     * precisa ser confirmado na gravação ou devolvido. Sem ela, o estoque é lido da API.
+     *
+     * @param quantidadePorProduto Quantidade total pedida por produto
+     * @param falhas Preenchido com o motivo de cada produto inexistente, sem estoque ou indisponível
+     * @return Map<Long, Integer> Estoque disponível (ou reservado) por produto
+     */
+    private Map<Long, Integer> obterEstoques(Map<Long, Integer> quantidadePorProduto, Map<Long, String> falhas) {
+        if (!reservaEstoque.isHabilitado()) {
+            return consultarEstoques(quantidadePorProduto.keySet(), falhas);
+        }
+
+        Map<Long, Integer> reservadas = new HashMap<>();
+        quantidadePorProduto.forEach((produtoId, quantidade) -> {
+            try {
+                reservadas.put(produtoId, reservaEstoque.reservar(produtoId, quantidade));
+            } catch (IOException e) {
+                falhas.put(produtoId, "Erro de comunicação ao verificar produto: " + e.getMessage());
+            } catch (RuntimeException e) {
+                falhas.put(produtoId, e.getMessage());
+            }
+        });
+        return reservadas;
+    }
+
+    /**
+     * Confirma, na transação de gravação, a reserva das vendas gravadas de cada produto.
+     */
+    private void confirmarReservas(Map<Long, Integer> confirmadas) {
+        if (reservaEstoque.isHabilitado()) {
+            confirmadas.forEach(reservaEstoque::confirmar);
+        }
+    }
+
+    /**
+     * Devolve a parte de cada reserva que não foi confirmada por uma venda gravada.
+     */
+    private void devolverReservas(Map<Long, Integer> reservadas, Map<Long, Integer> confirmadas) {
+        reservadas.forEach((produtoId, reservada) -> {
+            int sobra = reservada - confirmadas.getOrDefault(produtoId, 0);
+            if (sobra > 0) {
+                reservaEstoque.devolver(produtoId, sobra);
+            }
+        });
+    }
+
+    /**
+     * Obtém o estoque de cada produto distinto do lote uma única vez, marcando como
+     * erro as vendas de clientes inativos e de produtos inexistentes ou indisponíveis.
+     *
+     * @param vendas Vendas do lote
+     * @param clientesAtivos Identificadores de clientes ativos
+     * @param resultados Resultados do lote, preenchidos para os itens rejeitados
+     * @return Map<Long, Integer> Estoque disponível por produto
+     */
+    private Map<Long, Integer> buscarEstoquesParaLote(List<Venda> vendas, Set<Long> clientesAtivos,
+                                                      ResultadoLoteItemDto[] resultados) {
+        Map<Long, Integer> quantidadePorProduto = new LinkedHashMap<>();
+        for (int i = 0; i < vendas.size(); i++) {
+            Venda venda = vendas.get(i);
+            if (!clientesAtivos.contains(venda.getClienteId())) {
+                resultados[i] = ResultadoLoteItemDto.erro(i, "Cliente não encontrado ou inativo: " + venda.getClienteId());
+            } else {
+                quantidadePorProduto.merge(venda.getProdutoId(), venda.getQuantidade(), Integer::sum);
+            }
+        }
+
+        Map<Long, String> falhas = new HashMap<>();
+        Map<Long, Integer> estoques = obterEstoques(quantidadePorProduto, falhas);
+
+        for (int i = 0; i < vendas.size(); i++) {
+            Long produtoId = vendas.get(i).getProdutoId();
+            if (resultados[i] == null && falhas.containsKey(produtoId)) {
+                resultados[i] = ResultadoLoteItemDto.erro(i, falhas.get(produtoId));
+            }
+        }
+
+        return estoques;
+    }
+
+    /**
+     * Consulta o estoque de cada produto informado. As consultas são disparadas em paralelo,
+     * em grupos de até {@value #CONSULTAS_PARALELAS} produtos para não esgotar as vagas do
+     * bulkhead da API de produtos.
+     *
+     * @param produtoIds Identificadores dos produtos, sem repetição
+     * @param falhas Preenchido com o motivo de cada produto inexistente ou indisponível
+     * @return Map<Long, Integer> Estoque disponível dos produtos encontrados
+     */
+    private Map<Long, Integer> consultarEstoques(Collection<Long> produtoIds, Map<Long, String> falhas) {
+        Map<Long, Integer> estoques = new HashMap<>();
+        List<Long> pendentes = new ArrayList<>(produtoIds);
+
+        for (int inicio = 0; inicio < pendentes.size(); inicio += CONSULTAS_PARALELAS) {
+            Map<Long, CompletableFuture<ProdutoDto>> consultas = new LinkedHashMap<>();
+            for (Long produtoId : pendentes.subList(inicio, Math.min(inicio + CONSULTAS_PARALELAS, pendentes.size()))) {
+                consultas.put(produtoId, produtoService.buscarProdutoPorIdAsync(produtoId));
+            }
+
+            consultas.forEach((produtoId, consulta) -> {
+                try {
+                    ProdutoDto produto = consulta.join();
+                    if (produto == null) {
+                        falhas.put(produtoId, "Produto não encontrado: " + produtoId);
+                    } else {
+                        estoques.put(produtoId, produto.getEstoque());
+                    }
+                } catch (CompletionException e) {
+                    falhas.put(produtoId, "Erro de comunicação ao verificar produto: " + e.getCause().getMessage());
+                }
+            });
+        }
+
+        return estoques;
+    }
+
+    /**
+     * Valida se o cliente está ativo e se o produto existe, sobrepondo as duas verificações.
+     * Cada verificação roda numa virtual thread do mesmo escopo estruturado; a primeira que
+     * falhar cancela a outra, e a exceção lançada é a dela. Chamado fora de transação, a consulta
+     * do cliente usa a própria conexão do pool. A latência é a da verificação mais lenta e não
+     * a soma das duas.
+     *
+     * @param clienteId Identificador único do cliente
+     * @param produtoId Identificador único do produto
+     * @return ProdutoDto DTO contendo os dados do produto
+     * @throws IOException Se ocorrer erro na comunicação com a API externa
+     * @throws RuntimeException Se o cliente estiver inativo ou o produto não for encontrado
+     */
+    private ProdutoDto validarClienteEProduto(Long clienteId, Long produtoId) throws IOException {
+        try (var scope = StructuredTaskScope.open()) {
+            scope.fork(() -> validarClienteAtivo(clienteId));
+            Subtask<ProdutoDto> produto = scope.fork(() -> validarProdutoExiste(produtoId));
+            scope.join();
+            return produto.get();
+        } catch (StructuredTaskScope.FailedException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Validação da venda interrompida", e);
+        }
+    }
+
+    /**
+     * Valida se o cliente existe e está ativo.
+     *
+     * @param clienteId Identificador único do cliente
+     * @throws RuntimeException Se o cliente não existir ou estiver inativo
+     */
+    private void validarClienteAtivo(Long clienteId) {
+        if (!clienteRepository.findIdsAtivos(Set.of(clienteId)).contains(clienteId)) {
+            throw new RuntimeException("Cliente não encontrado ou inativo: " + clienteId);
+        }
+    }
+
     /**
      * Valida se o produto existe na API externa.
      *
@@ -119,38 +646,107 @@ public class VendaService {
     }
 
     /**
-     * Realiza a baixa de estoque na API externa.
+     * Realiza a baixa de estoque na API externa. A baixa passa pelo {@link BaixaEstoqueBatcher},
+     * que a agrupa com as baixas concorrentes numa única chamada em lote.
      *
      * @param produtoId Identificador único do produto
      * @param quantidade Quantidade a ser baixada do estoque
      * @throws RuntimeException Se ocorrer erro na baixa de estoque
      */
     private void realizarBaixaEstoque(Long produtoId, Integer quantidade) {
+        aguardarBaixaEstoque(baixaEstoqueBatcher.enfileirar(produtoId, quantidade));
+    }
+
+    /**
+     * Aguarda a conclusão de uma baixa de estoque enfileirada no {@link BaixaEstoqueBatcher}.
+     * Uma baixa recusada pela API ({@code sucesso = false}) não foi aplicada e é tratada como falha.
+     *
+     * @param baixa Resultado da baixa enfileirada
+     * @throws RuntimeException Se ocorrer erro na baixa de estoque ou a API recusar a baixa
+     */
+    private void aguardarBaixaEstoque(CompletableFuture<BaixaEstoqueResponse> baixa) {
+        BaixaEstoqueResponse baixaResponse;
         try {
-            BaixaEstoqueResponse baixaResponse = produtoService.realizarBaixaEstoque(produtoId, quantidade);
-            logger.info("Baixa de estoque realizada com sucesso: {}", baixaResponse.getMessage());
+            baixaResponse = baixaEstoqueBatcher.aguardar(baixa);
         } catch (Exception e) {
             logger.error("Falha na baixa de estoque: {}", e.getMessage());
             throw new RuntimeException("Erro ao realizar baixa de estoque: " + e.getMessage());
         }
+
+        if (Boolean.FALSE.equals(baixaResponse.getSucesso())) {
+            logger.warn("Baixa de estoque recusada pela API: {}", baixaResponse.getMessage());
+            throw new RuntimeException("Baixa de estoque recusada: " + baixaResponse.getMessage());
+        }
+        logger.info("Baixa de estoque realizada com sucesso: {}", baixaResponse.getMessage());
+    }
+
+    /**
+     * Grava a venda e sua baixa de estoque pendente no outbox numa única transação local.
+     *
+     * @param venda Venda a ser gravada
+     * @param gravacao Operação de gravação da venda (inserção ou atualização)
+     * @return Venda A venda gravada
+     */
+    private Venda gravarComBaixaPendente(Venda venda, UnaryOperator<Venda> gravacao) {
+        return transactionOperations.execute(status -> {
+            Venda criada = gravacao.apply(venda);
+            outboxRepository.registrar(List.of(criada));
+            return criada;
+        });
+    }
+
+    /**
+     * Grava a venda numa transação curta. Como a baixa de estoque já foi feita na API externa,
+     * uma falha na gravação dispara o estorno da baixa antes de a exceção ser propagada.
+     *
+     * @param venda Venda a ser gravada
+     * @param gravacao Operação de gravação da venda (inserção ou atualização)
+     * @return Venda A venda gravada
+     */
+    private Venda gravarOuEstornarBaixa(Venda venda, UnaryOperator<Venda> gravacao) {
+        try {
+            return transactionOperations.execute(status -> gravacao.apply(venda));
+        } catch (RuntimeException e) {
+            estornarBaixaEstoque(venda.getProdutoId(), venda.getQuantidade());
+            throw e;
+        }
+    }
+
+    /**
+     * Estorna uma baixa de estoque como compensação de uma venda que não foi gravada.
+     * Um estorno que não pôde ser enviado é guardado para reenvio em segundo plano, com a mesma
+     * chave de idempotência desta tentativa, sem esconder o erro original.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade a ser devolvida ao estoque
+     */
+    private void estornarBaixaEstoque(Long produtoId, Integer quantidade) {
+        String chaveIdempotencia = "estorno-estoque-" + UUID.randomUUID();
+        try {
+            BaixaEstoqueResponse response = produtoService.estornarBaixaEstoque(produtoId, quantidade, chaveIdempotencia);
+            logger.warn("Baixa de estoque estornada após falha na gravação da venda - Produto: {}, Quantidade: {}, Resposta: {}",
+                    produtoId, quantidade, response.getMessage());
+        } catch (Exception e) {
+            logger.error("Falha ao estornar baixa de estoque, estorno agendado para reenvio - Produto: {}, Quantidade: {}: {}",
+                    produtoId, quantidade, e.getMessage());
+            estornoEstoque.registrarFalha(produtoId, quantidade, chaveIdempotencia, e.getMessage());
+        }
     }
 
     /**
      * Registra o resultado da venda no log.
      *
      * @param vendaOriginal Venda original solicitada
-     * @param quantidadeVendida Quantidade efetivamente vendida
-     * @param vendaParcial Indica se foi uma venda parcial
      * @param vendaCriada Venda criada e persistida
      */
-    private void logResultadoVenda(Venda vendaOriginal, Integer quantidadeVendida, boolean vendaParcial, Venda vendaCriada) {
+    private void logResultadoVenda(Venda vendaOriginal, Venda vendaCriada) {
         logger.info("Venda criada com sucesso - ID: {}, Quantidade: {}, Status: {}",
                 vendaCriada.getIdValue(), vendaCriada.getQuantidade(), vendaCriada.getStatus());
 
-        if (vendaParcial) {
+        if (!vendaOriginal.getQuantidade().equals(vendaCriada.getQuantidade())) {
             logger.info("Venda parcial realizada - Solicitado: {}, Vendido: {}, Pendente: {}",
-                    vendaOriginal.getQuantidade(), quantidadeVendida,
-                    vendaOriginal.getQuantidade() - quantidadeVendida);
+                    vendaOriginal.getQuantidade(), vendaCriada.getQuantidade(),
+                    vendaOriginal.getQuantidade() - vendaCriada.getQuantidade());
         }
     }
 
@@ -183,6 +779,27 @@ public class VendaService {
         return this.repository.findAll();
     }
 
+    /**
+     * Retorna uma página de vendas, da mais recente para a mais antiga.
+     *
+     * @param aposCreatedAt Data de criação da última venda da página anterior ou null para a primeira página
+     * @param aposId ID da última venda da página anterior ou null para a primeira página
+     * @param limite Quantidade máxima de vendas a retornar
+     * @return List<Venda> Lista com as vendas da página
+     */
+    public List<Venda> findPagina(LocalDateTime aposCreatedAt, Long aposId, int limite) {
+        return this.repository.findPagina(aposCreatedAt, aposId, limite);
+    }
+
+    /**
+     * Percorre todas as vendas sem carregá-las em memória de uma só vez.
+     *
+     * @param consumidor Função chamada para cada venda lida
+     */
+    public void exportarTodas(Consumer<Venda> consumidor) {
+        this.repository.exportarTodas(consumidor);
+    }
+
     /**
      * Busca vendas pelo identificador do cliente.
      *
@@ -242,45 +859,45 @@ public class VendaService {
 
     /**
      * Remove uma venda do sistema.
-     * Se a venda estiver com status de sucesso, primeiro a cancela.
-     * Este método é transacional.
+     * Se a venda estiver com status de sucesso, o cancelamento é registrado na auditoria
+     * pelo mesmo comando que a remove.
      *
      * @param id Identificador único da venda a ser removida
      */
-    @Transactional
     public void delete(Long id) {
-        Venda venda = this.repository.findById(id);
-
-        if (venda != null && venda.getStatus() == StatusVenda.SUCESSO) {
-            cancelarVenda(id);
-        }
-
         this.repository.delete(id);
     }
 
     /**
-     * Adiciona um produto a uma venda existente.
-     * Este método é transacional e valida estoque disponível.
+     * Remove várias vendas num único comando, com as mesmas regras de {@link #delete(Long)}.
+     *
+     * @param ids Identificadores das vendas a serem removidas
+     * @return List<Long> IDs das vendas removidas; IDs inexistentes são ignorados
+     */
+    public List<Long> deleteEmLote(List<Long> ids) {
+        List<Long> removidas = this.repository.deleteEmLote(ids);
+        logger.info("{} de {} vendas removidas em lote", removidas.size(), ids.size());
+        return removidas;
+    }
+
+    /**
+     * Adiciona um produto a uma venda existente, validando o estoque disponível.
+     * O estoque lido é descontado das reservas das vendas em andamento na instância
+     * ({@link BloqueioProdutoService}) e a reserva é liberada logo após a gravação, que não baixa
+     * estoque. A venda não é lida antes: a gravação é um único UPDATE condicional que só se aplica
+     * a vendas não finalizadas.
      *
      * @param vendaId Identificador único da venda
      * @param produtoId Identificador único do produto a ser adicionado
      * @param quantidade Quantidade do produto a ser adicionada
      * @return Venda A venda atualizada
-     * @throws RuntimeException Se a venda não for encontrada, estiver finalizada/cancelada,
-     *                          produto não existir ou estoque for insuficiente
+     * @throws VendaNaoEncontradaException Se a venda não for encontrada
+     * @throws VendaConflitoException Se a venda estiver finalizada ou cancelada
+     * @throws RuntimeException Se o produto não existir ou o estoque for insuficiente
      */
-    @Transactional
     public Venda adicionarProdutoVenda(Long vendaId, Long produtoId, Integer quantidade) {
-        Venda venda = this.repository.findById(vendaId);
-
-        if (venda == null) {
-            throw new RuntimeException("Venda não encontrada");
-        }
-
-        if (venda.getStatus() == StatusVenda.SUCESSO || venda.getStatus() == StatusVenda.CANCELADA) {
-            throw new RuntimeException("Não é possível editar uma venda finalizada ou cancelada");
-        }
-
+        BloqueioProdutoService.Leitura leitura = bloqueioProduto.iniciarLeitura(produtoId);
+        int reservada = 0;
         try {
             ProdutoDto produto = produtoService.buscarProdutoPorId(produtoId);
 
@@ -288,38 +905,38 @@ public class VendaService {
                 throw new RuntimeException("Produto não encontrado: " + produtoId);
             }
 
-            if (produto.getEstoque() < quantidade) {
+            reservada = bloqueioProduto.reservar(leitura, produto.getEstoque(), quantidade);
+            if (reservada < quantidade) {
                 throw new RuntimeException("Estoque insuficiente para o produto ID: " + produtoId +
-                        ". Disponível: " + produto.getEstoque() + ", Solicitado: " + quantidade);
+                        ". Disponível: " + reservada + ", Solicitado: " + quantidade);
             }
 
-            Venda vendaAtualizada;
-            if (venda.getProdutoId().equals(produtoId)) {
-                int novaQuantidade = venda.getQuantidade() + quantidade;
-                vendaAtualizada = new Venda(venda.getIdValue(), venda.getClienteId(),
-                        produtoId, venda.getValor(), novaQuantidade, venda.getStatus());
-            } else {
-                vendaAtualizada = new Venda(venda.getIdValue(), venda.getClienteId(),
-                        produtoId, venda.getValor(), quantidade, venda.getStatus());
-            }
-
-            return this.repository.update(vendaAtualizada);
+            return this.repository.adicionarProduto(vendaId, produtoId, quantidade);
 
         } catch (IOException e) {
             throw new RuntimeException("Erro ao verificar estoque: " + e.getMessage(), e);
+        } finally {
+            bloqueioProduto.encerrar(leitura);
+            bloqueioProduto.liberar(produtoId, reservada, false);
         }
     }
 
     /**
-     * Edita os dados de uma venda existente.
-     * Este método é transacional e valida estoque disponível.
+     * Edita os dados de uma venda existente, validando o estoque disponível.
+     * A existência, o status e a versão da venda são verificados antes da consulta à API de
+     * produtos, para que uma edição que não pode ser aplicada não gaste uma chamada externa.
+     * A gravação continua sendo um único UPDATE condicional: só se aplica a vendas não finalizadas
+     * e, se a venda trouxer uma versão, apenas se ela não tiver sido alterada desde então.
      *
-     * @param vendaAtualizada Objeto Venda com os dados atualizados
-     * @return Venda A venda atualizada
+     * @param vendaAtualizada Objeto Venda com os dados atualizados e, opcionalmente, a versão esperada
+     * @return Venda A venda atualizada, com a nova versão
+     * @throws VendaNaoEncontradaException Se a venda não for encontrada
+     * @throws VendaConflitoException Se a venda estiver finalizada, cancelada ou em outra versão
      * @throws RuntimeException Se o produto não existir ou estoque for insuficiente
      */
-    @Transactional
     public Venda editarVenda(Venda vendaAtualizada) {
+        validarVendaEditavel(vendaAtualizada);
+
         try {
             ProdutoDto produto = produtoService.buscarProdutoPorId(vendaAtualizada.getProdutoId());
 
@@ -332,7 +949,7 @@ public class VendaService {
                         ". Disponível: " + produto.getEstoque() + ", Solicitado: " + vendaAtualizada.getQuantidade());
             }
 
-            return this.repository.update(vendaAtualizada);
+            return this.repository.atualizarSeEditavel(vendaAtualizada);
 
         } catch (IOException e) {
             throw new RuntimeException("Erro ao verificar estoque: " + e.getMessage(), e);
@@ -340,15 +957,41 @@ public class VendaService {
     }
 
     /**
-     * Finaliza uma venda parcial (pendente).
-     * Este método é transacional e tenta completar a venda com o estoque disponível.
+     * Verifica, com a leitura local da venda, se a edição pode ser aplicada. A verificação
+     * definitiva continua sendo feita pelo UPDATE condicional.
+     *
+     * @param vendaAtualizada Venda com os dados atualizados e, opcionalmente, a versão esperada
+     * @throws VendaNaoEncontradaException Se a venda não for encontrada
+     * @throws VendaConflitoException Se a venda estiver finalizada, cancelada ou em outra versão
+     */
+    private void validarVendaEditavel(Venda vendaAtualizada) {
+        Venda atual = this.repository.findById(vendaAtualizada.getIdValue());
+
+        if (atual == null) {
+            throw new VendaNaoEncontradaException(vendaAtualizada.getIdValue());
+        }
+
+        if (atual.getStatus() == StatusVenda.SUCESSO || atual.getStatus() == StatusVenda.CANCELADA) {
+            throw new VendaConflitoException("Não é possível editar uma venda finalizada ou cancelada");
+        }
+
+        if (vendaAtualizada.getVersao() != null && !vendaAtualizada.getVersao().equals(atual.getVersao())) {
+            throw new VendaConflitoException("Venda alterada por outra requisição. Versão atual: " + atual.getVersao());
+        }
+    }
+
+    /**
+     * Finaliza uma venda parcial (pendente), tentando completá-la com o estoque disponível.
+     * Segue o mesmo caminho de {@link #finalizarPendentesEmLote(List)}, com um lote de uma única
+     * venda: a baixa sai pelo {@link BaixaEstoqueBatcher}, a gravação só altera a venda se ela
+     * ainda estiver pendente e na versão lida, e a baixa é estornada se a gravação não acontecer.
      *
      * @param vendaId Identificador único da venda pendente
      * @return Venda A venda finalizada (completa ou parcial)
      * @throws RuntimeException Se a venda não for encontrada, não estiver pendente,
      *                          produto não existir ou não houver estoque disponível
+     * @throws VendaConflitoException Se a venda for alterada ou cancelada durante a finalização
      */
-    @Transactional
     public Venda finalizarVendaParcial(Long vendaId) {
         Venda venda = this.repository.findById(vendaId);
 
@@ -360,83 +1003,137 @@ public class VendaService {
             throw new RuntimeException("Apenas vendas pendentes podem ser finalizadas");
         }
 
-        try {
-            ProdutoDto produto = produtoService.buscarProdutoPorId(venda.getProdutoId());
-
-            if (produto == null) {
-                throw new RuntimeException("Produto não encontrado: " + venda.getProdutoId());
-            }
-
-            if (produto.getEstoque() >= venda.getQuantidade()) {
-                return finalizarVendaCompleta(venda);
-            }
-
-            if (produto.getEstoque() <= 0) {
-                throw new RuntimeException("Sem estoque disponível para finalização parcial");
-            }
-
-            return finalizarVendaParcialComEstoqueDisponivel(venda, produto);
+        Map<Long, String> falhas = new HashMap<>();
+        List<Venda> finalizadas = finalizarPendentes(List.of(venda), falhas);
+        if (!finalizadas.isEmpty()) {
+            return finalizadas.getFirst();
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Erro de comunicação com API externa: " + e.getMessage(), e);
+        String motivo = falhas.get(venda.getProdutoId());
+        if (motivo == null) {
+            throw new VendaConflitoException("Venda alterada ou cancelada durante a finalização");
         }
+        throw new RuntimeException("Erro ao finalizar venda: " + motivo);
     }
 
     /**
-     * Finaliza uma venda completa (quantidade total disponível).
+     * Finaliza de uma só vez um conjunto de vendas pendentes, com as mesmas regras de
+     * {@link #finalizarVendaParcial(Long)}. As vendas são agrupadas por produto e o estoque de
+     * cada produto é consultado uma única vez e distribuído entre as vendas por ordem de criação;
+     * vendas que ficaram sem estoque continuam pendentes. As baixas de todos os produtos são
+     * enfileiradas juntas no {@link BaixaEstoqueBatcher}, seguindo numa única chamada em lote,
+     * e as vendas finalizadas são gravadas num único UPDATE, que só altera vendas ainda pendentes
+     * e na mesma versão lida. Se a gravação falhar, as baixas realizadas são estornadas; vendas
+     * que o UPDATE não alterou (editadas, canceladas ou finalizadas por outro caminho nesse meio
+     * tempo) têm a baixa estornada e continuam como estavam. Com a reserva local habilitada, o
+     * estoque é reservado no {@link ReservaEstoqueService} em vez de lido da API, como em
+     * {@link #criarEmLote(List)}.
      *
-     * @param venda Venda a ser finalizada
-     * @return Venda A venda finalizada com status de sucesso
-     * @throws RuntimeException Se a baixa de estoque falhar
+     * @param pendentes Vendas pendentes a finalizar
+     * @return List<Venda> Vendas finalizadas; as demais continuam pendentes
      */
-    private Venda finalizarVendaCompleta(Venda venda) {
-        try {
-            BaixaEstoqueResponse response = produtoService.realizarBaixaEstoque(
-                    venda.getProdutoId(), venda.getQuantidade());
-
-            if (response.getMessage() != null && response.getMessage().contains("sucesso")) {
-                Venda vendaFinalizada = venda.atualizarStatus(StatusVenda.SUCESSO);
-                return this.repository.update(vendaFinalizada);
-            }
-
-            throw new RuntimeException("Falha na baixa do estoque");
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao finalizar venda: " + e.getMessage());
-        }
+    public List<Venda> finalizarPendentesEmLote(List<Venda> pendentes) {
+        Map<Long, String> falhas = new HashMap<>();
+        List<Venda> finalizadas = finalizarPendentes(pendentes, falhas);
+        falhas.forEach((produtoId, motivo) ->
+                logger.warn("Vendas pendentes do produto {} não finalizadas: {}", produtoId, motivo));
+        return finalizadas;
     }
 
     /**
-     * Finaliza uma venda parcial com o estoque disponível.
+     * Implementação de {@link #finalizarPendentesEmLote(List)}, registrando o motivo de cada
+     * produto cujas vendas não puderam ser finalizadas.
      *
-     * @param venda Venda original pendente
-     * @param produto Dados do produto com estoque disponível
-     * @return Venda A venda parcial finalizada com status de sucesso
-     * @throws RuntimeException Se a baixa de estoque falhar
+     * @param pendentes Vendas pendentes a finalizar
+     * @param falhas Preenchido com o motivo de cada produto sem estoque, indisponível ou com baixa recusada
+     * @return List<Venda> Vendas finalizadas; as demais continuam pendentes
      */
-    private Venda finalizarVendaParcialComEstoqueDisponivel(Venda venda, ProdutoDto produto) {
-        try {
-            BaixaEstoqueResponse response = produtoService.realizarBaixaEstoque(
-                    venda.getProdutoId(), produto.getEstoque());
-
-            if (response.getMessage() == null || !response.getMessage().contains("sucesso")) {
-                throw new RuntimeException("Falha na baixa parcial do estoque");
+    private List<Venda> finalizarPendentes(List<Venda> pendentes, Map<Long, String> falhas) {
+        Map<Long, List<Venda>> vendasPorProduto = pendentes.stream()
+                .filter(venda -> venda.getStatus() == StatusVenda.PENDENTE)
+                .sorted(Comparator.comparing(Venda::getCreatedAt).thenComparing(Venda::getIdValue))
+                .collect(Collectors.groupingBy(Venda::getProdutoId, LinkedHashMap::new, Collectors.toList()));
+
+        Map<Long, Integer> quantidadePorProduto = new LinkedHashMap<>();
+        vendasPorProduto.forEach((produtoId, vendas) ->
+                quantidadePorProduto.put(produtoId, vendas.stream().mapToInt(Venda::getQuantidade).sum()));
+        Map<Long, Integer> estoques = obterEstoques(quantidadePorProduto, falhas);
+        Map<Long, Integer> reservadas = reservaEstoque.isHabilitado() ? Map.copyOf(estoques) : Map.of();
+
+        Map<Long, Integer> baixaPorProduto = new LinkedHashMap<>();
+        Map<Long, List<Venda>> finalizadasPorProduto = new LinkedHashMap<>();
+
+        estoques.forEach((produtoId, estoque) -> {
+            if (estoque <= 0) {
+                falhas.put(produtoId, "Sem estoque disponível para finalização parcial");
+                return;
+            }
+            int restante = estoque;
+            for (Venda venda : vendasPorProduto.get(produtoId)) {
+                if (restante <= 0) {
+                    break;
+                }
+                int quantidade = calcularQuantidadeVenda(venda.getQuantidade(), restante);
+                restante -= quantidade;
+                baixaPorProduto.merge(produtoId, quantidade, Integer::sum);
+                finalizadasPorProduto.computeIfAbsent(produtoId, id -> new ArrayList<>()).add(new Venda(
+                        venda.getIdValue(), venda.getClienteId(), venda.getProdutoId(), venda.getValor(),
+                        quantidade, StatusVenda.SUCESSO, venda.getCreatedAt(), venda.getUpdatedAt(), venda.getVersao()));
+            }
+        });
+
+        List<BaixaEstoqueRequest> requests = new ArrayList<>();
+        baixaPorProduto.forEach((produtoId, quantidade) -> requests.add(new BaixaEstoqueRequest(produtoId, quantidade)));
+        List<CompletableFuture<BaixaEstoqueResponse>> envios = baixaEstoqueBatcher.enfileirarTodos(requests);
+
+        List<Venda> finalizadas = new ArrayList<>();
+        Map<Long, Integer> baixasRealizadas = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Long produtoId = requests.get(i).getId();
+            try {
+                aguardarBaixaEstoque(envios.get(i));
+                finalizadas.addAll(finalizadasPorProduto.get(produtoId));
+                baixasRealizadas.put(produtoId, baixaPorProduto.get(produtoId));
+            } catch (RuntimeException e) {
+                falhas.put(produtoId, e.getMessage());
             }
+        }
 
-            Venda vendaParcial = new Venda(
-                    venda.getIdValue(),
-                    venda.getClienteId(),
-                    venda.getProdutoId(),
-                    venda.getValor(),
-                    produto.getEstoque(),
-                    StatusVenda.SUCESSO,
-                    venda.getCreatedAt(),
-                    venda.getUpdatedAt()
-            );
-
-            return this.repository.update(vendaParcial);
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao realizar baixa parcial: " + e.getMessage());
+        if (finalizadas.isEmpty()) {
+            devolverReservas(reservadas, Map.of());
+            return finalizadas;
+        }
+
+        Set<Long> gravadas = new HashSet<>();
+        Map<Long, Integer> confirmadas = new LinkedHashMap<>();
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                gravadas.addAll(this.repository.atualizarEmLote(finalizadas));
+                confirmadas.putAll(somarPorProduto(finalizadas.stream()
+                        .filter(venda -> gravadas.contains(venda.getIdValue()))
+                        .toList()));
+                confirmarReservas(confirmadas);
+            });
+        } catch (RuntimeException e) {
+            devolverReservas(reservadas, Map.of());
+            baixasRealizadas.forEach(this::estornarBaixaEstoque);
+            throw e;
         }
+        devolverReservas(reservadas, confirmadas);
+
+        List<Venda> naoGravadas = finalizadas.stream()
+                .filter(venda -> !gravadas.contains(venda.getIdValue()))
+                .toList();
+        if (!naoGravadas.isEmpty()) {
+            logger.warn("{} vendas pendentes alteradas ou canceladas durante a finalização, baixas estornadas: {}",
+                    naoGravadas.size(), naoGravadas.stream().map(Venda::getIdValue).toList());
+            estornarBaixasDoLote(naoGravadas);
+            finalizadas.removeAll(naoGravadas);
+        }
+
+        logger.info("Vendas pendentes finalizadas em lote - Recebidas: {}, Finalizadas: {}, Produtos: {}",
+                pendentes.size(), finalizadas.size(), baixasRealizadas.size());
+        return finalizadas;
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.testevr.testejava.venda.internal.domain.valueobject;
 
 public enum StatusVenda {
+    RECEBIDA("Recebida"),
     PENDENTE("Pendente"),
     CONCLUIDA("Concluída"),
     SUCESSO("Sucesso"),
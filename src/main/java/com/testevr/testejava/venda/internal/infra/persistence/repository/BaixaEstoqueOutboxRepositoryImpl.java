@@ -0,0 +1,161 @@
+package com.testevr.testejava.venda.internal.infra.persistence.repository;
+
+import com.testevr.testejava.venda.internal.domain.entity.BaixaEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.BaixaEstoqueOutboxRepository;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox of stock write-downs using pure JDBC
+ * Entries are written in the same transaction as the vendas that originate them,
+ * so a venda is never committed without its pending write-down and vice versa;
+ * the dispatcher claims them with a lease so no transaction spans the HTTP call
+ */
+@Repository
+public class BaixaEstoqueOutboxRepositoryImpl implements BaixaEstoqueOutboxRepository {
+
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private final DataSource dataSource;
+
+    public BaixaEstoqueOutboxRepositoryImpl(DataSource dataSource) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+    }
+
+    /**
+     * Registra a baixa de estoque pendente de cada venda informada, num único batch JDBC.
+     * Deve ser chamado na mesma transação em que as vendas foram inseridas.
+     *
+     * @param vendas Vendas já inseridas, com ID
+     */
+    @Override
+    public void registrar(List<Venda> vendas) {
+        if (vendas.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO outbox_baixa_estoque (venda_id, produto_id, quantidade) VALUES (?, ?, ?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Venda venda : vendas) {
+                stmt.setLong(1, venda.getIdValue());
+                stmt.setLong(2, venda.getProdutoId());
+                stmt.setInt(3, venda.getQuantidade());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao registrar baixa de estoque no outbox: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+    }
+
+    /**
+     * Reserva as baixas pendentes cujo próximo envio já venceu, das mais antigas para as mais
+     * novas, gravando um lease em processando_ate. O comando é curto e deve ser confirmado antes
+     * do envio à API: enquanto o lease não vence, nenhuma outra instância reserva as mesmas baixas,
+     * e se a instância cair antes de registrar o resultado elas voltam a ser reservadas depois dele.
+     *
+     * @param limite Quantidade máxima de baixas a reservar
+     * @param lease Tempo pelo qual as baixas ficam reservadas
+     * @return List<BaixaEstoquePendente> Baixas pendentes reservadas para envio
+     */
+    @Override
+    public List<BaixaEstoquePendente> reservarPendentes(int limite, Duration lease) {
+        String sql = "UPDATE outbox_baixa_estoque SET processando_ate = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE id IN (" +
+                     "SELECT id FROM outbox_baixa_estoque WHERE proxima_tentativa_em <= CURRENT_TIMESTAMP " +
+                     "AND (processando_ate IS NULL OR processando_ate < CURRENT_TIMESTAMP) " +
+                     "ORDER BY proxima_tentativa_em, id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                     "RETURNING id, venda_id, produto_id, quantidade, tentativas";
+        List<BaixaEstoquePendente> pendentes = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, lease.toMillis());
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pendentes.add(new BaixaEstoquePendente(
+                            rs.getLong("id"),
+                            rs.getLong("venda_id"),
+                            rs.getLong("produto_id"),
+                            rs.getInt("quantidade"),
+                            rs.getInt("tentativas")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar baixas de estoque pendentes", e);
+        }
+
+        return pendentes;
+    }
+
+    @Override
+    public void remover(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        String sql = "DELETE FROM outbox_baixa_estoque WHERE id = ANY(?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao remover baixas de estoque do outbox", e);
+        }
+    }
+
+    /**
+     * Agenda um novo envio de uma baixa que falhou, registrando o erro, incrementando as tentativas
+     * e liberando o lease.
+     *
+     * @param id Identificador da entrada no outbox
+     * @param espera Tempo até o próximo envio
+     * @param erro Mensagem do erro que causou a falha
+     */
+    @Override
+    public void reagendar(Long id, Duration espera, String erro) {
+        String sql = "UPDATE outbox_baixa_estoque SET tentativas = tentativas + 1, ultimo_erro = ?, processando_ate = NULL, " +
+                     "proxima_tentativa_em = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, erro != null && erro.length() > TAMANHO_MAXIMO_ERRO ? erro.substring(0, TAMANHO_MAXIMO_ERRO) : erro);
+            stmt.setLong(2, espera.toMillis());
+            stmt.setLong(3, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reagendar baixa de estoque do outbox", e);
+        }
+    }
+
+    @Override
+    public long contarPendentes() {
+        String sql = "SELECT COUNT(*) FROM outbox_baixa_estoque";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao contar baixas de estoque pendentes", e);
+        }
+    }
+}
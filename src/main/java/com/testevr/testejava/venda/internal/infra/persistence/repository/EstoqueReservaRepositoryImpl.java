@@ -0,0 +1,186 @@
+package com.testevr.testejava.venda.internal.infra.persistence.repository;
+
+import com.testevr.testejava.venda.internal.domain.repository.EstoqueReservaRepository;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stock ledger using pure JDBC
+ * Reservations are a single conditional UPDATE on the produto row, so concurrent
+ * sales of the same produto are serialized by the row lock and can never both
+ * take the last unit. In-flight reservations live in their own column and are only
+ * moved out of it when the sale is confirmed or returned, so synchronizations never
+ * overwrite them
+ */
+@Repository
+public class EstoqueReservaRepositoryImpl implements EstoqueReservaRepository {
+
+    private final DataSource dataSource;
+
+    public EstoqueReservaRepositoryImpl(DataSource dataSource) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+    }
+
+    /**
+     * Reserva até a quantidade informada do estoque local do produto, num único comando:
+     * a linha é bloqueada, a quantidade reservada é o mínimo entre o pedido e o livre
+     * (disponível menos o já reservado), e o reservado é incrementado por ela.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade desejada
+     * @param validade Idade máxima da última sincronização para que a entrada seja usada
+     * @return Integer Quantidade reservada (0 se não houver estoque), ou null se o produto
+     *         não tiver entrada sincronizada dentro da validade
+     */
+    @Override
+    public Integer reservar(Long produtoId, int quantidade, Duration validade) {
+        String sql = "WITH atual AS (" +
+                     "SELECT produto_id, GREATEST(disponivel - reservado, 0) AS livre FROM estoque_reserva " +
+                     "WHERE produto_id = ? AND sincronizado_em >= CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' " +
+                     "FOR UPDATE) " +
+                     "UPDATE estoque_reserva e SET reservado = e.reservado + LEAST(a.livre, ?) " +
+                     "FROM atual a WHERE e.produto_id = a.produto_id " +
+                     "RETURNING LEAST(a.livre, ?) AS reservada";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, produtoId);
+            stmt.setLong(2, validade.toMillis());
+            stmt.setInt(3, quantidade);
+            stmt.setInt(4, quantidade);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("reservada") : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar estoque do produto " + produtoId, e);
+        }
+    }
+
+    @Override
+    public void devolver(Long produtoId, int quantidade) {
+        String sql = "UPDATE estoque_reserva SET reservado = GREATEST(reservado - ?, 0) WHERE produto_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, quantidade);
+            stmt.setLong(2, produtoId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao devolver estoque reservado do produto " + produtoId, e);
+        }
+    }
+
+    /**
+     * Converte uma reserva em baixa: a quantidade sai do reservado e do disponível ao mesmo tempo,
+     * já que a baixa foi registrada (no outbox ou na API) e a próxima sincronização já a enxerga.
+     *
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade reservada pela venda gravada
+     */
+    @Override
+    public void confirmar(Long produtoId, int quantidade) {
+        String sql = "UPDATE estoque_reserva SET reservado = GREATEST(reservado - ?, 0), " +
+                     "disponivel = GREATEST(disponivel - ?, 0) WHERE produto_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, quantidade);
+            stmt.setInt(2, quantidade);
+            stmt.setLong(3, produtoId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao confirmar estoque reservado do produto " + produtoId, e);
+        }
+    }
+
+    /**
+     * Grava o estoque informado pela API externa para cada produto, num único batch JDBC.
+     * Baixas ainda aguardando no outbox já foram confirmadas mas não chegaram à API, e por isso
+     * são descontadas do estoque informado. Só o disponível é regravado: as reservas em andamento
+     * ficam intactas na coluna reservado.
+     *
+     * @param estoquePorProduto Estoque atual na API externa, por produto
+     */
+    @Override
+    public void sincronizar(Map<Long, Integer> estoquePorProduto) {
+        if (estoquePorProduto.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO estoque_reserva (produto_id, disponivel, sincronizado_em) " +
+                     "VALUES (?, GREATEST(? - (SELECT COALESCE(SUM(o.quantidade), 0) FROM outbox_baixa_estoque o " +
+                     "WHERE o.produto_id = ?), 0), CURRENT_TIMESTAMP) " +
+                     "ON CONFLICT (produto_id) DO UPDATE SET disponivel = EXCLUDED.disponivel, " +
+                     "sincronizado_em = EXCLUDED.sincronizado_em";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<Long, Integer> estoque : estoquePorProduto.entrySet()) {
+                stmt.setLong(1, estoque.getKey());
+                stmt.setInt(2, estoque.getValue());
+                stmt.setLong(3, estoque.getKey());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao sincronizar estoque local: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+    }
+
+    @Override
+    public List<Long> buscarDesatualizados(Duration idade, int limite) {
+        String sql = "SELECT produto_id FROM estoque_reserva " +
+                     "WHERE sincronizado_em < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' " +
+                     "ORDER BY sincronizado_em LIMIT ?";
+        List<Long> produtoIds = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, idade.toMillis());
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    produtoIds.add(rs.getLong("produto_id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar estoques locais desatualizados", e);
+        }
+
+        return produtoIds;
+    }
+
+    @Override
+    public void remover(Collection<Long> produtoIds) {
+        if (produtoIds.isEmpty()) {
+            return;
+        }
+
+        String sql = "DELETE FROM estoque_reserva WHERE produto_id = ANY(?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", produtoIds.toArray()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao remover estoques locais", e);
+        }
+    }
+}
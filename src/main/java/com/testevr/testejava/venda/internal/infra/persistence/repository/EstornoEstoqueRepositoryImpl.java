@@ -0,0 +1,144 @@
+package com.testevr.testejava.venda.internal.infra.persistence.repository;
+
+import com.testevr.testejava.venda.internal.domain.entity.EstornoEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.repository.EstornoEstoqueRepository;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock reversals waiting to be resent to the product API, using pure JDBC
+ * Entries are claimed with a lease in a single statement, so the HTTP call that
+ * follows never runs while a transaction or row lock is held
+ */
+@Repository
+public class EstornoEstoqueRepositoryImpl implements EstornoEstoqueRepository {
+
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private final DataSource dataSource;
+
+    public EstornoEstoqueRepositoryImpl(DataSource dataSource) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+    }
+
+    @Override
+    public void registrar(Long produtoId, Integer quantidade, String chaveIdempotencia, String erro) {
+        String sql = "INSERT INTO estorno_estoque_pendente (produto_id, quantidade, chave_idempotencia, ultimo_erro) " +
+                     "VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, produtoId);
+            stmt.setInt(2, quantidade);
+            stmt.setString(3, chaveIdempotencia);
+            stmt.setString(4, truncar(erro));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao registrar estorno de estoque pendente: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+    }
+
+    /**
+     * Reserva os estornos cujo próximo envio já venceu, adiando-o pelo tempo do lease.
+     * Enquanto o lease não vence nenhuma outra instância reserva os mesmos estornos, e se
+     * a instância cair antes de registrar o resultado eles voltam a ser reservados depois dele.
+     *
+     * @param limite Quantidade máxima de estornos a reservar
+     * @param lease Tempo pelo qual os estornos ficam reservados
+     * @return List<EstornoEstoquePendente> Estornos reservados para envio
+     */
+    @Override
+    public List<EstornoEstoquePendente> reservarPendentes(int limite, Duration lease) {
+        String sql = "UPDATE estorno_estoque_pendente SET proxima_tentativa_em = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE id IN (" +
+                     "SELECT id FROM estorno_estoque_pendente WHERE proxima_tentativa_em <= CURRENT_TIMESTAMP " +
+                     "ORDER BY proxima_tentativa_em, id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                     "RETURNING id, produto_id, quantidade, tentativas, chave_idempotencia";
+        List<EstornoEstoquePendente> pendentes = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, lease.toMillis());
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    pendentes.add(new EstornoEstoquePendente(
+                            rs.getLong("id"),
+                            rs.getLong("produto_id"),
+                            rs.getInt("quantidade"),
+                            rs.getInt("tentativas"),
+                            rs.getString("chave_idempotencia")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar estornos de estoque pendentes", e);
+        }
+
+        return pendentes;
+    }
+
+    @Override
+    public void remover(Long id) {
+        String sql = "DELETE FROM estorno_estoque_pendente WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao remover estorno de estoque pendente", e);
+        }
+    }
+
+    /**
+     * Agenda um novo envio de um estorno que falhou, registrando o erro e incrementando as tentativas.
+     *
+     * @param id Identificador do estorno pendente
+     * @param espera Tempo até o próximo envio
+     * @param erro Mensagem do erro que causou a falha
+     */
+    @Override
+    public void reagendar(Long id, Duration espera, String erro) {
+        String sql = "UPDATE estorno_estoque_pendente SET tentativas = tentativas + 1, ultimo_erro = ?, " +
+                     "proxima_tentativa_em = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' WHERE id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, truncar(erro));
+            stmt.setLong(2, espera.toMillis());
+            stmt.setLong(3, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reagendar estorno de estoque pendente", e);
+        }
+    }
+
+    @Override
+    public long contarPendentes() {
+        String sql = "SELECT COUNT(*) FROM estorno_estoque_pendente";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao contar estornos de estoque pendentes", e);
+        }
+    }
+
+    private String truncar(String erro) {
+        return erro != null && erro.length() > TAMANHO_MAXIMO_ERRO ? erro.substring(0, TAMANHO_MAXIMO_ERRO) : erro;
+    }
+}
@@ -1,35 +1,62 @@
 package com.testevr.testejava.venda.internal.infra.persistence.repository;
 
+import com.testevr.testejava.shared.infra.cache.IdentityMap;
 import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.exception.VendaConflitoException;
+import com.testevr.testejava.venda.internal.domain.exception.VendaNaoEncontradaException;
 import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
 import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
 import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
 import com.testevr.testejava.venda.internal.application.dto.VendaConsolidadaDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Repository implementation using pure JDBC (no ORM)
  * Direct usage of Connection, PreparedStatement, and ResultSet
+ * Connections are bound to the current Spring transaction, so every statement
+ * executed inside a @Transactional method shares a single connection and commit
+ * findById goes through a per-transaction / per-request identity map; every write
+ * invalidates (or refreshes from RETURNING) the vendas it touches
  */
 @Repository
 public class VendaRepositoryImpl implements VendaRepository {
 
-    private final DataSource dataSource;
+    private static final int FETCH_SIZE_EXPORTACAO = 500;
+    private static final String STATUS_NAO_EDITAVEIS = "('SUCESSO', 'CANCELADA')";
 
-    public VendaRepositoryImpl(DataSource dataSource) {
-        this.dataSource = dataSource;
+    private final DataSource dataSource;
+    private final DataSource exportacaoDataSource;
+    private final IdentityMap<Long, Venda> identityMap;
+
+    public VendaRepositoryImpl(DataSource dataSource,
+                               @Qualifier("exportacaoDataSource") DataSource exportacaoDataSource,
+                               IdentityMap<Long, Venda> vendaIdentityMap) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+        this.exportacaoDataSource = exportacaoDataSource;
+        this.identityMap = vendaIdentityMap;
     }
 
+    /**
+     * Insere a venda com created_at e updated_at tirados do relógio do banco, o mesmo usado
+     * pelas consultas que comparam a idade das vendas, e devolve a linha gravada.
+     *
+     * @param venda Venda a ser inserida
+     * @return Venda A venda gravada, com ID, datas e versão
+     */
     @Override
     public Venda create(Venda venda) {
         String sql = "INSERT INTO venda (cliente_id, produto_id, valor, quantidade, status, created_at, updated_at) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
+                     "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) RETURNING *";
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -39,22 +66,10 @@ public class VendaRepositoryImpl implements VendaRepository {
             stmt.setBigDecimal(3, venda.getValor().getValor());
             stmt.setInt(4, venda.getQuantidade());
             stmt.setString(5, venda.getStatus().name());
-            stmt.setTimestamp(6, Timestamp.valueOf(venda.getCreatedAt()));
-            stmt.setTimestamp(7, Timestamp.valueOf(venda.getUpdatedAt()));
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Long id = rs.getLong("id");
-                    return new Venda(
-                        id,
-                        venda.getClienteId(),
-                        venda.getProdutoId(),
-                        venda.getValor(),
-                        venda.getQuantidade(),
-                        venda.getStatus(),
-                        venda.getCreatedAt(),
-                        venda.getUpdatedAt()
-                    );
+                    return mapRowToVenda(rs);
                 }
             }
         } catch (SQLException e) {
@@ -64,10 +79,109 @@ public class VendaRepositoryImpl implements VendaRepository {
         throw new RuntimeException("Erro ao criar venda");
     }
 
+    /**
+     * Insere uma venda recebida pelo processamento assíncrono com status RECEBIDA e já
+     * reservada pelo prazo informado, para que a recuperação de vendas recebidas não a
+     * pegue enquanto o worker desta instância ainda pode processá-la.
+     *
+     * @param venda Venda recebida
+     * @param lease Prazo da reserva do worker
+     * @return Venda A venda gravada, com ID
+     */
+    @Override
+    public Venda registrarRecebida(Venda venda, Duration lease) {
+        String sql = "INSERT INTO venda (cliente_id, produto_id, valor, quantidade, status, processando_ate) " +
+                     "VALUES (?, ?, ?, ?, 'RECEBIDA', CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond') RETURNING *";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, venda.getClienteId());
+            stmt.setLong(2, venda.getProdutoId());
+            stmt.setBigDecimal(3, venda.getValor().getValor());
+            stmt.setInt(4, venda.getQuantidade());
+            stmt.setLong(5, lease.toMillis());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRowToVenda(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao registrar venda recebida: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+
+        throw new RuntimeException("Erro ao registrar venda recebida");
+    }
+
+    /**
+     * Insere várias vendas usando um único batch JDBC.
+     * Com reWriteBatchedInserts o driver reescreve o batch em INSERTs multi-linha,
+     * e os IDs gerados são lidos na mesma ordem das vendas informadas. As datas vêm do
+     * relógio do banco, como em {@link #create(Venda)}.
+     * Deve ser chamado dentro de uma transação para que o lote seja atômico.
+     *
+     * @param vendas Vendas a serem inseridas
+     * @return List<Venda> Vendas criadas com os IDs gerados, na mesma ordem da entrada
+     */
+    @Override
+    public List<Venda> createEmLote(List<Venda> vendas) {
+        String sql = "INSERT INTO venda (cliente_id, produto_id, valor, quantidade, status, created_at, updated_at) " +
+                     "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+        List<Venda> criadas = new ArrayList<>(vendas.size());
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"id", "created_at", "updated_at", "versao"})) {
+
+            for (Venda venda : vendas) {
+                stmt.setLong(1, venda.getClienteId());
+                stmt.setLong(2, venda.getProdutoId());
+                stmt.setBigDecimal(3, venda.getValor().getValor());
+                stmt.setInt(4, venda.getQuantidade());
+                stmt.setString(5, venda.getStatus().name());
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                int indice = 0;
+                while (rs.next()) {
+                    Venda venda = vendas.get(indice++);
+                    criadas.add(new Venda(
+                            rs.getLong("id"),
+                            venda.getClienteId(),
+                            venda.getProdutoId(),
+                            venda.getValor(),
+                            venda.getQuantidade(),
+                            venda.getStatus(),
+                            rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getTimestamp("updated_at").toLocalDateTime(),
+                            rs.getLong("versao")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao criar vendas em lote: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+
+        if (criadas.size() != vendas.size()) {
+            throw new RuntimeException("Erro ao criar vendas em lote: IDs gerados não retornados");
+        }
+
+        return criadas;
+    }
+
+    /**
+     * Atualiza a venda com updated_at tirado do relógio do banco e devolve a linha gravada.
+     *
+     * @param venda Venda com os valores atualizados
+     * @return Venda A venda gravada, com a nova versão
+     */
     @Override
     public Venda update(Venda venda) {
         String sql = "UPDATE venda SET cliente_id = ?, produto_id = ?, valor = ?, " +
-                     "quantidade = ?, status = ?, updated_at = ? WHERE id = ?";
+                     "quantidade = ?, status = ?, updated_at = CURRENT_TIMESTAMP, versao = versao + 1 WHERE id = ? " +
+                     "RETURNING *";
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -77,12 +191,13 @@ public class VendaRepositoryImpl implements VendaRepository {
             stmt.setBigDecimal(3, venda.getValor().getValor());
             stmt.setInt(4, venda.getQuantidade());
             stmt.setString(5, venda.getStatus().name());
-            stmt.setTimestamp(6, Timestamp.valueOf(venda.getUpdatedAt()));
-            stmt.setLong(7, venda.getIdValue());
+            stmt.setLong(6, venda.getIdValue());
 
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                return venda;
+            identityMap.invalidar(venda.getIdValue());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRowToVenda(rs);
+                }
             }
         } catch (SQLException e) {
             throw new RuntimeException("Erro ao atualizar venda", e);
@@ -91,8 +206,147 @@ public class VendaRepositoryImpl implements VendaRepository {
         throw new RuntimeException("Venda não encontrada para atualização");
     }
 
+    /**
+     * Atualiza a venda num único comando, apenas se ela não estiver finalizada ou cancelada e,
+     * quando a venda traz uma versão, apenas se a versão gravada ainda for a mesma.
+     * A CTE lê a linha atual junto com o UPDATE, então a ausência de linha (404) e a recusa da
+     * condição (409) são distinguidas pelo próprio resultado, sem consulta prévia.
+     *
+     * @param venda Venda com os dados atualizados e, opcionalmente, a versão esperada
+     * @return Venda A venda gravada, com a nova versão
+     * @throws VendaNaoEncontradaException Se a venda não existir
+     * @throws VendaConflitoException Se a venda estiver finalizada/cancelada ou em outra versão
+     */
+    @Override
+    public Venda atualizarSeEditavel(Venda venda) {
+        String atualizacao = "UPDATE venda v SET cliente_id = ?, produto_id = ?, valor = ?, quantidade = ?, " +
+                             "status = ?, updated_at = CURRENT_TIMESTAMP, versao = v.versao + 1 " +
+                             "WHERE v.id = ? AND v.status NOT IN " + STATUS_NAO_EDITAVEIS + " " +
+                             "AND (?::bigint IS NULL OR v.versao = ?::bigint) " +
+                             "RETURNING v.*";
+
+        return atualizarCondicional(venda.getIdValue(), atualizacao, stmt -> {
+            stmt.setLong(2, venda.getClienteId());
+            stmt.setLong(3, venda.getProdutoId());
+            stmt.setBigDecimal(4, venda.getValor().getValor());
+            stmt.setInt(5, venda.getQuantidade());
+            stmt.setString(6, venda.getStatus().name());
+            stmt.setLong(7, venda.getIdValue());
+            stmt.setObject(8, venda.getVersao(), Types.BIGINT);
+            stmt.setObject(9, venda.getVersao(), Types.BIGINT);
+        });
+    }
+
+    /**
+     * Grava o resultado do processamento de uma venda recebida num único comando, apenas se ela
+     * ainda estiver {@link StatusVenda#RECEBIDA}. Um worker que demorou mais que o lease e teve a
+     * venda recuperada por outra instância não sobrescreve o resultado já gravado.
+     *
+     * @param venda Venda com a quantidade vendida e o status final
+     * @return Venda A venda gravada, com a nova versão
+     * @throws VendaNaoEncontradaException Se a venda não existir
+     * @throws VendaConflitoException Se a venda já tiver saído de RECEBIDA
+     */
+    @Override
+    public Venda concluirRecebida(Venda venda) {
+        String atualizacao = "UPDATE venda v SET quantidade = ?, status = ?, " +
+                             "updated_at = CURRENT_TIMESTAMP, versao = v.versao + 1 " +
+                             "WHERE v.id = ? AND v.status = 'RECEBIDA' " +
+                             "RETURNING v.*";
+
+        return atualizarCondicional(venda.getIdValue(), atualizacao, stmt -> {
+            stmt.setInt(2, venda.getQuantidade());
+            stmt.setString(3, venda.getStatus().name());
+            stmt.setLong(4, venda.getIdValue());
+        });
+    }
+
+    /**
+     * Adiciona um produto à venda num único comando: com o mesmo produto a quantidade é somada,
+     * com outro produto o item é substituído. Só é aplicado se a venda não estiver finalizada
+     * ou cancelada.
+     *
+     * @param vendaId Identificador único da venda
+     * @param produtoId Identificador único do produto
+     * @param quantidade Quantidade adicionada
+     * @return Venda A venda gravada, com a nova versão
+     * @throws VendaNaoEncontradaException Se a venda não existir
+     * @throws VendaConflitoException Se a venda estiver finalizada ou cancelada
+     */
+    @Override
+    public Venda adicionarProduto(Long vendaId, Long produtoId, int quantidade) {
+        String atualizacao = "UPDATE venda v SET " +
+                             "quantidade = CASE WHEN v.produto_id = ? THEN v.quantidade + ? ELSE ? END, " +
+                             "produto_id = ?, updated_at = CURRENT_TIMESTAMP, versao = v.versao + 1 " +
+                             "WHERE v.id = ? AND v.status NOT IN " + STATUS_NAO_EDITAVEIS + " " +
+                             "RETURNING v.*";
+
+        return atualizarCondicional(vendaId, atualizacao, stmt -> {
+            stmt.setLong(2, produtoId);
+            stmt.setInt(3, quantidade);
+            stmt.setInt(4, quantidade);
+            stmt.setLong(5, produtoId);
+            stmt.setLong(6, vendaId);
+        });
+    }
+
+    /**
+     * Executa um UPDATE condicional junto com a leitura da linha atual da venda.
+     * O primeiro parâmetro é o ID lido pela CTE; os demais são definidos por quem chama.
+     */
+    private Venda atualizarCondicional(Long id, String atualizacao, ParametrosAtualizacao parametros) {
+        String sql = "WITH atual AS (SELECT id, status, versao FROM venda WHERE id = ?), " +
+                     "atualizada AS (" + atualizacao + ") " +
+                     "SELECT a.*, atual.status AS status_atual, atual.versao AS versao_atual " +
+                     "FROM atual LEFT JOIN atualizada a ON a.id = atual.id";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, id);
+            parametros.definir(stmt);
+
+            identityMap.invalidar(id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new VendaNaoEncontradaException(id);
+                }
+                if (rs.getObject("id") != null) {
+                    Venda atualizada = mapRowToVenda(rs);
+                    identityMap.registrar(id, atualizada);
+                    return atualizada;
+                }
+
+                StatusVenda statusAtual = StatusVenda.valueOf(rs.getString("status_atual"));
+                if (statusAtual == StatusVenda.SUCESSO || statusAtual == StatusVenda.CANCELADA) {
+                    throw new VendaConflitoException("Não é possível editar uma venda finalizada ou cancelada");
+                }
+                throw new VendaConflitoException("Venda alterada por outra requisição. Versão atual: " +
+                        rs.getLong("versao_atual"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar venda: " + e.getMessage() + " (Código: " + e.getSQLState() + ")", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ParametrosAtualizacao {
+        void definir(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Busca uma venda pelo ID. Dentro da mesma transação ou requisição, buscas repetidas pelo
+     * mesmo ID devolvem a venda já carregada, sem nova consulta.
+     *
+     * @param id Identificador único da venda
+     * @return Venda A venda encontrada ou null se não existir
+     */
     @Override
     public Venda findById(Long id) {
+        return identityMap.buscar(id, this::carregarPorId);
+    }
+
+    private Venda carregarPorId(Long id) {
         String sql = "SELECT * FROM venda WHERE id = ?";
 
         try (Connection conn = dataSource.getConnection();
@@ -131,6 +385,50 @@ public class VendaRepositoryImpl implements VendaRepository {
         return vendas;
     }
 
+    /**
+     * Retorna uma página de vendas da mais recente para a mais antiga usando
+     * paginação por cursor (keyset) sobre (created_at, id).
+     * O filtro created_at <= ? permite usar o índice idx_venda_created_at_id,
+     * então páginas profundas custam o mesmo que a primeira.
+     *
+     * @param aposCreatedAt Data de criação da última venda da página anterior ou null para a primeira página
+     * @param aposId ID da última venda da página anterior ou null para a primeira página
+     * @param limite Quantidade máxima de vendas a retornar
+     * @return List<Venda> Lista com as vendas da página
+     */
+    @Override
+    public List<Venda> findPagina(LocalDateTime aposCreatedAt, Long aposId, int limite) {
+        boolean primeiraPagina = aposCreatedAt == null || aposId == null;
+        String sql = primeiraPagina
+                ? "SELECT * FROM venda ORDER BY created_at DESC, id DESC LIMIT ?"
+                : "SELECT * FROM venda WHERE created_at <= ? AND (created_at < ? OR id < ?) " +
+                  "ORDER BY created_at DESC, id DESC LIMIT ?";
+        List<Venda> vendas = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int indice = 1;
+            if (!primeiraPagina) {
+                Timestamp cursor = Timestamp.valueOf(aposCreatedAt);
+                stmt.setTimestamp(indice++, cursor);
+                stmt.setTimestamp(indice++, cursor);
+                stmt.setLong(indice++, aposId);
+            }
+            stmt.setInt(indice, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    vendas.add(mapRowToVenda(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar página de vendas", e);
+        }
+
+        return vendas;
+    }
+
     @Override
     public List<Venda> findByClienteId(Long clienteId) {
         String sql = "SELECT * FROM venda WHERE cliente_id = ? ORDER BY created_at DESC";
@@ -153,19 +451,237 @@ public class VendaRepositoryImpl implements VendaRepository {
         return vendas;
     }
 
+    /**
+     * Percorre todas as vendas usando um cursor no servidor, entregando cada linha
+     * ao consumidor assim que é lida. Com autocommit desligado e fetch size definido,
+     * o driver do PostgreSQL busca as linhas em blocos em vez de carregar a tabela
+     * inteira em memória. A conexão vem do pool dedicado à exportação, que fica fora da
+     * detecção de vazamento do pool principal.
+     *
+     * @param consumidor Função chamada para cada venda lida
+     * @throws RuntimeException Se ocorrer um erro SQL durante a leitura
+     */
+    @Override
+    public void exportarTodas(Consumer<Venda> consumidor) {
+        String sql = "SELECT * FROM venda ORDER BY created_at DESC, id DESC";
+
+        try (Connection conn = exportacaoDataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            if (autoCommit) {
+                conn.setAutoCommit(false);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE_EXPORTACAO);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumidor.accept(mapRowToVenda(rs));
+                    }
+                }
+            } finally {
+                if (autoCommit) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao exportar vendas", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
-        String sql = "DELETE FROM venda WHERE id = ?";
+        deleteEmLote(List.of(id));
+    }
+
+    /**
+     * Remove várias vendas num único comando. Vendas concluídas com sucesso são canceladas
+     * antes de sair: a mesma CTE que apaga as linhas grava o cancelamento na tabela de
+     * auditoria venda_cancelamento, sem leitura prévia nem UPDATE de status.
+     * IDs inexistentes são ignorados.
+     *
+     * @param ids Identificadores das vendas a remover
+     * @return List<Long> IDs das vendas efetivamente removidas
+     */
+    @Override
+    public List<Long> deleteEmLote(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "WITH removidas AS (" +
+                     "DELETE FROM venda WHERE id = ANY(?) " +
+                     "RETURNING id, cliente_id, produto_id, valor, quantidade, status), " +
+                     "canceladas AS (" +
+                     "INSERT INTO venda_cancelamento (venda_id, cliente_id, produto_id, valor, quantidade, status_anterior) " +
+                     "SELECT id, cliente_id, produto_id, valor, quantidade, status FROM removidas " +
+                     "WHERE status = 'SUCESSO') " +
+                     "SELECT id FROM removidas ORDER BY id";
+        List<Long> removidas = new ArrayList<>();
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setLong(1, id);
-            stmt.executeUpdate();
+            stmt.setArray(1, conn.createArrayOf("bigint", ids.toArray(new Long[0])));
 
+            ids.forEach(identityMap::invalidar);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    removidas.add(rs.getLong("id"));
+                }
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Erro ao deletar venda", e);
+            throw new RuntimeException("Erro ao deletar vendas", e);
         }
+
+        return removidas;
+    }
+
+    /**
+     * Reserva um lote de vendas pendentes para finalização, gravando um prazo de reserva
+     * (processando_ate) num único UPDATE. As linhas candidatas vêm do índice parcial de vendas
+     * pendentes e são bloqueadas com FOR UPDATE SKIP LOCKED, de modo que instâncias concorrentes
+     * reservam lotes disjuntos sem esperar umas pelas outras; enquanto a reserva não vence,
+     * nenhuma outra instância volta a pegar a mesma venda.
+     * Vendas recentes e vendas com baixa de estoque aguardando no outbox ficam de fora; vendas
+     * recebidas pelo processamento assíncrono têm status próprio e nunca são reservadas aqui.
+     *
+     * @param limite Quantidade máxima de vendas a reservar
+     * @param lease Duração da reserva
+     * @param idadeMinima Tempo mínimo desde a última atualização da venda
+     * @return List<Venda> Vendas reservadas
+     */
+    @Override
+    public List<Venda> reservarPendentes(int limite, Duration lease, Duration idadeMinima) {
+        String sql = "UPDATE venda SET processando_ate = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE id IN (" +
+                     "SELECT v.id FROM venda v " +
+                     "WHERE v.status = 'PENDENTE' " +
+                     "AND (v.processando_ate IS NULL OR v.processando_ate < CURRENT_TIMESTAMP) " +
+                     "AND v.updated_at < CURRENT_TIMESTAMP - ? * INTERVAL '1 millisecond' " +
+                     "AND NOT EXISTS (SELECT 1 FROM outbox_baixa_estoque o WHERE o.venda_id = v.id) " +
+                     "ORDER BY v.id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                     "RETURNING *";
+        List<Venda> vendas = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, lease.toMillis());
+            stmt.setLong(2, idadeMinima.toMillis());
+            stmt.setInt(3, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Venda venda = mapRowToVenda(rs);
+                    identityMap.invalidar(venda.getIdValue());
+                    vendas.add(venda);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar vendas pendentes", e);
+        }
+
+        return vendas;
+    }
+
+    /**
+     * Reserva vendas recebidas cuja reserva de processamento venceu, isto é, vendas que
+     * estavam na fila de uma instância que caiu ou foi reiniciada antes de processá-las.
+     * Segue o mesmo esquema de {@link #reservarPendentes}: índice parcial, FOR UPDATE SKIP
+     * LOCKED e um novo prazo em processando_ate.
+     *
+     * @param limite Quantidade máxima de vendas a reservar
+     * @param lease Duração da reserva
+     * @return List<Venda> Vendas reservadas para reprocessamento
+     */
+    @Override
+    public List<Venda> reservarRecebidas(int limite, Duration lease) {
+        String sql = "UPDATE venda SET processando_ate = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+                     "WHERE id IN (" +
+                     "SELECT v.id FROM venda v " +
+                     "WHERE v.status = 'RECEBIDA' " +
+                     "AND (v.processando_ate IS NULL OR v.processando_ate < CURRENT_TIMESTAMP) " +
+                     "ORDER BY v.id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                     "RETURNING *";
+        List<Venda> vendas = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, lease.toMillis());
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Venda venda = mapRowToVenda(rs);
+                    identityMap.invalidar(venda.getIdValue());
+                    vendas.add(venda);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao reservar vendas recebidas", e);
+        }
+
+        return vendas;
+    }
+
+    /**
+     * Atualiza quantidade e status de várias vendas pendentes num único UPDATE, juntando a tabela
+     * aos valores novos passados como arrays paralelos. Só são alteradas as vendas que continuam
+     * pendentes e, quando a venda traz uma versão, na mesma versão lida; uma venda editada,
+     * cancelada ou finalizada por outra instância nesse meio tempo fica de fora.
+     *
+     * @param vendas Vendas com os valores atualizados
+     * @return List<Long> IDs das vendas efetivamente atualizadas
+     */
+    @Override
+    public List<Long> atualizarEmLote(List<Venda> vendas) {
+        if (vendas.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "UPDATE venda v SET quantidade = d.quantidade, status = d.status, updated_at = CURRENT_TIMESTAMP, " +
+                     "versao = v.versao + 1 " +
+                     "FROM unnest(?::bigint[], ?::integer[], ?::varchar[], ?::bigint[]) AS d(id, quantidade, status, versao) " +
+                     "WHERE v.id = d.id AND v.status = 'PENDENTE' AND (d.versao IS NULL OR v.versao = d.versao) " +
+                     "RETURNING v.id";
+
+        Long[] ids = new Long[vendas.size()];
+        Integer[] quantidades = new Integer[vendas.size()];
+        String[] status = new String[vendas.size()];
+        Long[] versoes = new Long[vendas.size()];
+        for (int i = 0; i < vendas.size(); i++) {
+            ids[i] = vendas.get(i).getIdValue();
+            quantidades[i] = vendas.get(i).getQuantidade();
+            status[i] = vendas.get(i).getStatus().name();
+            versoes[i] = vendas.get(i).getVersao();
+        }
+
+        List<Long> atualizadas = new ArrayList<>(vendas.size());
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("bigint", ids));
+            stmt.setArray(2, conn.createArrayOf("integer", quantidades));
+            stmt.setArray(3, conn.createArrayOf("varchar", status));
+            stmt.setArray(4, conn.createArrayOf("bigint", versoes));
+
+            for (Long id : ids) {
+                identityMap.invalidar(id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    atualizadas.add(rs.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar vendas em lote", e);
+        }
+
+        return atualizadas;
     }
 
     @Override
@@ -237,11 +753,12 @@ public class VendaRepositoryImpl implements VendaRepository {
         String status = rs.getString("status");
         LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
         LocalDateTime updatedAt = rs.getTimestamp("updated_at").toLocalDateTime();
+        Long versao = rs.getLong("versao");
 
         ValorVenda valorVenda = new ValorVenda(valor);
         StatusVenda statusVenda = StatusVenda.valueOf(status);
 
         return new Venda(id, clienteId, produtoId, valorVenda, quantidade,
-                        statusVenda, createdAt, updatedAt);
+                        statusVenda, createdAt, updatedAt, versao);
     }
 }
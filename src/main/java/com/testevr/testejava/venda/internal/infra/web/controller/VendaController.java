@@ -2,19 +2,43 @@ package com.testevr.testejava.venda.internal.infra.web.controller;
 
 
 import com.testevr.testejava.venda.internal.application.dto.CriarVendaDto;
+import com.testevr.testejava.venda.internal.application.dto.ResultadoLoteItemDto;
+import com.testevr.testejava.venda.internal.application.dto.StatusProcessamentoVendaDto;
 import com.testevr.testejava.venda.internal.application.dto.VendaDto;
+import com.testevr.testejava.venda.internal.application.mapper.VendaExportMapper;
 import com.testevr.testejava.venda.internal.application.mapper.VendaMapper;
 import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.exception.VendaConflitoException;
+import com.testevr.testejava.venda.internal.domain.exception.VendaNaoEncontradaException;
+import com.testevr.testejava.venda.internal.domain.service.ProcessamentoVendaService;
 import com.testevr.testejava.venda.internal.domain.service.VendaService;
 import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
 import com.testevr.testejava.venda.external.domain.service.ProdutoService;
 import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueRequest;
+import com.testevr.testejava.shared.application.dto.PaginaDto;
+import com.testevr.testejava.shared.application.pagination.CursorPagination;
+import com.testevr.testejava.shared.infra.idempotencia.IdempotenciaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,21 +48,42 @@ public class VendaController {
 
     private static final Logger logger = LoggerFactory.getLogger(VendaController.class);
 
+    private static final int TAMANHO_MAXIMO_LOTE = 500;
+
     private final VendaService vendaService;
     private final VendaMapper mapper;
+    private final VendaExportMapper exportMapper;
     private final ProdutoService produtoService;
+    private final ProcessamentoVendaService processamentoVendaService;
+    private final IdempotenciaService idempotenciaService;
 
     public VendaController(VendaService vendaService,
-                          VendaMapper mapper, ProdutoService produtoService) {
+                          VendaMapper mapper, VendaExportMapper exportMapper, ProdutoService produtoService,
+                          ProcessamentoVendaService processamentoVendaService,
+                          IdempotenciaService idempotenciaService) {
         this.vendaService = vendaService;
         this.mapper = mapper;
+        this.exportMapper = exportMapper;
         this.produtoService = produtoService;
+        this.processamentoVendaService = processamentoVendaService;
+        this.idempotenciaService = idempotenciaService;
     }
 
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<VendaDto> processarVenda(@RequestBody CriarVendaDto criarVendaDto) {
+    public ResponseEntity<?> processarVenda(
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia,
+            @RequestBody CriarVendaDto criarVendaDto) {
+        return idempotenciaService.executar("POST /vendas", chaveIdempotencia, criarVendaDto,
+                () -> criarVenda(criarVendaDto));
+    }
+
+    private ResponseEntity<VendaDto> criarVenda(CriarVendaDto criarVendaDto) {
+        if (processamentoVendaService.isHabilitado()) {
+            return receberVenda(criarVendaDto);
+        }
+
         try {
             logger.info("Processando nova venda - Cliente: {}, Produto: {}, Quantidade: {}",
                        criarVendaDto.getClienteId(), criarVendaDto.getProdutoId(), criarVendaDto.getQuantidade());
@@ -57,6 +102,76 @@ public class VendaController {
         }
     }
 
+    /**
+     * Modo assíncrono: grava a venda como recebida e responde 202 com o ID e o endereço
+     * de consulta do status, deixando validação e baixa de estoque para os workers.
+     */
+    private ResponseEntity<VendaDto> receberVenda(CriarVendaDto criarVendaDto) {
+        logger.info("Recebendo venda para processamento assíncrono - Cliente: {}, Produto: {}, Quantidade: {}",
+                   criarVendaDto.getClienteId(), criarVendaDto.getProdutoId(), criarVendaDto.getQuantidade());
+
+        Venda vendaRecebida = processamentoVendaService.receber(mapper.toEntity(criarVendaDto));
+
+        URI status = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}/status")
+                .buildAndExpand(vendaRecebida.getIdValue())
+                .toUri();
+
+        return ResponseEntity.accepted().location(status).body(mapper.toDto(vendaRecebida));
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<List<ResultadoLoteItemDto>> processarLote(@RequestBody List<CriarVendaDto> itens) {
+        if (itens == null || itens.isEmpty()) {
+            throw new IllegalArgumentException("Lote de vendas não pode ser vazio");
+        }
+        if (itens.size() > TAMANHO_MAXIMO_LOTE) {
+            throw new IllegalArgumentException("Lote de vendas excede o limite de " + TAMANHO_MAXIMO_LOTE + " itens");
+        }
+
+        logger.info("Processando lote de {} vendas", itens.size());
+
+        ResultadoLoteItemDto[] resultados = new ResultadoLoteItemDto[itens.size()];
+        List<Integer> indicesValidos = new ArrayList<>();
+        List<Venda> vendasValidas = new ArrayList<>();
+
+        for (int i = 0; i < itens.size(); i++) {
+            CriarVendaDto item = itens.get(i);
+            try {
+                validarItemLote(item);
+                vendasValidas.add(mapper.toEntity(item));
+                indicesValidos.add(i);
+            } catch (IllegalArgumentException e) {
+                resultados[i] = ResultadoLoteItemDto.erro(i, e.getMessage());
+            }
+        }
+
+        if (!vendasValidas.isEmpty()) {
+            List<ResultadoLoteItemDto> processados = vendaService.criarEmLote(vendasValidas);
+            for (int j = 0; j < processados.size(); j++) {
+                ResultadoLoteItemDto resultado = processados.get(j);
+                resultado.setIndice(indicesValidos.get(j));
+                resultados[indicesValidos.get(j)] = resultado;
+            }
+        }
+
+        List<ResultadoLoteItemDto> resposta = Arrays.asList(resultados);
+        boolean todasCriadas = resposta.stream().allMatch(ResultadoLoteItemDto::isSucesso);
+        return ResponseEntity.status(todasCriadas ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(resposta);
+    }
+
+    private void validarItemLote(CriarVendaDto item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item do lote não pode ser nulo");
+        }
+        if (item.getClienteId() == null || item.getProdutoId() == null) {
+            throw new IllegalArgumentException("Cliente e produto são obrigatórios");
+        }
+        if (item.getQuantidade() == null || item.getQuantidade() <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<VendaDto> buscarPorId(@PathVariable Long id) {
         Venda venda = vendaService.findById(id);
@@ -69,15 +184,84 @@ public class VendaController {
         return ResponseEntity.ok(mapper.toDto(venda));
     }
 
+    @GetMapping("/{id}/status")
+    public ResponseEntity<StatusProcessamentoVendaDto> buscarStatus(@PathVariable Long id) {
+        Venda venda = vendaService.findById(id);
+
+        if (venda == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(new StatusProcessamentoVendaDto(
+                venda.getIdValue(),
+                venda.getStatus().name(),
+                venda.getQuantidade(),
+                venda.getStatus() == StatusVenda.RECEBIDA));
+    }
+
     @GetMapping
-    public ResponseEntity<List<VendaDto>> buscarTodas() {
-        List<Venda> vendas = vendaService.findAll();
+    public ResponseEntity<PaginaDto<VendaDto>> buscarTodas(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limite) {
+        int tamanho = CursorPagination.resolverLimite(limite);
+        LocalDateTime aposCreatedAt = null;
+        Long aposId = null;
+
+        if (cursor != null) {
+            String[] partes = CursorPagination.decodificar(cursor, 2);
+            try {
+                aposCreatedAt = LocalDateTime.parse(partes[0]);
+                aposId = Long.parseLong(partes[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de paginação inválido", e);
+            }
+        }
+
+        List<Venda> vendas = vendaService.findPagina(aposCreatedAt, aposId, tamanho + 1);
+        String proximoCursor = null;
+        if (vendas.size() > tamanho) {
+            vendas = vendas.subList(0, tamanho);
+            Venda ultima = vendas.get(tamanho - 1);
+            proximoCursor = CursorPagination.codificar(ultima.getCreatedAt(), ultima.getIdValue());
+        }
+
         List<VendaDto> vendasDto = vendas.stream()
                 .map(mapper::toDto)
                 .collect(Collectors.toList());
         
         logger.debug("Retornando {} vendas", vendasDto.size());
-        return ResponseEntity.ok(vendasDto);
+        return ResponseEntity.ok(new PaginaDto<>(vendasDto, proximoCursor));
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String formato) {
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            throw new IllegalArgumentException("Formato de exportação inválido: " + formato);
+        }
+
+        StreamingResponseBody corpo = saida -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(VendaExportMapper.CABECALHO_CSV);
+            }
+
+            vendaService.exportarTodas(venda -> {
+                try {
+                    writer.write(csv ? exportMapper.toCsv(venda) : exportMapper.toNdjson(venda));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            writer.flush();
+            logger.info("Exportação de vendas concluída - Formato: {}", formato);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=vendas." + (csv ? "csv" : "ndjson"))
+                .body(corpo);
     }
 
     @GetMapping("/cliente/{clienteId}")
@@ -98,24 +282,24 @@ public class VendaController {
         vendaService.delete(id);
     }
 
+    @DeleteMapping
+    public ResponseEntity<List<Long>> deletarEmLote(@RequestParam(required = false) List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.contains(null)) {
+            throw new IllegalArgumentException("Lista de vendas para exclusão não pode ser vazia");
+        }
+        if (ids.size() > TAMANHO_MAXIMO_LOTE) {
+            throw new IllegalArgumentException("Lote de exclusão excede o limite de " + TAMANHO_MAXIMO_LOTE + " itens");
+        }
+
+        logger.info("Deletando {} vendas em lote", ids.size());
+        return ResponseEntity.ok(vendaService.deleteEmLote(ids.stream().distinct().toList()));
+    }
+
     @PostMapping("/{id}/produtos")
     public ResponseEntity<VendaDto> adicionarProdutoVenda(
             @PathVariable Long id,
             @RequestBody VendaDto produtoParaAdicionar) {
         try {
-            Venda vendaExistente = vendaService.findById(id);
-            
-            if (vendaExistente == null) {
-                logger.warn("Tentativa de adicionar produto à venda inexistente: {}", id);
-                return ResponseEntity.notFound().build();
-            }
-
-            if (vendaExistente.getStatus() == StatusVenda.SUCESSO || 
-                vendaExistente.getStatus() == StatusVenda.CANCELADA) {
-                logger.warn("Tentativa de editar venda finalizada: {}", id);
-                return ResponseEntity.badRequest().build();
-            }
-
             logger.info("Adicionando produto {} à venda {}", produtoParaAdicionar.getProdutoId(), id);
             Venda vendaAtualizada = vendaService.adicionarProdutoVenda(id, 
                 produtoParaAdicionar.getProdutoId(), 
@@ -123,6 +307,12 @@ public class VendaController {
             
             return ResponseEntity.ok(mapper.toDto(vendaAtualizada));
 
+        } catch (VendaNaoEncontradaException e) {
+            logger.warn("Tentativa de adicionar produto à venda inexistente: {}", id);
+            return ResponseEntity.notFound().build();
+        } catch (VendaConflitoException e) {
+            logger.warn("Produto não adicionado à venda {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("Erro ao adicionar produto à venda {}: {}", id, e.getMessage());
             throw new RuntimeException("Erro ao adicionar produto à venda: " + e.getMessage(), e);
@@ -132,33 +322,33 @@ public class VendaController {
     @PutMapping("/{id}")
     public ResponseEntity<VendaDto> editarVenda(@PathVariable Long id, @RequestBody VendaDto vendaDto) {
         try {
-            Venda vendaExistente = vendaService.findById(id);
-            
-            if (vendaExistente == null) {
-                logger.warn("Tentativa de editar venda inexistente: {}", id);
-                return ResponseEntity.notFound().build();
-            }
-
-            if (vendaExistente.getStatus() == StatusVenda.SUCESSO || 
-                vendaExistente.getStatus() == StatusVenda.CANCELADA) {
-                logger.warn("Tentativa de editar venda finalizada: {}", id);
-                return ResponseEntity.badRequest().build();
-            }
-
             logger.info("Editando venda {}", id);
             Venda vendaEntity = mapper.toEntity(vendaDto);
-            vendaEntity = vendaEntity.atualizarId(vendaExistente.getIdValue());
+            vendaEntity = vendaEntity.atualizarId(id);
             Venda vendaAtualizada = vendaService.editarVenda(vendaEntity);
             
             return ResponseEntity.ok(mapper.toDto(vendaAtualizada));
 
+        } catch (VendaNaoEncontradaException e) {
+            logger.warn("Tentativa de editar venda inexistente: {}", id);
+            return ResponseEntity.notFound().build();
+        } catch (VendaConflitoException e) {
+            logger.warn("Venda {} não editada: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("Erro ao editar venda {}: {}", id, e.getMessage());
             throw new RuntimeException("Erro ao editar venda: " + e.getMessage(), e);
         }
     }
     @PostMapping("/baixa")
-    public ResponseEntity<?> baixarEstoqueEmLote(@RequestBody List<BaixaEstoqueRequest> requests) {
+    public ResponseEntity<?> baixarEstoqueEmLote(
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia,
+            @RequestBody List<BaixaEstoqueRequest> requests) {
+        return idempotenciaService.executar("POST /vendas/baixa", chaveIdempotencia, requests,
+                () -> baixarEstoque(requests));
+    }
+
+    private ResponseEntity<?> baixarEstoque(List<BaixaEstoqueRequest> requests) {
         try {
             Object response = produtoService.realizarBaixaEstoqueEmLote(requests);
             return ResponseEntity.ok(response);
@@ -0,0 +1,4 @@
+-- Listing and export order by (created_at DESC, id DESC); covering the id tiebreak
+-- lets both read the index in order without an extra sort step
+DROP INDEX IF EXISTS idx_venda_created_at;
+CREATE INDEX idx_venda_created_at_id ON venda(created_at DESC, id DESC);
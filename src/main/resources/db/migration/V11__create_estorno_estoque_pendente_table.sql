@@ -0,0 +1,16 @@
+-- Stock reversals that could not be sent while compensating a venda that was not
+-- recorded; a background job keeps retrying them until the product API answers
+CREATE TABLE estorno_estoque_pendente (
+    id BIGSERIAL PRIMARY KEY,
+    produto_id BIGINT NOT NULL,
+    quantidade INTEGER NOT NULL,
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_erro VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT chk_estorno_quantidade_positiva CHECK (quantidade > 0)
+);
+
+-- The retry job always claims the oldest entries that are due
+CREATE INDEX idx_estorno_estoque_pendente_proxima_tentativa ON estorno_estoque_pendente(proxima_tentativa_em, id);
@@ -0,0 +1,3 @@
+-- Lease taken by the dispatcher that claims an outbox entry; the write-down is sent
+-- after the claim commits, and while the lease is in the future no other node resends it
+ALTER TABLE outbox_baixa_estoque ADD COLUMN processando_ate TIMESTAMP;
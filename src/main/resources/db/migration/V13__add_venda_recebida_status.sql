@@ -0,0 +1,9 @@
+-- Vendas accepted by the asynchronous endpoint are stored as RECEBIDA until a worker
+-- validates them; processando_ate holds the worker's lease, and rows whose lease expired
+-- (the node died with the venda still queued) are claimed again and requeued
+ALTER TABLE venda DROP CONSTRAINT chk_status;
+ALTER TABLE venda ADD CONSTRAINT chk_status
+    CHECK (status IN ('RECEBIDA', 'PENDENTE', 'CONCLUIDA', 'SUCESSO', 'ERRO', 'CANCELADA'));
+
+-- Partial index holding only received vendas, used by the recovery claim query
+CREATE INDEX idx_venda_recebida ON venda(processando_ate, id) WHERE status = 'RECEBIDA';
@@ -0,0 +1,6 @@
+-- In-flight reservations are tracked apart from the synchronized stock, so that a
+-- synchronization with the external product API (which only knows about write-downs that
+-- already reached it or are waiting in the outbox) never wipes reservations taken in between
+ALTER TABLE estoque_reserva ADD COLUMN reservado INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE estoque_reserva ADD CONSTRAINT chk_estoque_reserva_reservado CHECK (reservado >= 0);
@@ -0,0 +1,5 @@
+-- CNPJ identifies a cliente: the import merges on it with ON CONFLICT, which needs a unique
+-- index so that concurrent imports can never insert the same CNPJ twice
+DROP INDEX idx_cliente_cnpj;
+
+CREATE UNIQUE INDEX uk_cliente_cnpj ON cliente(cnpj);
@@ -0,0 +1,4 @@
+-- Idempotency key sent with every attempt of a reversal, from the first direct call through
+-- all background resends, so a reversal that was applied but timed out is not applied again.
+-- Rows recorded before this column existed fall back to a key derived from their id
+ALTER TABLE estorno_estoque_pendente ADD COLUMN chave_idempotencia VARCHAR(100);
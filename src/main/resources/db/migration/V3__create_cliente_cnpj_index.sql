@@ -0,0 +1,2 @@
+-- Index used to match imported clientes by CNPJ
+CREATE INDEX idx_cliente_cnpj ON cliente(cnpj);
@@ -0,0 +1,18 @@
+-- Outbox of stock write-downs, written in the same transaction as the venda
+-- and drained in the background into the product API
+CREATE TABLE outbox_baixa_estoque (
+    id BIGSERIAL PRIMARY KEY,
+    venda_id BIGINT NOT NULL,
+    produto_id BIGINT NOT NULL,
+    quantidade INTEGER NOT NULL,
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_erro VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_outbox_baixa_estoque_venda FOREIGN KEY (venda_id) REFERENCES venda(id) ON DELETE CASCADE,
+    CONSTRAINT chk_outbox_quantidade_positiva CHECK (quantidade > 0)
+);
+
+-- The dispatcher always picks the oldest entries that are due
+CREATE INDEX idx_outbox_baixa_estoque_proxima_tentativa ON outbox_baixa_estoque(proxima_tentativa_em, id);
@@ -0,0 +1,6 @@
+-- Lease taken by the node that claims a pending venda for finalization;
+-- while it is in the future no other node picks the venda up
+ALTER TABLE venda ADD COLUMN processando_ate TIMESTAMP;
+
+-- Partial index holding only pending vendas, used by the claim query
+CREATE INDEX idx_venda_pendente ON venda(processando_ate, id) WHERE status = 'PENDENTE';
@@ -0,0 +1,12 @@
+-- Local stock ledger: quantity still available for sale per produto, as last synchronized
+-- with the external product API minus the sales reserved since then
+CREATE TABLE estoque_reserva (
+    produto_id BIGINT PRIMARY KEY,
+    disponivel INTEGER NOT NULL,
+    sincronizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT chk_estoque_reserva_disponivel CHECK (disponivel >= 0)
+);
+
+-- Used by the background reconciliation to find the stalest entries
+CREATE INDEX idx_estoque_reserva_sincronizado_em ON estoque_reserva(sincronizado_em);
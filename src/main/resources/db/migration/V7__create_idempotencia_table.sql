@@ -0,0 +1,17 @@
+-- Responses stored per Idempotency-Key, replayed when a client retries the same request
+CREATE TABLE idempotencia (
+    operacao VARCHAR(50) NOT NULL,
+    chave VARCHAR(255) NOT NULL,
+    hash_requisicao VARCHAR(64) NOT NULL,
+    concluida BOOLEAN NOT NULL DEFAULT FALSE,
+    status_http INTEGER,
+    corpo TEXT,
+    location VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expira_em TIMESTAMP NOT NULL,
+
+    CONSTRAINT pk_idempotencia PRIMARY KEY (operacao, chave)
+);
+
+-- Used by the periodic purge of expired keys
+CREATE INDEX idx_idempotencia_expira_em ON idempotencia(expira_em);
@@ -0,0 +1,3 @@
+-- Optimistic concurrency version, incremented by every UPDATE on the venda;
+-- conditional edits only apply when the version sent by the client still matches
+ALTER TABLE venda ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Audit trail of vendas cancelled on deletion: a venda that had already succeeded is
+-- recorded here by the same statement that deletes it
+CREATE TABLE venda_cancelamento (
+    id BIGSERIAL PRIMARY KEY,
+    venda_id BIGINT NOT NULL,
+    cliente_id BIGINT NOT NULL,
+    produto_id BIGINT NOT NULL,
+    valor DECIMAL(10,2) NOT NULL,
+    quantidade INTEGER NOT NULL,
+    status_anterior VARCHAR(20) NOT NULL,
+    cancelada_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_venda_cancelamento_venda_id ON venda_cancelamento(venda_id);
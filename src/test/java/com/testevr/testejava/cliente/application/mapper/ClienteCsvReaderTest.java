@@ -0,0 +1,57 @@
+package com.testevr.testejava.cliente.application.mapper;
+
+import com.testevr.testejava.cliente.domain.entity.Cliente;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClienteCsvReaderTest {
+
+    @Test
+    void testLeClientesValidosERejeitaInvalidos() {
+        String csv = "cnpj,nome,razao_social,nome_fantasia\n" +
+                "12345678000195,Cliente Um,\"Razão Um, Ltda\",Fantasia Um\n" +
+                "00000000000000,Cliente Dois,Razão Dois,\n" +
+                "\n" +
+                "69423022000160,C,Razão Três,\n" +
+                "12.345.678/0001-95,Cliente Quatro,Razão Quatro,\n" +
+                "11222333000181,Cliente Cinco,Razão Cinco,\n";
+
+        ClienteCsvReader reader = new ClienteCsvReader(new StringReader(csv));
+        List<Cliente> clientes = new ArrayList<>();
+        reader.forEachRemaining(clientes::add);
+
+        assertEquals(2, clientes.size());
+        assertEquals("Razão Um, Ltda", clientes.get(0).getRazaoSocial().getValue());
+        assertEquals("Fantasia Um", clientes.get(0).getNomeFantasia().getValue());
+        assertNull(clientes.get(1).getNomeFantasia().getValue());
+
+        assertEquals(5, reader.getTotalLinhas());
+        assertEquals(3, reader.getRejeitados().size());
+        assertEquals(3, reader.getRejeitados().get(0).getLinha());
+        assertEquals(5, reader.getRejeitados().get(1).getLinha());
+        assertEquals(6, reader.getRejeitados().get(2).getLinha());
+        assertEquals("CNPJ duplicado no arquivo", reader.getRejeitados().get(2).getMensagem());
+    }
+
+    @Test
+    void testCabecalhoSemColunasObrigatorias() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ClienteCsvReader(new StringReader("nome,cnpj\n")));
+    }
+
+    @Test
+    void testArquivoVazio() {
+        assertThrows(IllegalArgumentException.class, () -> new ClienteCsvReader(new StringReader("")));
+    }
+
+    @Test
+    void testDividirComAspasEscapadas() {
+        List<String> campos = ClienteCsvReader.dividir("a,\"b \"\"c\"\"\",,d");
+        assertEquals(List.of("a", "b \"c\"", "", "d"), campos);
+    }
+}
@@ -5,11 +5,14 @@ import com.testevr.testejava.cliente.domain.valueobject.Nome;
 import com.testevr.testejava.cliente.domain.valueobject.RazaoSocial;
 import com.testevr.testejava.cliente.domain.valueobject.NomeFantasia;
 import com.testevr.testejava.cliente.domain.valueobject.Cnpj;
+import com.testevr.testejava.shared.infra.cache.IdentityMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
 import java.sql.*;
@@ -42,7 +45,7 @@ class ClienteRepositoryImplTest {
 
     @BeforeEach
     void setUp() {
-        repository = new ClienteRepositoryImpl(dataSource);
+        repository = new ClienteRepositoryImpl(dataSource, new IdentityMap<>("clienteIdentityMap", true));
         now = LocalDateTime.now();
 
         cliente = new Cliente(
@@ -131,6 +134,26 @@ class ClienteRepositoryImplTest {
         assertThrows(RuntimeException.class, () -> repository.create(clienteWithoutId));
     }
 
+    @Test
+    void create_shouldThrowIllegalArgumentException_whenCnpjAlreadyExists() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        Cliente clienteWithoutId = new Cliente(
+                null,
+                new Nome("Cliente Teste"),
+                new RazaoSocial("Razão Social Teste"),
+                new NomeFantasia("Nome Fantasia Teste"),
+                new Cnpj("12345678000195"),
+                true,
+                now,
+                now
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> repository.create(clienteWithoutId));
+    }
+
     @Test
     void update_shouldReturnUpdatedCliente_whenUpdateIsSuccessful() throws SQLException {
         when(dataSource.getConnection()).thenReturn(connection);
@@ -276,4 +299,23 @@ class ClienteRepositoryImplTest {
 
         assertThrows(RuntimeException.class, () -> repository.delete(1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findById_shouldReuseTransactionConnection_whenTransactionIsActive() throws SQLException {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+        try {
+            repository.findById(1L);
+            repository.findById(2L);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+        }
+
+        verify(dataSource, never()).getConnection();
+        verify(connection, times(2)).prepareStatement(anyString());
+        verify(connection, never()).close();
+    }
+}
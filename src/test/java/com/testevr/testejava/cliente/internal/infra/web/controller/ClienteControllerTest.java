@@ -4,6 +4,7 @@ import com.testevr.testejava.cliente.application.dto.ClienteDto;
 import com.testevr.testejava.cliente.application.mapper.ClienteMapper;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 import com.testevr.testejava.cliente.domain.service.ClienteService;
+import com.testevr.testejava.shared.application.dto.PaginaDto;
 import com.testevr.testejava.cliente.web.ClienteController;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -72,12 +73,13 @@ class ClienteControllerTest {
     ClienteDto dto2 = new ClienteDto(2L, "Nome2", "Razao2", "Fantasia2", "69423022000160", true);
         List<Cliente> entities = Arrays.asList(entity1, entity2);
         List<ClienteDto> dtos = Arrays.asList(dto1, dto2);
-        when(clienteService.findAll()).thenReturn(entities);
+        when(clienteService.findPagina(null, 51)).thenReturn(entities);
         when(mapper.toDto(entity1)).thenReturn(dto1);
         when(mapper.toDto(entity2)).thenReturn(dto2);
-        ResponseEntity<List<ClienteDto>> response = controller.buscarTodos();
+        ResponseEntity<PaginaDto<ClienteDto>> response = controller.buscarTodos(null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(dtos.size(), response.getBody().size());
+        assertEquals(dtos.size(), response.getBody().getItens().size());
+        assertNull(response.getBody().getProximoCursor());
     }
 
     @Test
@@ -4,6 +4,8 @@ import com.testevr.testejava.cliente.application.dto.ClienteDto;
 import com.testevr.testejava.cliente.application.mapper.ClienteMapper;
 import com.testevr.testejava.cliente.domain.entity.Cliente;
 import com.testevr.testejava.cliente.domain.service.ClienteService;
+import com.testevr.testejava.shared.application.dto.PaginaDto;
+import com.testevr.testejava.shared.domain.valueobject.Id;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -28,10 +30,11 @@ class ClienteControllerTest {
 
     @Test
     void testBuscarTodosVazio() {
-        when(clienteService.findAll()).thenReturn(java.util.Collections.emptyList());
-        ResponseEntity<List<ClienteDto>> response = controller.buscarTodos();
+        when(clienteService.findPagina(null, 51)).thenReturn(java.util.Collections.emptyList());
+        ResponseEntity<PaginaDto<ClienteDto>> response = controller.buscarTodos(null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(response.getBody().isEmpty());
+        assertTrue(response.getBody().getItens().isEmpty());
+        assertNull(response.getBody().getProximoCursor());
     }
 
     @Test
@@ -95,12 +98,37 @@ class ClienteControllerTest {
         ClienteDto dto2 = new ClienteDto(2L, "Nome2", "Razao2", "Fantasia2", "69423022000160", true);
         List<Cliente> entities = Arrays.asList(entity1, entity2);
         List<ClienteDto> dtos = Arrays.asList(dto1, dto2);
-        when(clienteService.findAll()).thenReturn(entities);
+        when(clienteService.findPagina(null, 51)).thenReturn(entities);
         when(mapper.toDto(entity1)).thenReturn(dto1);
         when(mapper.toDto(entity2)).thenReturn(dto2);
-        ResponseEntity<List<ClienteDto>> response = controller.buscarTodos();
+        ResponseEntity<PaginaDto<ClienteDto>> response = controller.buscarTodos(null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(dtos.size(), response.getBody().size());
+        assertEquals(dtos.size(), response.getBody().getItens().size());
+        assertNull(response.getBody().getProximoCursor());
+    }
+
+    @Test
+    void testBuscarTodosComProximaPagina() {
+        Cliente entity1 = mock(Cliente.class);
+        Cliente entity2 = mock(Cliente.class);
+        ClienteDto dto1 = new ClienteDto(7L, "Nome1", "Razao1", "Fantasia1", "69423022000160", true);
+        when(entity1.getId()).thenReturn(new Id(7L));
+        when(clienteService.findPagina(null, 2)).thenReturn(Arrays.asList(entity1, entity2));
+        when(mapper.toDto(entity1)).thenReturn(dto1);
+
+        ResponseEntity<PaginaDto<ClienteDto>> response = controller.buscarTodos(null, 1);
+
+        assertEquals(1, response.getBody().getItens().size());
+        assertNotNull(response.getBody().getProximoCursor());
+
+        when(clienteService.findPagina(7L, 2)).thenReturn(java.util.Collections.emptyList());
+        controller.buscarTodos(response.getBody().getProximoCursor(), 1);
+        verify(clienteService).findPagina(7L, 2);
+    }
+
+    @Test
+    void testBuscarTodosComCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> controller.buscarTodos("@@@", null));
     }
 
     @Test
@@ -0,0 +1,40 @@
+package com.testevr.testejava.shared.application.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPaginationTest {
+
+    @Test
+    void testCodificarEDecodificar() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 10, 8, 30, 15, 123456000);
+        String cursor = CursorPagination.codificar(createdAt, 42L);
+
+        String[] partes = CursorPagination.decodificar(cursor, 2);
+
+        assertEquals(createdAt, LocalDateTime.parse(partes[0]));
+        assertEquals("42", partes[1]);
+    }
+
+    @Test
+    void testDecodificarCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPagination.decodificar("%%%", 1));
+    }
+
+    @Test
+    void testDecodificarQuantidadeDePartesDiferente() {
+        String cursor = CursorPagination.codificar(1L);
+        assertThrows(IllegalArgumentException.class, () -> CursorPagination.decodificar(cursor, 2));
+    }
+
+    @Test
+    void testResolverLimite() {
+        assertEquals(CursorPagination.LIMITE_PADRAO, CursorPagination.resolverLimite(null));
+        assertEquals(10, CursorPagination.resolverLimite(10));
+        assertEquals(CursorPagination.LIMITE_MAXIMO, CursorPagination.resolverLimite(10_000));
+        assertThrows(IllegalArgumentException.class, () -> CursorPagination.resolverLimite(0));
+    }
+}
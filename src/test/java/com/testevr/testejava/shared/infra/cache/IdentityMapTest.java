@@ -0,0 +1,129 @@
+package com.testevr.testejava.shared.infra.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityMapTest {
+
+    private final IdentityMap<Long, String> identityMap = new IdentityMap<>("teste", true);
+    private final AtomicInteger consultas = new AtomicInteger();
+    private final Function<Long, String> carregador = id -> {
+        consultas.incrementAndGet();
+        return "venda-" + id;
+    };
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void deveConsultarSempreForaDeTransacaoERequisicao() {
+        identityMap.buscar(1L, carregador);
+        identityMap.buscar(1L, carregador);
+
+        assertEquals(2, consultas.get());
+        assertEquals(2L, identityMap.snapshot().get("semEscopo"));
+    }
+
+    @Test
+    void deveReaproveitarEntidadeNaMesmaRequisicao() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        String primeira = identityMap.buscar(1L, carregador);
+        String segunda = identityMap.buscar(1L, carregador);
+        identityMap.buscar(2L, carregador);
+
+        assertSame(primeira, segunda);
+        assertEquals(2, consultas.get());
+        assertEquals(1L, identityMap.snapshot().get("acertos"));
+    }
+
+    @Test
+    void deveReaproveitarEntidadeNaMesmaTransacaoEDescartarAoTermino() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        identityMap.buscar(1L, carregador);
+        identityMap.buscar(1L, carregador);
+        assertEquals(1, consultas.get());
+
+        tearDown();
+        TransactionSynchronizationManager.initSynchronization();
+
+        identityMap.buscar(1L, carregador);
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void deveConsultarNovamenteAposInvalidacao() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        identityMap.buscar(1L, carregador);
+        identityMap.invalidar(1L);
+        identityMap.buscar(1L, carregador);
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void deveInvalidarRequisicaoQuandoEscritaOcorreDentroDeTransacao() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        identityMap.buscar(1L, carregador);
+
+        TransactionSynchronizationManager.initSynchronization();
+        identityMap.invalidar(1L);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        identityMap.buscar(1L, carregador);
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void deveRegistrarEntidadeGravada() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        identityMap.registrar(1L, "venda-1-atualizada");
+
+        assertEquals("venda-1-atualizada", identityMap.buscar(1L, carregador));
+        assertEquals(0, consultas.get());
+    }
+
+    @Test
+    void naoDeveGuardarResultadoNulo() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertNull(identityMap.buscar(1L, id -> {
+            consultas.incrementAndGet();
+            return null;
+        }));
+        identityMap.buscar(1L, carregador);
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void naoDeveGuardarQuandoDesabilitado() {
+        IdentityMap<Long, String> desabilitado = new IdentityMap<>("teste", false);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        desabilitado.buscar(1L, carregador);
+        desabilitado.buscar(1L, carregador);
+
+        assertEquals(2, consultas.get());
+    }
+}
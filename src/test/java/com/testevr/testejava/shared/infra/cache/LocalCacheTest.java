@@ -0,0 +1,147 @@
+package com.testevr.testejava.shared.infra.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCacheTest {
+
+    private final AtomicLong relogio = new AtomicLong();
+
+    private LocalCache<Long, String> criarCache(int capacidade, Duration ttl) {
+        return new LocalCache<>("teste", capacidade, ttl, relogio::get);
+    }
+
+    @Test
+    void testRegistraAcertosEFalhas() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+
+        assertNull(cache.get(1L));
+        cache.put(1L, "um");
+        assertEquals("um", cache.get(1L));
+
+        Map<String, Object> snapshot = cache.snapshot();
+        assertEquals(1L, snapshot.get("acertos"));
+        assertEquals(1L, snapshot.get("falhas"));
+        assertEquals(0.5, snapshot.get("taxaAcerto"));
+    }
+
+    @Test
+    void testDescartaEntradaUsadaHaMaisTempo() {
+        LocalCache<Long, String> cache = criarCache(2, Duration.ofSeconds(5));
+        cache.put(1L, "um");
+        cache.put(2L, "dois");
+        cache.get(1L);
+        cache.put(3L, "tres");
+
+        assertEquals("um", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals("tres", cache.get(3L));
+        assertEquals(1L, cache.snapshot().get("despejos"));
+    }
+
+    @Test
+    void testExpiraEntradaAposTtl() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        cache.put(1L, "um");
+
+        relogio.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.tamanho());
+        assertEquals(1L, cache.snapshot().get("expirados"));
+    }
+
+    @Test
+    void testAtualizarRenovaTtlApenasDeEntradaExistente() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        cache.put(1L, "um");
+        relogio.addAndGet(Duration.ofSeconds(4).toNanos());
+
+        cache.atualizar(1L, valor -> valor + "!");
+        cache.atualizar(2L, valor -> "dois");
+        relogio.addAndGet(Duration.ofSeconds(4).toNanos());
+
+        assertEquals("um!", cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void testInvalidar() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        cache.put(1L, "um");
+        cache.invalidar(1L);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testDescartaCarregamentoIniciadoAntesDeInvalidacao() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        long geracao = cache.geracao(1L);
+
+        cache.invalidar(1L);
+
+        assertFalse(cache.put(1L, "antigo", geracao));
+        assertNull(cache.get(1L));
+        assertEquals(1L, cache.snapshot().get("gravacoesDescartadas"));
+    }
+
+    @Test
+    void testDescartaCarregamentoIniciadoAntesDeAtualizacao() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        long geracao = cache.geracao(1L);
+
+        cache.atualizar(1L, valor -> "novo");
+
+        assertFalse(cache.put(1L, "antigo", geracao));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testGravaCarregamentoSemEscritaConcorrente() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        cache.invalidar(1L);
+        long geracao = cache.geracao(1L);
+
+        assertTrue(cache.put(1L, "um", geracao));
+        assertEquals("um", cache.get(1L));
+    }
+
+    @Test
+    void testGravaCarregamentoQuandoOutraChaveEInvalidada() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        long geracao = cache.geracao(1L);
+
+        cache.invalidar(2L);
+        cache.atualizar(3L, valor -> "tres");
+
+        assertTrue(cache.put(1L, "um", geracao));
+        assertEquals("um", cache.get(1L));
+        assertEquals(0L, cache.snapshot().get("gravacoesDescartadas"));
+    }
+
+    @Test
+    void testDescartaCarregamentoIniciadoAntesDeLimpar() {
+        LocalCache<Long, String> cache = criarCache(10, Duration.ofSeconds(5));
+        long geracao = cache.geracao(1L);
+
+        cache.limpar();
+
+        assertFalse(cache.put(1L, "antigo", geracao));
+    }
+
+    @Test
+    void testCapacidadeZeroDesabilitaCache() {
+        LocalCache<Long, String> cache = criarCache(0, Duration.ofSeconds(5));
+        cache.put(1L, "um");
+
+        assertFalse(cache.isHabilitado());
+        assertNull(cache.get(1L));
+        assertEquals(0L, cache.snapshot().get("falhas"));
+    }
+}
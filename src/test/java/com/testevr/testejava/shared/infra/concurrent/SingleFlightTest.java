@@ -0,0 +1,106 @@
+package com.testevr.testejava.shared.infra.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void testChamadasConcorrentesCompartilhamUmaExecucao() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger chamadas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        List<Future<String>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                resultados.add(executor.submit(() -> singleFlight.executar(1L, () -> {
+                    chamadas.incrementAndGet();
+                    liberar.await(5, TimeUnit.SECONDS);
+                    return "produto";
+                })));
+            }
+
+            aguardarCompartilhadas(singleFlight, THREADS - 1);
+            liberar.countDown();
+
+            for (Future<String> resultado : resultados) {
+                assertEquals("produto", resultado.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, chamadas.get());
+        assertEquals(1L, singleFlight.getExecucoes());
+        assertEquals(THREADS - 1L, singleFlight.getCompartilhadas());
+        assertEquals(0, singleFlight.getEmAndamento());
+    }
+
+    @Test
+    void testExcecaoERepassadaParaQuemAguardava() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> primeira = executor.submit(() -> singleFlight.executar(1L, () -> {
+                liberar.await(5, TimeUnit.SECONDS);
+                throw new IOException("API indisponível");
+            }));
+            aguardarEmAndamento(singleFlight);
+            Future<String> segunda = executor.submit(() -> singleFlight.executar(1L, () -> "nao executa"));
+            aguardarCompartilhadas(singleFlight, 1);
+            liberar.countDown();
+
+            Exception erroPrimeira = assertThrows(Exception.class, () -> primeira.get(5, TimeUnit.SECONDS));
+            Exception erroSegunda = assertThrows(Exception.class, () -> segunda.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, erroPrimeira.getCause());
+            assertInstanceOf(IOException.class, erroSegunda.getCause());
+        }
+    }
+
+    @Test
+    void testChamadasSequenciaisNaoReaproveitamResultado() throws Exception {
+        SingleFlight<Long, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger chamadas = new AtomicInteger();
+
+        singleFlight.executar(1L, chamadas::incrementAndGet);
+        Integer segunda = singleFlight.executar(1L, chamadas::incrementAndGet);
+
+        assertEquals(2, segunda);
+        assertEquals(2L, singleFlight.getExecucoes());
+    }
+
+    @Test
+    void testChavesDiferentesNaoSeBloqueiam() throws Exception {
+        SingleFlight<Long, Long> singleFlight = new SingleFlight<>();
+
+        assertEquals(1L, singleFlight.executar(1L, () -> singleFlight.executar(2L, () -> 1L)));
+        assertEquals(0L, singleFlight.getCompartilhadas());
+    }
+
+    private void aguardarCompartilhadas(SingleFlight<?, ?> singleFlight, long esperadas) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCompartilhadas() < esperadas && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void aguardarEmAndamento(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getEmAndamento() == 0 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.testevr.testejava.shared.infra.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+
+    @Test
+    void deveArredondarFaixasParaPotenciaDeDois() {
+        assertEquals(1, new StripedLock<Long>(1).getQuantidadeFaixas());
+        assertEquals(64, new StripedLock<Long>(64).getQuantidadeFaixas());
+        assertEquals(128, new StripedLock<Long>(100).getQuantidadeFaixas());
+    }
+
+    @Test
+    void deveRetornarSempreOMesmoLockParaAMesmaChave() {
+        StripedLock<Long> locks = new StripedLock<>(16);
+
+        assertSame(locks.obter(42L), locks.obter(42L));
+    }
+
+    @Test
+    void deveSerializarAcessoConcorrenteAMesmaChave() throws Exception {
+        StripedLock<Long> locks = new StripedLock<>(16);
+        AtomicInteger dentro = new AtomicInteger();
+        AtomicInteger maximoSimultaneo = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                executor.execute(() -> {
+                    try {
+                        largada.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    ReentrantLock lock = locks.obter(7L);
+                    lock.lock();
+                    try {
+                        maximoSimultaneo.accumulateAndGet(dentro.incrementAndGet(), Math::max);
+                        Thread.sleep(5);
+                        dentro.decrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+            }
+            largada.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, maximoSimultaneo.get());
+    }
+}
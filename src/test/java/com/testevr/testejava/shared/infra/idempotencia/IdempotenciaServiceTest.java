@@ -0,0 +1,181 @@
+package com.testevr.testejava.shared.infra.idempotencia;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceTest {
+
+    private static final String OPERACAO = "POST /vendas";
+    private static final Map<String, Object> REQUISICAO = Map.of("produtoId", 100, "quantidade", 2);
+
+    @Mock
+    private IdempotenciaRepository repository;
+
+    private IdempotenciaService idempotencia;
+    private AtomicInteger execucoes;
+
+    @BeforeEach
+    void setUp() {
+        idempotencia = novoServico();
+        execucoes = new AtomicInteger();
+    }
+
+    private IdempotenciaService novoServico() {
+        return new IdempotenciaService(repository,
+                new LocalCache<>("idempotenciaCache", 100, Duration.ofMinutes(5)),
+                86400000, 60000, 200, 10);
+    }
+
+    private ResponseEntity<?> criar() {
+        execucoes.incrementAndGet();
+        return ResponseEntity.created(URI.create("/api/v1/vendas/1")).body(Map.of("id", 1));
+    }
+
+    @Test
+    void deveExecutarSemRegistroQuandoNaoHaChave() {
+        ResponseEntity<?> resposta = idempotencia.executar(OPERACAO, null, REQUISICAO, this::criar);
+
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        assertEquals(1, execucoes.get());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void deveGravarRespostaNaPrimeiraExecucao() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+
+        ResponseEntity<?> resposta = idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar);
+
+        assertEquals(HttpStatus.CREATED, resposta.getStatusCode());
+        assertEquals(1, execucoes.get());
+        verify(repository).concluir(OPERACAO, "abc", 201, "{\"id\":1}", "/api/v1/vendas/1", Duration.ofMillis(86400000));
+    }
+
+    @Test
+    void deveRepetirRespostaDoIndiceEmMemoriaSemExecutarNovamente() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+        idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar);
+
+        ResponseEntity<?> repeticao = idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar);
+
+        assertEquals(1, execucoes.get());
+        assertEquals(HttpStatus.CREATED, repeticao.getStatusCode());
+        assertEquals("{\"id\":1}", repeticao.getBody());
+        assertEquals("true", repeticao.getHeaders().getFirst(IdempotenciaService.HEADER_REPETICAO));
+        assertEquals(URI.create("/api/v1/vendas/1"), repeticao.getHeaders().getLocation());
+        verify(repository, times(1)).buscar(OPERACAO, "abc");
+    }
+
+    @Test
+    void deveRepetirRespostaGravadaPorOutraInstancia() {
+        IdempotenciaService outraInstancia = novoServico();
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+        idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar);
+
+        String hash = capturarHash();
+        when(repository.buscar(OPERACAO, "abc"))
+                .thenReturn(new RespostaIdempotente(hash, true, 201, "{\"id\":1}", "/api/v1/vendas/1"));
+
+        ResponseEntity<?> repeticao = outraInstancia.executar(OPERACAO, "abc", REQUISICAO, this::criar);
+
+        assertEquals(1, execucoes.get());
+        assertEquals(HttpStatus.CREATED, repeticao.getStatusCode());
+        assertEquals("{\"id\":1}", repeticao.getBody());
+    }
+
+    @Test
+    void deveRejeitarChaveReutilizadaComOutraRequisicao() {
+        when(repository.buscar(OPERACAO, "abc"))
+                .thenReturn(new RespostaIdempotente("outro-hash", true, 201, "{\"id\":1}", null));
+
+        assertThrows(IdempotenciaConflitoException.class,
+                () -> idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar));
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    void deveRejeitarQuandoPrimeiraExecucaoNaoTerminaDentroDaEspera() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(false);
+        when(repository.buscar(OPERACAO, "abc")).thenReturn(null);
+
+        assertThrows(IdempotenciaConflitoException.class,
+                () -> idempotencia.executar(OPERACAO, "abc", REQUISICAO, this::criar));
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    void deveLiberarChaveQuandoExecucaoFalha() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+
+        assertThrows(RuntimeException.class,
+                () -> idempotencia.executar(OPERACAO, "abc", REQUISICAO, () -> {
+                    throw new RuntimeException("Falha na API de produtos");
+                }));
+
+        verify(repository).liberar(OPERACAO, "abc");
+        verify(repository, never()).concluir(anyString(), anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void deveLiberarChaveSemGravarRespostaDeErro() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+        Supplier<ResponseEntity<?>> recusar = () -> {
+            execucoes.incrementAndGet();
+            return ResponseEntity.badRequest().body(Map.of("erro", "Produto sem estoque"));
+        };
+
+        ResponseEntity<?> primeira = idempotencia.executar(OPERACAO, "abc", REQUISICAO, recusar);
+        ResponseEntity<?> segunda = idempotencia.executar(OPERACAO, "abc", REQUISICAO, recusar);
+
+        assertEquals(HttpStatus.BAD_REQUEST, primeira.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, segunda.getStatusCode());
+        assertEquals(2, execucoes.get());
+        verify(repository, times(2)).liberar(OPERACAO, "abc");
+        verify(repository, never()).concluir(anyString(), anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void deveProrrogarReservaEnquantoExecucaoEstaEmAndamento() {
+        when(repository.reservar(eq(OPERACAO), eq("abc"), anyString(), any())).thenReturn(true);
+
+        idempotencia.executar(OPERACAO, "abc", REQUISICAO, () -> {
+            idempotencia.prorrogarReservas();
+            return criar();
+        });
+        idempotencia.prorrogarReservas();
+
+        verify(repository, times(1)).prorrogar(OPERACAO, "abc", Duration.ofMillis(60000));
+    }
+
+    @Test
+    void deveRejeitarChaveMuitoLonga() {
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencia.executar(OPERACAO, "a".repeat(256), REQUISICAO, this::criar));
+        verifyNoInteractions(repository);
+    }
+
+    private String capturarHash() {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(repository).reservar(eq(OPERACAO), eq("abc"), hash.capture(), any());
+        return hash.getValue();
+    }
+}
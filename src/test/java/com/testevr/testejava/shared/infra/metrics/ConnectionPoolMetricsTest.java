@@ -0,0 +1,52 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolMetricsTest {
+
+    @Test
+    void testSnapshotSemPoolIniciado() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        Map<String, Object> snapshot = metrics.snapshot();
+        assertEquals(0L, snapshot.get("conexoesObtidas"));
+        assertEquals(0L, snapshot.get("timeouts"));
+        assertFalse(snapshot.containsKey("ativas"));
+    }
+
+    @Test
+    void testRegistraEsperaETimeouts() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        PoolStats stats = new PoolStats(0) {
+            @Override
+            protected void update() {
+                this.totalConnections = 5;
+                this.idleConnections = 3;
+                this.activeConnections = 2;
+                this.pendingThreads = 1;
+                this.maxConnections = 10;
+                this.minConnections = 2;
+            }
+        };
+
+        IMetricsTracker tracker = metrics.create("teste", stats);
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(4));
+        tracker.recordConnectionTimeout();
+
+        Map<String, Object> snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.get("ativas"));
+        assertEquals(3, snapshot.get("ociosas"));
+        assertEquals(1, snapshot.get("aguardando"));
+        assertEquals(2L, snapshot.get("conexoesObtidas"));
+        assertEquals(1L, snapshot.get("timeouts"));
+        assertEquals(3.0, snapshot.get("tempoEsperaMedioMs"));
+        assertEquals(4.0, snapshot.get("tempoEsperaMaximoMs"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.testevr.testejava.shared.infra.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTrackerTest {
+
+    @Test
+    void testPercentilSemAmostras() {
+        assertEquals(-1, new LatencyTracker(10).percentil(95));
+    }
+
+    @Test
+    void testPercentilSobreAmostrasRegistradas() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 100; i >= 1; i--) {
+            tracker.registrar(i);
+        }
+
+        assertEquals(50, tracker.percentil(50));
+        assertEquals(95, tracker.percentil(95));
+        assertEquals(100, tracker.percentil(100));
+    }
+
+    @Test
+    void testJanelaDescartaAmostrasMaisAntigas() {
+        LatencyTracker tracker = new LatencyTracker(3);
+        tracker.registrar(1000);
+        tracker.registrar(1);
+        tracker.registrar(2);
+        tracker.registrar(3);
+
+        assertEquals(3, tracker.getAmostras());
+        assertEquals(3, tracker.percentil(100));
+    }
+}
@@ -0,0 +1,33 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void testRejeitaQuandoTodasAsVagasEstaoOcupadas() {
+        Bulkhead bulkhead = new Bulkhead("teste", 2, Duration.ofMillis(10));
+
+        bulkhead.adquirir();
+        bulkhead.adquirir();
+
+        assertThrows(ChamadaRejeitadaException.class, bulkhead::adquirir);
+        assertEquals(2, bulkhead.snapshot().get("emUso"));
+        assertEquals(1L, bulkhead.snapshot().get("rejeitadas"));
+    }
+
+    @Test
+    void testLiberarDevolveVaga() {
+        Bulkhead bulkhead = new Bulkhead("teste", 1, Duration.ZERO);
+
+        bulkhead.adquirir();
+        bulkhead.liberar();
+
+        assertDoesNotThrow(bulkhead::adquirir);
+        assertEquals(0L, bulkhead.snapshot().get("rejeitadas"));
+    }
+}
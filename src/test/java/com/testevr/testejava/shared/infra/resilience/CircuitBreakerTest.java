@@ -0,0 +1,165 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long LENTA = TimeUnit.SECONDS.toNanos(3);
+
+    private final AtomicLong relogio = new AtomicLong();
+
+    private CircuitBreaker criarCircuitBreaker() {
+        return new CircuitBreaker("teste", 10, 4, 50, Duration.ofSeconds(2), 75,
+                Duration.ofSeconds(10), 2, relogio::get);
+    }
+
+    private void registrar(CircuitBreaker circuitBreaker, boolean falha, long duracao) {
+        circuitBreaker.registrarResultado(circuitBreaker.adquirirPermissao(), falha, duracao);
+    }
+
+    @Test
+    void testPermaneceFechadoAbaixoDoMinimoDeChamadas() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+
+        for (int i = 0; i < 3; i++) {
+            registrar(circuitBreaker, true, RAPIDA);
+        }
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+    }
+
+    @Test
+    void testAbrePorTaxaDeFalhaERejeitaChamadas() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+
+        registrar(circuitBreaker, false, RAPIDA);
+        registrar(circuitBreaker, false, RAPIDA);
+        registrar(circuitBreaker, true, RAPIDA);
+        registrar(circuitBreaker, true, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        assertThrows(ChamadaRejeitadaException.class, circuitBreaker::adquirirPermissao);
+        assertEquals(1L, circuitBreaker.snapshot().get("rejeitadas"));
+        assertEquals(1L, circuitBreaker.snapshot().get("aberturas"));
+    }
+
+    @Test
+    void testAbrePorTaxaDeChamadasLentas() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+
+        registrar(circuitBreaker, false, RAPIDA);
+        registrar(circuitBreaker, false, LENTA);
+        registrar(circuitBreaker, false, LENTA);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+
+        registrar(circuitBreaker, false, LENTA);
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+    }
+
+    @Test
+    void testJanelaDescartaChamadasAntigas() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+
+        registrar(circuitBreaker, true, RAPIDA);
+        for (int i = 0; i < 10; i++) {
+            registrar(circuitBreaker, false, RAPIDA);
+        }
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+        assertEquals(0.0, circuitBreaker.snapshot().get("taxaFalha"));
+    }
+
+    @Test
+    void testMeioAbertoFechaQuandoChamadasDeTesteTemSucesso() {
+        CircuitBreaker circuitBreaker = abrirCircuito();
+        relogio.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        CircuitBreaker.Permissao primeira = circuitBreaker.adquirirPermissao();
+        CircuitBreaker.Permissao segunda = circuitBreaker.adquirirPermissao();
+        assertEquals(CircuitBreaker.Estado.MEIO_ABERTO, circuitBreaker.getEstado());
+        assertThrows(ChamadaRejeitadaException.class, circuitBreaker::adquirirPermissao);
+
+        circuitBreaker.registrarResultado(primeira, false, RAPIDA);
+        circuitBreaker.registrarResultado(segunda, false, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+    }
+
+    @Test
+    void testMeioAbertoReabreQuandoChamadaDeTesteFalha() {
+        CircuitBreaker circuitBreaker = abrirCircuito();
+        relogio.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        registrar(circuitBreaker, true, RAPIDA);
+        registrar(circuitBreaker, false, RAPIDA);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        assertEquals(2L, circuitBreaker.snapshot().get("aberturas"));
+    }
+
+    @Test
+    void testLiberarPermissaoDevolveChamadaDeTeste() {
+        CircuitBreaker circuitBreaker = abrirCircuito();
+        relogio.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        circuitBreaker.adquirirPermissao();
+        CircuitBreaker.Permissao interrompida = circuitBreaker.adquirirPermissao();
+        circuitBreaker.liberarPermissao(interrompida);
+
+        assertDoesNotThrow(circuitBreaker::adquirirPermissao);
+    }
+
+    @Test
+    void testResultadoDeChamadaIniciadaAntesDeAbrirNaoContaComoTeste() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+        CircuitBreaker.Permissao antiga = circuitBreaker.adquirirPermissao();
+        for (int i = 0; i < 4; i++) {
+            registrar(circuitBreaker, true, RAPIDA);
+        }
+        relogio.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        CircuitBreaker.Permissao teste = circuitBreaker.adquirirPermissao();
+        circuitBreaker.registrarResultado(antiga, false, RAPIDA);
+        circuitBreaker.registrarResultado(teste, false, RAPIDA);
+
+        assertTrue(teste.teste());
+        assertEquals(CircuitBreaker.Estado.MEIO_ABERTO, circuitBreaker.getEstado());
+        assertEquals(1L, circuitBreaker.snapshot().get("resultadosDescartados"));
+    }
+
+    @Test
+    void testResultadoTardioNaoReabreCircuitoFechado() {
+        CircuitBreaker circuitBreaker = abrirCircuito();
+        relogio.addAndGet(Duration.ofSeconds(10).toNanos());
+        CircuitBreaker.Permissao primeira = circuitBreaker.adquirirPermissao();
+        CircuitBreaker.Permissao segunda = circuitBreaker.adquirirPermissao();
+        circuitBreaker.registrarResultado(primeira, false, RAPIDA);
+        circuitBreaker.registrarResultado(segunda, false, RAPIDA);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuitBreaker.getEstado());
+
+        CircuitBreaker.Permissao atual = circuitBreaker.adquirirPermissao();
+        circuitBreaker.registrarResultado(segunda, true, RAPIDA);
+        circuitBreaker.liberarPermissao(segunda);
+        circuitBreaker.registrarResultado(atual, false, RAPIDA);
+
+        assertFalse(atual.teste());
+        assertEquals(0.0, circuitBreaker.snapshot().get("taxaFalha"));
+        assertEquals(1, circuitBreaker.snapshot().get("chamadasNaJanela"));
+    }
+
+    private CircuitBreaker abrirCircuito() {
+        CircuitBreaker circuitBreaker = criarCircuitBreaker();
+        for (int i = 0; i < 4; i++) {
+            registrar(circuitBreaker, true, RAPIDA);
+        }
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,59 @@
+package com.testevr.testejava.shared.infra.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingPolicyTest {
+
+    @Test
+    void testSemAtrasoEnquantoNaoHaAmostrasSuficientes() {
+        HedgingPolicy politica = new HedgingPolicy("teste", true, 95, Duration.ofMillis(1), 10, 100, 3);
+
+        politica.registrarLatencia(1_000_000);
+        politica.registrarLatencia(2_000_000);
+
+        assertEquals(-1, politica.atrasoNanos());
+    }
+
+    @Test
+    void testSemAtrasoQuandoDesabilitada() {
+        HedgingPolicy politica = new HedgingPolicy("teste", false, 95, Duration.ofMillis(1), 10, 100, 1);
+
+        politica.registrarLatencia(1_000_000);
+
+        assertEquals(-1, politica.atrasoNanos());
+    }
+
+    @Test
+    void testAtrasoUsaPercentilRespeitandoMinimo() {
+        HedgingPolicy politica = new HedgingPolicy("teste", true, 90, Duration.ofMillis(5), 10, 100, 1);
+
+        for (int i = 1; i <= 10; i++) {
+            politica.registrarLatencia(i * 1_000_000L);
+        }
+        assertEquals(9_000_000L, politica.atrasoNanos());
+
+        HedgingPolicy comMinimoAlto = new HedgingPolicy("teste", true, 90, Duration.ofMillis(50), 10, 100, 1);
+        comMinimoAlto.registrarLatencia(1_000_000);
+        assertEquals(50_000_000L, comMinimoAlto.atrasoNanos());
+    }
+
+    @Test
+    void testOrcamentoLimitaTentativasExtras() {
+        HedgingPolicy politica = new HedgingPolicy("teste", true, 95, Duration.ofMillis(1), 10, 100, 1);
+
+        assertFalse(politica.permitirHedge());
+
+        for (int i = 0; i < 10; i++) {
+            politica.registrarRequisicao();
+        }
+        assertTrue(politica.permitirHedge());
+        assertFalse(politica.permitirHedge());
+
+        assertEquals(1L, politica.snapshot().get("hedgesEnviados"));
+        assertEquals(2L, politica.snapshot().get("hedgesNegadosPorOrcamento"));
+    }
+}
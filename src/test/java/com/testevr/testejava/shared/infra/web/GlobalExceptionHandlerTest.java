@@ -1,9 +1,11 @@
 package com.testevr.testejava.shared.infra.web;
 
+import com.testevr.testejava.shared.infra.idempotencia.IdempotenciaConflitoException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 
@@ -41,6 +43,20 @@ class GlobalExceptionHandlerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+    void testHandleParametroAusente() {
+        MissingServletRequestParameterException ex = new MissingServletRequestParameterException("ids", "List");
+        ResponseEntity<?> response = handler.handleParametroInvalidoException(ex);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testHandleIdempotenciaConflitoException() {
+        IdempotenciaConflitoException ex = new IdempotenciaConflitoException("chave já utilizada");
+        ResponseEntity<?> response = handler.handleIdempotenciaConflitoException(ex);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
     @Test
     void testHandleGenericException() {
         Exception ex = new Exception("erro generico");
@@ -0,0 +1,245 @@
+package com.testevr.testejava.venda.external.domain.service;
+
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueItemRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaixaEstoqueBatcherTest {
+
+    private ProdutoApiStub stub;
+    private ProdutoService produtoService;
+    private BaixaEstoqueBatcher batcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new ProdutoApiStub();
+        produtoService = stub.criarProdutoService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.encerrar();
+        }
+        stub.close();
+    }
+
+    private List<CompletableFuture<BaixaEstoqueResponse>> enfileirar(BaixaEstoqueRequest... requests) {
+        return batcher.enfileirarTodos(List.of(requests));
+    }
+
+    @Test
+    void deveEnviarBaixasEnfileiradasJuntasNumUnicoLote() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 207,
+                "{\"sucesso\":[{\"id\":1,\"estoqueAtual\":9},{\"id\":2,\"estoqueAtual\":18}],"
+                        + "\"erros\":[{\"id\":3,\"erro\":\"Estoque insuficiente\"}]}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2), new BaixaEstoqueRequest(3L, 30));
+
+        assertEquals(9, resultados.get(0).get(5, TimeUnit.SECONDS).getEstoqueAtual());
+        assertEquals(18, resultados.get(1).get(5, TimeUnit.SECONDS).getEstoqueAtual());
+        BaixaEstoqueResponse recusada = resultados.get(2).get(5, TimeUnit.SECONDS);
+        assertFalse(recusada.getSucesso());
+        assertNull(recusada.getEstoqueAtual());
+        assertEquals("Estoque insuficiente", recusada.getMessage());
+        assertEquals(30, recusada.getQuantidadeSolicitada());
+
+        assertEquals(1, stub.getRequisicoes());
+        assertEquals(1L, batcher.snapshot().get("lotesEnviados"));
+        assertEquals(2L, batcher.snapshot().get("chamadasEvitadas"));
+    }
+
+    @Test
+    void deveDividirEnvioQueExcedeTamanhoMaximo() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 2, 5000);
+        stub.responder("POST", "/produtos/baixa", 200, "{\"message\":\"Baixa realizada\"}");
+        stub.responder("POST", "/produtos/3/baixa", 200, "{\"estoqueAtual\":7}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2), new BaixaEstoqueRequest(3L, 3));
+
+        assertEquals("Baixa realizada", resultados.get(0).get(5, TimeUnit.SECONDS).getMessage());
+        assertEquals("Baixa realizada", resultados.get(1).get(5, TimeUnit.SECONDS).getMessage());
+        assertEquals(7, resultados.get(2).get(5, TimeUnit.SECONDS).getEstoqueAtual());
+        assertEquals(2, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveAssociarItensDoMesmoProdutoPeloIndice() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 207,
+                "{\"sucesso\":[{\"indice\":0,\"id\":1,\"estoqueAtual\":2}],"
+                        + "\"erros\":[{\"indice\":1,\"id\":1,\"message\":\"Estoque insuficiente\"}]}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 3), new BaixaEstoqueRequest(1L, 5));
+
+        BaixaEstoqueResponse primeira = resultados.get(0).get(5, TimeUnit.SECONDS);
+        BaixaEstoqueResponse segunda = resultados.get(1).get(5, TimeUnit.SECONDS);
+        assertEquals(2, primeira.getEstoqueAtual());
+        assertTrue(primeira.getSucesso());
+        assertEquals("Estoque insuficiente", segunda.getMessage());
+        assertFalse(segunda.getSucesso());
+    }
+
+    @Test
+    void deveFalharLoteInteiroQuandoFaltaItemNaResposta() {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 207, "{\"sucesso\":[{\"id\":1,\"estoqueAtual\":9}],\"erros\":[]}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2));
+
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(0)));
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(1)));
+        assertEquals(1L, batcher.snapshot().get("lotesInconsistentes"));
+    }
+
+    @Test
+    void deveFalharLoteInteiroQuandoRespostaTrazProdutoNaoEnviado() {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 207,
+                "{\"sucesso\":[{\"id\":1,\"estoqueAtual\":9},{\"id\":2,\"estoqueAtual\":4}],"
+                        + "\"erros\":[{\"id\":99,\"erro\":\"Produto não encontrado\"}]}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2));
+
+        IOException erro = assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(0)));
+        assertTrue(erro.getMessage().contains("99"));
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(1)));
+    }
+
+    @Test
+    void deveFalharLoteInteiroQuandoRespostaForaDoContrato() {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 207, "{\"sucesso\":\"todos\"}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2));
+
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(0)));
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(1)));
+    }
+
+    @Test
+    void deveRecusarLoteInteiroComMensagemGeralDeErro() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 400, "{\"message\":\"Requisição inválida\"}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2));
+
+        BaixaEstoqueResponse primeira = resultados.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals("Requisição inválida", primeira.getMessage());
+        assertFalse(primeira.getSucesso());
+        assertEquals("Requisição inválida", resultados.get(1).get(5, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    void deveEnviarImediatamenteBaixaUnicaSemEsperarJanela() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":4,\"quantidadeSolicitada\":1}");
+
+        BaixaEstoqueResponse response = batcher.enfileirar(1L, 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, response.getEstoqueAtual());
+        assertEquals(0L, batcher.snapshot().get("lotesEnviados"));
+        assertEquals(1L, batcher.snapshot().get("chamadasIndividuais"));
+    }
+
+    @Test
+    void deveRepassarFalhaDeComunicacaoATodosOsItens() {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/baixa", 500, "{}");
+
+        List<CompletableFuture<BaixaEstoqueResponse>> resultados = enfileirar(
+                new BaixaEstoqueRequest(1L, 1), new BaixaEstoqueRequest(2L, 2));
+
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(0)));
+        assertThrows(IOException.class, () -> batcher.aguardar(resultados.get(1)));
+    }
+
+    @Test
+    void deveFalharImediatamenteAposEncerrar() {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 5000);
+        batcher.encerrar();
+
+        CompletableFuture<BaixaEstoqueResponse> resultado = batcher.enfileirar(1L, 1);
+
+        assertTrue(resultado.isCompletedExceptionally());
+        assertThrows(IOException.class, () -> batcher.aguardar(resultado));
+        assertEquals(0, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveEsgotarEsperaEEstornarBaixaConfirmadaDepois() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 50);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":4}");
+        stub.responder("POST", "/produtos/1/estorno", 200, "{\"estoqueAtual\":5}");
+        stub.atrasarProximaResposta(300);
+
+        CompletableFuture<BaixaEstoqueResponse> resultado = batcher.enfileirar(1L, 1);
+
+        assertThrows(IOException.class, () -> batcher.aguardar(resultado));
+        assertEquals(1L, batcher.snapshot().get("esperasEsgotadas"));
+
+        batcher.encerrar();
+        assertEquals(1L, batcher.snapshot().get("estornosTardios"));
+        assertEquals(2, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveEstornarComChaveDerivadaBaixaComChaveConfirmadaDepois() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 50);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":4}");
+        stub.responder("POST", "/produtos/1/estorno", 200, "{\"estoqueAtual\":5}");
+        stub.atrasarProximaResposta(300);
+
+        CompletableFuture<BaixaEstoqueResponse> resultado = batcher.enfileirarComChave(
+                List.of(new BaixaEstoqueItemRequest(1L, 1, "outbox-baixa-estoque-7"))).getFirst();
+
+        assertThrows(IOException.class, () -> batcher.aguardar(resultado));
+
+        batcher.encerrar();
+        assertEquals(1L, batcher.snapshot().get("estornosTardios"));
+        assertEquals(2, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveAguardarEnvioSemAbandonarBaixa() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, true, 60_000, 50, 50);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":4}");
+        stub.atrasarProximaResposta(300);
+
+        CompletableFuture<BaixaEstoqueResponse> resultado = batcher.enfileirarComChave(
+                List.of(new BaixaEstoqueItemRequest(1L, 1, "outbox-baixa-estoque-7"))).getFirst();
+
+        assertEquals(4, batcher.aguardarEnvio(resultado).getEstoqueAtual());
+        assertEquals(0L, batcher.snapshot().get("esperasEsgotadas"));
+        assertEquals(0L, batcher.snapshot().get("estornosTardios"));
+    }
+
+    @Test
+    void deveChamarDiretamenteQuandoDesabilitado() throws Exception {
+        batcher = new BaixaEstoqueBatcher(produtoService, false, 60_000, 50, 5000);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":4}");
+
+        CompletableFuture<BaixaEstoqueResponse> resultado = batcher.enfileirar(1L, 1);
+
+        assertTrue(resultado.isDone());
+        assertEquals(4, resultado.get().getEstoqueAtual());
+    }
+}
@@ -0,0 +1,171 @@
+package com.testevr.testejava.venda.external.domain.service;
+
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+import com.testevr.testejava.shared.infra.resilience.Bulkhead;
+import com.testevr.testejava.shared.infra.resilience.CircuitBreaker;
+import com.testevr.testejava.shared.infra.resilience.HedgingPolicy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stub local da API de produtos para testes, servindo respostas fixas por rota
+ * e registrando quantas conexões TCP distintas foram abertas pelos clientes.
+ * Opcionalmente simula o custo de estabelecer uma conexão nova (handshake TCP/TLS numa rede real),
+ * atrasando a primeira requisição de cada conexão.
+ */
+class ProdutoApiStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latenciaNovaConexaoMs;
+    private final Map<String, Resposta> respostas = new ConcurrentHashMap<>();
+    private final Set<Integer> portasClientes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requisicoes = new AtomicInteger();
+    private final AtomicLong atrasoProximaRespostaMs = new AtomicLong();
+    private final AtomicReference<CountDownLatch> simultaneas = new AtomicReference<>();
+    private volatile long atrasoRespostaMs;
+
+    record Resposta(int status, String corpo) {}
+
+    static {
+        // Sem TCP_NODELAY o servidor embutido segura o corpo da resposta até o ACK dos cabeçalhos,
+        // o que soma ~40 ms por requisição, deixa os testes de timeout e hedging instáveis e esconde
+        // a diferença medida no benchmark.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    ProdutoApiStub() throws IOException {
+        this(0);
+    }
+
+    ProdutoApiStub(long latenciaNovaConexaoMs) throws IOException {
+        this.latenciaNovaConexaoMs = latenciaNovaConexaoMs;
+        executor = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::atender);
+        server.start();
+    }
+
+    void responder(String metodo, String caminho, int status, String corpo) {
+        respostas.put(metodo + " " + caminho, new Resposta(status, corpo));
+    }
+
+    void atrasarRespostas(long atrasoMs) {
+        this.atrasoRespostaMs = atrasoMs;
+    }
+
+    /**
+     * Atrasa apenas a próxima requisição recebida, simulando uma resposta lenta isolada.
+     */
+    void atrasarProximaResposta(long atrasoMs) {
+        this.atrasoProximaRespostaMs.set(atrasoMs);
+    }
+
+    /**
+     * Segura as próximas requisições até que a quantidade informada esteja em andamento ao
+     * mesmo tempo. Se elas não se sobrepuserem em até 5 segundos, cada uma recebe 503.
+     */
+    void exigirRequisicoesSimultaneas(int quantidade) {
+        simultaneas.set(new CountDownLatch(quantidade));
+    }
+
+    /**
+     * Cria um ProdutoService apontando para este stub, sem cache e com
+     * sem hedging e com circuit breaker e bulkhead que não interferem nas chamadas.
+     */
+    ProdutoService criarProdutoService() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        return new ProdutoService(httpClient,
+                new LocalCache<>("produtoCache", 0, Duration.ZERO),
+                new CircuitBreaker("produtoCircuitBreaker", 100, 100, 100, Duration.ofMinutes(1), 100, Duration.ZERO, 1),
+                new Bulkhead("produtoBulkhead", 1000, Duration.ZERO),
+                new HedgingPolicy("produtoHedging", false, 95, Duration.ZERO, 0, 1, 1),
+                getUrl(), 5000, 5000, 10000);
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int getConexoesAbertas() {
+        return portasClientes.size();
+    }
+
+    int getRequisicoes() {
+        return requisicoes.get();
+    }
+
+    private void atender(HttpExchange exchange) throws IOException {
+        requisicoes.incrementAndGet();
+        boolean conexaoNova = portasClientes.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+
+        CountDownLatch barreira = simultaneas.get();
+        if (barreira != null) {
+            barreira.countDown();
+            if (!aguardar(barreira)) {
+                responder(exchange, new Resposta(503, "{\"message\":\"Requisições não simultâneas\"}"));
+                return;
+            }
+        }
+
+        long atraso = atrasoRespostaMs + atrasoProximaRespostaMs.getAndSet(0)
+                + (conexaoNova ? latenciaNovaConexaoMs : 0);
+        if (atraso > 0) {
+            try {
+                Thread.sleep(atraso);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        responder(exchange, respostas.getOrDefault(
+                exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(),
+                new Resposta(404, "{\"message\":\"Rota não encontrada\"}")));
+    }
+
+    private boolean aguardar(CountDownLatch barreira) {
+        try {
+            return barreira.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void responder(HttpExchange exchange, Resposta resposta) throws IOException {
+        byte[] corpo = resposta.corpo().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(resposta.status(), corpo.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(corpo);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
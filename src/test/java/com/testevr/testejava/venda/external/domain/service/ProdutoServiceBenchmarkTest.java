@@ -0,0 +1,75 @@
+package com.testevr.testejava.venda.external.domain.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara a latência de buscarProdutoPorId com o cliente HTTP compartilhado
+ * contra o modelo anterior (uma HttpURLConnection aberta e fechada a cada chamada,
+ * pagando o handshake TCP em toda requisição).
+ * Em localhost o handshake é quase gratuito, então o stub simula o custo de uma conexão nova
+ * com a latência de ida e volta típica de uma rede local.
+ * Executado apenas pela task "benchmark": ./gradlew benchmark
+ */
+@Tag("benchmark")
+class ProdutoServiceBenchmarkTest {
+
+    private static final int AQUECIMENTO = 100;
+    private static final int ITERACOES = 1000;
+    private static final long LATENCIA_NOVA_CONEXAO_MS = 1;
+
+    @Test
+    void clienteCompartilhadoDeveSerMaisRapidoQueConexaoPorChamada() throws Exception {
+        try (ProdutoApiStub stub = new ProdutoApiStub(LATENCIA_NOVA_CONEXAO_MS)) {
+            stub.responder("GET", "/produtos/1", 200, "{\"id\":1,\"descricao\":\"Produto 1\",\"estoque\":10}");
+
+            ProdutoService produtoService = stub.criarProdutoService();
+            String url = stub.getUrl() + "/produtos/1";
+
+            for (int i = 0; i < AQUECIMENTO; i++) {
+                produtoService.buscarProdutoPorId(1L);
+                buscarComConexaoPorChamada(url);
+            }
+
+            long inicio = System.nanoTime();
+            for (int i = 0; i < ITERACOES; i++) {
+                buscarComConexaoPorChamada(url);
+            }
+            double conexaoPorChamadaUs = (System.nanoTime() - inicio) / 1000.0 / ITERACOES;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < ITERACOES; i++) {
+                produtoService.buscarProdutoPorId(1L);
+            }
+            double clienteCompartilhadoUs = (System.nanoTime() - inicio) / 1000.0 / ITERACOES;
+
+            System.out.printf("Conexão por chamada: %.1f us/req | cliente compartilhado: %.1f us/req | conexões abertas: %d%n",
+                    conexaoPorChamadaUs, clienteCompartilhadoUs, stub.getConexoesAbertas());
+
+            assertTrue(clienteCompartilhadoUs < conexaoPorChamadaUs);
+        }
+    }
+
+    private void buscarComConexaoPorChamada(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Connection", "close");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(5000);
+            try (InputStream in = connection.getInputStream()) {
+                in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
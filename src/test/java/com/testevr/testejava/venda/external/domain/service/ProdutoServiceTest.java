@@ -0,0 +1,359 @@
+package com.testevr.testejava.venda.external.domain.service;
+
+import com.testevr.testejava.shared.infra.cache.LocalCache;
+import com.testevr.testejava.shared.infra.resilience.Bulkhead;
+import com.testevr.testejava.shared.infra.resilience.CircuitBreaker;
+import com.testevr.testejava.shared.infra.resilience.HedgingPolicy;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueRequest;
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProdutoServiceTest {
+
+    private static final String PRODUTO_JSON = "{\"id\":1,\"descricao\":\"Produto 1\",\"estoque\":10,"
+            + "\"preco\":9.9,\"unidade\":\"UN\",\"ultimaAtualizacao\":\"2024-01-01T10:00:00\"}";
+
+    private ProdutoApiStub stub;
+    private LocalCache<Long, ProdutoDto> produtoCache;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private HedgingPolicy hedgingPolicy;
+    private ProdutoService produtoService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new ProdutoApiStub();
+        produtoCache = new LocalCache<>("produtoCache", 100, Duration.ofMinutes(1));
+        circuitBreaker = new CircuitBreaker("produtoCircuitBreaker", 4, 4, 50,
+                Duration.ofSeconds(10), 100, Duration.ofMinutes(1), 1);
+        bulkhead = new Bulkhead("produtoBulkhead", 2, Duration.ZERO);
+        hedgingPolicy = new HedgingPolicy("produtoHedging", false, 95, Duration.ofMillis(20), 10, 100, 20);
+        produtoService = criarProdutoService(produtoCache);
+    }
+
+    private ProdutoService criarProdutoService(LocalCache<Long, ProdutoDto> cache) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        return new ProdutoService(httpClient, cache, circuitBreaker, bulkhead, hedgingPolicy,
+                stub.getUrl(), 2000, 2000, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void deveBuscarProdutoPorId() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+
+        ProdutoDto produto = produtoService.buscarProdutoPorId(1L);
+
+        assertNotNull(produto);
+        assertEquals(1L, produto.getId());
+        assertEquals(10, produto.getEstoque());
+    }
+
+    @Test
+    void deveRetornarNullQuandoProdutoNaoEncontrado() throws IOException {
+        assertNull(produtoService.buscarProdutoPorId(99L));
+    }
+
+    @Test
+    void deveLancarIOExceptionQuandoApiRetornaErro() {
+        stub.responder("GET", "/produtos/1", 500, "{}");
+
+        assertThrows(IOException.class, () -> produtoService.buscarProdutoPorId(1L));
+    }
+
+    @Test
+    void deveRealizarBaixaEstoque() throws IOException {
+        stub.responder("POST", "/produtos/1/baixa", 200,
+                "{\"message\":\"ok\",\"estoqueAtual\":7,\"quantidadeSolicitada\":3}");
+
+        BaixaEstoqueResponse response = produtoService.realizarBaixaEstoque(1L, 3);
+
+        assertEquals(7, response.getEstoqueAtual());
+        assertEquals(3, response.getQuantidadeSolicitada());
+    }
+
+    @Test
+    void deveRetornarMensagemQuandoBaixaRecusada() throws IOException {
+        stub.responder("POST", "/produtos/1/baixa", 400, "{\"message\":\"Estoque insuficiente\"}");
+
+        BaixaEstoqueResponse response = produtoService.realizarBaixaEstoque(1L, 300);
+
+        assertEquals("Estoque insuficiente", response.getMessage());
+        assertNull(response.getEstoqueAtual());
+        assertFalse(response.getSucesso());
+    }
+
+    @Test
+    void deveRetornarMapaQuandoBaixaEmLoteParcial() throws IOException {
+        stub.responder("POST", "/produtos/baixa", 207, "{\"sucesso\":[],\"erros\":[]}");
+
+        Object response = produtoService.realizarBaixaEstoqueEmLote(List.of(new BaixaEstoqueRequest()));
+
+        assertInstanceOf(Map.class, response);
+    }
+
+    @Test
+    void deveServirSegundaBuscaDoCache() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+
+        ProdutoDto primeira = produtoService.buscarProdutoPorId(1L);
+        primeira.setEstoque(0);
+        ProdutoDto segunda = produtoService.buscarProdutoPorId(1L);
+
+        assertEquals(1, stub.getRequisicoes());
+        assertEquals(10, segunda.getEstoque());
+        assertEquals(1L, produtoCache.snapshot().get("acertos"));
+    }
+
+    @Test
+    void deveAtualizarEstoqueEmCacheAposBaixa() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":7,\"quantidadeSolicitada\":3}");
+
+        produtoService.buscarProdutoPorId(1L);
+        produtoService.realizarBaixaEstoque(1L, 3);
+        ProdutoDto produto = produtoService.buscarProdutoPorId(1L);
+
+        assertEquals(2, stub.getRequisicoes());
+        assertEquals(7, produto.getEstoque());
+    }
+
+    @Test
+    void deveEstornarBaixaEAtualizarEstoqueEmCache() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.responder("POST", "/produtos/1/estorno", 200, "{\"estoqueAtual\":13,\"quantidadeSolicitada\":3}");
+        produtoService.buscarProdutoPorId(1L);
+
+        BaixaEstoqueResponse response = produtoService.estornarBaixaEstoque(1L, 3);
+
+        assertEquals(13, response.getEstoqueAtual());
+        assertEquals(13, produtoService.buscarProdutoPorId(1L).getEstoque());
+        assertEquals(2, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveInvalidarCacheQuandoBaixaRecusada() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.responder("POST", "/produtos/1/baixa", 400, "{\"message\":\"Estoque insuficiente\"}");
+
+        produtoService.buscarProdutoPorId(1L);
+        produtoService.realizarBaixaEstoque(1L, 300);
+        produtoService.buscarProdutoPorId(1L);
+
+        assertEquals(3, stub.getRequisicoes());
+    }
+
+    @Test
+    void deveInvalidarCacheDosProdutosDoLote() throws IOException {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.responder("POST", "/produtos/baixa", 207, "{\"sucesso\":[],\"erros\":[]}");
+
+        produtoService.buscarProdutoPorId(1L);
+        produtoService.realizarBaixaEstoqueEmLote(List.of(new BaixaEstoqueRequest(1L, 2)));
+
+        assertEquals(0, produtoCache.tamanho());
+    }
+
+    @Test
+    void deveCompartilharBuscaConcorrenteMesmoSemCache() throws Exception {
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.atrasarRespostas(300);
+
+        List<Future<ProdutoDto>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                resultados.add(executor.submit(() -> produtoService.buscarProdutoPorId(1L)));
+            }
+            for (Future<ProdutoDto> resultado : resultados) {
+                assertEquals(10, resultado.get(5, TimeUnit.SECONDS).getEstoque());
+            }
+        }
+
+        assertEquals(1, stub.getRequisicoes());
+        assertNotSame(resultados.get(0).get(), resultados.get(1).get());
+    }
+
+    @Test
+    void deveAbrirCircuitoAposFalhasEFalharSemChamarApi() throws IOException {
+        stub.responder("POST", "/produtos/1/baixa", 503, "{}");
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> produtoService.realizarBaixaEstoque(1L, 1));
+        }
+        IOException erro = assertThrows(IOException.class, () -> produtoService.buscarProdutoPorId(1L));
+
+        assertEquals(4, stub.getRequisicoes());
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuitBreaker.getEstado());
+        assertTrue(erro.getMessage().contains("aberto"));
+    }
+
+    @Test
+    void deveRejeitarChamadasAlemDoLimiteDoBulkhead() throws Exception {
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":9}");
+        stub.atrasarRespostas(500);
+
+        List<Future<BaixaEstoqueResponse>> resultados = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                resultados.add(executor.submit(() -> produtoService.realizarBaixaEstoque(1L, 1)));
+            }
+
+            int rejeitadas = 0;
+            for (Future<BaixaEstoqueResponse> resultado : resultados) {
+                try {
+                    resultado.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IOException.class, e.getCause());
+                    rejeitadas++;
+                }
+            }
+            assertEquals(2, rejeitadas);
+        }
+
+        assertEquals(2, stub.getRequisicoes());
+        assertEquals(2L, bulkhead.snapshot().get("rejeitadas"));
+    }
+
+    @Test
+    void deveReutilizarConexaoEntreRequisicoes() throws IOException {
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, "{\"id\":1,\"estoque\":10}");
+        stub.responder("POST", "/produtos/1/baixa", 200, "{\"estoqueAtual\":9}");
+
+        for (int i = 0; i < 20; i++) {
+            produtoService.buscarProdutoPorId(1L);
+            produtoService.realizarBaixaEstoque(1L, 1);
+        }
+
+        assertEquals(40, stub.getRequisicoes());
+        assertEquals(1, stub.getConexoesAbertas());
+    }
+
+    @Test
+    void deveEnviarTentativaExtraQuandoBuscaDemora() throws IOException {
+        hedgingPolicy = new HedgingPolicy("produtoHedging", true, 95, Duration.ofMillis(50), 100, 10, 1);
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        produtoService.buscarProdutoPorId(1L);
+
+        stub.atrasarProximaResposta(2000);
+        ProdutoDto produto = produtoService.buscarProdutoPorId(1L);
+
+        assertNotNull(produto);
+        assertEquals(3, stub.getRequisicoes());
+        assertEquals(1L, hedgingPolicy.snapshot().get("hedgesEnviados"));
+        assertEquals(1L, hedgingPolicy.snapshot().get("hedgesVencedores"));
+    }
+
+    @Test
+    void naoDeveEnviarTentativaExtraSemOrcamento() throws IOException {
+        hedgingPolicy = new HedgingPolicy("produtoHedging", true, 95, Duration.ofMillis(50), 0, 10, 1);
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        produtoService.buscarProdutoPorId(1L);
+
+        stub.atrasarProximaResposta(300);
+        assertNotNull(produtoService.buscarProdutoPorId(1L));
+
+        assertEquals(2, stub.getRequisicoes());
+        assertEquals(1L, hedgingPolicy.snapshot().get("hedgesNegadosPorOrcamento"));
+    }
+
+    @Test
+    void naoDeveEnviarTentativaExtraSemVagaNoBulkhead() throws IOException {
+        bulkhead = new Bulkhead("produtoBulkhead", 1, Duration.ZERO);
+        hedgingPolicy = new HedgingPolicy("produtoHedging", true, 95, Duration.ofMillis(50), 100, 10, 1);
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        produtoService.buscarProdutoPorId(1L);
+
+        stub.atrasarProximaResposta(300);
+        assertNotNull(produtoService.buscarProdutoPorId(1L));
+
+        assertEquals(2, stub.getRequisicoes());
+        assertEquals(0L, hedgingPolicy.snapshot().get("hedgesEnviados"));
+        assertEquals(1L, hedgingPolicy.snapshot().get("hedgesNegadosPorBulkhead"));
+        assertEquals(0, bulkhead.snapshot().get("emUso"));
+    }
+
+    @Test
+    void deveDevolverVagaDaTentativaExtraAoTerminar() throws IOException {
+        hedgingPolicy = new HedgingPolicy("produtoHedging", true, 95, Duration.ofMillis(50), 100, 10, 1);
+        produtoService = criarProdutoService(new LocalCache<>("produtoCache", 0, Duration.ZERO));
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        produtoService.buscarProdutoPorId(1L);
+
+        stub.atrasarProximaResposta(300);
+        assertNotNull(produtoService.buscarProdutoPorId(1L));
+
+        assertEquals(1L, hedgingPolicy.snapshot().get("hedgesEnviados"));
+        assertEquals(0, bulkhead.snapshot().get("emUso"));
+    }
+
+    @Test
+    void deveRegistrarLatenciaDeTentativaQueFalha() throws IOException {
+        hedgingPolicy = new HedgingPolicy("produtoHedging", true, 95, Duration.ofMillis(50), 100, 10, 1);
+        String urlSemServidor;
+        try (ProdutoApiStub desligado = new ProdutoApiStub()) {
+            urlSemServidor = desligado.getUrl();
+        }
+        produtoService = new ProdutoService(HttpClient.newHttpClient(),
+                new LocalCache<>("produtoCache", 0, Duration.ZERO), circuitBreaker, bulkhead, hedgingPolicy,
+                urlSemServidor, 2000, 2000, 2000);
+
+        assertThrows(IOException.class, () -> produtoService.buscarProdutoPorId(1L));
+
+        assertNotNull(hedgingPolicy.snapshot().get("atrasoAtualMs"));
+    }
+
+    @Test
+    void deveExecutarBuscasAssincronasEmParalelo() {
+        stub.responder("GET", "/produtos/1", 200, PRODUTO_JSON);
+        stub.responder("GET", "/produtos/2", 200, PRODUTO_JSON.replace("\"id\":1", "\"id\":2"));
+        stub.exigirRequisicoesSimultaneas(2);
+
+        CompletableFuture<ProdutoDto> primeira = produtoService.buscarProdutoPorIdAsync(1L);
+        CompletableFuture<ProdutoDto> segunda = produtoService.buscarProdutoPorIdAsync(2L);
+
+        assertEquals(1L, primeira.join().getId());
+        assertEquals(2L, segunda.join().getId());
+    }
+
+    @Test
+    void deveCompletarBuscaAssincronaComIOExceptionQuandoApiFalha() {
+        stub.responder("GET", "/produtos/1", 500, "{}");
+
+        CompletionException erro = assertThrows(CompletionException.class,
+                () -> produtoService.buscarProdutoPorIdAsync(1L).join());
+
+        assertInstanceOf(IOException.class, erro.getCause());
+    }
+}
@@ -0,0 +1,33 @@
+package com.testevr.testejava.venda.internal.application.mapper;
+
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VendaExportMapperTest {
+
+    private final VendaExportMapper mapper = new VendaExportMapper();
+    private final LocalDateTime data = LocalDateTime.of(2025, 3, 1, 10, 0, 0);
+    private final Venda venda = new Venda(1L, 2L, 3L, new ValorVenda(new BigDecimal("10.50")), 4,
+            StatusVenda.CONCLUIDA, data, data);
+
+    @Test
+    void testToCsv() {
+        assertEquals("1,2,3,10.50,4,CONCLUIDA,2025-03-01T10:00,2025-03-01T10:00\n", mapper.toCsv(venda));
+    }
+
+    @Test
+    void testToNdjson() {
+        String linha = mapper.toNdjson(venda);
+        assertTrue(linha.endsWith("\n"));
+        assertEquals(1, linha.split("\n").length);
+        assertTrue(linha.startsWith("{\"id\":1,\"clienteId\":2,\"produtoId\":3,\"valor\":10.50"));
+        assertTrue(linha.contains("\"status\":\"CONCLUIDA\""));
+    }
+}
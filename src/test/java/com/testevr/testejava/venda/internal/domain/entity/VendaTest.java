@@ -122,6 +122,20 @@ class VendaTest {
         assertEquals(updatedAt, vendaAtualizada.getUpdatedAt());
     }
 
+    @Test
+    void devePreservarVersaoAoAtualizarStatusEId() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        Venda venda = new Venda(100L, 1L, 2L, valorVenda, 3, StatusVenda.PENDENTE, createdAt, updatedAt, 7L);
+
+        assertEquals(7L, venda.getVersao());
+        assertEquals(7L, venda.atualizarStatus(StatusVenda.SUCESSO).getVersao());
+        assertEquals(7L, venda.atualizarId(200L).getVersao());
+        assertEquals(8L, venda.atualizarVersao(8L).getVersao());
+        assertNull(new Venda(100L, 1L, 2L, valorVenda, 3).getVersao());
+    }
+
     @Test
     void deveCompararVendasPeloId() {
         Venda venda1 = new Venda(100L, 1L, 2L, valorVenda, 3);
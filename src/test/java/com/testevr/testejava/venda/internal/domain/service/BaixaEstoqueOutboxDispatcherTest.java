@@ -0,0 +1,164 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import com.testevr.testejava.venda.external.domain.service.BaixaEstoqueBatcher;
+import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.domain.entity.BaixaEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.BaixaEstoqueOutboxRepository;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ExtendWith(MockitoExtension.class)
+class BaixaEstoqueOutboxDispatcherTest {
+
+    @Mock
+    private BaixaEstoqueOutboxRepository outboxRepository;
+
+    @Mock
+    private VendaRepository vendaRepository;
+
+    @Mock
+    private ProdutoService produtoService;
+
+    @Mock
+    private ValorVenda valorVenda;
+
+    private BaixaEstoqueOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new BaixaEstoqueOutboxDispatcher(outboxRepository, vendaRepository,
+                new BaixaEstoqueBatcher(produtoService, false, 0, 1, 1000),
+                TransactionOperations.withoutTransaction(), true, 10, 60000, 3, 1000, 5000);
+    }
+
+    @Test
+    void deveRemoverDoOutboxBaixaConfirmada() throws Exception {
+        BaixaEstoqueResponse confirmada = new BaixaEstoqueResponse("sucesso");
+        confirmada.setSucesso(true);
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new BaixaEstoquePendente(1L, 20L, 100L, 5, 0)));
+        when(produtoService.realizarBaixaEstoque(100L, 5, "outbox-baixa-estoque-1")).thenReturn(confirmada);
+
+        assertEquals(1, dispatcher.despacharLote());
+
+        verify(outboxRepository).remover(List.of(1L));
+        verify(outboxRepository, never()).reagendar(any(), any(), any());
+        verify(vendaRepository, never()).update(any());
+    }
+
+    @Test
+    void deveMarcarVendaComErroQuandoBaixaRecusada() throws Exception {
+        BaixaEstoqueResponse recusada = new BaixaEstoqueResponse("Estoque insuficiente");
+        recusada.setSucesso(false);
+        Venda venda = new Venda(20L, 1L, 100L, valorVenda, 5, StatusVenda.CONCLUIDA);
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new BaixaEstoquePendente(1L, 20L, 100L, 5, 0)));
+        when(produtoService.realizarBaixaEstoque(100L, 5, "outbox-baixa-estoque-1")).thenReturn(recusada);
+        when(vendaRepository.findById(20L)).thenReturn(venda);
+
+        dispatcher.despacharLote();
+
+        ArgumentCaptor<Venda> atualizada = ArgumentCaptor.forClass(Venda.class);
+        verify(vendaRepository).update(atualizada.capture());
+        assertEquals(StatusVenda.ERRO, atualizada.getValue().getStatus());
+        verify(outboxRepository).remover(List.of(1L));
+    }
+
+    @Test
+    void deveReagendarBaixaQuandoApiIndisponivel() throws Exception {
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new BaixaEstoquePendente(1L, 20L, 100L, 5, 1)));
+        when(produtoService.realizarBaixaEstoque(100L, 5, "outbox-baixa-estoque-1")).thenThrow(new IOException("Erro de conexão"));
+
+        dispatcher.despacharLote();
+
+        verify(outboxRepository).reagendar(1L, Duration.ofMillis(2000), "Erro de conexão");
+        verify(outboxRepository).remover(List.of());
+        verify(vendaRepository, never()).update(any());
+    }
+
+    @Test
+    void deveMarcarVendaComErroQuandoTentativasEsgotam() throws Exception {
+        Venda venda = new Venda(20L, 1L, 100L, valorVenda, 5, StatusVenda.CONCLUIDA);
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new BaixaEstoquePendente(1L, 20L, 100L, 5, 2)));
+        when(produtoService.realizarBaixaEstoque(100L, 5, "outbox-baixa-estoque-1")).thenThrow(new IOException("Erro de conexão"));
+        when(vendaRepository.findById(20L)).thenReturn(venda);
+
+        dispatcher.despacharLote();
+
+        verify(outboxRepository, never()).reagendar(any(), any(), any());
+        verify(vendaRepository).update(any(Venda.class));
+        verify(outboxRepository).remover(List.of(1L));
+    }
+
+    @Test
+    void deveEnviarBaixaForaDaTransacaoDeReserva() throws Exception {
+        AtomicBoolean emTransacao = new AtomicBoolean();
+        AtomicInteger transacoes = new AtomicInteger();
+        TransactionOperations transacaoObservada = callback -> {
+            transacoes.incrementAndGet();
+            emTransacao.set(true);
+            try {
+                return callback.doInTransaction(null);
+            } finally {
+                emTransacao.set(false);
+            }
+        };
+        dispatcher = new BaixaEstoqueOutboxDispatcher(outboxRepository, vendaRepository,
+                new BaixaEstoqueBatcher(produtoService, false, 0, 1, 1000),
+                transacaoObservada, true, 10, 60000, 3, 1000, 5000);
+        BaixaEstoqueResponse confirmada = new BaixaEstoqueResponse("sucesso");
+        confirmada.setSucesso(true);
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new BaixaEstoquePendente(1L, 20L, 100L, 5, 0)));
+        when(produtoService.realizarBaixaEstoque(100L, 5, "outbox-baixa-estoque-1")).thenAnswer(invocacao -> {
+            assertFalse(emTransacao.get());
+            return confirmada;
+        });
+
+        dispatcher.despacharLote();
+
+        assertEquals(2, transacoes.get());
+        verify(outboxRepository).remover(List.of(1L));
+    }
+
+    @Test
+    void naoDeveFazerNadaQuandoOutboxVazio() {
+        when(outboxRepository.reservarPendentes(10, Duration.ofMillis(60000))).thenReturn(List.of());
+
+        dispatcher.despacharPendentes();
+
+        verify(outboxRepository, never()).remover(any());
+        verifyNoInteractions(produtoService);
+    }
+
+    @Test
+    void deveDobrarEsperaAteOMaximo() {
+        assertEquals(Duration.ofMillis(1000), dispatcher.calcularEspera(0));
+        assertEquals(Duration.ofMillis(4000), dispatcher.calcularEspera(2));
+        assertEquals(Duration.ofMillis(5000), dispatcher.calcularEspera(3));
+        assertEquals(Duration.ofMillis(5000), dispatcher.calcularEspera(40));
+    }
+}
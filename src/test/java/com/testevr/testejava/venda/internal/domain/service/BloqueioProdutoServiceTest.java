@@ -0,0 +1,89 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BloqueioProdutoServiceTest {
+
+    @Test
+    void deveDescontarReservasEmAndamento() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 16, 1000);
+        BloqueioProdutoService.Leitura primeira = bloqueio.iniciarLeitura(100L);
+        BloqueioProdutoService.Leitura segunda = bloqueio.iniciarLeitura(100L);
+
+        assertEquals(7, bloqueio.reservar(primeira, 10, 7));
+        assertEquals(3, bloqueio.reservar(segunda, 10, 7));
+        assertEquals(1, bloqueio.snapshot().get("produtosReservados"));
+    }
+
+    @Test
+    void deveDescontarBaixaConcluidaDepoisDaLeitura() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 16, 1000);
+        BloqueioProdutoService.Leitura lenta = bloqueio.iniciarLeitura(100L);
+
+        BloqueioProdutoService.Leitura rapida = bloqueio.iniciarLeitura(100L);
+        assertEquals(4, bloqueio.reservar(rapida, 10, 4));
+        bloqueio.liberar(100L, 4, true);
+
+        assertEquals(6, bloqueio.reservar(lenta, 10, 10));
+    }
+
+    @Test
+    void naoDeveDescontarBaixaConcluidaAntesDaLeitura() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 16, 1000);
+        BloqueioProdutoService.Leitura anterior = bloqueio.iniciarLeitura(100L);
+        assertEquals(4, bloqueio.reservar(anterior, 10, 4));
+        bloqueio.liberar(100L, 4, true);
+
+        BloqueioProdutoService.Leitura posterior = bloqueio.iniciarLeitura(100L);
+        assertEquals(6, bloqueio.reservar(posterior, 6, 10));
+    }
+
+    @Test
+    void deveDevolverReservaNaoBaixada() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 16, 1000);
+        BloqueioProdutoService.Leitura primeira = bloqueio.iniciarLeitura(100L);
+        assertEquals(7, bloqueio.reservar(primeira, 10, 7));
+        bloqueio.liberar(100L, 7, false);
+
+        BloqueioProdutoService.Leitura segunda = bloqueio.iniciarLeitura(100L);
+        assertEquals(10, bloqueio.reservar(segunda, 10, 10));
+        bloqueio.liberar(100L, 10, true);
+
+        assertEquals(0, bloqueio.snapshot().get("produtosReservados"));
+    }
+
+    @Test
+    void naoDeveDescontarReservasDeOutroProduto() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 1, 1000);
+        BloqueioProdutoService.Leitura produto100 = bloqueio.iniciarLeitura(100L);
+        BloqueioProdutoService.Leitura produto200 = bloqueio.iniciarLeitura(200L);
+
+        assertEquals(10, bloqueio.reservar(produto100, 10, 10));
+        assertEquals(10, bloqueio.reservar(produto200, 10, 10));
+    }
+
+    @Test
+    void deveEncerrarLeituraSemReservar() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(true, 16, 1000);
+        BloqueioProdutoService.Leitura leitura = bloqueio.iniciarLeitura(100L);
+
+        bloqueio.encerrar(leitura);
+        bloqueio.encerrar(leitura);
+
+        assertEquals(0, bloqueio.snapshot().get("produtosReservados"));
+        assertThrows(IllegalStateException.class, () -> bloqueio.reservar(leitura, 10, 1));
+    }
+
+    @Test
+    void naoDeveReservarQuandoDesabilitado() {
+        BloqueioProdutoService bloqueio = new BloqueioProdutoService(false, 16, 1000);
+        BloqueioProdutoService.Leitura primeira = bloqueio.iniciarLeitura(100L);
+        BloqueioProdutoService.Leitura segunda = bloqueio.iniciarLeitura(100L);
+
+        assertEquals(7, bloqueio.reservar(primeira, 10, 7));
+        assertEquals(7, bloqueio.reservar(segunda, 10, 7));
+        assertEquals(0L, bloqueio.snapshot().get("aquisicoes"));
+    }
+}
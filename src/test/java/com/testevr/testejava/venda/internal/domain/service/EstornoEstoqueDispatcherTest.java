@@ -0,0 +1,89 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
+import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.domain.entity.EstornoEstoquePendente;
+import com.testevr.testejava.venda.internal.domain.repository.EstornoEstoqueRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class EstornoEstoqueDispatcherTest {
+
+    @Mock
+    private EstornoEstoqueRepository estornoRepository;
+
+    @Mock
+    private ProdutoService produtoService;
+
+    private EstornoEstoqueDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new EstornoEstoqueDispatcher(estornoRepository, produtoService, true, 10, 60000, 1000, 5000);
+    }
+
+    @Test
+    void deveRemoverEstornoConfirmado() throws Exception {
+        BaixaEstoqueResponse confirmado = new BaixaEstoqueResponse("estornado");
+        confirmado.setSucesso(true);
+        when(estornoRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new EstornoEstoquePendente(1L, 100L, 5, 0, "estorno-estoque-abc")));
+        when(produtoService.estornarBaixaEstoque(100L, 5, "estorno-estoque-abc")).thenReturn(confirmado);
+
+        assertEquals(1, dispatcher.reenviarLote());
+
+        verify(estornoRepository).remover(1L);
+        verify(estornoRepository, never()).reagendar(any(), any(), any());
+    }
+
+    @Test
+    void deveReagendarEstornoQuandoApiFalha() throws Exception {
+        when(estornoRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new EstornoEstoquePendente(1L, 100L, 5, 2, "estorno-estoque-abc")));
+        when(produtoService.estornarBaixaEstoque(100L, 5, "estorno-estoque-abc")).thenThrow(new IOException("Timeout"));
+
+        dispatcher.reenviarLote();
+
+        verify(estornoRepository).reagendar(1L, Duration.ofMillis(4000), "Timeout");
+        verify(estornoRepository, never()).remover(any());
+    }
+
+    @Test
+    void deveReenviarEstornoSemChaveComChaveDerivadaDoId() throws Exception {
+        BaixaEstoqueResponse confirmado = new BaixaEstoqueResponse("estornado");
+        confirmado.setSucesso(true);
+        when(estornoRepository.reservarPendentes(10, Duration.ofMillis(60000)))
+                .thenReturn(List.of(new EstornoEstoquePendente(7L, 100L, 5, 1, null)));
+        when(produtoService.estornarBaixaEstoque(100L, 5, "estorno-estoque-7")).thenReturn(confirmado);
+
+        dispatcher.reenviarLote();
+
+        verify(estornoRepository).remover(7L);
+    }
+
+    @Test
+    void deveGuardarEstornoQueFalhou() {
+        dispatcher.registrarFalha(100L, 5, "estorno-estoque-abc", "Timeout");
+
+        verify(estornoRepository).registrar(100L, 5, "estorno-estoque-abc", "Timeout");
+    }
+
+    @Test
+    void deveLimitarEsperaAoMaximo() {
+        assertEquals(Duration.ofMillis(1000), dispatcher.calcularEspera(0));
+        assertEquals(Duration.ofMillis(5000), dispatcher.calcularEspera(10));
+    }
+}
@@ -0,0 +1,90 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class FinalizadorVendasPendentesTest {
+
+    @Mock
+    private VendaRepository vendaRepository;
+
+    @Mock
+    private VendaService vendaService;
+
+    @Mock
+    private ValorVenda valorVenda;
+
+    private FinalizadorVendasPendentes finalizador;
+
+    @BeforeEach
+    void setUp() {
+        finalizador = new FinalizadorVendasPendentes(vendaRepository, vendaService, true, 2, 60000, 30000);
+    }
+
+    private Venda pendente(Long id) {
+        return new Venda(id, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
+    }
+
+    @Test
+    void deveFinalizarVendasReservadasEmLote() {
+        List<Venda> reservadas = List.of(pendente(1L), pendente(2L));
+        when(vendaRepository.reservarPendentes(2, Duration.ofMillis(60000), Duration.ofMillis(30000)))
+                .thenReturn(reservadas);
+        when(vendaService.finalizarPendentesEmLote(reservadas)).thenReturn(List.of(pendente(1L)));
+
+        int processadas = finalizador.finalizarLote();
+
+        assertEquals(2, processadas);
+        assertEquals(1L, finalizador.snapshot().get("finalizadas"));
+        assertEquals(1L, finalizador.snapshot().get("naoFinalizadas"));
+    }
+
+    @Test
+    void deveContarLoteComoNaoFinalizadoQuandoFinalizacaoFalha() {
+        when(vendaRepository.reservarPendentes(anyInt(), any(), any())).thenReturn(List.of(pendente(1L)));
+        when(vendaService.finalizarPendentesEmLote(anyList())).thenThrow(new RuntimeException("Erro ao atualizar vendas em lote"));
+
+        assertEquals(1, finalizador.finalizarLote());
+        assertEquals(1L, finalizador.snapshot().get("naoFinalizadas"));
+    }
+
+    @Test
+    void deveReservarNovosLotesEnquantoVieremCompletos() {
+        when(vendaRepository.reservarPendentes(anyInt(), any(), any()))
+                .thenReturn(List.of(pendente(1L), pendente(2L)))
+                .thenReturn(List.of(pendente(3L)))
+                .thenReturn(Collections.emptyList());
+        when(vendaService.finalizarPendentesEmLote(anyList())).thenReturn(Collections.emptyList());
+
+        finalizador.finalizarPendentes();
+
+        verify(vendaRepository, times(2)).reservarPendentes(anyInt(), any(), any());
+        verify(vendaService, times(2)).finalizarPendentesEmLote(anyList());
+    }
+
+    @Test
+    void naoDeveReservarQuandoDesabilitado() {
+        finalizador = new FinalizadorVendasPendentes(vendaRepository, vendaService, false, 2, 60000, 30000);
+
+        finalizador.finalizarPendentes();
+
+        verifyNoInteractions(vendaRepository, vendaService);
+    }
+}
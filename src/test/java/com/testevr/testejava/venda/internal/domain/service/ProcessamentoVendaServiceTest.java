@@ -0,0 +1,131 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.shared.infra.resilience.ChamadaRejeitadaException;
+import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
+import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
+import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessamentoVendaServiceTest {
+
+    @Mock
+    private VendaService vendaService;
+
+    @Mock
+    private VendaRepository vendaRepository;
+
+    @Mock
+    private ValorVenda valorVenda;
+
+    private ProcessamentoVendaService processamento;
+
+    @AfterEach
+    void tearDown() {
+        if (processamento != null) {
+            processamento.encerrar();
+        }
+    }
+
+    @Test
+    void deveDevolverVendaRecebidaEProcessarEmSegundoPlano() throws Exception {
+        processamento = new ProcessamentoVendaService(vendaService, vendaRepository, true, 1, 10, 60000);
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        Venda recebida = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA);
+        CountDownLatch processada = new CountDownLatch(1);
+
+        when(vendaService.registrarParaProcessamento(venda, Duration.ofMillis(60000))).thenReturn(recebida);
+        when(vendaService.processarVendaRecebida(1L)).thenAnswer(inv -> {
+            processada.countDown();
+            return recebida.atualizarStatus(StatusVenda.CONCLUIDA);
+        });
+
+        Venda resultado = processamento.receber(venda);
+
+        assertEquals(StatusVenda.RECEBIDA, resultado.getStatus());
+        assertTrue(processada.await(5, TimeUnit.SECONDS));
+        verify(vendaService, timeout(5000)).processarVendaRecebida(1L);
+    }
+
+    @Test
+    void deveRecusarVendaSemGravarQuandoFilaCheia() throws Exception {
+        processamento = new ProcessamentoVendaService(vendaService, vendaRepository, true, 1, 0, 60000);
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        when(vendaService.registrarParaProcessamento(venda, Duration.ofMillis(60000)))
+                .thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA));
+        when(vendaService.processarVendaRecebida(1L)).thenAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+
+        processamento.receber(venda);
+
+        assertThrows(ChamadaRejeitadaException.class, () -> processamento.receber(venda));
+        verify(vendaService, times(1)).registrarParaProcessamento(any(), any());
+
+        liberar.countDown();
+        verify(vendaService, timeout(5000)).processarVendaRecebida(1L);
+    }
+
+    @Test
+    void deveLiberarVagaQuandoGravacaoFalha() {
+        processamento = new ProcessamentoVendaService(vendaService, vendaRepository, true, 1, 0, 60000);
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+
+        when(vendaService.registrarParaProcessamento(venda, Duration.ofMillis(60000)))
+                .thenThrow(new RuntimeException("Erro ao gravar venda"))
+                .thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA));
+
+        assertThrows(RuntimeException.class, () -> processamento.receber(venda));
+
+        Venda resultado = processamento.receber(venda);
+        assertEquals(1L, resultado.getIdValue());
+    }
+
+    @Test
+    void deveDevolverAFilaVendasRecebidasComReservaVencida() throws Exception {
+        processamento = new ProcessamentoVendaService(vendaService, vendaRepository, true, 1, 2, 60000);
+        CountDownLatch processadas = new CountDownLatch(2);
+
+        when(vendaRepository.reservarRecebidas(3, Duration.ofMillis(60000))).thenReturn(List.of(
+                new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA),
+                new Venda(2L, 1L, 100L, valorVenda, 3, StatusVenda.RECEBIDA)));
+        when(vendaService.processarVendaRecebida(anyLong())).thenAnswer(inv -> {
+            processadas.countDown();
+            return null;
+        });
+
+        processamento.recuperarRecebidas();
+
+        assertTrue(processadas.await(5, TimeUnit.SECONDS));
+        verify(vendaService, timeout(5000)).processarVendaRecebida(1L);
+        verify(vendaService, timeout(5000)).processarVendaRecebida(2L);
+        assertEquals(2L, processamento.snapshot().get("recuperadas"));
+    }
+
+    @Test
+    void naoDeveRecuperarQuandoDesabilitado() {
+        processamento = new ProcessamentoVendaService(vendaService, vendaRepository, false, 1, 2, 60000);
+
+        processamento.recuperarRecebidas();
+
+        verifyNoInteractions(vendaRepository);
+    }
+}
@@ -0,0 +1,106 @@
+package com.testevr.testejava.venda.internal.domain.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.domain.repository.EstoqueReservaRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@ExtendWith(MockitoExtension.class)
+class ReservaEstoqueServiceTest {
+
+    private static final Duration VALIDADE = Duration.ofMillis(60000);
+
+    @Mock
+    private EstoqueReservaRepository repository;
+
+    @Mock
+    private ProdutoService produtoService;
+
+    private ReservaEstoqueService reservaEstoque;
+
+    @BeforeEach
+    void setUp() {
+        reservaEstoque = new ReservaEstoqueService(repository, produtoService, true, 60000, 10000, 2);
+    }
+
+    private ProdutoDto produto(Long id, int estoque) {
+        return new ProdutoDto(id, "Produto " + id, estoque, 50.0, "UN", LocalDateTime.now());
+    }
+
+    @Test
+    void deveReservarNoEstoqueLocalSemConsultarApi() throws Exception {
+        when(repository.reservar(100L, 5, VALIDADE)).thenReturn(5);
+
+        assertEquals(5, reservaEstoque.reservar(100L, 5));
+        verifyNoInteractions(produtoService);
+    }
+
+    @Test
+    void deveCarregarEstoqueDaApiQuandoNaoHaEntradaValida() throws Exception {
+        when(repository.reservar(100L, 5, VALIDADE)).thenReturn(null).thenReturn(3);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto(100L, 3));
+
+        assertEquals(3, reservaEstoque.reservar(100L, 5));
+        verify(repository).sincronizar(Map.of(100L, 3));
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoEstoqueLocalEsgotado() {
+        when(repository.reservar(100L, 5, VALIDADE)).thenReturn(0);
+
+        Exception exception = assertThrows(RuntimeException.class, () -> reservaEstoque.reservar(100L, 5));
+        assertTrue(exception.getMessage().contains("sem estoque"));
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoProdutoNaoExisteNaApi() throws IOException {
+        when(repository.reservar(100L, 5, VALIDADE)).thenReturn(null);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(null);
+
+        Exception exception = assertThrows(RuntimeException.class, () -> reservaEstoque.reservar(100L, 5));
+        assertTrue(exception.getMessage().contains("Produto não encontrado"));
+        verify(repository, never()).sincronizar(any());
+    }
+
+    @Test
+    void deveReconciliarLoteDeProdutosDesatualizados() {
+        when(repository.buscarDesatualizados(Duration.ofMillis(10000), 2)).thenReturn(List.of(100L, 200L));
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto(100L, 7)));
+        when(produtoService.buscarProdutoPorIdAsync(200L)).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(2, reservaEstoque.reconciliarLote());
+
+        verify(repository).sincronizar(Map.of(100L, 7));
+        verify(repository).remover(List.of(200L));
+    }
+
+    @Test
+    void naoDeveRepetirLoteQuandoTodasAsConsultasFalham() {
+        CompletableFuture<ProdutoDto> falha = CompletableFuture.failedFuture(new IOException("API indisponível"));
+        when(repository.buscarDesatualizados(Duration.ofMillis(10000), 2)).thenReturn(List.of(100L, 200L));
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(falha);
+        when(produtoService.buscarProdutoPorIdAsync(200L)).thenReturn(falha);
+
+        reservaEstoque.reconciliar();
+
+        verify(repository, times(1)).buscarDesatualizados(Duration.ofMillis(10000), 2);
+        verify(repository).sincronizar(Map.of());
+        verify(repository).remover(List.of());
+    }
+}
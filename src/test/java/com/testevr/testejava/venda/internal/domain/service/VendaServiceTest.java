@@ -4,11 +4,17 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.testevr.testejava.cliente.domain.repository.ClienteRepository;
 import com.testevr.testejava.venda.external.application.dto.BaixaEstoqueResponse;
 import com.testevr.testejava.venda.external.application.dto.ProdutoDto;
+import com.testevr.testejava.venda.external.domain.service.BaixaEstoqueBatcher;
 import com.testevr.testejava.venda.external.domain.service.ProdutoService;
+import com.testevr.testejava.venda.internal.application.dto.ResultadoLoteItemDto;
 import com.testevr.testejava.venda.internal.application.dto.VendaConsolidadaDto;
 import com.testevr.testejava.venda.internal.domain.entity.Venda;
+import com.testevr.testejava.venda.internal.domain.exception.VendaConflitoException;
+import com.testevr.testejava.venda.internal.domain.exception.VendaNaoEncontradaException;
+import com.testevr.testejava.venda.internal.domain.repository.BaixaEstoqueOutboxRepository;
 import com.testevr.testejava.venda.internal.domain.repository.VendaRepository;
 import com.testevr.testejava.venda.internal.domain.valueobject.StatusVenda;
 import com.testevr.testejava.venda.internal.domain.valueobject.ValorVenda;
@@ -18,11 +24,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.time.LocalDateTime;
 
 
@@ -32,9 +45,21 @@ class VendaServiceTest {
     @Mock
     private VendaRepository repository;
 
+    @Mock
+    private ClienteRepository clienteRepository;
+
     @Mock
     private ProdutoService produtoService;
 
+    @Mock
+    private BaixaEstoqueOutboxRepository outboxRepository;
+
+    @Mock
+    private ReservaEstoqueService reservaEstoque;
+
+    @Mock
+    private EstornoEstoqueDispatcher estornoEstoque;
+
     @Mock
     private ValorVenda valorVenda;
 
@@ -44,8 +69,126 @@ class VendaServiceTest {
 
     @BeforeEach
     void setUp() {
-        vendaService = new VendaService(repository, produtoService);
+        vendaService = criarVendaService(false);
         dataAtual = LocalDateTime.now();
+        lenient().when(clienteRepository.findIdsAtivos(Set.of(1L))).thenReturn(Set.of(1L));
+    }
+
+    private VendaService criarVendaService(boolean outboxHabilitado) {
+        return new VendaService(repository, clienteRepository, produtoService,
+                new BaixaEstoqueBatcher(produtoService, false, 0, 1, 1000), outboxRepository, reservaEstoque,
+                new BloqueioProdutoService(true, 16, 1000), estornoEstoque,
+                TransactionOperations.withoutTransaction(), outboxHabilitado);
+    }
+
+    @Test
+    void deveGravarBaixaPendenteNoOutboxSemChamarApiDeBaixa() throws Exception {
+        vendaService = criarVendaService(true);
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        Venda vendaSalva = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.CONCLUIDA);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(repository.create(any(Venda.class))).thenReturn(vendaSalva);
+
+        Venda resultado = vendaService.create(venda);
+
+        assertEquals(1L, resultado.getIdValue());
+        verify(outboxRepository).registrar(List.of(vendaSalva));
+        verify(produtoService, never()).realizarBaixaEstoque(any(), any());
+    }
+
+    @Test
+    void deveGravarBaixasPendentesDoLoteNoOutbox() throws Exception {
+        vendaService = criarVendaService(true);
+        Venda venda1 = new Venda(null, 1L, 100L, valorVenda, 2);
+        Venda venda2 = new Venda(null, 1L, 100L, valorVenda, 3);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+        List<Venda> criadas = Arrays.asList(venda1.atualizarId(10L), venda2.atualizarId(11L));
+
+        when(clienteRepository.findIdsAtivos(any())).thenReturn(Set.of(1L));
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(repository.createEmLote(anyList())).thenReturn(criadas);
+
+        List<ResultadoLoteItemDto> resultados = vendaService.criarEmLote(Arrays.asList(venda1, venda2));
+
+        assertTrue(resultados.get(0).isSucesso());
+        assertTrue(resultados.get(1).isSucesso());
+        verify(outboxRepository).registrar(criadas);
+        verify(produtoService, never()).realizarBaixaEstoque(any(), any());
+    }
+
+    @Test
+    void deveReservarNoEstoqueLocalSemConsultarProduto() throws Exception {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+
+        when(reservaEstoque.isHabilitado()).thenReturn(true);
+        when(reservaEstoque.reservar(100L, 5)).thenReturn(3);
+        when(produtoService.realizarBaixaEstoque(100L, 3)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.create(any(Venda.class))).thenAnswer(inv -> ((Venda) inv.getArgument(0)).atualizarId(1L));
+
+        Venda resultado = vendaService.create(venda);
+
+        assertEquals(3, resultado.getQuantidade());
+        assertEquals(StatusVenda.PENDENTE, resultado.getStatus());
+        verify(produtoService, never()).buscarProdutoPorId(any());
+        verify(reservaEstoque).confirmar(100L, 3);
+        verify(reservaEstoque, never()).devolver(any(), anyInt());
+    }
+
+    @Test
+    void deveDevolverReservaQuandoBaixaFalha() throws Exception {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+
+        when(reservaEstoque.isHabilitado()).thenReturn(true);
+        when(reservaEstoque.reservar(100L, 5)).thenReturn(5);
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenThrow(new IOException("Erro de conexão"));
+
+        assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+
+        verify(reservaEstoque).devolver(100L, 5);
+        verify(reservaEstoque, never()).confirmar(any(), anyInt());
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void deveReservarEstoqueDoLoteNoEstoqueLocal() throws Exception {
+        vendaService = criarVendaService(true);
+        Venda venda1 = new Venda(null, 1L, 100L, valorVenda, 2);
+        Venda venda2 = new Venda(null, 1L, 100L, valorVenda, 3);
+        List<Venda> criadas = Arrays.asList(venda1.atualizarId(10L), venda2.atualizarId(11L));
+
+        when(reservaEstoque.isHabilitado()).thenReturn(true);
+        when(reservaEstoque.reservar(100L, 5)).thenReturn(4);
+        when(clienteRepository.findIdsAtivos(any())).thenReturn(Set.of(1L));
+        when(repository.createEmLote(anyList())).thenReturn(criadas);
+
+        List<ResultadoLoteItemDto> resultados = vendaService.criarEmLote(Arrays.asList(venda1, venda2));
+
+        assertTrue(resultados.get(0).isSucesso());
+        assertTrue(resultados.get(1).isSucesso());
+        verify(produtoService, never()).buscarProdutoPorIdAsync(any());
+        verify(reservaEstoque).confirmar(100L, 4);
+        verify(reservaEstoque, never()).devolver(any(), anyInt());
+    }
+
+    @Test
+    void deveDevolverReservaDasPendentesQueOUpdateEmLoteNaoAlterou() throws Exception {
+        Venda venda1 = new Venda(1L, 1L, 100L, valorVenda, 2, StatusVenda.PENDENTE);
+        Venda venda2 = new Venda(2L, 1L, 100L, valorVenda, 3, StatusVenda.PENDENTE);
+
+        when(reservaEstoque.isHabilitado()).thenReturn(true);
+        when(reservaEstoque.reservar(100L, 5)).thenReturn(5);
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.atualizarEmLote(anyList())).thenReturn(List.of(1L));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(3), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        List<Venda> finalizadas = vendaService.finalizarPendentesEmLote(List.of(venda1, venda2));
+
+        assertEquals(1, finalizadas.size());
+        verify(produtoService, never()).buscarProdutoPorIdAsync(any());
+        verify(reservaEstoque).confirmar(100L, 2);
+        verify(reservaEstoque).devolver(100L, 3);
     }
 
     @Test
@@ -98,6 +241,95 @@ class VendaServiceTest {
         verify(repository, never()).create(any());
     }
 
+    @Test
+    void deveEstornarBaixaQuandoGravacaoDaVendaFalha() throws Exception {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.create(any(Venda.class))).thenThrow(new RuntimeException("Erro ao gravar venda"));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(5), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        Exception exception = assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+
+        assertTrue(exception.getMessage().contains("Erro ao gravar venda"));
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(5), anyString());
+    }
+
+    @Test
+    void deveAgendarReenvioQuandoEstornoFalha() throws Exception {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.create(any(Venda.class))).thenThrow(new RuntimeException("Erro ao gravar venda"));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(5), anyString())).thenThrow(new IOException("Timeout"));
+
+        Exception exception = assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+
+        assertTrue(exception.getMessage().contains("Erro ao gravar venda"));
+        verify(estornoEstoque).registrarFalha(eq(100L), eq(5), startsWith("estorno-estoque-"), eq("Timeout"));
+    }
+
+    @Test
+    void naoDeveEstornarQuandoBaixaNaoFoiRealizada() throws Exception {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenThrow(new IOException("Erro de conexão"));
+
+        assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+
+        verify(produtoService, never()).estornarBaixaEstoque(any(), any(), any());
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoClienteInativo() throws Exception {
+        Venda venda = new Venda(null, 2L, 100L, valorVenda, 5);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(clienteRepository.findIdsAtivos(Set.of(2L))).thenReturn(Set.of());
+        lenient().when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+
+        Exception exception = assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+        assertTrue(exception.getMessage().contains("Cliente não encontrado ou inativo"));
+        verify(produtoService, never()).realizarBaixaEstoque(any(), any());
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void deveCancelarConsultaDoProdutoQuandoClienteInativo() throws Exception {
+        Venda venda = new Venda(null, 2L, 100L, valorVenda, 5);
+        CountDownLatch produtoIniciado = new CountDownLatch(1);
+        AtomicBoolean produtoInterrompido = new AtomicBoolean();
+
+        when(clienteRepository.findIdsAtivos(Set.of(2L))).thenAnswer(invocation -> {
+            assertTrue(produtoIniciado.await(5, TimeUnit.SECONDS));
+            return Set.of();
+        });
+        when(produtoService.buscarProdutoPorId(100L)).thenAnswer(invocation -> {
+            produtoIniciado.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                produtoInterrompido.set(true);
+                throw e;
+            }
+            return null;
+        });
+
+        long inicio = System.nanoTime();
+        Exception exception = assertThrows(RuntimeException.class, () -> vendaService.create(venda));
+
+        assertTrue(exception.getMessage().contains("Cliente não encontrado ou inativo"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) < 5000);
+        assertTrue(produtoInterrompido.get());
+    }
+
     @Test
     void deveLancarExcecaoQuandoProdutoSemEstoque() throws Exception {
         Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
@@ -110,6 +342,237 @@ class VendaServiceTest {
         verify(repository, never()).create(any());
     }
 
+    @Test
+    void deveRegistrarVendaComoRecebidaSemConsultarApiExterna() {
+        Venda venda = new Venda(null, 1L, 100L, valorVenda, 5);
+        when(repository.registrarRecebida(venda, Duration.ofMinutes(5)))
+                .thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA));
+
+        Venda resultado = vendaService.registrarParaProcessamento(venda, Duration.ofMinutes(5));
+
+        assertEquals(1L, resultado.getIdValue());
+        assertEquals(StatusVenda.RECEBIDA, resultado.getStatus());
+        verifyNoInteractions(produtoService);
+    }
+
+    @Test
+    void deveProcessarVendaRecebidaAtualizandoQuantidadeEStatus() throws Exception {
+        Venda recebida = new Venda(1L, 1L, 100L, valorVenda, 10, StatusVenda.RECEBIDA);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 3, 50.0, "UN", dataAtual);
+
+        when(repository.findById(1L)).thenReturn(recebida);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.realizarBaixaEstoque(100L, 3)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.concluirRecebida(any(Venda.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Venda resultado = vendaService.processarVendaRecebida(1L);
+
+        assertEquals(1L, resultado.getIdValue());
+        assertEquals(3, resultado.getQuantidade());
+        assertEquals(StatusVenda.PENDENTE, resultado.getStatus());
+        verify(repository, never()).create(any());
+    }
+
+    @Test
+    void deveMarcarVendaRecebidaComErroQuandoProdutoNaoExiste() throws Exception {
+        Venda recebida = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.RECEBIDA);
+
+        when(repository.findById(1L)).thenReturn(recebida);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(null);
+        when(repository.concluirRecebida(any(Venda.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Venda resultado = vendaService.processarVendaRecebida(1L);
+
+        assertEquals(StatusVenda.ERRO, resultado.getStatus());
+        verify(produtoService, never()).realizarBaixaEstoque(any(), any());
+    }
+
+    @Test
+    void naoDeveReprocessarVendaQueJaSaiuDeRecebida() {
+        Venda concluida = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.CONCLUIDA);
+        when(repository.findById(1L)).thenReturn(concluida);
+
+        Venda resultado = vendaService.processarVendaRecebida(1L);
+
+        assertSame(concluida, resultado);
+        verifyNoInteractions(produtoService);
+        verify(repository, never()).concluirRecebida(any());
+    }
+
+    @Test
+    void deveEstornarBaixaQuandoOutraInstanciaJaProcessouVendaRecebida() throws Exception {
+        Venda recebida = new Venda(1L, 1L, 100L, valorVenda, 3, StatusVenda.RECEBIDA);
+        Venda processada = new Venda(1L, 1L, 100L, valorVenda, 3, StatusVenda.CONCLUIDA);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(repository.findById(1L)).thenReturn(recebida, processada);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.realizarBaixaEstoque(100L, 3)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.concluirRecebida(any(Venda.class)))
+                .thenThrow(new VendaConflitoException("Venda alterada por outra requisição. Versão atual: 2"));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(3), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        Venda resultado = vendaService.processarVendaRecebida(1L);
+
+        assertSame(processada, resultado);
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(3), anyString());
+        verify(repository, never()).update(any());
+    }
+
+    @Test
+    void deveFinalizarPendentesDistribuindoEstoquePorOrdemDeCriacao() throws Exception {
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        Venda maisNova = new Venda(3L, 1L, 100L, valorVenda, 4, StatusVenda.PENDENTE, base.plusMinutes(2), base);
+        Venda maisAntiga = new Venda(1L, 1L, 100L, valorVenda, 4, StatusVenda.PENDENTE, base, base);
+        Venda intermediaria = new Venda(2L, 1L, 100L, valorVenda, 4, StatusVenda.PENDENTE, base.plusMinutes(1), base);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 6, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 6)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.atualizarEmLote(anyList())).thenAnswer(inv -> idsDe(inv.getArgument(0)));
+
+        List<Venda> finalizadas = vendaService.finalizarPendentesEmLote(List.of(maisNova, maisAntiga, intermediaria));
+
+        assertEquals(2, finalizadas.size());
+        assertEquals(1L, finalizadas.get(0).getIdValue());
+        assertEquals(4, finalizadas.get(0).getQuantidade());
+        assertEquals(2L, finalizadas.get(1).getIdValue());
+        assertEquals(2, finalizadas.get(1).getQuantidade());
+        assertEquals(StatusVenda.SUCESSO, finalizadas.get(1).getStatus());
+        verify(produtoService, times(1)).buscarProdutoPorIdAsync(100L);
+        verify(produtoService, times(1)).realizarBaixaEstoque(100L, 6);
+        verify(repository).atualizarEmLote(finalizadas);
+    }
+
+    @Test
+    void deveManterPendentesDoProdutoCujaBaixaFalhou() throws Exception {
+        Venda venda1 = new Venda(1L, 1L, 100L, valorVenda, 2, StatusVenda.PENDENTE);
+        Venda venda2 = new Venda(2L, 1L, 200L, valorVenda, 2, StatusVenda.PENDENTE);
+        ProdutoDto produto1 = new ProdutoDto(100L, "Produto 1", 10, 50.0, "UN", dataAtual);
+        ProdutoDto produto2 = new ProdutoDto(200L, "Produto 2", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto1));
+        when(produtoService.buscarProdutoPorIdAsync(200L)).thenReturn(CompletableFuture.completedFuture(produto2));
+        when(produtoService.realizarBaixaEstoque(100L, 2)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(produtoService.realizarBaixaEstoque(200L, 2)).thenThrow(new IOException("Erro de conexão"));
+        when(repository.atualizarEmLote(anyList())).thenAnswer(inv -> idsDe(inv.getArgument(0)));
+
+        List<Venda> finalizadas = vendaService.finalizarPendentesEmLote(List.of(venda1, venda2));
+
+        assertEquals(1, finalizadas.size());
+        assertEquals(1L, finalizadas.get(0).getIdValue());
+        verify(repository).atualizarEmLote(finalizadas);
+    }
+
+    @Test
+    void deveManterPendentesDoProdutoCujaBaixaFoiRecusada() throws Exception {
+        Venda venda1 = new Venda(1L, 1L, 100L, valorVenda, 2, StatusVenda.PENDENTE);
+        Venda venda2 = new Venda(2L, 1L, 200L, valorVenda, 2, StatusVenda.PENDENTE);
+        ProdutoDto produto1 = new ProdutoDto(100L, "Produto 1", 10, 50.0, "UN", dataAtual);
+        ProdutoDto produto2 = new ProdutoDto(200L, "Produto 2", 10, 50.0, "UN", dataAtual);
+        BaixaEstoqueResponse recusada = new BaixaEstoqueResponse("Estoque insuficiente");
+        recusada.setSucesso(false);
+
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto1));
+        when(produtoService.buscarProdutoPorIdAsync(200L)).thenReturn(CompletableFuture.completedFuture(produto2));
+        when(produtoService.realizarBaixaEstoque(100L, 2)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(produtoService.realizarBaixaEstoque(200L, 2)).thenReturn(recusada);
+        when(repository.atualizarEmLote(anyList())).thenAnswer(inv -> idsDe(inv.getArgument(0)));
+
+        List<Venda> finalizadas = vendaService.finalizarPendentesEmLote(List.of(venda1, venda2));
+
+        assertEquals(1, finalizadas.size());
+        assertEquals(1L, finalizadas.get(0).getIdValue());
+        verify(produtoService, never()).estornarBaixaEstoque(any(), any(), any());
+    }
+
+    @Test
+    void deveEstornarBaixaDasVendasQueOUpdateEmLoteNaoAlterou() throws Exception {
+        Venda venda1 = new Venda(1L, 1L, 100L, valorVenda, 2, StatusVenda.PENDENTE);
+        Venda venda2 = new Venda(2L, 1L, 100L, valorVenda, 3, StatusVenda.PENDENTE);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.atualizarEmLote(anyList())).thenReturn(List.of(1L));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(3), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        List<Venda> finalizadas = vendaService.finalizarPendentesEmLote(List.of(venda1, venda2));
+
+        assertEquals(1, finalizadas.size());
+        assertEquals(1L, finalizadas.get(0).getIdValue());
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(3), anyString());
+    }
+
+    @Test
+    void deveEstornarBaixasQuandoAtualizacaoEmLoteFalha() throws Exception {
+        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 2, StatusVenda.PENDENTE);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 2)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        doThrow(new RuntimeException("Erro ao atualizar vendas em lote")).when(repository).atualizarEmLote(anyList());
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(2), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        assertThrows(RuntimeException.class, () -> vendaService.finalizarPendentesEmLote(List.of(venda)));
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(2), anyString());
+    }
+
+    @Test
+    void deveCriarVendasEmLoteComUmaConsultaEUmaBaixaPorProduto() throws Exception {
+        Venda venda1 = new Venda(null, 1L, 100L, valorVenda, 4);
+        Venda venda2 = new Venda(null, 1L, 100L, valorVenda, 4);
+        Venda venda3 = new Venda(null, 2L, 100L, valorVenda, 1);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 6, 50.0, "UN", dataAtual);
+
+        when(clienteRepository.findIdsAtivos(any())).thenReturn(Set.of(1L));
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 6)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.createEmLote(anyList())).thenAnswer(invocation -> {
+            List<Venda> vendas = invocation.getArgument(0);
+            return Arrays.asList(vendas.get(0).atualizarId(10L), vendas.get(1).atualizarId(11L));
+        });
+
+        List<ResultadoLoteItemDto> resultados = vendaService.criarEmLote(Arrays.asList(venda1, venda2, venda3));
+
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.get(0).isSucesso());
+        assertEquals("CONCLUIDA", resultados.get(0).getStatus());
+        assertEquals(10L, resultados.get(0).getVendaId());
+        assertTrue(resultados.get(1).isSucesso());
+        assertEquals("PENDENTE", resultados.get(1).getStatus());
+        assertEquals(2, resultados.get(1).getQuantidade());
+        assertFalse(resultados.get(2).isSucesso());
+        assertTrue(resultados.get(2).getMensagem().contains("Cliente"));
+        verify(produtoService, times(1)).buscarProdutoPorIdAsync(100L);
+        verify(produtoService, times(1)).realizarBaixaEstoque(100L, 6);
+        verify(repository, times(1)).createEmLote(anyList());
+    }
+
+    @Test
+    void deveEstornarSomenteBaixasRealizadasQuandoGravacaoDoLoteFalha() throws Exception {
+        Venda venda1 = new Venda(null, 1L, 100L, valorVenda, 3);
+        Venda venda2 = new Venda(null, 1L, 200L, valorVenda, 2);
+        Venda venda3 = new Venda(null, 1L, 100L, valorVenda, 1);
+        ProdutoDto produto100 = new ProdutoDto(100L, "Produto A", 10, 50.0, "UN", dataAtual);
+        ProdutoDto produto200 = new ProdutoDto(200L, "Produto B", 10, 30.0, "UN", dataAtual);
+
+        when(clienteRepository.findIdsAtivos(any())).thenReturn(Set.of(1L));
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto100));
+        when(produtoService.buscarProdutoPorIdAsync(200L)).thenReturn(CompletableFuture.completedFuture(produto200));
+        when(produtoService.realizarBaixaEstoque(100L, 4)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(produtoService.realizarBaixaEstoque(200L, 2)).thenThrow(new IOException("Erro de conexão"));
+        when(repository.createEmLote(anyList())).thenThrow(new RuntimeException("Erro ao gravar lote"));
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(4), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        Exception exception = assertThrows(RuntimeException.class,
+                () -> vendaService.criarEmLote(Arrays.asList(venda1, venda2, venda3)));
+
+        assertTrue(exception.getMessage().contains("Erro ao gravar lote"));
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(4), anyString());
+        verify(produtoService, never()).estornarBaixaEstoque(eq(200L), any(), any());
+    }
+
     @Test
     void deveAtualizarVenda() {
         Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.CONCLUIDA);
@@ -236,44 +699,49 @@ class VendaServiceTest {
 
     @Test
     void deveDeletarVenda() {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
-        when(repository.findById(1L)).thenReturn(venda);
         doNothing().when(repository).delete(1L);
 
         vendaService.delete(1L);
 
-        verify(repository).findById(1L);
         verify(repository).delete(1L);
+        verify(repository, never()).findById(anyLong());
+        verify(repository, never()).update(any(Venda.class));
+    }
+
+    @Test
+    void deveDeletarVendasEmLote() {
+        when(repository.deleteEmLote(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        List<Long> removidas = vendaService.deleteEmLote(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of(1L, 3L), removidas);
+        verify(repository, never()).findById(anyLong());
     }
     
 
     @Test
     void deveAdicionarProdutoVenda() throws Exception {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
         Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 8, StatusVenda.PENDENTE);
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
-        when(repository.findById(1L)).thenReturn(venda);
         when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
-        when(repository.update(any(Venda.class))).thenReturn(vendaAtualizada);
+        when(repository.adicionarProduto(1L, 100L, 3)).thenReturn(vendaAtualizada);
 
         Venda resultado = vendaService.adicionarProdutoVenda(1L, 100L, 3);
 
         assertEquals(8, resultado.getQuantidade());
-        verify(repository).findById(1L);
         verify(produtoService).buscarProdutoPorId(100L);
-        verify(repository).update(any(Venda.class));
+        verify(repository).adicionarProduto(1L, 100L, 3);
+        verify(repository, never()).findById(anyLong());
     }
 
     @Test
     void deveAdicionarNovoProdutoVenda() throws Exception {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
         Venda vendaAtualizada = new Venda(1L, 1L, 101L, valorVenda, 3, StatusVenda.PENDENTE);
         ProdutoDto produto = new ProdutoDto(101L, "Novo Produto", 10, 50.0, "UN", dataAtual);
 
-        when(repository.findById(1L)).thenReturn(venda);
         when(produtoService.buscarProdutoPorId(101L)).thenReturn(produto);
-        when(repository.update(any(Venda.class))).thenReturn(vendaAtualizada);
+        when(repository.adicionarProduto(1L, 101L, 3)).thenReturn(vendaAtualizada);
 
         Venda resultado = vendaService.adicionarProdutoVenda(1L, 101L, 3);
 
@@ -282,48 +750,45 @@ class VendaServiceTest {
     }
 
     @Test
-    void deveLancarExcecaoAoAdicionarProdutoEmVendaFinalizada() {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.SUCESSO);
+    void deveLancarExcecaoAoAdicionarProdutoEmVendaFinalizada() throws Exception {
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
-        when(repository.findById(1L)).thenReturn(venda);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(repository.adicionarProduto(1L, 100L, 3))
+                .thenThrow(new VendaConflitoException("Não é possível editar uma venda finalizada ou cancelada"));
 
-        Exception exception = assertThrows(RuntimeException.class,
+        Exception exception = assertThrows(VendaConflitoException.class,
                 () -> vendaService.adicionarProdutoVenda(1L, 100L, 3));
 
         assertTrue(exception.getMessage().contains("finalizada ou cancelada"));
     }
 
     @Test
-    void deveLancarExcecaoAoAdicionarProdutoEmVendaCancelada() {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.CANCELADA);
+    void deveLancarExcecaoAoAdicionarProdutoEmVendaInexistente() throws Exception {
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
-        when(repository.findById(1L)).thenReturn(venda);
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(repository.adicionarProduto(1L, 100L, 3)).thenThrow(new VendaNaoEncontradaException(1L));
 
-        Exception exception = assertThrows(RuntimeException.class,
+        assertThrows(VendaNaoEncontradaException.class,
                 () -> vendaService.adicionarProdutoVenda(1L, 100L, 3));
-
-        assertTrue(exception.getMessage().contains("finalizada ou cancelada"));
     }
 
     @Test
     void deveLancarExcecaoAoAdicionarProdutoInexistente() throws Exception {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
-
-        when(repository.findById(1L)).thenReturn(venda);
         when(produtoService.buscarProdutoPorId(200L)).thenReturn(null);
 
         Exception exception = assertThrows(RuntimeException.class,
                 () -> vendaService.adicionarProdutoVenda(1L, 200L, 3));
 
         assertTrue(exception.getMessage().contains("Produto não encontrado"));
+        verify(repository, never()).adicionarProduto(anyLong(), anyLong(), anyInt());
     }
 
     @Test
     void deveLancarExcecaoAoAdicionarProdutoComEstoqueInsuficiente() throws Exception {
-        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 2, 50.0, "UN", dataAtual);
 
-        when(repository.findById(1L)).thenReturn(venda);
         when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
 
         Exception exception = assertThrows(RuntimeException.class,
@@ -337,20 +802,58 @@ class VendaServiceTest {
         Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 8, StatusVenda.PENDENTE);
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
+        when(repository.findById(1L)).thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE));
         when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
-        when(repository.update(vendaAtualizada)).thenReturn(vendaAtualizada);
+        when(repository.atualizarSeEditavel(vendaAtualizada)).thenReturn(vendaAtualizada);
 
         Venda resultado = vendaService.editarVenda(vendaAtualizada);
 
         assertEquals(vendaAtualizada, resultado);
         verify(produtoService).buscarProdutoPorId(100L);
-        verify(repository).update(vendaAtualizada);
+        verify(repository).atualizarSeEditavel(vendaAtualizada);
+    }
+
+    @Test
+    void deveRepassarConflitoDeVersaoAoEditarVenda() throws Exception {
+        Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 8, StatusVenda.PENDENTE).atualizarVersao(3L);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(repository.findById(1L)).thenReturn(
+                new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE).atualizarVersao(3L));
+        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(repository.atualizarSeEditavel(vendaAtualizada))
+                .thenThrow(new VendaConflitoException("Venda alterada por outra requisição. Versão atual: 4"));
+
+        assertThrows(VendaConflitoException.class, () -> vendaService.editarVenda(vendaAtualizada));
+    }
+
+    @Test
+    void deveRejeitarEdicaoDeVersaoAntigaSemConsultarProduto() {
+        Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 8, StatusVenda.PENDENTE).atualizarVersao(3L);
+
+        when(repository.findById(1L)).thenReturn(
+                new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE).atualizarVersao(4L));
+
+        assertThrows(VendaConflitoException.class, () -> vendaService.editarVenda(vendaAtualizada));
+        verifyNoInteractions(produtoService);
+        verify(repository, never()).atualizarSeEditavel(any());
+    }
+
+    @Test
+    void deveRejeitarEdicaoDeVendaInexistenteSemConsultarProduto() {
+        Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 8, StatusVenda.PENDENTE);
+
+        when(repository.findById(1L)).thenReturn(null);
+
+        assertThrows(VendaNaoEncontradaException.class, () -> vendaService.editarVenda(vendaAtualizada));
+        verifyNoInteractions(produtoService);
     }
 
     @Test
     void deveLancarExcecaoAoEditarVendaComProdutoInexistente() throws Exception {
         Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 15, StatusVenda.PENDENTE);
 
+        when(repository.findById(1L)).thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE));
         when(produtoService.buscarProdutoPorId(100L)).thenReturn(null);
 
         Exception exception = assertThrows(RuntimeException.class,
@@ -364,6 +867,7 @@ class VendaServiceTest {
         Venda vendaAtualizada = new Venda(1L, 1L, 100L, valorVenda, 15, StatusVenda.PENDENTE);
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
+        when(repository.findById(1L)).thenReturn(new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE));
         when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
 
         Exception exception = assertThrows(RuntimeException.class,
@@ -375,36 +879,31 @@ class VendaServiceTest {
     @Test
     void deveFinalizarVendaParcialCompleta() throws Exception {
         Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
-        Venda vendaFinalizada = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.SUCESSO);
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
-        BaixaEstoqueResponse baixaResponse = new BaixaEstoqueResponse("sucesso");
 
         when(repository.findById(1L)).thenReturn(venda);
-        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
-        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(baixaResponse);
-        when(repository.update(any(Venda.class))).thenReturn(vendaFinalizada);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("Baixa realizada"));
+        when(repository.atualizarEmLote(anyList())).thenAnswer(inv -> idsDe(inv.getArgument(0)));
 
         Venda resultado = vendaService.finalizarVendaParcial(1L);
 
         assertEquals(StatusVenda.SUCESSO, resultado.getStatus());
-        verify(repository).findById(1L);
-        verify(produtoService).buscarProdutoPorId(100L);
+        assertEquals(5, resultado.getQuantidade());
         verify(produtoService).realizarBaixaEstoque(100L, 5);
-        verify(repository).update(any(Venda.class));
+        verify(repository).atualizarEmLote(List.of(resultado));
+        verify(repository, never()).update(any());
     }
 
     @Test
     void deveFinalizarVendaParcialParcial() throws Exception {
         Venda venda = new Venda(1L, 1L, 100L, valorVenda, 10, StatusVenda.PENDENTE);
-        Venda vendaFinalizada = new Venda(1L, 1L, 100L, valorVenda, 3, StatusVenda.SUCESSO,
-                venda.getCreatedAt(), venda.getUpdatedAt());
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 3, 50.0, "UN", dataAtual);
-        BaixaEstoqueResponse baixaResponse = new BaixaEstoqueResponse("sucesso");
 
         when(repository.findById(1L)).thenReturn(venda);
-        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
-        when(produtoService.realizarBaixaEstoque(100L, 3)).thenReturn(baixaResponse);
-        when(repository.update(any(Venda.class))).thenReturn(vendaFinalizada);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 3)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.atualizarEmLote(anyList())).thenAnswer(inv -> idsDe(inv.getArgument(0)));
 
         Venda resultado = vendaService.finalizarVendaParcial(1L);
 
@@ -429,7 +928,7 @@ class VendaServiceTest {
         Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
 
         when(repository.findById(1L)).thenReturn(venda);
-        when(produtoService.buscarProdutoPorId(100L)).thenReturn(null);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(null));
 
         Exception exception = assertThrows(RuntimeException.class,
                 () -> vendaService.finalizarVendaParcial(1L));
@@ -443,12 +942,13 @@ class VendaServiceTest {
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 0, 50.0, "UN", dataAtual);
 
         when(repository.findById(1L)).thenReturn(venda);
-        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
 
         Exception exception = assertThrows(RuntimeException.class,
                 () -> vendaService.finalizarVendaParcial(1L));
 
         assertTrue(exception.getMessage().contains("Sem estoque"));
+        verify(produtoService, never()).realizarBaixaEstoque(any(), any());
     }
 
     @Test
@@ -457,7 +957,7 @@ class VendaServiceTest {
         ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
 
         when(repository.findById(1L)).thenReturn(venda);
-        when(produtoService.buscarProdutoPorId(100L)).thenReturn(produto);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
         when(produtoService.realizarBaixaEstoque(100L, 5))
                 .thenThrow(new RuntimeException("Erro na baixa"));
 
@@ -465,6 +965,22 @@ class VendaServiceTest {
                 () -> vendaService.finalizarVendaParcial(1L));
 
         assertTrue(exception.getMessage().contains("Erro ao finalizar venda"));
+        verify(repository, never()).atualizarEmLote(anyList());
+    }
+
+    @Test
+    void deveEstornarBaixaQuandoVendaParcialEhAlteradaDuranteFinalizacao() throws Exception {
+        Venda venda = new Venda(1L, 1L, 100L, valorVenda, 5, StatusVenda.PENDENTE);
+        ProdutoDto produto = new ProdutoDto(100L, "Produto Teste", 10, 50.0, "UN", dataAtual);
+
+        when(repository.findById(1L)).thenReturn(venda);
+        when(produtoService.buscarProdutoPorIdAsync(100L)).thenReturn(CompletableFuture.completedFuture(produto));
+        when(produtoService.realizarBaixaEstoque(100L, 5)).thenReturn(new BaixaEstoqueResponse("sucesso"));
+        when(repository.atualizarEmLote(anyList())).thenReturn(List.of());
+        when(produtoService.estornarBaixaEstoque(eq(100L), eq(5), anyString())).thenReturn(new BaixaEstoqueResponse("estornado"));
+
+        assertThrows(VendaConflitoException.class, () -> vendaService.finalizarVendaParcial(1L));
+        verify(produtoService).estornarBaixaEstoque(eq(100L), eq(5), anyString());
     }
 
     @Test
@@ -567,4 +1083,7 @@ class VendaServiceTest {
         assertTrue(exception.getMessage().contains("Erro ao consultar estoque"));
     }
 
-}
\ No newline at end of file
+    private static List<Long> idsDe(List<Venda> vendas) {
+        return vendas.stream().map(Venda::getIdValue).toList();
+    }
+}